@@ -29,12 +29,12 @@ import java.io.InputStream;
 import java.net.URL;
 
 import org.jboss.as.connector.metadata.xmldescriptors.ConnectorXmlDescriptor;
+import org.jboss.as.deployment.descriptor.DescriptorCache;
 import org.jboss.as.deployment.unit.DeploymentUnitContext;
 import org.jboss.as.deployment.unit.DeploymentUnitProcessingException;
 import org.jboss.as.deployment.unit.DeploymentUnitProcessor;
 import org.jboss.jca.common.api.metadata.ra.Connector;
 import org.jboss.jca.common.metadata.ra.RaParser;
-import org.jboss.vfs.VFSUtils;
 import org.jboss.vfs.VirtualFile;
 
 /**
@@ -45,6 +45,10 @@ import org.jboss.vfs.VirtualFile;
  */
 public class RaDeploymentParsingProcessor implements DeploymentUnitProcessor {
 
+    // ra.xml files shared by several adapters are parsed once; every deployment gets its own copy of the metadata
+    private static final DescriptorCache<Connector> RA_CACHE = new DescriptorCache<Connector>(64, true);
+    private static final DescriptorCache.Parser<Connector> RA_PARSER = new ConnectorParser();
+
     /**
      * Construct a new instance.
      */
@@ -72,13 +76,11 @@ public class RaDeploymentParsingProcessor implements DeploymentUnitProcessor {
 
         VirtualFile serviceXmlFile = deploymentRoot.getChild("/META-INF/ra.xml");
 
-        InputStream xmlStream = null;
         Connector result = null;
         try {
             if (serviceXmlFile != null && serviceXmlFile.exists()) {
 
-                xmlStream = serviceXmlFile.openStream();
-                result = (new RaParser()).parse(xmlStream);
+                result = RA_CACHE.get(serviceXmlFile, RA_PARSER);
                 if (result == null)
                     throw new DeploymentUnitProcessingException("Failed to parse service xml [" + serviceXmlFile + "]");
             }
@@ -90,8 +92,12 @@ public class RaDeploymentParsingProcessor implements DeploymentUnitProcessor {
 
         } catch (Exception e) {
             throw new DeploymentUnitProcessingException("Failed to parse service xml [" + serviceXmlFile + "]", e);
-        } finally {
-            VFSUtils.safeClose(xmlStream);
+        }
+    }
+
+    private static final class ConnectorParser implements DescriptorCache.Parser<Connector> {
+        public Connector parse(InputStream input) throws Exception {
+            return new RaParser().parse(input);
         }
     }
 
@@ -91,6 +91,19 @@ public interface DomainClient extends Closeable {
      */
     byte[] addDeploymentContent(String name, String runtimeName, InputStream stream);
 
+    /**
+     * Add the content for a deployment whose hash is already known.  If the domain controller
+     * already holds content with that hash it only reads the stream to verify the hash,
+     * without storing it again.
+     *
+     * @param name The deployment name
+     * @param runtimeName The runtime name
+     * @param stream The data stream for the deployment
+     * @param hash The SHA-1 hash of the content, or {@code null} if it is not known
+     * @return The unique hash for the deployment
+     */
+    byte[] addDeploymentContent(String name, String runtimeName, InputStream stream, byte[] hash);
+
     /**
      * Gets a {@link DomainDeploymentManager} that provides a convenience API
      * for manipulating domain deployments.
@@ -27,14 +27,19 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.InetAddress;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import org.jboss.as.deployment.PartialDeploymentContent;
 import org.jboss.as.domain.client.api.DomainClient;
 import org.jboss.as.domain.client.api.DomainUpdateApplier;
 import org.jboss.as.domain.client.api.DomainUpdateResult;
@@ -56,14 +61,18 @@ import org.jboss.as.model.UpdateResultHandler;
 import org.jboss.as.model.UpdateResultHandlerResponse;
 import org.jboss.as.protocol.ByteDataInput;
 import org.jboss.as.protocol.ByteDataOutput;
+import org.jboss.as.protocol.ContentOutputStream;
 import org.jboss.as.protocol.ProtocolUtils;
+import org.jboss.as.protocol.ResumableContent;
 import static org.jboss.as.protocol.ProtocolUtils.expectHeader;
 import static org.jboss.as.protocol.ProtocolUtils.unmarshal;
 import org.jboss.as.protocol.SimpleByteDataInput;
 import org.jboss.as.protocol.SimpleByteDataOutput;
 import static org.jboss.as.protocol.StreamUtils.safeClose;
 import static org.jboss.as.protocol.StreamUtils.safeFinish;
+import org.jboss.as.protocol.mgmt.ManagementConnectionPool;
 import org.jboss.as.protocol.mgmt.ManagementException;
+import org.jboss.as.protocol.mgmt.ManagementProtocol;
 import org.jboss.as.protocol.mgmt.ManagementRequest;
 import org.jboss.as.protocol.mgmt.ManagementRequestConnectionStrategy;
 import org.jboss.marshalling.Marshaller;
@@ -87,11 +96,23 @@ public class DomainClientImpl implements DomainClient {
 
     private volatile DomainDeploymentManager deploymentManager;
     private static final long CONNECTION_TIMEOUT = TimeUnit.SECONDS.toMillis(5L);
+    private static final int MAX_POOLED_CONNECTIONS = 4;
+    private static final long POOLED_CONNECTION_IDLE_TIMEOUT = TimeUnit.SECONDS.toMillis(60L);
 
     private final InetAddress address;
     private final int port;
     private final ThreadFactory threadFactory = Executors.defaultThreadFactory();
     private final ExecutorService executorService = Executors.newCachedThreadPool(threadFactory);
+    // closes idle pooled connections; a daemon, so a client which is never closed does not keep the VM alive
+    private final ScheduledExecutorService reaperExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        public Thread newThread(final Runnable r) {
+            final Thread thread = threadFactory.newThread(r);
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+    private final ManagementConnectionPool connectionPool = new ManagementConnectionPool(MAX_POOLED_CONNECTIONS, ManagementConnectionPool.DEFAULT_MAX_CHANNELS_PER_CONNECTION, POOLED_CONNECTION_IDLE_TIMEOUT, CONNECTION_TIMEOUT, executorService, threadFactory, reaperExecutor);
+    private final Set<String> interruptedUploads = Collections.synchronizedSet(new HashSet<String>());
 
     public DomainClientImpl(InetAddress address, int port) {
         this.address = address;
@@ -142,9 +163,34 @@ public class DomainClientImpl implements DomainClient {
 
     @Override
     public byte[] addDeploymentContent(String name, String runtimeName, InputStream stream) {
+        return addDeploymentContent(name, runtimeName, stream, null);
+    }
+
+    @Override
+    public byte[] addDeploymentContent(String name, String runtimeName, InputStream stream, byte[] hash) {
+        final AddDeploymentContentOperation operation;
+        try {
+            InputStream content = stream;
+            long offset = 0L;
+            if (interruptedUploads.remove(name)) {
+                // the domain controller may still hold the start of the content from the last attempt
+                final PartialDeploymentContent partialContent = new GetPartialDeploymentContentOperation(name).executeForResult(getConnectionStrategy());
+                if (partialContent != null) {
+                    final ResumableContent resumable = ResumableContent.resume(stream, partialContent.getLength(), partialContent.getHash());
+                    content = resumable.getStream();
+                    offset = resumable.getOffset();
+                }
+            }
+            operation = new AddDeploymentContentOperation(name, runtimeName, content, offset, hash);
+        } catch (Exception e) {
+            throw new ManagementException("Failed to add deployment content.", e);
+        }
         try {
-            return new AddDeploymentContentOperation(name, runtimeName, stream).executeForResult(getConnectionStrategy());
+            return operation.executeForResult(getConnectionStrategy());
         } catch (Exception e) {
+            if (operation.streamed) {
+                interruptedUploads.add(name);
+            }
             throw new ManagementException("Failed to add deployment content.", e);
         }
     }
@@ -264,6 +310,8 @@ public class DomainClientImpl implements DomainClient {
     }
 
     public void close() throws IOException {
+        connectionPool.close();
+        reaperExecutor.shutdown();
         executorService.shutdown();
     }
 
@@ -850,11 +898,16 @@ public class DomainClientImpl implements DomainClient {
         private final String name;
         private final String runtimeName;
         private final InputStream inputStream;
+        private final long offset;
+        private final byte[] hash;
+        private volatile boolean streamed;
 
-        private AddDeploymentContentOperation(final String name, final String runtimeName, final InputStream inputStream) {
+        private AddDeploymentContentOperation(final String name, final String runtimeName, final InputStream inputStream, final long offset, final byte[] hash) {
             this.name = name;
             this.runtimeName = runtimeName;
             this.inputStream = inputStream;
+            this.offset = offset;
+            this.hash = hash;
         }
 
         @Override
@@ -876,6 +929,29 @@ public class DomainClientImpl implements DomainClient {
                 output.writeUTF(name);
                 output.writeByte(DomainClientProtocol.PARAM_DEPLOYMENT_RUNTIME_NAME);
                 output.writeUTF(runtimeName);
+                if (protocolVersion >= ManagementProtocol.STREAMED_CONTENT_VERSION) {
+                    streamed = true;
+                    output.writeByte(DomainClientProtocol.PARAM_DEPLOYMENT_CONTENT_STREAM);
+                    output.writeLong(offset);
+                    if (hash == null) {
+                        output.writeInt(0);
+                    } else {
+                        output.writeInt(hash.length);
+                        output.write(hash);
+                    }
+                    try {
+                        final ContentOutputStream contentOutput = new ContentOutputStream((OutputStream) output);
+                        contentOutput.transferFrom(inputStream);
+                        contentOutput.close();
+                    } finally {
+                        safeClose(inputStream);
+                    }
+                    output.close();
+                    return;
+                }
+                if (offset != 0L) {
+                    throw new IOException("Domain controller does not support resuming uploads");
+                }
                 output.writeByte(DomainClientProtocol.PARAM_DEPLOYMENT_CONTENT);
                 try {
                     byte[] buffer = new byte[8192];
@@ -910,6 +986,57 @@ public class DomainClientImpl implements DomainClient {
         }
     }
 
+    private class GetPartialDeploymentContentOperation extends DomainClientRequest<PartialDeploymentContent> {
+        private final String name;
+
+        private GetPartialDeploymentContentOperation(final String name) {
+            this.name = name;
+        }
+
+        @Override
+        public final byte getRequestCode() {
+            return DomainClientProtocol.GET_PARTIAL_DEPLOYMENT_CONTENT_REQUEST;
+        }
+
+        @Override
+        protected final byte getResponseCode() {
+            return DomainClientProtocol.GET_PARTIAL_DEPLOYMENT_CONTENT_RESPONSE;
+        }
+
+        @Override
+        protected void sendRequest(final int protocolVersion, final OutputStream outputStream) throws IOException {
+            ByteDataOutput output = null;
+            try {
+                output = new SimpleByteDataOutput(outputStream);
+                output.writeByte(DomainClientProtocol.PARAM_DEPLOYMENT_NAME);
+                output.writeUTF(name);
+                output.close();
+            } finally {
+                safeClose(output);
+            }
+        }
+
+        @Override
+        protected final PartialDeploymentContent receiveResponse(final InputStream inputStream) throws IOException {
+            ByteDataInput input = null;
+            try {
+                input = new SimpleByteDataInput(inputStream);
+                expectHeader(input, DomainClientProtocol.RETURN_PARTIAL_DEPLOYMENT_CONTENT);
+                PartialDeploymentContent partialContent = null;
+                if (input.readBoolean()) {
+                    final long length = input.readLong();
+                    final byte[] hash = new byte[input.readInt()];
+                    input.readFully(hash);
+                    partialContent = new PartialDeploymentContent(length, hash);
+                }
+                input.close();
+                return partialContent;
+            } finally {
+                 safeClose(input);
+            }
+        }
+    }
+
     private class CheckUnitDeploymentNameOperation extends DomainClientRequest<Boolean> {
         private final String deploymentName;
 
@@ -965,6 +1092,6 @@ public class DomainClientImpl implements DomainClient {
     }
 
     private ManagementRequestConnectionStrategy getConnectionStrategy() {
-        return new ManagementRequestConnectionStrategy.EstablishConnectingStrategy(address, port, CONNECTION_TIMEOUT, executorService, threadFactory);
+        return connectionPool.getConnectionStrategy(address, port);
     }
 }
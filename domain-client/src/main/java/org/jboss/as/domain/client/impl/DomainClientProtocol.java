@@ -98,4 +98,8 @@ public interface DomainClientProtocol {
     int STOP_SERVER_RESPONSE = 0x79;
     int RESTART_SERVER_REQUEST = 0x7A;
     int RESTART_SERVER_RESPONSE = 0x7B;
+    int PARAM_DEPLOYMENT_CONTENT_STREAM = 0x7C;
+    int GET_PARTIAL_DEPLOYMENT_CONTENT_REQUEST = 0x7D;
+    int RETURN_PARTIAL_DEPLOYMENT_CONTENT = 0x7E;
+    int GET_PARTIAL_DEPLOYMENT_CONTENT_RESPONSE = 0x7F;
 }
@@ -35,7 +35,6 @@ import java.util.Set;
 class ConcurrentGroupServerUpdatePolicy {
     private final ConcurrentGroupServerUpdatePolicy predecessor;
     private final Set<String> groups = new HashSet<String>();
-    private int responseCount;
     private boolean failed;
 
     /**
@@ -55,7 +54,9 @@ class ConcurrentGroupServerUpdatePolicy {
 
     /**
      * Check from another ConcurrentGroupServerUpdatePolicy whose plans are meant to
-     * execute once this policy's plans are successfully completed.
+     * execute once this policy's plans are successfully completed.  Successors are
+     * only started once every server group update controlled by this policy is done,
+     * so there is no need to wait for outstanding results.
      *
      * @return <code>true</code> if the successor can proceed
      */
@@ -66,14 +67,6 @@ class ConcurrentGroupServerUpdatePolicy {
         }
 
         synchronized (this) {
-            while (responseCount < groups.size()) {
-                try {
-                    wait();
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    return false;
-                }
-            }
             return !failed;
         }
     }
@@ -99,11 +92,9 @@ class ConcurrentGroupServerUpdatePolicy {
 
         synchronized (this) {
             if (groups.contains(serverGroup)) {
-                responseCount++;
                 if (failed) {
                     this.failed = true;
                 }
-                notifyAll();
             }
             else {
                 throw new IllegalStateException("Unknown server group " + serverGroup);
@@ -1,42 +1,84 @@
 package org.jboss.as.domain.controller;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Future;
 
-/** A task that uses the executor service to concurrently execute other tasks */
-class ConcurrentUpdateTask implements Runnable {
+/**
+ * A task that concurrently executes other tasks, starting at most {@code maxConcurrent} of them at a time.  A new
+ * task is started as each running one completes, so no thread is held while the tasks run.
+ */
+class ConcurrentUpdateTask implements UpdateTask {
 
-    private final List<Runnable> concurrentTasks;
-    private final ExecutorService executorService;
+    private final List<UpdateTask> concurrentTasks;
+    private final int maxConcurrent;
 
-    ConcurrentUpdateTask(final List<Runnable> concurrentTasks, final ExecutorService executorService) {
+    ConcurrentUpdateTask(final List<UpdateTask> concurrentTasks, final int maxConcurrent) {
+        assert maxConcurrent > 0 : "maxConcurrent is not positive";
         this.concurrentTasks = concurrentTasks;
-        this.executorService = executorService;
+        this.maxConcurrent = maxConcurrent;
     }
 
     @Override
-    public void run() {
+    public void execute(final Runnable completionTask) {
+        if (concurrentTasks.isEmpty()) {
+            completionTask.run();
+            return;
+        }
+        new Execution(completionTask).startPending();
+    }
+
+    /**
+     * Starts the tasks, keeping at most {@code maxConcurrent} of them running.  Tasks are only started by the thread
+     * in {@link #startPending()}; a task which completes while that thread is starting tasks leaves the start of its
+     * successor to it, so a run of synchronously completing tasks does not grow the stack.
+     */
+    private final class Execution implements Runnable {
+        private final Runnable completionTask;
+        private int next;
+        private int remaining = concurrentTasks.size();
+        /** tasks which may be started but have not been */
+        private int pending = Math.min(maxConcurrent, concurrentTasks.size());
+        /** whether a thread is in {@link #startPending()} */
+        private boolean starting;
+
+        private Execution(final Runnable completionTask) {
+            this.completionTask = completionTask;
+        }
 
-        // Submit each task to the executor
-        List<Future<?>> futures = new ArrayList<Future<?>>();
-        for (Runnable r : concurrentTasks) {
-            futures.add(executorService.submit(r));
+        /** Called when a task completes */
+        @Override
+        public void run() {
+            final boolean done;
+            synchronized (this) {
+                done = --remaining == 0;
+                if (next + pending < concurrentTasks.size()) {
+                    pending++;
+                }
+            }
+            if (done) {
+                completionTask.run();
+            } else {
+                startPending();
+            }
         }
 
-        // Wait until all complete before returning
-        for (int i = 0; i < futures.size(); i++) {
-            Future<?> future = futures.get(i);
-            try {
-                future.get();
-            } catch (InterruptedException e) {
-                DomainDeploymentHandler.logger.errorf("ConcurrentUpdateTask caught InterruptedException waiting for task %s; returning", concurrentTasks.get(i).toString());
-                Thread.currentThread().interrupt();
-                return;
-            } catch (ExecutionException e) {
-                DomainDeploymentHandler.logger.errorf(e, "ConcurrentUpdateTask caught ExecutionException waiting for task %s", concurrentTasks.get(i).toString());
+        private void startPending() {
+            synchronized (this) {
+                if (starting) {
+                    return;
+                }
+                starting = true;
+            }
+            for (;;) {
+                final int index;
+                synchronized (this) {
+                    if (pending == 0) {
+                        starting = false;
+                        return;
+                    }
+                    pending--;
+                    index = next++;
+                }
+                concurrentTasks.get(index).execute(this);
             }
         }
     }
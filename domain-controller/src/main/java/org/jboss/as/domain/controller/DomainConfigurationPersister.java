@@ -22,11 +22,16 @@ public interface DomainConfigurationPersister {
     InputStream getConfigurationInputStream() throws IOException;
 
     /**
-     * Persist the given domain model.
+     * Persist the given domain model.  The model may be written after this method returns.
      *
      * @param domainModel the model. Cannot be <code>null</code>
      */
     void persistConfiguration(DomainModel domainModel);
 
+    /**
+     * Wait for any pending persistence of the domain model to complete.
+     */
+    void flush();
+
 }
 
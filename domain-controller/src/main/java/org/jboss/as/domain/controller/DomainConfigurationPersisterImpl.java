@@ -22,24 +22,18 @@
 
 package org.jboss.as.domain.controller;
 
-import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 
-import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamException;
-import javax.xml.stream.XMLStreamWriter;
 
+import org.jboss.as.model.BackgroundConfigurationWriter;
 import org.jboss.as.model.DomainModel;
 import org.jboss.as.model.Element;
-import org.jboss.as.protocol.StreamUtils;
-import org.jboss.logging.Logger;
 import org.jboss.staxmapper.XMLContentWriter;
 import org.jboss.staxmapper.XMLExtendedStreamWriter;
-import org.jboss.staxmapper.XMLMapper;
 
 /**
  * Default implementation of {@link DomainConfigurationPersister}.
@@ -52,11 +46,10 @@ public class DomainConfigurationPersisterImpl implements DomainConfigurationPers
     public static final String CONFIG_FILE = "domain.xml";
 
     /** Suffix to append to the config file name to create the backup copy. */
-    public static final String BACKUP_SUFFIX = ".last-known-good";
-
-    private static Logger logger = Logger.getLogger("org.jboss.as.domain");
+    public static final String BACKUP_SUFFIX = BackgroundConfigurationWriter.BACKUP_SUFFIX;
 
     private final File configFile;
+    private final BackgroundConfigurationWriter writer;
 
     public DomainConfigurationPersisterImpl(File configDir) {
 
@@ -74,6 +67,7 @@ public class DomainConfigurationPersisterImpl implements DomainConfigurationPers
             }
         }
         this.configFile = configFile;
+        this.writer = new BackgroundConfigurationWriter(configFile);
     }
 
     @Override
@@ -83,57 +77,15 @@ public class DomainConfigurationPersisterImpl implements DomainConfigurationPers
 
     @Override
     public void persistConfiguration(final DomainModel domainModel) {
-
-        FileOutputStream fos = null;
-        BufferedOutputStream bos = null;
-        XMLStreamWriter xmlWriter = null;
-        try {
-            backupConfigFile();
-            configFile.createNewFile();
-            fos = new FileOutputStream(configFile);
-            bos = new BufferedOutputStream(fos);
-            xmlWriter = XMLOutputFactory.newInstance().createXMLStreamWriter(bos);
-            final XMLMapper mapper = XMLMapper.Factory.create();
-            mapper.deparseDocument(new RootElementWriter(domainModel), xmlWriter);
-        } catch (Exception e) {
-            logger.errorf(e, "Failed persisting configuration file %s" , configFile.getAbsolutePath());
-        } finally {
-            if (xmlWriter != null) {
-                try {
-                    xmlWriter.close();
-               } catch (XMLStreamException e) {
-                   logger.warnf(e, "Failed closing writer to configuration file %s" , configFile.getAbsolutePath());
-               }
-            }
-            StreamUtils.safeClose(bos);
-            StreamUtils.safeClose(fos);
+        // updates hold the model's monitor, so the document is a consistent snapshot
+        synchronized (domainModel) {
+            writer.write(new RootElementWriter(domainModel));
         }
     }
 
-    private void backupConfigFile() throws IOException {
-        File backup = new File(configFile.getParent(), configFile.getName() + BACKUP_SUFFIX);
-        copyFile(configFile, backup);
-    }
-
-    private static void copyFile(File file, File backup) throws IOException {
-
-        if (backup.exists())
-            backup.delete();
-
-        if (!file.renameTo(backup)) {
-            final FileInputStream fis = new FileInputStream(file);
-            try {
-                final FileOutputStream fos = new FileOutputStream(backup);
-                try {
-                    StreamUtils.copyStream(fis, fos);
-                    fos.close();
-                } finally {
-                    StreamUtils.safeClose(fos);
-                }
-            } finally {
-                StreamUtils.safeClose(fis);
-            }
-        }
+    @Override
+    public void flush() {
+        writer.flushQuietly();
     }
 
     private static class RootElementWriter implements XMLContentWriter {
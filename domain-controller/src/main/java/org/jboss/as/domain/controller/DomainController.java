@@ -7,6 +7,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 
+import org.jboss.as.deployment.PartialDeploymentContent;
 import org.jboss.as.domain.client.api.DomainUpdateApplier;
 import org.jboss.as.domain.client.api.DomainUpdateResult;
 import org.jboss.as.domain.client.api.HostUpdateResult;
@@ -56,12 +57,24 @@ public interface DomainController {
     void removeClient(final String id);
 
     /**
-     * Gets the current domain configuration.
+     * Gets the current domain configuration.  This is the live model, which updates change while it is being read:
+     * reads spanning more than one getter, or reaching nested elements, should go through
+     * {@link DomainModel#read(org.jboss.as.model.ModelQuery)}, and the whole model should be serialized from a
+     * {@link DomainModel#snapshot() snapshot}.
      *
      * @return the configuration. Will not return <code>null</code>
      */
     DomainModel getDomainModel();
 
+    /**
+     * Gets the log of updates applied to the domain configuration, used to bring host controllers' copies of it
+     * up to date.  Updates are applied and logged while holding the domain model's monitor, so a version read
+     * together with a {@link DomainModel#snapshot() snapshot} under that monitor describes the snapshot.
+     *
+     * @return the update log. Will not return <code>null</code> once the domain controller has started
+     */
+    DomainModelUpdateLog getDomainModelUpdateLog();
+
     /**
      * Gets the {@link HostModel#getName() names} of the currently registered
      * Host Controllers.
@@ -248,6 +261,36 @@ public interface DomainController {
     byte[] addDeploymentContent(final String uniqueName, final String runtimeName, final InputStream stream)
     throws IOException;
 
+    /**
+     * Add deployment content to the domain's content repository, resuming an
+     * upload which was interrupted, and determine the hash of the content.
+     * Content whose expected hash the repository already holds is only hashed.
+     *
+     * @param uniqueName the uniqueName of the content
+     * @param runtimeName the name by which this content should be known to
+     *                     runtime services
+     * @param stream InputStream from which the content following {@code offset} can be read
+     * @param offset the number of leading bytes to take from the partial content
+     * @param expectedHash the hash the sender claims for the content, or {@code null} if it is not known
+     *
+     * @return the hash of the content
+     *
+     * @throws IOException if there is a problem reading or storing the content, or it does not match {@code expectedHash}
+     */
+    byte[] addDeploymentContent(final String uniqueName, final String runtimeName, final InputStream stream, final long offset, final byte[] expectedHash)
+    throws IOException;
+
+    /**
+     * Get the part of some deployment content which was received before an upload was interrupted.
+     *
+     * @param uniqueName the uniqueName of the content
+     *
+     * @return the partial content, or {@code null} if there is none
+     *
+     * @throws IOException if there is a problem reading the content
+     */
+    PartialDeploymentContent getPartialDeploymentContent(final String uniqueName) throws IOException;
+
     /**
      * Executes a deployment plan, pushing progress updates to a queue as the
      * execution proceeds.
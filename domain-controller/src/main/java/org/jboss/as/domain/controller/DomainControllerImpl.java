@@ -22,7 +22,6 @@
 
 package org.jboss.as.domain.controller;
 
-import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -43,8 +42,8 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
-import javax.xml.stream.XMLInputFactory;
-
+import org.jboss.as.deployment.DeploymentContentCleaner;
+import org.jboss.as.deployment.PartialDeploymentContent;
 import org.jboss.as.domain.client.api.DomainUpdateResult;
 import org.jboss.as.domain.client.api.HostUpdateResult;
 import org.jboss.as.domain.client.api.ServerIdentity;
@@ -54,8 +53,13 @@ import org.jboss.as.domain.client.impl.DomainUpdateApplierResponse;
 import org.jboss.as.model.AbstractDomainModelUpdate;
 import org.jboss.as.model.AbstractHostModelUpdate;
 import org.jboss.as.model.AbstractServerModelUpdate;
+import org.jboss.as.model.DeploymentUnitElement;
 import org.jboss.as.model.DomainModel;
+import org.jboss.as.model.ModelQuery;
 import org.jboss.as.model.HostModel;
+import org.jboss.as.model.ParsedConfigurationCache;
+import org.jboss.as.model.ServerGroupDeploymentElement;
+import org.jboss.as.model.ServerGroupElement;
 import org.jboss.as.model.ServerModel;
 import org.jboss.as.model.UpdateFailedException;
 import org.jboss.as.model.UpdateResultHandlerResponse;
@@ -76,7 +80,8 @@ import org.jboss.staxmapper.XMLMapper;
  */
 public class DomainControllerImpl implements Service<DomainController>, DomainController {
     private static final Logger log = Logger.getLogger("org.jboss.as.domain.controller");
-    private DomainModel domainModel;
+    private volatile DomainModel domainModel;
+    private volatile DomainModelUpdateLog updateLog;
     private final ConcurrentMap<String, HostControllerClient> clients = new ConcurrentHashMap<String, HostControllerClient>();
     private final InjectedValue<XMLMapper> xmlMapper = new InjectedValue<XMLMapper>();
     private final InjectedValue<File> domainConfigDir = new InjectedValue<File>();
@@ -84,6 +89,7 @@ public class DomainControllerImpl implements Service<DomainController>, DomainCo
     private final InjectedValue<ScheduledExecutorService> scheduledExecutorService = new InjectedValue<ScheduledExecutorService>();
     private volatile DomainConfigurationPersister configPersister;
     private ScheduledFuture<?> pollingFuture;
+    private ScheduledFuture<?> cleanupFuture;
     private DomainDeploymentHandler deploymentPlanHandler;
     private DomainDeploymentRepository deploymentRepository;
 
@@ -121,6 +127,7 @@ public class DomainControllerImpl implements Service<DomainController>, DomainCo
 
             log.info("Parsing Domain Configuration");
             domainModel = parseDomain(xmlMapper.getValue());
+            updateLog = new DomainModelUpdateLog();
 
             deploymentPlanHandler = new DomainDeploymentHandler(this, scheduledExecutorService.getValue());
             pollingFuture = scheduledExecutorService.getValue().scheduleAtFixedRate(new Runnable() {
@@ -132,6 +139,11 @@ public class DomainControllerImpl implements Service<DomainController>, DomainCo
                     }
                 }
             }, 30L, 30L, TimeUnit.SECONDS);
+            cleanupFuture = scheduledExecutorService.getValue().scheduleWithFixedDelay(deploymentRepository.createContentCleaner(new DeploymentContentCleaner.ContentReferences() {
+                public Set<String> getReferencedContent() {
+                    return getReferencedDeploymentContent();
+                }
+            }), 10L, 10L, TimeUnit.MINUTES);
         } catch (IllegalStateException e) {
             throw new StartException("Failed to start " + getClass().getSimpleName(), e);
         }
@@ -143,10 +155,44 @@ public class DomainControllerImpl implements Service<DomainController>, DomainCo
     @Override
     public synchronized void stop(final StopContext stopContext) {
         log.info("Stopping Domain Controller");
+        // Don't lose configuration changes still being written
+        configPersister.flush();
         domainModel = null;
         if(pollingFuture != null) {
             pollingFuture.cancel(true);
         }
+        if(cleanupFuture != null) {
+            cleanupFuture.cancel(false);
+        }
+    }
+
+    private Set<String> getReferencedDeploymentContent() {
+        final DomainModel domainModel = getDomainModel();
+        if (domainModel == null) {
+            // never let a stopped controller make all content look unreferenced
+            throw new IllegalStateException("Domain model is not available");
+        }
+        // server groups are changed in place, so read them from a single version of the model
+        return domainModel.read(new ModelQuery<DomainModel, Set<String>>() {
+            public Set<String> execute(final DomainModel model) {
+                final Set<String> referenced = new HashSet<String>();
+                for (String deploymentName : model.getDeploymentNames()) {
+                    final DeploymentUnitElement deployment = model.getDeployment(deploymentName);
+                    if (deployment != null) {
+                        referenced.add(deployment.getSha1HashAsHexString());
+                    }
+                }
+                for (String serverGroupName : model.getServerGroupNames()) {
+                    final ServerGroupElement serverGroup = model.getServerGroup(serverGroupName);
+                    if (serverGroup != null) {
+                        for (ServerGroupDeploymentElement deployment : serverGroup.getDeployments()) {
+                            referenced.add(deployment.getSha1HashAsHexString());
+                        }
+                    }
+                }
+                return referenced;
+            }
+        });
     }
 
     @Override
@@ -161,8 +207,10 @@ public class DomainControllerImpl implements Service<DomainController>, DomainCo
      */
     @Override
     public void addClient(final HostControllerClient domainControllerClient) {
-        if(clients.putIfAbsent(domainControllerClient.getId(), domainControllerClient) != null) {
-            // TODO: Handle duplicate client
+        final HostControllerClient previous = clients.put(domainControllerClient.getId(), domainControllerClient);
+        if(previous != null && previous != domainControllerClient) {
+            // the host controller registered again; release the connection of its old client
+            previous.close();
         }
     }
 
@@ -171,8 +219,11 @@ public class DomainControllerImpl implements Service<DomainController>, DomainCo
      */
     @Override
     public void removeClient(final String id) {
-        if(clients.remove(id) == null) {
+        final HostControllerClient client = clients.remove(id);
+        if(client == null) {
             // TODO: Handle non-existent client
+        } else {
+            client.close();
         }
     }
 
@@ -182,10 +233,19 @@ public class DomainControllerImpl implements Service<DomainController>, DomainCo
      * @see org.jboss.as.domain.controller.DomainController#getDomainModel()
      */
     @Override
-    public synchronized DomainModel getDomainModel() {
+    public DomainModel getDomainModel() {
+        // the field is volatile, which publishes the model set by start(); see the interface for reading it
         return domainModel;
     }
 
+    /* (non-Javadoc)
+     * @see org.jboss.as.domain.controller.DomainController#getDomainModelUpdateLog()
+     */
+    @Override
+    public DomainModelUpdateLog getDomainModelUpdateLog() {
+        return updateLog;
+    }
+
     /* (non-Javadoc)
      * @see org.jboss.as.domain.controller.DomainController#getHostControllerNames()
      */
@@ -312,9 +372,8 @@ public class DomainControllerImpl implements Service<DomainController>, DomainCo
 
     private DomainModel parseDomain(final XMLMapper mapper) {
         try {
-            InputStream reader = configPersister.getConfigurationInputStream();
-            final List<AbstractDomainModelUpdate<?>> domainUpdates = new ArrayList<AbstractDomainModelUpdate<?>>();
-            mapper.parseDocument(domainUpdates, XMLInputFactory.newInstance().createXMLStreamReader(new BufferedInputStream(reader)));
+            final File cacheFile = new File(getDomainConfigDir(), DomainConfigurationPersisterImpl.CONFIG_FILE + ParsedConfigurationCache.CACHE_SUFFIX);
+            final List<AbstractDomainModelUpdate<?>> domainUpdates = new ParsedConfigurationCache(cacheFile).parse(configPersister.getConfigurationInputStream(), mapper);
             final DomainModel domainModel = new DomainModel();
             for(final AbstractDomainModelUpdate<?> update : domainUpdates) {
                 domainModel.update(update);
@@ -424,12 +483,13 @@ public class DomainControllerImpl implements Service<DomainController>, DomainCo
 
         // First we apply updates to our local model copy
         boolean ok = true;
+        long version = updateLog.getVersion();
         List<AbstractDomainModelUpdate<?>> rollbacks = new ArrayList<AbstractDomainModelUpdate<?>>();
         for (AbstractDomainModelUpdate<?> update : updates) {
             if (ok) {
                 try {
                     AbstractDomainModelUpdate<?> rollback = update.getCompensatingUpdate(domainModel);
-                    domainModel.update(update);
+                    version = applyAndLog(update);
                     // Add the rollback after success so we don't rollback
                     // the failed update -- which should not have changed anything
                     rollbacks.add(0, rollback);
@@ -451,22 +511,14 @@ public class DomainControllerImpl implements Service<DomainController>, DomainCo
 
         if (!ok) {
             // Apply compensating updates to fix our local model
-            for (int i = 0; i < rollbacks.size(); i++) {
-                AbstractDomainModelUpdate<?> rollback = rollbacks.get(i);
-                try {
-                    domainModel.update(rollback);
-                }
-                catch (UpdateFailedException e) {
-                    // TODO uh oh. Reload from the file?
-                }
-            }
+            applyRollbacks(rollbacks);
         }
         else {
             log.debug("Domain updates applied successfully locally; pushing to host controllers");
             // Persist model
             configPersister.persistConfiguration(domainModel);
             // Move on to host controllers.
-            result = applyUpdatesToHostControllers(updates, rollbacks);
+            result = applyUpdatesToHostControllers(updates, rollbacks, version);
         }
 
         return result;
@@ -512,6 +564,21 @@ public class DomainControllerImpl implements Service<DomainController>, DomainCo
         return deploymentRepository.addDeploymentContent(name, runtimeName, stream);
     }
 
+    public byte[] addDeploymentContent(final String name, final String runtimeName, final InputStream stream, final long offset, final byte[] expectedHash)
+        throws IOException {
+        if (deploymentRepository == null) {
+            throw new IllegalStateException("Must call start before requesting " + DomainDeploymentRepository.class.getSimpleName());
+        }
+        return deploymentRepository.addDeploymentContent(name, runtimeName, stream, offset, expectedHash);
+    }
+
+    public PartialDeploymentContent getPartialDeploymentContent(final String name) throws IOException {
+        if (deploymentRepository == null) {
+            throw new IllegalStateException("Must call start before requesting " + DomainDeploymentRepository.class.getSimpleName());
+        }
+        return deploymentRepository.getPartialDeploymentContent(name);
+    }
+
     /* (non-Javadoc)
      * @see org.jboss.as.domain.controller.DomainController#isDeploymentNameUnique(java.lang.String)
      */
@@ -521,7 +588,7 @@ public class DomainControllerImpl implements Service<DomainController>, DomainCo
     }
 
     private List<DomainUpdateApplierResponse> applyUpdatesToHostControllers(final List<AbstractDomainModelUpdate<?>> updates,
-            List<AbstractDomainModelUpdate<?>> rollbacks) {
+            List<AbstractDomainModelUpdate<?>> rollbacks, final long version) {
 
         List<DomainUpdateApplierResponse> result = new ArrayList<DomainUpdateApplierResponse>(updates.size());
 
@@ -533,7 +600,7 @@ public class DomainControllerImpl implements Service<DomainController>, DomainCo
 
                 @Override
                 public List<ModelUpdateResponse<List<ServerIdentity>>> call() throws Exception {
-                    return client.updateDomainModel(updates);
+                    return client.updateDomainModel(updates, version);
                 }
 
             };
@@ -594,15 +661,7 @@ public class DomainControllerImpl implements Service<DomainController>, DomainCo
             log.warn("One or more updates failed on some host controllers; rolling back");
 
             // Apply compensating updates to fix our local model
-            for (int i = 0; i < rollbacks.size(); i++) {
-                AbstractDomainModelUpdate<?> rollback = rollbacks.get(i);
-                try {
-                    domainModel.update(rollback);
-                }
-                catch (UpdateFailedException e) {
-                    // TODO uh oh. Reload from the file?
-                }
-            }
+            final long rolledBackVersion = applyRollbacks(rollbacks);
 
             // List of servers we fail to successfully roll back
             Set<String> outOfSync = new HashSet<String>();
@@ -637,7 +696,7 @@ public class DomainControllerImpl implements Service<DomainController>, DomainCo
                     Callable<Boolean> callable = new Callable<Boolean>() {
                         @Override
                         public Boolean call() throws Exception {
-                            List<ModelUpdateResponse<List<ServerIdentity>>> rsp = client.updateDomainModel(hostControllerRollbacks);
+                            List<ModelUpdateResponse<List<ServerIdentity>>> rsp = client.updateDomainModel(hostControllerRollbacks, rolledBackVersion);
                             return Boolean.valueOf(rsp.size() == hostControllerRollbacks.size() && rsp.get(rsp.size() - 1).isSuccess());
                         }
                     };
@@ -665,10 +724,18 @@ public class DomainControllerImpl implements Service<DomainController>, DomainCo
                 }
             }
 
-            for (String host : outOfSync) {
+            if (! outOfSync.isEmpty()) {
                 // Rollback failed; need to push the whole model
-                HostControllerClient client = clients.get(host);
-                client.updateDomainModel(domainModel);
+                final DomainModel snapshot;
+                final long snapshotVersion;
+                synchronized (domainModel) {
+                    snapshotVersion = updateLog.getVersion();
+                    snapshot = domainModel.snapshot();
+                }
+                for (String host : outOfSync) {
+                    HostControllerClient client = clients.get(host);
+                    client.updateDomainModel(snapshot, snapshotVersion);
+                }
             }
 
             // Update the result list to record the rollbacks
@@ -683,6 +750,37 @@ public class DomainControllerImpl implements Service<DomainController>, DomainCo
         return result;
     }
 
+    private long applyRollbacks(final List<AbstractDomainModelUpdate<?>> rollbacks) {
+        long version = updateLog.getVersion();
+        for (int i = 0; i < rollbacks.size(); i++) {
+            AbstractDomainModelUpdate<?> rollback = rollbacks.get(i);
+            try {
+                version = applyAndLog(rollback);
+            }
+            catch (UpdateFailedException e) {
+                // TODO uh oh. Reload from the file?
+                // The logged updates no longer describe our model, so host controllers must get a full copy
+                synchronized (domainModel) {
+                    version = updateLog.invalidate();
+                }
+            }
+        }
+        return version;
+    }
+
+    /**
+     * Apply an update to the domain model and record it in the update log as one step, holding the model's monitor
+     * so that a version read under the same monitor always describes the model.
+     *
+     * @return the version of the model including the update
+     */
+    private long applyAndLog(final AbstractDomainModelUpdate<?> update) throws UpdateFailedException {
+        synchronized (domainModel) {
+            domainModel.update(update);
+            return updateLog.updateApplied(update);
+        }
+    }
+
     private List<DomainUpdateResult<?>> applyUpdatesToServers(final List<AbstractDomainModelUpdate<?>> updates,
                                                               final List<DomainUpdateApplierResponse> domainResults,
                                                               final boolean allowOverallRollback) {
@@ -38,6 +38,7 @@ import java.util.UUID;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import org.jboss.as.domain.client.api.ServerIdentity;
 import org.jboss.as.domain.client.api.ServerStatus;
 import org.jboss.as.domain.client.api.deployment.DeploymentAction;
@@ -59,6 +60,7 @@ import org.jboss.as.model.DomainDeploymentRedeployUpdate;
 import org.jboss.as.model.DomainDeploymentRemove;
 import org.jboss.as.model.DomainModel;
 import org.jboss.as.model.DomainServerGroupUpdate;
+import org.jboss.as.model.ModelQuery;
 import org.jboss.as.model.ServerGroupDeploymentAdd;
 import org.jboss.as.model.ServerGroupDeploymentRemove;
 import org.jboss.as.model.ServerGroupDeploymentReplaceUpdate;
@@ -77,191 +79,308 @@ public class DomainDeploymentHandler {
 
     static Logger logger = Logger.getLogger("org.jboss.as.domain.deployment");
 
+    /**
+     * System property holding the maximum number of server groups from a concurrently updated set that are updated
+     * at the same time.  The remaining groups are started as others complete.  Unlimited if not set.
+     */
+    public static final String MAX_CONCURRENT_SERVER_GROUPS = "jboss.domain.deployment.max-concurrent-server-groups";
+    /**
+     * System property holding the maximum number of servers in a server group that are updated at the same time when
+     * the group's plan does not roll out to one server at a time.  Unlimited if not set.
+     */
+    public static final String MAX_CONCURRENT_SERVERS = "jboss.domain.deployment.max-concurrent-servers";
+
     private final DomainController domainController;
     private final ExecutorService executorService;
+    private final int maxConcurrentServerGroups;
+    private final int maxConcurrentServers;
 
     public DomainDeploymentHandler(final DomainController domainController, final ExecutorService executorService) {
         this.domainController = domainController;
         this.executorService = executorService;
+        this.maxConcurrentServerGroups = getLimit(MAX_CONCURRENT_SERVER_GROUPS);
+        this.maxConcurrentServers = getLimit(MAX_CONCURRENT_SERVERS);
+    }
+
+    private static int getLimit(final String key) {
+        final String value = System.getProperty(key);
+        if (value == null) {
+            return Integer.MAX_VALUE;
+        }
+        try {
+            final int limit = Integer.parseInt(value.trim());
+            if (limit > 0) {
+                return limit;
+            }
+        } catch (NumberFormatException ignored) {
+        }
+        logger.warnf("Ignoring invalid value %s for %s; updates are not limited", value, key);
+        return Integer.MAX_VALUE;
     }
 
     public void executeDeploymentPlan(final DeploymentPlan plan, final BlockingQueue<List<StreamedResponse>> responseQueue) {
 
         // Run the plan in a separate thread so caller can process responses
-        Runnable r = new Runnable() {
+        final PlanExecution execution = new PlanExecution(plan, responseQueue);
+        getDeploymentExecutor().submit(execution.new PlanStep() {
             @Override
-            public void run() {
-                boolean failed = false;
-                try {
-                    runDeploymentPlan(plan, responseQueue);
-                    logger.infof("Completed deployment plan %s", plan.getId());
-                }
-                catch (InterruptedException e) {
-                    failed = true;
-                    Thread.currentThread().interrupt();
-                    logger.errorf(e, "Interrupted while executing deployment plan %s", plan.getId());
-                }
-                catch (Exception e) {
-                    logger.errorf(e, "Caught exception executing deployment plan %s", plan.getId());
-                    failed = true;
-                }
-                catch (Error e) {
-                    logger.errorf(e, "Caught error executing deployment plan %s", plan.getId());
-                    throw e;
-                }
-
-                if (failed) {
-                    try {
-                        pushSingleResponse(responseQueue, new StreamedResponse((byte) DomainClientProtocol.RETURN_DEPLOYMENT_PLAN_COMPLETE, null, true));
-                    } catch (InterruptedException e1) {
-                        Thread.currentThread().interrupt();
-                    }
-                }
+            void execute() throws InterruptedException {
+                execution.start();
             }
-        };
+        });
+    }
 
-        getDeploymentExecutor().submit(r);
+    private DomainModel getDomainModel() {
+        return domainController.getDomainModel();
+    }
+
+    private ExecutorService getDeploymentExecutor() {
+        return executorService;
     }
 
     /**
-     * The actual deployment plan execution logic
-     * @throws InterruptedException
+     * The actual deployment plan execution logic.  The plan advances through a chain of
+     * {@link PlanStep}s; a step that updates servers hands the plan on to the next step
+     * from whichever thread completes the last server update, so no thread is held
+     * waiting for servers while the plan runs.  Only one step of a plan runs at a time.
      */
-    private void runDeploymentPlan(final DeploymentPlan plan, final BlockingQueue<List<StreamedResponse>> responseQueue) throws InterruptedException {
+    private class PlanExecution {
+        private final DeploymentPlan plan;
+        private final BlockingQueue<List<StreamedResponse>> responseQueue;
+        private final List<DeploymentSetUpdates> updateSets;
+        private final List<DeploymentSetUpdates> rollbackSets;
+        private int nextSet;
+        private boolean ok = true;
+        private boolean rollbackFailed;
+
+        private PlanExecution(final DeploymentPlan plan, final BlockingQueue<List<StreamedResponse>> responseQueue) {
+            this.plan = plan;
+            this.responseQueue = responseQueue;
+            this.updateSets = new ArrayList<DeploymentSetUpdates>(plan.getDeploymentSetPlans().size());
+            this.rollbackSets = new ArrayList<DeploymentSetUpdates>(plan.getDeploymentSetPlans().size());
+        }
 
-        pushSingleResponse(responseQueue, new StreamedResponse((byte) DomainClientProtocol.RETURN_DEPLOYMENT_PLAN_ID, plan.getId()));
+        private void start() throws InterruptedException {
 
-        List<DeploymentSetPlan> setPlans = plan.getDeploymentSetPlans();
-        List<DeploymentSetUpdates> updateSets = new ArrayList<DeploymentSetUpdates>(setPlans.size());
-        for (DeploymentSetPlan setPlan : setPlans) {
-            try {
-                updateSets.add(createDeploymentSetUpdates(setPlan, getDomainModel(), setPlan.getDeploymentActions()));
-            } catch (InvalidDeploymentPlanException e) {
-                logger.errorf(e, "Deployment plan %s is invalid", plan.getId());
-                pushSingleResponse(responseQueue, new StreamedResponse((byte) DomainClientProtocol.RETURN_DEPLOYMENT_PLAN_INVALID, e, true));
-                return;
-            }
-        }
+            pushSingleResponse(responseQueue, new StreamedResponse((byte) DomainClientProtocol.RETURN_DEPLOYMENT_PLAN_ID, plan.getId()));
 
-        List<DeploymentSetUpdates> rollbackSets = new ArrayList<DeploymentSetUpdates>(setPlans.size());
-        boolean ok = true;
-        boolean rollbackFailed = false;
-        for (DeploymentSetUpdates updateSet : updateSets) {
-            if (ok) {
+            for (DeploymentSetPlan setPlan : plan.getDeploymentSetPlans()) {
                 try {
-                    ok = executeDeploymentSet(updateSet, responseQueue);
-                    if (ok) {
-                        rollbackSets.add(0, updateSet); // roll back in reverse order
-                    }
-                    else {
-                        logger.debugf("Deployment set %s did not succeed", updateSet.setPlan.getId());
-                    }
+                    updateSets.add(readDeploymentSetUpdates(setPlan));
+                } catch (InvalidDeploymentPlanException e) {
+                    logger.errorf(e, "Deployment plan %s is invalid", plan.getId());
+                    pushSingleResponse(responseQueue, new StreamedResponse((byte) DomainClientProtocol.RETURN_DEPLOYMENT_PLAN_INVALID, e, true));
+                    return;
                 }
-                catch (RollbackFailedException e) {
-                    // Deployment set execution failed and it also failed to roll itself back
-                    ok = false;
-                    rollbackFailed = true;
-                    logger.errorf("Rollback of deployment set %s did not succeed", updateSet.setPlan.getId());
+            }
+
+            executeNextSet();
+        }
+
+        private void executeNextSet() throws InterruptedException {
+            while (nextSet < updateSets.size()) {
+                final DeploymentSetUpdates updateSet = updateSets.get(nextSet++);
+                if (ok) {
+                    executeDeploymentSet(updateSet);
+                    return;
                 }
-            } else {
                 // A previous set failed; just inform client this set is cancelled
                 cancelDeploymentSet(updateSet, false, responseQueue);
             }
+            rollbackNextSet();
         }
 
-        if (plan.isGlobalRollback()) {
-            if (!ok && !rollbackFailed) {
-                // Rollback the sets that succeeded before the one that failed
-                // The one that failed will have rolled itself back.
-                for (Iterator<DeploymentSetUpdates> iter = rollbackSets.iterator(); iter.hasNext();) {
-                    DeploymentSetUpdates updateSet = iter.next();
-                    try {
-                        rollbackDeploymentSet(updateSet, responseQueue);
-                        iter.remove();
-                    }
-                    catch (RollbackFailedException e) {
-                        rollbackFailed = true;
-                        logger.errorf("Rollback of deployment set %s did not succeed", updateSet.setPlan.getId());
-                        // Don't try further rollbacks
-                        break;
-                    }
+        private void rollbackNextSet() throws InterruptedException {
+            if (plan.isGlobalRollback()) {
+                if (!ok && !rollbackFailed && rollbackSets.size() > 0) {
+                    // Rollback the sets that succeeded before the one that failed
+                    // The one that failed will have rolled itself back.
+                    final DeploymentSetUpdates updateSet = rollbackSets.get(0);
+                    rollbackDeploymentSet(updateSet, new PlanStep() {
+                        @Override
+                        void execute() throws InterruptedException {
+                            if (!rollbackFailed) {
+                                rollbackSets.remove(0);
+                            }
+                            // Don't try further rollbacks if this one failed
+                            rollbackNextSet();
+                        }
+                    });
+                    return;
                 }
 
+                if (rollbackFailed) {
+                    // Any remaining members in rollbackSets are there because rollback
+                    // of another set failed. So send notifications
+                    for (DeploymentSetUpdates updateSet : rollbackSets) {
+                        cancelDeploymentSet(updateSet, true, responseQueue);
+                    }
+                }
             }
 
-            if (rollbackFailed) {
-                // Any remaining members in rollbackSets are there because rollback
-                // of another set failed. So send notifications
-                for (DeploymentSetUpdates updateSet : rollbackSets) {
-                    cancelDeploymentSet(updateSet, true, responseQueue);
+            pushSingleResponse(responseQueue, new StreamedResponse((byte) DomainClientProtocol.RETURN_DEPLOYMENT_PLAN_COMPLETE, null, true));
+            logger.infof("Completed deployment plan %s", plan.getId());
+        }
+
+        private void executeDeploymentSet(final DeploymentSetUpdates updateSet) throws InterruptedException {
+
+            logger.debugf("Executing deployment set %s", updateSet.setPlan.getId());
+
+            // Execute domain model update on domain controller and host controllers
+            List<DomainUpdateApplierResponse> rsps = domainController.applyUpdatesToModel(updateSet.getDomainUpdates());
+
+            // Inform client of results
+            pushSingleResponse(responseQueue, new StreamedResponse((byte) DomainClientProtocol.RETURN_DEPLOYMENT_SET_ID, updateSet.setPlan.getId()));
+            DeploymentAction lastResponseAction = null;
+            for (int i = 0; i < rsps.size(); i++) {
+                DomainUpdateApplierResponse duar = rsps.get(i);
+                // There can be multiple domain updates for a given action, but we
+                // only send one response. Use this update result for the response if
+                // 1) it failed or 2) it's the last update associated with the action
+                if (duar.getDomainFailure() != null || duar.getHostFailures().size() > 0 || updateSet.isLastDomainUpdateForAction(i)) {
+                    DeploymentAction action = updateSet.getDeploymentActionForDomainUpdate(i);
+                    if (action != lastResponseAction) {
+                        List<StreamedResponse> rspList = new ArrayList<StreamedResponse>(2);
+                        rspList.add(new StreamedResponse((byte) DomainClientProtocol.RETURN_DEPLOYMENT_ACTION_ID, action.getId()));
+                        rspList.add(new StreamedResponse((byte) DomainClientProtocol.RETURN_DEPLOYMENT_ACTION_MODEL_RESULT, duar));
+                        responseQueue.put(rspList);
+                        lastResponseAction = action;
+                    }
                 }
             }
-        }
 
-        pushSingleResponse(responseQueue, new StreamedResponse((byte) DomainClientProtocol.RETURN_DEPLOYMENT_PLAN_COMPLETE, null, true));
-    }
+            // See if the above was successful before moving on to servers
+            DomainUpdateApplierResponse last = rsps.get(rsps.size() - 1);
+            if (last.getDomainFailure() != null || last.getHostFailures().size() > 0) {
+                // DomainModel update failed; don't apply to servers. The DomainControllerImpl will
+                // have already rolled back the domain model update
+                logger.debugf("Deployment set %s did not succeed", updateSet.setPlan.getId());
+                ok = false;
+                executeNextSet();
+                return;
+            }
 
-    private DomainModel getDomainModel() {
-        return domainController.getDomainModel();
-    }
+            // Apply to servers
+            UpdateTask task = getServerUpdateTask(updateSet, rsps, false, responseQueue);
+            task.execute(new PlanStep() {
+                @Override
+                void execute() throws InterruptedException {
+                    for (ServerUpdatePolicy policy : updateSet.updatePolicies.values()) {
+                        if (policy.isFailed()) {
+                            logger.infof("Deployment set failed on %s", policy.getServerGroupName());
+                            ok = false;
+                            break;
+                        }
+                    }
 
-    private boolean executeDeploymentSet(final DeploymentSetUpdates updateSet,
-            final BlockingQueue<List<StreamedResponse>> responseQueue) throws InterruptedException, RollbackFailedException {
+                    if (ok) {
+                        rollbackSets.add(0, updateSet); // roll back in reverse order
+                        executeNextSet();
+                    }
+                    else {
+                        logger.debugf("Deployment set %s did not succeed", updateSet.setPlan.getId());
+                        rollbackDeploymentSet(updateSet, new PlanStep() {
+                            @Override
+                            void execute() throws InterruptedException {
+                                executeNextSet();
+                            }
+                        });
+                    }
+                }
+            });
+        }
 
-        logger.debugf("Executing deployment set %s", updateSet.setPlan.getId());
+        private void rollbackDeploymentSet(final DeploymentSetUpdates updateSet, final PlanStep next) throws InterruptedException {
+
+            logger.debugf("Rolling back deployment set %s", updateSet.setPlan.getId());
+
+            // Execute domain model update on domain controller and host controllers
+            List<DomainUpdateApplierResponse> rsps = domainController.applyUpdatesToModel(updateSet.getDomainRollbacks());
+
+            // Inform client of results
+            pushSingleResponse(responseQueue, new StreamedResponse((byte) DomainClientProtocol.RETURN_DEPLOYMENT_SET_ROLLBACK, updateSet.setPlan.getId()));
+            DeploymentAction lastResponseAction = null;
+            for (int i = 0; i < rsps.size(); i++) {
+                DomainUpdateApplierResponse duar = rsps.get(i);
+                // There can be multiple domain updates for a given action, but we
+                // only send one response. Use this update result for the response if
+                // 1) it failed or 2) it's the last update associated with the action
+                if (duar.getDomainFailure() != null || duar.getHostFailures().size() > 0 || updateSet.isLastDomainRollbackForAction(i)) {
+                    DeploymentAction action = updateSet.getDeploymentActionForDomainUpdate(i);
+                    if (action != lastResponseAction) {
+                        List<StreamedResponse> rspList = new ArrayList<StreamedResponse>(2);
+                        rspList.add(new StreamedResponse((byte) DomainClientProtocol.RETURN_DEPLOYMENT_ACTION_ID, action.getId()));
+                        rspList.add(new StreamedResponse((byte) DomainClientProtocol.RETURN_DEPLOYMENT_ACTION_MODEL_RESULT, duar));
+                        responseQueue.put(rspList);
+                        lastResponseAction = action;
+                    }
+                }
+            }
 
-        // Execute domain model update on domain controller and host controllers
-        List<DomainUpdateApplierResponse> rsps = domainController.applyUpdatesToModel(updateSet.getDomainUpdates());
+            DomainUpdateApplierResponse last = rsps.get(rsps.size() - 1);
+            if (last.getDomainFailure() != null || last.getHostFailures().size() > 0) {
+                rollbackFailed(updateSet);
+                next.run();
+                return;
+            }
 
-        // Inform client of results
-        pushSingleResponse(responseQueue, new StreamedResponse((byte) DomainClientProtocol.RETURN_DEPLOYMENT_SET_ID, updateSet.setPlan.getId()));
-        DeploymentAction lastResponseAction = null;
-        for (int i = 0; i < rsps.size(); i++) {
-            DomainUpdateApplierResponse duar = rsps.get(i);
-            // There can be multiple domain updates for a given action, but we
-            // only send one response. Use this update result for the response if
-            // 1) it failed or 2) it's the last update associated with the action
-            if (duar.getDomainFailure() != null || duar.getHostFailures().size() > 0 || updateSet.isLastDomainUpdateForAction(i)) {
-                DeploymentAction action = updateSet.getDeploymentActionForDomainUpdate(i);
-                if (action != lastResponseAction) {
-                    List<StreamedResponse> rspList = new ArrayList<StreamedResponse>(2);
-                    rspList.add(new StreamedResponse((byte) DomainClientProtocol.RETURN_DEPLOYMENT_ACTION_ID, action.getId()));
-                    rspList.add(new StreamedResponse((byte) DomainClientProtocol.RETURN_DEPLOYMENT_ACTION_MODEL_RESULT, duar));
-                    responseQueue.put(rspList);
-                    lastResponseAction = action;
+            // Apply to servers
+            UpdateTask task = getServerUpdateTask(updateSet, rsps, true, responseQueue);
+            task.execute(new PlanStep() {
+                @Override
+                void execute() throws InterruptedException {
+                    for (ServerUpdatePolicy policy : updateSet.rollbackPolicies.values()) {
+                        if (policy.isFailed()) {
+                            rollbackFailed(updateSet);
+                            break;
+                        }
+                    }
+                    next.run();
                 }
-            }
+            });
         }
 
-        // See if the above was successful before moving on to servers
-        DomainUpdateApplierResponse last = rsps.get(rsps.size() - 1);
-        if (last.getDomainFailure() != null || last.getHostFailures().size() > 0) {
-            // DomainModel update failed; don't apply to servers. The DomainControllerImpl will
-            // have already rolled back the domain model update
-            return false;
+        private void rollbackFailed(final DeploymentSetUpdates updateSet) {
+            // Deployment set execution failed and it also failed to roll itself back
+            ok = false;
+            rollbackFailed = true;
+            logger.errorf("Rollback of deployment set %s did not succeed", updateSet.setPlan.getId());
         }
 
-        // Apply to servers
-        Runnable r = getServerUpdateTask(updateSet, rsps, false, responseQueue);
-        r.run();
+        /** A step of the plan, which ends the plan if it fails */
+        private abstract class PlanStep implements Runnable {
 
-        boolean ok = true;
-        for (ServerUpdatePolicy policy : updateSet.updatePolicies.values()) {
-            if (policy.isFailed()) {
-                logger.infof("Deployment set failed on %s", policy.getServerGroupName());
-                ok = false;
-                break;
+            @Override
+            public void run() {
+                boolean failed = false;
+                try {
+                    execute();
+                }
+                catch (InterruptedException e) {
+                    failed = true;
+                    Thread.currentThread().interrupt();
+                    logger.errorf(e, "Interrupted while executing deployment plan %s", plan.getId());
+                }
+                catch (Exception e) {
+                    logger.errorf(e, "Caught exception executing deployment plan %s", plan.getId());
+                    failed = true;
+                }
+                catch (Error e) {
+                    logger.errorf(e, "Caught error executing deployment plan %s", plan.getId());
+                    throw e;
+                }
+
+                if (failed) {
+                    try {
+                        pushSingleResponse(responseQueue, new StreamedResponse((byte) DomainClientProtocol.RETURN_DEPLOYMENT_PLAN_COMPLETE, null, true));
+                    } catch (InterruptedException e1) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
             }
-        }
 
-        if (!ok) {
-            rollbackDeploymentSet(updateSet, responseQueue);
+            abstract void execute() throws InterruptedException;
         }
-        return ok;
-    }
-
-    private ExecutorService getDeploymentExecutor() {
-        return executorService;
     }
 
     private void cancelDeploymentSet(final DeploymentSetUpdates updateSet,
@@ -282,51 +401,7 @@ public class DomainDeploymentHandler {
         responseQueue.put(rspList);
     }
 
-    private void rollbackDeploymentSet(final DeploymentSetUpdates updateSet,
-            final BlockingQueue<List<StreamedResponse>> responseQueue) throws InterruptedException, RollbackFailedException {
-
-        logger.debugf("Rolling back deployment set %s", updateSet.setPlan.getId());
-
-        // Execute domain model update on domain controller and host controllers
-        List<DomainUpdateApplierResponse> rsps = domainController.applyUpdatesToModel(updateSet.getDomainRollbacks());
-
-        // Inform client of results
-        pushSingleResponse(responseQueue, new StreamedResponse((byte) DomainClientProtocol.RETURN_DEPLOYMENT_SET_ROLLBACK, updateSet.setPlan.getId()));
-        DeploymentAction lastResponseAction = null;
-        for (int i = 0; i < rsps.size(); i++) {
-            DomainUpdateApplierResponse duar = rsps.get(i);
-            // There can be multiple domain updates for a given action, but we
-            // only send one response. Use this update result for the response if
-            // 1) it failed or 2) it's the last update associated with the action
-            if (duar.getDomainFailure() != null || duar.getHostFailures().size() > 0 || updateSet.isLastDomainRollbackForAction(i)) {
-                DeploymentAction action = updateSet.getDeploymentActionForDomainUpdate(i);
-                if (action != lastResponseAction) {
-                    List<StreamedResponse> rspList = new ArrayList<StreamedResponse>(2);
-                    rspList.add(new StreamedResponse((byte) DomainClientProtocol.RETURN_DEPLOYMENT_ACTION_ID, action.getId()));
-                    rspList.add(new StreamedResponse((byte) DomainClientProtocol.RETURN_DEPLOYMENT_ACTION_MODEL_RESULT, duar));
-                    responseQueue.put(rspList);
-                    lastResponseAction = action;
-                }
-            }
-        }
-
-        DomainUpdateApplierResponse last = rsps.get(rsps.size() - 1);
-        if (last.getDomainFailure() != null || last.getHostFailures().size() > 0) {
-            throw new RollbackFailedException();
-        }
-
-        // Apply to servers
-        Runnable r = getServerUpdateTask(updateSet, rsps, true, responseQueue);
-        r.run();
-
-        for (ServerUpdatePolicy policy : updateSet.rollbackPolicies.values()) {
-            if (policy.isFailed()) {
-                throw new RollbackFailedException();
-            }
-        }
-    }
-
-    private Runnable getServerUpdateTask(final DeploymentSetUpdates updateSet,
+    private UpdateTask getServerUpdateTask(final DeploymentSetUpdates updateSet,
             final List<DomainUpdateApplierResponse> rsps,
             final boolean forRollbacks,
             final BlockingQueue<List<StreamedResponse>> responseQueue) {
@@ -351,7 +426,7 @@ public class DomainDeploymentHandler {
         boolean shutdown = updateSet.setPlan.isShutdown();
         long gracefulTimeout = updateSet.setPlan.getGracefulShutdownTimeout();
 
-        List<Runnable> masterList = new ArrayList<Runnable>();
+        List<UpdateTask> masterList = new ArrayList<UpdateTask>();
         ConcurrentGroupServerUpdatePolicy predecessor = null;
         for (Set<ServerGroupDeploymentPlan> groupPlans : updateSet.setPlan.getServerGroupDeploymentPlans()) {
 
@@ -359,7 +434,7 @@ public class DomainDeploymentHandler {
             for (ServerGroupDeploymentPlan groupPlan : groupPlans) {
                 groupNames.add(groupPlan.getServerGroupName());
             }
-            List<Runnable> concurrentGroupsList = new ArrayList<Runnable>(groupPlans.size());
+            List<UpdateTask> concurrentGroupsList = new ArrayList<UpdateTask>(groupPlans.size());
             ConcurrentGroupServerUpdatePolicy parent = new ConcurrentGroupServerUpdatePolicy(predecessor, groupNames);
             predecessor = parent;
 
@@ -388,7 +463,7 @@ public class DomainDeploymentHandler {
                     updateSet.updatePolicies.put(serverGroupName, policy);
                 }
 
-                List<Runnable> groupTasks = new ArrayList<Runnable>(servers.size());
+                List<UpdateTask> groupTasks = new ArrayList<UpdateTask>(servers.size());
                 if (shutdown) {
                     for (ServerIdentity server : servers) {
                         groupTasks.add (new ServerRestartTask(server, updateSet, forRollbacks, policy, responseQueue, gracefulTimeout));
@@ -438,10 +513,10 @@ public class DomainDeploymentHandler {
                     concurrentGroupsList.add(new RollingUpdateTask(groupTasks));
                 }
                 else {
-                    concurrentGroupsList.add(new ConcurrentUpdateTask(groupTasks, getDeploymentExecutor()));
+                    concurrentGroupsList.add(new ConcurrentUpdateTask(groupTasks, maxConcurrentServers));
                 }
             }
-            masterList.add(new ConcurrentUpdateTask(concurrentGroupsList, getDeploymentExecutor()));
+            masterList.add(new ConcurrentUpdateTask(concurrentGroupsList, maxConcurrentServerGroups));
         }
 
         return new RollingUpdateTask(masterList);
@@ -452,6 +527,27 @@ public class DomainDeploymentHandler {
     }
 
     /** Performs the translation from DeploymentAction to domain and server model updates */
+    /**
+     * Create the updates for a deployment set from a single version of the domain model.  The compensating updates
+     * read nested elements, such as server groups, which updates change in place.
+     */
+    private DeploymentSetUpdates readDeploymentSetUpdates(final DeploymentSetPlan plan) throws InvalidDeploymentPlanException {
+        final Object result = getDomainModel().read(new ModelQuery<DomainModel, Object>() {
+            @Override
+            public Object execute(final DomainModel model) {
+                try {
+                    return createDeploymentSetUpdates(plan, model, plan.getDeploymentActions());
+                } catch (InvalidDeploymentPlanException e) {
+                    return e;
+                }
+            }
+        });
+        if (result instanceof InvalidDeploymentPlanException) {
+            throw (InvalidDeploymentPlanException) result;
+        }
+        return (DeploymentSetUpdates) result;
+    }
+
     private static DeploymentSetUpdates createDeploymentSetUpdates(DeploymentSetPlan plan, DomainModel model, List<DeploymentAction> actions) throws InvalidDeploymentPlanException {
 
         logger.debugf("Creating DeploymentSetUpdates for deployment set %s", plan.getId());
@@ -783,7 +879,7 @@ public class DomainDeploymentHandler {
         }
     }
 
-    private abstract class AbstractServerUpdateTask implements Runnable {
+    private abstract class AbstractServerUpdateTask implements UpdateTask {
         protected final ServerUpdatePolicy updatePolicy;
         protected final ServerIdentity serverId;
         protected final DeploymentSetUpdates updates;
@@ -801,7 +897,28 @@ public class DomainDeploymentHandler {
         }
 
         @Override
-        public void run() {
+        public void execute(final Runnable completionTask) {
+            final Runnable r = new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        update();
+                    }
+                    finally {
+                        completionTask.run();
+                    }
+                }
+            };
+            try {
+                getDeploymentExecutor().execute(r);
+            }
+            catch (RejectedExecutionException e) {
+                logger.errorf(e, "%s was rejected by the executor; running it in the calling thread", toString());
+                r.run();
+            }
+        }
+
+        private void update() {
             if (updatePolicy.canUpdateServer(serverId)) {
                 processUpdates();
             }
@@ -976,11 +1093,6 @@ public class DomainDeploymentHandler {
         }
     }
 
-    /** Exception indicating the rollback of a deployment set failed */
-    private static class RollbackFailedException extends Exception {
-        private static final long serialVersionUID = 3524620474555254562L;
-    }
-
     /** Associates a domain update with its compensating update and its server update */
     private static class DomainUpdate {
         private final AbstractDomainModelUpdate<?> update;
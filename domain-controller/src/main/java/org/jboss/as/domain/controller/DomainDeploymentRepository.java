@@ -22,19 +22,14 @@
 
 package org.jboss.as.domain.controller;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.security.DigestOutputStream;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 
+import org.jboss.as.deployment.DeploymentContentCleaner;
+import org.jboss.as.deployment.DeploymentContentWriter;
+import org.jboss.as.deployment.PartialDeploymentContent;
 import org.jboss.as.deployment.ServerDeploymentRepository;
-import org.jboss.as.model.DeploymentUnitElement;
 import org.jboss.logging.Logger;
 
 /**
@@ -46,9 +41,8 @@ public class DomainDeploymentRepository {
 
     private static final Logger log = Logger.getLogger("org.jboss.as.domain.controller");
 
-    private static final String CONTENT = "content";
-    private File repoRoot;
-    private MessageDigest messageDigest;
+    private final File deployDir;
+    private final DeploymentContentWriter contentWriter;
 
     /**
      * Creates a new DomainDeploymentRepository.
@@ -69,118 +63,36 @@ public class DomainDeploymentRepository {
             throw new IllegalStateException("Failed to create a directory at " + deployDir.getAbsolutePath());
         }
 
-        this.repoRoot = deployDir;
-
-        try {
-            this.messageDigest = MessageDigest.getInstance("SHA-1");
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("Cannot obtain SHA-1 " + MessageDigest.class.getSimpleName(), e);
-        }
+        this.deployDir = deployDir;
+        this.contentWriter = new DeploymentContentWriter(deployDir, log);
     }
 
 
     public byte[] addDeploymentContent(String name, String runtimeName, InputStream stream)
             throws IOException {
+        return addDeploymentContent(name, runtimeName, stream, 0L, null);
+    }
 
-        log.debugf("Adding content with name %s", name);
+    public byte[] addDeploymentContent(String name, String runtimeName, InputStream stream, long offset, byte[] expectedHash)
+            throws IOException {
 
-        byte[] sha1Bytes = null;
-        File tmp = File.createTempFile(name, "tmp", repoRoot);
-        FileOutputStream fos = new FileOutputStream(tmp);
-        synchronized (messageDigest) {
-            messageDigest.reset();
-            try {
-                DigestOutputStream dos = new DigestOutputStream(fos, messageDigest);
-                BufferedInputStream bis = new BufferedInputStream(stream);
-                byte[] bytes = new byte[8192];
-                int read;
-                while ((read = bis.read(bytes)) > -1) {
-                    dos.write(bytes, 0, read);
-                }
-            }
-            finally {
-                try { fos.close(); } catch (Exception ignored) {}
-            }
-            sha1Bytes = messageDigest.digest();
-        }
-        String sha1 = DeploymentUnitElement.bytesToHexString(sha1Bytes);
-        String partA = sha1.substring(0,2);
-        String partB = sha1.substring(2);
-        File base = new File(repoRoot, partA);
-        validateDir(base);
-        File realDir = new File(base, partB);
-        if (!realDir.exists() && !realDir.mkdirs()) {
-            throw new IllegalStateException("Cannot create directory " + realDir.getAbsolutePath());
-        }
-        File realFile = new File(realDir, CONTENT);
-        if (realFile.exists()) {
-            // we've already got this content
-            if (!tmp.delete()) {
-                tmp.deleteOnExit();
-            }
-            log.debugf("Content with name %s was already present in repository at location %s" , name, realFile.getAbsolutePath());
-        }
-        else {
-            moveTempToPermanent(tmp, realFile);
-            log.infof("Content with name %s added at location %s" , name, realFile.getAbsolutePath());
-        }
+        log.debugf("Adding content with name %s", name);
 
-        return sha1Bytes;
+        return contentWriter.addContent(name, stream, offset, expectedHash);
     }
 
-    private void validateDir(File dir) {
-        if (!dir.exists()) {
-            if (!dir.mkdirs()) {
-                throw new IllegalStateException("Cannot create directory " + dir.getAbsolutePath());
-            }
-        }
-        else if (!dir.isDirectory()) {
-            throw new IllegalStateException(dir.getAbsolutePath() + " is not a directory");
-        }
-        else if (!dir.canWrite()) {
-            throw new IllegalStateException("Cannot write to directory " + dir.getAbsolutePath());
-        }
+    public PartialDeploymentContent getPartialDeploymentContent(String name) throws IOException {
+        return contentWriter.getPartialContent(name);
     }
 
-    private void moveTempToPermanent(File tmpFile, File permanentFile) throws IOException {
-
-        if (!tmpFile.renameTo(permanentFile)) {
-            FileOutputStream fos = null;
-            BufferedOutputStream bos = null;
-            FileInputStream fis = null;
-            try {
-                fos = new FileOutputStream(permanentFile);
-                bos = new BufferedOutputStream(fos);
-                fis = new FileInputStream(tmpFile);
-                BufferedInputStream bis = new BufferedInputStream(fis);
-                byte[] bytes = new byte[8192];
-                int read;
-                while ((read = bis.read(bytes)) > -1) {
-                    bos.write(bytes, 0, read);
-                }
-            }
-            finally {
-                try {
-                    if (bos != null) {
-                        bos.close();
-                    }
-                 } catch (Exception ignored) {}
-                 try {
-                     if (fos != null) {
-                         fos.close();
-                     }
-                  } catch (Exception ignored) {}
-                  try {
-                      if (fis != null) {
-                          fis.close();
-                      }
-                  } catch (Exception ignored) {}
-
-                  if (!tmpFile.delete()) {
-                      tmpFile.deleteOnExit();
-                  }
-            }
-        }
+    /**
+     * Creates a task which removes content that is no longer referenced from the repository.
+     *
+     * @param references the source of the hashes referenced by the domain model
+     * @return the task
+     */
+    public DeploymentContentCleaner createContentCleaner(DeploymentContentCleaner.ContentReferences references) {
+        return new DeploymentContentCleaner(contentWriter, references, DeploymentContentCleaner.DEFAULT_GRACE_PERIOD, log);
     }
 
 }
@@ -0,0 +1,142 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.domain.controller;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+
+import org.jboss.as.model.AbstractDomainModelUpdate;
+import org.jboss.as.model.DomainModel;
+
+/**
+ * A bounded log of the updates applied to the domain controller's {@link DomainModel}.  Every applied update
+ * advances the log's version by one, so a host controller that knows which version its copy of the model is at
+ * can be brought up to date with just the updates it missed rather than the whole model.
+ * <p>
+ * Versions are only meaningful within one log; each domain controller start creates a log with a new
+ * {@link #getId() id}.
+ */
+public final class DomainModelUpdateLog {
+
+    /** The default number of updates kept in the log. */
+    public static final int DEFAULT_MAX_UPDATES = 1000;
+
+    private final String id = UUID.randomUUID().toString();
+    private final int maxUpdates;
+    private final Deque<AbstractDomainModelUpdate<?>> updates = new ArrayDeque<AbstractDomainModelUpdate<?>>();
+    private long version;
+
+    public DomainModelUpdateLog() {
+        this(DEFAULT_MAX_UPDATES);
+    }
+
+    /**
+     * Create a new log.
+     *
+     * @param maxUpdates the number of most recent updates to keep
+     */
+    public DomainModelUpdateLog(final int maxUpdates) {
+        if (maxUpdates < 0) {
+            throw new IllegalArgumentException("maxUpdates is negative");
+        }
+        this.maxUpdates = maxUpdates;
+    }
+
+    /**
+     * Get the id of this log.
+     *
+     * @return the id
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Get the version of the domain model, i.e. the number of updates applied to it since this log was created.
+     *
+     * @return the version
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Record an update that has been applied to the domain model.
+     *
+     * @param update the update
+     * @return the version of the model including the update
+     */
+    synchronized long updateApplied(final AbstractDomainModelUpdate<?> update) {
+        updates.addLast(update);
+        if (updates.size() > maxUpdates) {
+            updates.removeFirst();
+        }
+        return ++version;
+    }
+
+    /**
+     * Record a change to the domain model that the log cannot replay.  The logged updates are dropped, so any copy of
+     * the model at an earlier version will need a full copy.
+     *
+     * @return the version of the model including the change
+     */
+    synchronized long invalidate() {
+        updates.clear();
+        return ++version;
+    }
+
+    /**
+     * Get the updates a copy of the domain model needs to reach the current version.
+     *
+     * @param logId the id of the log the copy was last synchronized with, or {@code null} if unknown
+     * @param since the version of the copy
+     * @return the updates in the order they were applied, or {@code null} if they are not all available and a full
+     *         copy of the model is needed
+     */
+    public synchronized List<AbstractDomainModelUpdate<?>> getUpdatesSince(final String logId, final long since) {
+        if (! id.equals(logId) || since < 0 || since > version) {
+            return null;
+        }
+        final long missed = version - since;
+        if (missed == 0) {
+            return Collections.emptyList();
+        }
+        if (missed > updates.size()) {
+            return null;
+        }
+        final List<AbstractDomainModelUpdate<?>> result = new ArrayList<AbstractDomainModelUpdate<?>>((int) missed);
+        final Iterator<AbstractDomainModelUpdate<?>> iterator = updates.iterator();
+        for (int skip = updates.size() - (int) missed; skip > 0; skip--) {
+            iterator.next();
+        }
+        while (iterator.hasNext()) {
+            result.add(iterator.next());
+        }
+        return result;
+    }
+}
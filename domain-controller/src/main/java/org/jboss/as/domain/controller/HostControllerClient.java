@@ -64,17 +64,21 @@ public interface HostControllerClient {
     /**
      * Update the client with a new version of the full domain.
      *
-     * @param domain The domain configuration
+     * @param domain The domain configuration; a {@link DomainModel#snapshot() snapshot}, since it may be written to
+     *               the host controller after further updates have been applied
+     * @param version The {@link DomainModelUpdateLog#getVersion() version} of the domain configuration
      */
-    void updateDomainModel(DomainModel domain);
+    void updateDomainModel(DomainModel domain, long version);
 
     /**
      * Update the client with a list of domain model updates.
      *
      * @param updates The updates to process
+     * @param version The {@link DomainModelUpdateLog#getVersion() version} of the domain configuration once the
+     *                updates are applied
      * @return A list of response objects to reflect the result of each update executed.
      */
-    List<ModelUpdateResponse<List<ServerIdentity>>> updateDomainModel(List<AbstractDomainModelUpdate<?>> updates);
+    List<ModelUpdateResponse<List<ServerIdentity>>> updateDomainModel(List<AbstractDomainModelUpdate<?>> updates, long version);
 
     /**
      * Get the current state of the host controller's {@link HostModel}.
@@ -157,4 +161,10 @@ public interface HostControllerClient {
      * @return the status of the server following the start attempt
      */
     ServerStatus restartServer(String serverName, long gracefulTimeout);
+
+    /**
+     * Release the resources held by this client, such as its connection to the host controller.  Called when the
+     * host controller unregisters or registers again; the client is not used afterwards.
+     */
+    void close();
 }
@@ -2,19 +2,70 @@ package org.jboss.as.domain.controller;
 
 import java.util.List;
 
-/** A task that iterates through other tasks */
-class RollingUpdateTask implements Runnable {
+/** A task that iterates through other tasks, starting each one when its predecessor completes */
+class RollingUpdateTask implements UpdateTask {
 
-    private final List<Runnable> rollingTasks;
+    private final List<UpdateTask> rollingTasks;
 
-    RollingUpdateTask(final List<Runnable> rollingTasks) {
+    RollingUpdateTask(final List<UpdateTask> rollingTasks) {
         this.rollingTasks = rollingTasks;
     }
 
     @Override
-    public void run() {
-        for (Runnable r : rollingTasks) {
-            r.run();
+    public void execute(final Runnable completionTask) {
+        new Rollout(completionTask).advance();
+    }
+
+    /**
+     * Starts the tasks in turn.  A task which completes before its {@code execute} returns does not start the next
+     * one itself, it leaves that to the loop in {@link #advance()}, so a run of synchronously completing tasks does
+     * not grow the stack.
+     */
+    private final class Rollout implements Runnable {
+        private final Runnable completionTask;
+        private int next;
+        /** whether a thread is in {@link #advance()} */
+        private boolean advancing = true;
+        /** whether the task started last has completed */
+        private boolean completed;
+
+        private Rollout(final Runnable completionTask) {
+            this.completionTask = completionTask;
+        }
+
+        /** Called when the task started last completes */
+        @Override
+        public void run() {
+            synchronized (this) {
+                if (advancing) {
+                    completed = true;
+                    return;
+                }
+                advancing = true;
+            }
+            advance();
+        }
+
+        private void advance() {
+            for (;;) {
+                final int index;
+                synchronized (this) {
+                    index = next++;
+                    completed = false;
+                }
+                if (index == rollingTasks.size()) {
+                    completionTask.run();
+                    return;
+                }
+                rollingTasks.get(index).execute(this);
+                synchronized (this) {
+                    if (!completed) {
+                        // the task completes later, and run() carries on from there
+                        advancing = false;
+                        return;
+                    }
+                }
+            }
         }
     }
 
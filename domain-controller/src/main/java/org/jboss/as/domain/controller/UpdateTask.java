@@ -0,0 +1,39 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.jboss.as.domain.controller;
+
+/**
+ * A step in rolling a deployment set out to servers.  Steps never wait for one another: a step reports that it is
+ * done by running the completion task it was given, and that completion task starts whatever depends on the step.
+ */
+interface UpdateTask {
+
+    /**
+     * Start the step.  The step may complete, and run {@code completionTask}, before this method returns.
+     *
+     * @param completionTask task to run exactly once, when the step and everything it started are done.
+     *                       Cannot be <code>null</code>
+     */
+    void execute(Runnable completionTask);
+}
@@ -33,6 +33,7 @@ import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 
+import org.jboss.as.deployment.PartialDeploymentContent;
 import org.jboss.as.domain.client.api.DomainUpdateResult;
 import org.jboss.as.domain.client.api.HostUpdateResult;
 import org.jboss.as.domain.client.api.ServerIdentity;
@@ -52,6 +53,7 @@ import org.jboss.as.protocol.mgmt.AbstractMessageHandler;
 import org.jboss.as.protocol.ByteDataInput;
 import org.jboss.as.protocol.ByteDataOutput;
 import org.jboss.as.protocol.Connection;
+import org.jboss.as.protocol.ContentInputStream;
 import org.jboss.as.protocol.mgmt.ManagementOperationHandler;
 import org.jboss.as.protocol.mgmt.ManagementProtocol;
 import org.jboss.as.protocol.mgmt.ManagementResponse;
@@ -170,6 +172,8 @@ public class  DomainControllerClientOperationHandler extends AbstractMessageHand
                 return new CheckUniqueDeploymentNameOperation();
             case DomainClientProtocol.ADD_DEPLOYMENT_CONTENT_REQUEST:
                 return new AddDeploymentContentOperation();
+            case DomainClientProtocol.GET_PARTIAL_DEPLOYMENT_CONTENT_REQUEST:
+                return new GetPartialDeploymentContentOperation();
             case DomainClientProtocol.APPLY_SERVER_MODEL_UPDATE_REQUEST:
                 return new ApplyServerModelUpdateOperation();
             case DomainClientProtocol.APPLY_HOST_UPDATES_REQUEST:
@@ -207,7 +211,8 @@ public class  DomainControllerClientOperationHandler extends AbstractMessageHand
             marshaller.start(createByteOutput(outputStream));
             try {
                 marshaller.writeByte(DomainClientProtocol.RETURN_DOMAIN_MODEL);
-                marshaller.writeObject(domainController.getDomainModel());
+                // copy the model rather than hold off updates while a slow client reads it
+                marshaller.writeObject(domainController.getDomainModel().snapshot());
                 marshaller.finish();
             } finally {
                 safeFinish(marshaller);
@@ -749,8 +754,20 @@ public class  DomainControllerClientOperationHandler extends AbstractMessageHand
                 final String deploymentName = input.readUTF();
                 expectHeader(input, DomainClientProtocol.PARAM_DEPLOYMENT_RUNTIME_NAME);
                 final String deploymentRuntimeName = input.readUTF();
-                expectHeader(input, DomainClientProtocol.PARAM_DEPLOYMENT_CONTENT);
-                deploymentHash = domainController.addDeploymentContent(deploymentName, deploymentRuntimeName, (InputStream) input);
+                final byte contentHeader = input.readByte();
+                if (contentHeader == DomainClientProtocol.PARAM_DEPLOYMENT_CONTENT_STREAM) {
+                    final long offset = input.readLong();
+                    byte[] expectedHash = null;
+                    final int hashLength = input.readInt();
+                    if (hashLength > 0) {
+                        expectedHash = new byte[hashLength];
+                        input.readFully(expectedHash);
+                    }
+                    deploymentHash = domainController.addDeploymentContent(deploymentName, deploymentRuntimeName, new ContentInputStream((InputStream) input), offset, expectedHash);
+                } else {
+                    expectHeader(contentHeader, DomainClientProtocol.PARAM_DEPLOYMENT_CONTENT);
+                    deploymentHash = domainController.addDeploymentContent(deploymentName, deploymentRuntimeName, (InputStream) input);
+                }
                 input.close();
             } finally {
                 safeClose(input);
@@ -773,6 +790,47 @@ public class  DomainControllerClientOperationHandler extends AbstractMessageHand
         }
     }
 
+    private class GetPartialDeploymentContentOperation extends ManagementResponse {
+        private PartialDeploymentContent partialContent;
+
+        @Override
+        protected final byte getResponseCode() {
+            return DomainClientProtocol.GET_PARTIAL_DEPLOYMENT_CONTENT_RESPONSE;
+        }
+
+        @Override
+        protected final void readRequest(final InputStream inputStream) throws IOException {
+            ByteDataInput input = null;
+            try {
+                input = new SimpleByteDataInput(inputStream);
+                expectHeader(input, DomainClientProtocol.PARAM_DEPLOYMENT_NAME);
+                final String deploymentName = input.readUTF();
+                partialContent = domainController.getPartialDeploymentContent(deploymentName);
+                input.close();
+            } finally {
+                safeClose(input);
+            }
+        }
+
+        @Override
+        protected void sendResponse(final OutputStream outputStream) throws IOException {
+            ByteDataOutput output = null;
+            try {
+                output = new SimpleByteDataOutput(outputStream);
+                output.writeByte(DomainClientProtocol.RETURN_PARTIAL_DEPLOYMENT_CONTENT);
+                output.writeBoolean(partialContent != null);
+                if (partialContent != null) {
+                    output.writeLong(partialContent.getLength());
+                    output.writeInt(partialContent.getHash().length);
+                    output.write(partialContent.getHash());
+                }
+                output.close();
+            } finally {
+                safeClose(output);
+            }
+        }
+    }
+
     private static Marshaller getMarshaller() throws IOException {
         return ProtocolUtils.getMarshaller(CONFIG);
     }
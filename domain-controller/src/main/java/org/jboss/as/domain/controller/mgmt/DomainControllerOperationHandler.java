@@ -35,9 +35,12 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 
 import org.jboss.as.domain.controller.DomainController;
+import org.jboss.as.domain.controller.DomainModelUpdateLog;
 import org.jboss.as.domain.controller.FileRepository;
 import org.jboss.as.domain.controller.HostControllerClient;
+import org.jboss.as.model.AbstractDomainModelUpdate;
 import org.jboss.as.model.DeploymentUnitElement;
+import org.jboss.as.model.DomainModel;
 import org.jboss.as.protocol.ProtocolUtils;
 import org.jboss.as.protocol.mgmt.AbstractMessageHandler;
 import org.jboss.as.protocol.ByteDataInput;
@@ -181,6 +184,9 @@ public class  DomainControllerOperationHandler extends AbstractMessageHandler im
     }
 
     private class RegisterOperation extends DomainControllerOperation {
+        private String logId;
+        private long version;
+
         @Override
         protected final byte getResponseCode() {
             return DomainControllerProtocol.REGISTER_RESPONSE;
@@ -197,6 +203,10 @@ public class  DomainControllerOperationHandler extends AbstractMessageHandler im
                 input.readFully(addressBytes);
                 expectHeader(input, DomainControllerProtocol.PARAM_HOST_CONTROLLER_PORT);
                 final int port = input.readInt();
+                expectHeader(input, DomainControllerProtocol.PARAM_DOMAIN_MODEL_LOG_ID);
+                logId = input.readUTF();
+                expectHeader(input, DomainControllerProtocol.PARAM_DOMAIN_MODEL_VERSION);
+                version = input.readLong();
                 final InetAddress address = InetAddress.getByAddress(addressBytes);
                 final HostControllerClient client = new RemoteDomainControllerClient(hostControllerId, address, port, executorService, threadFactory);
                 domainController.addClient(client);
@@ -212,8 +222,33 @@ public class  DomainControllerOperationHandler extends AbstractMessageHandler im
             final Marshaller marshaller = getMarshaller();
             marshaller.start(createByteOutput(output));
             try {
-                marshaller.writeByte(DomainControllerProtocol.PARAM_DOMAIN_MODEL);
-                marshaller.writeObject(domainController.getDomainModel());
+                final DomainModelUpdateLog updateLog = domainController.getDomainModelUpdateLog();
+                marshaller.writeByte(DomainControllerProtocol.PARAM_DOMAIN_MODEL_LOG_ID);
+                marshaller.writeUTF(updateLog.getId());
+                final List<AbstractDomainModelUpdate<?>> updates = updateLog.getUpdatesSince(logId, version);
+                if (updates != null) {
+                    // The host controller only needs what it missed
+                    log.debugf("Sending %s missed domain updates", updates.size());
+                    marshaller.writeByte(DomainControllerProtocol.PARAM_DOMAIN_MODEL_UPDATE_COUNT);
+                    marshaller.writeInt(updates.size());
+                    for (AbstractDomainModelUpdate<?> update : updates) {
+                        marshaller.writeByte(DomainControllerProtocol.PARAM_DOMAIN_MODEL_UPDATE);
+                        marshaller.writeObject(update);
+                    }
+                } else {
+                    final DomainModel domainModel = domainController.getDomainModel();
+                    final long modelVersion;
+                    final DomainModel snapshot;
+                    // updates are applied and logged under the model's monitor, so the version describes the copy
+                    synchronized (domainModel) {
+                        modelVersion = updateLog.getVersion();
+                        snapshot = domainModel.snapshot();
+                    }
+                    marshaller.writeByte(DomainControllerProtocol.PARAM_DOMAIN_MODEL_VERSION);
+                    marshaller.writeLong(modelVersion);
+                    marshaller.writeByte(DomainControllerProtocol.PARAM_DOMAIN_MODEL);
+                    marshaller.writeObject(snapshot);
+                }
                 marshaller.finish();
             } finally {
                 safeFinish(marshaller);
@@ -47,4 +47,8 @@ public interface DomainControllerProtocol {
     int FILE_START = 0x25;
     int FILE_END = 0x26;
     int SYNC_FILE_RESPONSE = 0x27;
+    int PARAM_DOMAIN_MODEL_LOG_ID = 0x28;
+    int PARAM_DOMAIN_MODEL_VERSION = 0x29;
+    int PARAM_DOMAIN_MODEL_UPDATE_COUNT = 0x30;
+    int PARAM_DOMAIN_MODEL_UPDATE = 0x31;
 }
@@ -52,6 +52,7 @@ import org.jboss.as.protocol.mgmt.ManagementException;
 import org.jboss.as.protocol.mgmt.ManagementRequest;
 import org.jboss.as.protocol.mgmt.ManagementRequestConnectionStrategy;
 import org.jboss.as.protocol.mgmt.HostControllerProtocol;
+import org.jboss.as.protocol.mgmt.MultiplexedConnection;
 import org.jboss.marshalling.Marshaller;
 import static org.jboss.marshalling.Marshalling.createByteInput;
 import static org.jboss.marshalling.Marshalling.createByteOutput;
@@ -68,6 +69,9 @@ public class RemoteDomainControllerClient implements HostControllerClient {
     private final int port;
     private final ScheduledExecutorService executorService;
     private final ThreadFactory threadFactory;
+    // All requests to the host controller share one connection
+    private MultiplexedConnection multiplexedConnection;
+    private boolean closed;
 
     public RemoteDomainControllerClient(final String id, final InetAddress address, final int port, final ScheduledExecutorService executorService, final ThreadFactory threadFactory) {
         this.id = id;
@@ -82,9 +86,9 @@ public class RemoteDomainControllerClient implements HostControllerClient {
     }
 
     /** {@inheritDoc} */
-    public void updateDomainModel(final DomainModel domain) {
+    public void updateDomainModel(final DomainModel domain, final long version) {
         try {
-            new UpdateFullDomainRequest(domain).execute(getConnectionStrategy());
+            new UpdateFullDomainRequest(domain, version).execute(getConnectionStrategy());
         } catch (Exception e) {
             throw new RuntimeException("Failed to update domain", e);
         }
@@ -100,9 +104,9 @@ public class RemoteDomainControllerClient implements HostControllerClient {
     }
 
     /** {@inheritDoc} */
-    public List<ModelUpdateResponse<List<ServerIdentity>>> updateDomainModel(final List<AbstractDomainModelUpdate<?>> updates) {
+    public List<ModelUpdateResponse<List<ServerIdentity>>> updateDomainModel(final List<AbstractDomainModelUpdate<?>> updates, final long version) {
         try {
-            return new UpdateDomainModelRequest(updates).executeForResult(getConnectionStrategy());
+            return new UpdateDomainModelRequest(updates, version).executeForResult(getConnectionStrategy());
         } catch (Exception e) {
             throw new ManagementException("Failed to update domain model", e);
         }
@@ -124,6 +128,15 @@ public class RemoteDomainControllerClient implements HostControllerClient {
         }
     }
 
+    /** {@inheritDoc} */
+    public synchronized void close() {
+        closed = true;
+        if (multiplexedConnection != null) {
+            multiplexedConnection.close();
+            multiplexedConnection = null;
+        }
+    }
+
     @Override
     public HostModel getHostModel() {
         try {
@@ -224,9 +237,11 @@ public class RemoteDomainControllerClient implements HostControllerClient {
 
     private class UpdateFullDomainRequest extends HostControllerRequest<Void> {
         private final DomainModel domainModel;
+        private final long version;
 
-        private UpdateFullDomainRequest(DomainModel domainModel) {
+        private UpdateFullDomainRequest(DomainModel domainModel, long version) {
             this.domainModel = domainModel;
+            this.version = version;
         }
 
         @Override
@@ -243,6 +258,8 @@ public class RemoteDomainControllerClient implements HostControllerClient {
         protected final void sendRequest(final int protocolVersion, final OutputStream outputStream) throws IOException {
             final Marshaller marshaller = getMarshaller();
             marshaller.start(createByteOutput(outputStream));
+            marshaller.writeByte(HostControllerProtocol.PARAM_DOMAIN_MODEL_VERSION);
+            marshaller.writeLong(version);
             marshaller.writeByte(HostControllerProtocol.PARAM_DOMAIN_MODEL);
             marshaller.writeObject(domainModel);
             marshaller.finish();
@@ -269,9 +286,11 @@ public class RemoteDomainControllerClient implements HostControllerClient {
 
     private class UpdateDomainModelRequest extends HostControllerRequest<List<ModelUpdateResponse<List<ServerIdentity>>>> {
         private final List<AbstractDomainModelUpdate<?>> updates;
+        private final long version;
 
-        private UpdateDomainModelRequest(final List<AbstractDomainModelUpdate<?>> updates) {
+        private UpdateDomainModelRequest(final List<AbstractDomainModelUpdate<?>> updates, final long version) {
             this.updates = updates;
+            this.version = version;
         }
 
         @Override
@@ -288,6 +307,8 @@ public class RemoteDomainControllerClient implements HostControllerClient {
         protected void sendRequest(final int protocolVersion, final OutputStream output) throws IOException {
             final Marshaller marshaller = getMarshaller();
             marshaller.start(createByteOutput(output));
+            marshaller.writeByte(HostControllerProtocol.PARAM_DOMAIN_MODEL_VERSION);
+            marshaller.writeLong(version);
             marshaller.writeByte(HostControllerProtocol.PARAM_DOMAIN_MODEL_UPDATE_COUNT);
             marshaller.writeInt(updates.size());
             for(AbstractDomainModelUpdate<?> update : updates) {
@@ -588,8 +609,20 @@ public class RemoteDomainControllerClient implements HostControllerClient {
         return ProtocolUtils.getUnmarshaller(ProtocolUtils.MODULAR_CONFIG);
     }
 
-    private ManagementRequestConnectionStrategy getConnectionStrategy() {
-        return new ManagementRequestConnectionStrategy.EstablishConnectingStrategy(address, port, 10L, executorService, threadFactory);
+    private ManagementRequestConnectionStrategy getConnectionStrategy() throws IOException {
+        return new ManagementRequestConnectionStrategy.MultiplexedConnectionStrategy(getMultiplexedConnection());
+    }
+
+    private synchronized MultiplexedConnection getMultiplexedConnection() throws IOException {
+        if (closed) {
+            throw new IOException("Client for host controller " + id + " is closed");
+        }
+        MultiplexedConnection multiplexedConnection = this.multiplexedConnection;
+        if (multiplexedConnection == null || !multiplexedConnection.isOpen()) {
+            multiplexedConnection = MultiplexedConnection.connect(address, port, 10L, executorService, threadFactory);
+            this.multiplexedConnection = multiplexedConnection;
+        }
+        return multiplexedConnection;
     }
 
 }
@@ -0,0 +1,190 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.domain.controller;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Rolls updates out to 500 simulated servers through {@link RollingUpdateTask} and {@link ConcurrentUpdateTask}.
+ */
+public class UpdateTaskStressTestCase {
+
+    private static final int SERVERS = 500;
+    private static final int GROUPS = 50;
+    /** frames a rollout of synchronously completing servers may add to the stack */
+    private static final int MAX_DEPTH = 100;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testSynchronousRollingGroup() throws Exception {
+        final List<SimulatedServer> servers = createSynchronousServers(SERVERS);
+        final Completion completion = new Completion();
+        final int depth = Thread.currentThread().getStackTrace().length;
+        new RollingUpdateTask(new ArrayList<UpdateTask>(servers)).execute(completion);
+        completion.await();
+        assertUpdatedOnce(servers);
+        assertTrue("stack depth " + SimulatedServer.maxDepth.get(), SimulatedServer.maxDepth.get() - depth < MAX_DEPTH);
+    }
+
+    @Test
+    public void testSynchronousConcurrentGroup() throws Exception {
+        final List<SimulatedServer> servers = createSynchronousServers(SERVERS);
+        final Completion completion = new Completion();
+        final int depth = Thread.currentThread().getStackTrace().length;
+        new ConcurrentUpdateTask(new ArrayList<UpdateTask>(servers), 1).execute(completion);
+        completion.await();
+        assertUpdatedOnce(servers);
+        assertTrue("stack depth " + SimulatedServer.maxDepth.get(), SimulatedServer.maxDepth.get() - depth < MAX_DEPTH);
+    }
+
+    @Test
+    public void testDomainRollout() throws Exception {
+        // a rolling set of two concurrent sets of groups, alternating rolling and concurrent groups, with servers
+        // which complete on the pool or on the calling thread
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final List<SimulatedServer> servers = new ArrayList<SimulatedServer>();
+        final List<UpdateTask> sets = new ArrayList<UpdateTask>();
+        final int perGroup = SERVERS / GROUPS;
+        for (int set = 0; set < 2; set++) {
+            final List<UpdateTask> groups = new ArrayList<UpdateTask>();
+            for (int group = 0; group < GROUPS / 2; group++) {
+                final List<UpdateTask> groupTasks = new ArrayList<UpdateTask>();
+                for (int i = 0; i < perGroup; i++) {
+                    final SimulatedServer server = new SimulatedServer(i % 3 == 0 ? null : executor, running, maxRunning);
+                    servers.add(server);
+                    groupTasks.add(server);
+                }
+                groups.add(group % 2 == 0 ? new RollingUpdateTask(groupTasks) : new ConcurrentUpdateTask(groupTasks, 3));
+            }
+            sets.add(new ConcurrentUpdateTask(groups, 5));
+        }
+        final Completion completion = new Completion();
+        new RollingUpdateTask(sets).execute(completion);
+        completion.await();
+        assertEquals(SERVERS, servers.size());
+        assertUpdatedOnce(servers);
+        // 5 groups at a time, each updating at most 3 servers at a time
+        assertTrue("running " + maxRunning.get(), maxRunning.get() <= 15);
+    }
+
+    @Test
+    public void testEmptyTasks() throws Exception {
+        final Completion completion = new Completion();
+        final List<UpdateTask> empty = new ArrayList<UpdateTask>();
+        final List<UpdateTask> tasks = new ArrayList<UpdateTask>();
+        tasks.add(new RollingUpdateTask(empty));
+        tasks.add(new ConcurrentUpdateTask(empty, 1));
+        new RollingUpdateTask(tasks).execute(completion);
+        completion.await();
+    }
+
+    private static List<SimulatedServer> createSynchronousServers(final int count) {
+        SimulatedServer.maxDepth.set(0);
+        final List<SimulatedServer> servers = new ArrayList<SimulatedServer>(count);
+        for (int i = 0; i < count; i++) {
+            servers.add(new SimulatedServer(null, new AtomicInteger(), new AtomicInteger()));
+        }
+        return servers;
+    }
+
+    private static void raise(final AtomicInteger max, final int value) {
+        int current;
+        while ((current = max.get()) < value && !max.compareAndSet(current, value)) {
+        }
+    }
+
+    private static void assertUpdatedOnce(final List<SimulatedServer> servers) {
+        for (SimulatedServer server : servers) {
+            assertEquals(1, server.updates.get());
+        }
+    }
+
+    /**
+     * A server update which completes on the executor, or before {@code execute} returns if there is none.
+     */
+    private static final class SimulatedServer implements UpdateTask {
+        static final AtomicInteger maxDepth = new AtomicInteger();
+
+        private final ExecutorService executor;
+        private final AtomicInteger running;
+        private final AtomicInteger maxRunning;
+        private final AtomicInteger updates = new AtomicInteger();
+
+        SimulatedServer(final ExecutorService executor, final AtomicInteger running, final AtomicInteger maxRunning) {
+            this.executor = executor;
+            this.running = running;
+            this.maxRunning = maxRunning;
+        }
+
+        public void execute(final Runnable completionTask) {
+            raise(maxRunning, running.incrementAndGet());
+            final Runnable update = new Runnable() {
+                public void run() {
+                    updates.incrementAndGet();
+                    raise(maxDepth, Thread.currentThread().getStackTrace().length);
+                    running.decrementAndGet();
+                    completionTask.run();
+                }
+            };
+            if (executor == null) {
+                update.run();
+            } else {
+                executor.execute(update);
+            }
+        }
+    }
+
+    private static final class Completion implements Runnable {
+        private final AtomicInteger runs = new AtomicInteger();
+        private final CountDownLatch latch = new CountDownLatch(1);
+
+        public void run() {
+            runs.incrementAndGet();
+            latch.countDown();
+        }
+
+        void await() throws InterruptedException {
+            assertTrue("rollout did not complete", latch.await(30, TimeUnit.SECONDS));
+            assertEquals(1, runs.get());
+        }
+    }
+}
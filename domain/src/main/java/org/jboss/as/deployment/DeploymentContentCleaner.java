@@ -0,0 +1,205 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.jboss.as.deployment;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.jboss.logging.Logger;
+
+/**
+ * Removes content from a repository laid out by hash once nothing references it any more.  Content is referenced by
+ * the deployments in the configuration model, reported by a {@link ContentReferences}, and by every mount that is
+ * still open.  Content younger than the grace period is always kept, since an upload is added to the repository
+ * before the deployment that refers to it is added to the model.  Content is only removed while holding the lock
+ * that mounts and, for a cleaner created with a {@link DeploymentContentWriter}, uploads take, after checking again
+ * that it is still unused.
+ */
+public final class DeploymentContentCleaner implements Runnable {
+
+    /** The default time unreferenced content is kept, in milliseconds **/
+    public static final long DEFAULT_GRACE_PERIOD = 10L * 60L * 1000L;
+
+    private static final String PARTIAL = "partial";
+
+    private final File repoRoot;
+    private final ContentReferences references;
+    private final long gracePeriod;
+    private final Logger log;
+    private final Object lock;
+    private final Map<String, Integer> mounts = new HashMap<String, Integer>();
+
+    /**
+     * Create a new cleaner.
+     *
+     * @param repoRoot the repository root
+     * @param references the source of the hashes referenced by the model
+     * @param gracePeriod the time unreferenced content is kept, in milliseconds
+     * @param log the repository's logger
+     */
+    public DeploymentContentCleaner(final File repoRoot, final ContentReferences references, final long gracePeriod, final Logger log) {
+        this(repoRoot, new Object(), references, gracePeriod, log);
+    }
+
+    /**
+     * Create a new cleaner for the repository a writer adds content to.  Content the writer is storing, or has
+     * just found already present, is never removed.
+     *
+     * @param writer the repository's writer
+     * @param references the source of the hashes referenced by the model
+     * @param gracePeriod the time unreferenced content is kept, in milliseconds
+     * @param log the repository's logger
+     */
+    public DeploymentContentCleaner(final DeploymentContentWriter writer, final ContentReferences references, final long gracePeriod, final Logger log) {
+        this(writer.getRepoRoot(), writer.lock, references, gracePeriod, log);
+    }
+
+    private DeploymentContentCleaner(final File repoRoot, final Object lock, final ContentReferences references, final long gracePeriod, final Logger log) {
+        this.repoRoot = repoRoot;
+        this.lock = lock;
+        this.references = references;
+        this.gracePeriod = gracePeriod;
+        this.log = log;
+    }
+
+    /**
+     * Record that content has been mounted.
+     *
+     * @param sha1 the hex encoded hash of the content
+     */
+    public void acquire(final String sha1) {
+        synchronized (lock) {
+            final Integer count = mounts.get(sha1);
+            mounts.put(sha1, Integer.valueOf(count == null ? 1 : count.intValue() + 1));
+        }
+    }
+
+    /**
+     * Record that a mount of content has been closed.
+     *
+     * @param sha1 the hex encoded hash of the content
+     */
+    public void release(final String sha1) {
+        synchronized (lock) {
+            final Integer count = mounts.get(sha1);
+            if (count == null) {
+                return;
+            }
+            if (count.intValue() > 1) {
+                mounts.put(sha1, Integer.valueOf(count.intValue() - 1));
+            } else {
+                mounts.remove(sha1);
+            }
+        }
+    }
+
+    /**
+     * Remove all content which is neither referenced nor mounted, and all partial uploads, which are older than the
+     * grace period.
+     */
+    public void run() {
+        try {
+            final long cutoff = System.currentTimeMillis() - gracePeriod;
+            final Set<String> referenced = references.getReferencedContent();
+            final File[] bases = repoRoot.listFiles();
+            if (bases == null) {
+                return;
+            }
+            for (File base : bases) {
+                if (base.getName().equals(PARTIAL)) {
+                    cleanPartial(base, cutoff);
+                    continue;
+                }
+                if (base.getName().length() != 2 || ! base.isDirectory()) {
+                    continue;
+                }
+                final File[] hashDirs = base.listFiles();
+                if (hashDirs == null) {
+                    continue;
+                }
+                for (File hashDir : hashDirs) {
+                    final String sha1 = base.getName() + hashDir.getName();
+                    if (referenced.contains(sha1) || hashDir.lastModified() > cutoff) {
+                        continue;
+                    }
+                    synchronized (lock) {
+                        // a mount, an upload or a new deployment may have claimed the content since the snapshot
+                        if (mounts.containsKey(sha1) || hashDir.lastModified() > cutoff
+                                || references.getReferencedContent().contains(sha1)) {
+                            continue;
+                        }
+                        delete(hashDir);
+                    }
+                    log.infof("Removed unreferenced content %s", sha1);
+                }
+                // only removes the directory if it is now empty
+                base.delete();
+            }
+        } catch (Throwable t) {
+            log.errorf(t, "Failed to remove unreferenced content from %s", repoRoot.getAbsolutePath());
+        }
+    }
+
+    private void cleanPartial(final File dir, final long cutoff) {
+        final File[] partials = dir.listFiles();
+        if (partials == null) {
+            return;
+        }
+        for (File partial : partials) {
+            if (partial.lastModified() <= cutoff) {
+                delete(partial);
+                log.debugf("Removed partial content %s", partial.getName());
+            }
+        }
+    }
+
+    private static void delete(final File file) {
+        // an expanded copy of the content is read-only
+        file.setWritable(true);
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        if (! file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    /**
+     * The source of the content hashes referenced by a configuration model.
+     */
+    public interface ContentReferences {
+
+        /**
+         * Get the hex encoded hashes of all content the model's deployments refer to.
+         *
+         * @return the hashes
+         */
+        Set<String> getReferencedContent();
+    }
+}
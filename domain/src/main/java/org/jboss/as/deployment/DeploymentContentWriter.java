@@ -0,0 +1,308 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.deployment;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+import org.jboss.as.model.DeploymentUnitElement;
+import org.jboss.logging.Logger;
+
+/**
+ * Writes deployment content into a content repository laid out by hash, computing the SHA-1 hash of the content as
+ * it is written.  Each upload uses its own digest, so concurrent uploads do not wait for each other.  Content sent
+ * with a hash the repository already holds is only hashed.  If reading the content fails part way through, the bytes
+ * received so far are kept as the partial content for the deployment name, and a later upload of the same name can
+ * resume after them.
+ */
+public final class DeploymentContentWriter {
+
+    private static final String CONTENT = "content";
+    private static final String PARTIAL = "partial";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final File repoRoot;
+    private final Logger log;
+    /** Held while content is stored or touched, so a cleaner never removes content an upload has just returned **/
+    final Object lock = new Object();
+
+    /**
+     * Create a new writer.
+     *
+     * @param repoRoot the repository root
+     * @param log the repository's logger
+     */
+    public DeploymentContentWriter(final File repoRoot, final Logger log) {
+        this.repoRoot = repoRoot;
+        this.log = log;
+    }
+
+    File getRepoRoot() {
+        return repoRoot;
+    }
+
+    /**
+     * Get the partial content held for a deployment name.
+     *
+     * @param name the deployment name
+     * @return the partial content, or {@code null} if there is none
+     * @throws IOException if the partial content can not be read
+     */
+    public PartialDeploymentContent getPartialContent(final String name) throws IOException {
+        final File partial = getPartialFile(name);
+        if (! partial.isFile()) {
+            return null;
+        }
+        final MessageDigest digest = createDigest();
+        final long length = hash(partial, partial.length(), digest);
+        return new PartialDeploymentContent(length, digest.digest());
+    }
+
+    /**
+     * Add content to the repository.
+     *
+     * @param name the deployment name
+     * @param stream the content, starting at {@code offset}
+     * @param offset the number of leading bytes to take from the partial content for the name
+     * @return the SHA-1 hash of the complete content
+     * @throws IOException if the content can not be read or stored
+     */
+    public byte[] addContent(final String name, final InputStream stream, final long offset) throws IOException {
+        return addContent(name, stream, offset, null);
+    }
+
+    /**
+     * Add content whose hash the sender already knows to the repository.  If the repository holds content under
+     * that hash, the stream is only hashed to verify it; no temp file is created and nothing is written.
+     *
+     * @param name the deployment name
+     * @param stream the content, starting at {@code offset}
+     * @param offset the number of leading bytes to take from the partial content for the name
+     * @param expectedHash the SHA-1 hash the sender claims for the complete content, or {@code null} if not known
+     * @return the SHA-1 hash of the complete content
+     * @throws IOException if the content can not be read or stored, or does not match {@code expectedHash}
+     */
+    public byte[] addContent(final String name, final InputStream stream, final long offset, final byte[] expectedHash) throws IOException {
+        final MessageDigest digest = createDigest();
+        if (offset == 0L && expectedHash != null) {
+            final File existing = getContentFile(expectedHash);
+            if (existing.isFile()) {
+                final byte[] bytes = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = stream.read(bytes)) != -1) {
+                    digest.update(bytes, 0, read);
+                }
+                final byte[] sha1Bytes = verify(name, digest.digest(), expectedHash);
+                synchronized (lock) {
+                    // keep the content from looking unused to a cleaner
+                    if (! existing.isFile() || ! existing.getParentFile().setLastModified(System.currentTimeMillis())) {
+                        throw new IOException("Content with name " + name + " was removed from the repository while it was verified");
+                    }
+                }
+                log.debugf("Content with name %s was already present in repository at location %s", name, existing.getAbsolutePath());
+                return sha1Bytes;
+            }
+        }
+        final File partial = getPartialFile(name);
+        final File tmp;
+        if (offset > 0L) {
+            if (! partial.isFile() || partial.length() < offset) {
+                throw new IOException("No partial content of " + offset + " bytes is held for " + name);
+            }
+            tmp = partial;
+            hash(partial, offset, digest);
+        } else {
+            tmp = File.createTempFile(name, "tmp", repoRoot);
+        }
+        boolean complete = false;
+        final RandomAccessFile file = new RandomAccessFile(tmp, "rw");
+        try {
+            final FileChannel channel = file.getChannel();
+            channel.truncate(offset);
+            channel.position(offset);
+            final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            final byte[] bytes = buffer.array();
+            int read;
+            while ((read = stream.read(bytes)) != -1) {
+                digest.update(bytes, 0, read);
+                buffer.limit(read);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                buffer.clear();
+            }
+            complete = true;
+        } finally {
+            try { file.close(); } catch (Exception ignored) {}
+            if (! complete) {
+                keepPartial(name, tmp, partial);
+            }
+        }
+        final byte[] sha1Bytes;
+        try {
+            sha1Bytes = verify(name, digest.digest(), expectedHash);
+        } catch (IOException e) {
+            delete(tmp);
+            throw e;
+        }
+        return store(name, tmp, sha1Bytes);
+    }
+
+    private byte[] store(final String name, final File tmp, final byte[] sha1Bytes) throws IOException {
+        synchronized (lock) {
+            return storeLocked(name, tmp, sha1Bytes);
+        }
+    }
+
+    private byte[] storeLocked(final String name, final File tmp, final byte[] sha1Bytes) throws IOException {
+        final File realFile = getContentFile(sha1Bytes);
+        final File realDir = realFile.getParentFile();
+        validateDir(realDir.getParentFile());
+        if (!realDir.exists() && !realDir.mkdirs()) {
+            throw new IllegalStateException("Cannot create directory " + realDir.getAbsolutePath());
+        }
+        if (realFile.exists()) {
+            // we've already got this content
+            delete(tmp);
+            log.debugf("Content with name %s was already present in repository at location %s" , name, realFile.getAbsolutePath());
+            realDir.setLastModified(System.currentTimeMillis());
+        }
+        else {
+            moveTempToPermanent(tmp, realFile);
+            log.infof("Content with name %s added at location %s" , name, realFile.getAbsolutePath());
+        }
+        return sha1Bytes;
+    }
+
+    private File getContentFile(final byte[] sha1Bytes) {
+        final String sha1 = DeploymentUnitElement.bytesToHexString(sha1Bytes);
+        return new File(new File(new File(repoRoot, sha1.substring(0, 2)), sha1.substring(2)), CONTENT);
+    }
+
+    private static byte[] verify(final String name, final byte[] sha1Bytes, final byte[] expectedHash) throws IOException {
+        if (expectedHash != null && ! Arrays.equals(sha1Bytes, expectedHash)) {
+            throw new IOException("Content with name " + name + " has hash " + DeploymentUnitElement.bytesToHexString(sha1Bytes)
+                    + " rather than the expected " + DeploymentUnitElement.bytesToHexString(expectedHash));
+        }
+        return sha1Bytes;
+    }
+
+    private void keepPartial(final String name, final File tmp, final File partial) {
+        if (tmp.equals(partial)) {
+            return;
+        }
+        final File dir = partial.getParentFile();
+        if (tmp.length() > 0L && (dir.isDirectory() || dir.mkdirs())) {
+            delete(partial);
+            if (tmp.renameTo(partial)) {
+                log.debugf("Kept %d bytes of interrupted upload of %s", Long.valueOf(partial.length()), name);
+                return;
+            }
+        }
+        delete(tmp);
+    }
+
+    private File getPartialFile(final String name) throws IOException {
+        final MessageDigest digest = createDigest();
+        final byte[] nameHash = digest.digest(name.getBytes("UTF-8"));
+        return new File(new File(repoRoot, PARTIAL), DeploymentUnitElement.bytesToHexString(nameHash));
+    }
+
+    private static long hash(final File file, final long length, final MessageDigest digest) throws IOException {
+        final FileInputStream fis = new FileInputStream(file);
+        try {
+            final byte[] bytes = new byte[BUFFER_SIZE];
+            long remaining = length;
+            int read;
+            while (remaining > 0L && (read = fis.read(bytes, 0, (int) Math.min(remaining, bytes.length))) != -1) {
+                digest.update(bytes, 0, read);
+                remaining -= read;
+            }
+            return length - remaining;
+        } finally {
+            try { fis.close(); } catch (Exception ignored) {}
+        }
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Cannot obtain SHA-1 " + MessageDigest.class.getSimpleName(), e);
+        }
+    }
+
+    private static void validateDir(final File dir) {
+        if (!dir.exists()) {
+            if (!dir.mkdirs()) {
+                throw new IllegalStateException("Cannot create directory " + dir.getAbsolutePath());
+            }
+        }
+        else if (!dir.isDirectory()) {
+            throw new IllegalStateException(dir.getAbsolutePath() + " is not a directory");
+        }
+        else if (!dir.canWrite()) {
+            throw new IllegalStateException("Cannot write to directory " + dir.getAbsolutePath());
+        }
+    }
+
+    private static void moveTempToPermanent(final File tmpFile, final File permanentFile) throws IOException {
+        if (tmpFile.renameTo(permanentFile)) {
+            return;
+        }
+        // a different file system; let the channels copy the file
+        final FileInputStream fis = new FileInputStream(tmpFile);
+        try {
+            final FileOutputStream fos = new FileOutputStream(permanentFile);
+            try {
+                final FileChannel source = fis.getChannel();
+                final FileChannel target = fos.getChannel();
+                final long size = source.size();
+                long position = 0L;
+                while (position < size) {
+                    position += target.transferFrom(source, position, size - position);
+                }
+            } finally {
+                try { fos.close(); } catch (Exception ignored) {}
+            }
+        } finally {
+            try { fis.close(); } catch (Exception ignored) {}
+            delete(tmpFile);
+        }
+    }
+
+    private static void delete(final File file) {
+        if (!file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+}
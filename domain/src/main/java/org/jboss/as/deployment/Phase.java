@@ -95,8 +95,41 @@ public final class Phase {
     public static final int DS_DEPLOYMENT_PROCESSOR                     = INSTALL + 0x800;
     public static final int MANAGED_BEAN_DEPLOYMENT_PROCESSOR           = INSTALL + 0x900;
     public static final int SERVLET_CONTAINER_INITIALIZER_DEPLOYMENT_PROCESSOR  = INSTALL + 0xA00;
+    public static final int WAR_INJECTION_PROCESSOR                     = INSTALL + 0xA80;
     public static final int WAR_DEPLOYMENT_PROCESSOR                    = INSTALL + 0xB00;
     public static final int ARQUILLIAN_DEPLOYMENT_PROCESSOR             = INSTALL + 0xC00;
 
     public static final int CLEANUP         = 0x00800000;
+
+    private static final int PHASE_MASK     = 0xFFF00000;
+
+    /**
+     * Get the phase a processor priority belongs to.
+     *
+     * @param priority the processor priority
+     * @return the phase, one of the phase constants for any priority defined here
+     */
+    public static int getPhase(final long priority) {
+        return (int) (priority & PHASE_MASK);
+    }
+
+    /**
+     * Get a readable name for the phase a processor priority belongs to.
+     *
+     * @param priority the processor priority
+     * @return the phase name
+     */
+    public static String getPhaseName(final long priority) {
+        switch (getPhase(priority)) {
+            case STRUCTURE: return "STRUCTURE";
+            case VALIDATE: return "VALIDATE";
+            case PARSE: return "PARSE";
+            case DEPENDENCIES: return "DEPENDENCIES";
+            case MODULARIZE: return "MODULARIZE";
+            case POST_MODULE: return "POST_MODULE";
+            case INSTALL: return "INSTALL";
+            case CLEANUP: return "CLEANUP";
+            default: return "0x" + Integer.toHexString(getPhase(priority));
+        }
+    }
 }
@@ -23,6 +23,7 @@
 package org.jboss.as.deployment;
 
 import java.io.Closeable;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 
@@ -54,6 +55,31 @@ public interface ServerDeploymentRepository {
      */
     byte[] addDeploymentContent(String name, String runtimeName, InputStream stream) throws IOException;
 
+    /**
+     * Add the given content to the repository, resuming an upload which was interrupted.  If the sender knows the
+     * hash of the content and the repository already holds content with that hash, the stream is only read to
+     * verify the hash.
+     *
+     * @param name unique name for the content as provided by the end user. Cannot be <code>null</code>
+     * @param runtimeName the name the deployment file should be known as to the runtime. Cannot be <code>null</code>
+     * @param stream stream from which the content following {@code offset} can be read. Cannot be <code>null</code>
+     * @param offset the number of leading bytes to take from the {@link #getPartialDeploymentContent(String) partial content}
+     * @param expectedHash the hash the sender claims for the content, or <code>null</code> if it is not known
+     * @return the hash of the content that will be used as an internal identifier
+     *         for the content. Will not be <code>null</code>
+     * @throws IOException
+     */
+    byte[] addDeploymentContent(String name, String runtimeName, InputStream stream, long offset, byte[] expectedHash) throws IOException;
+
+    /**
+     * Get the part of the content with the given unique name which was received before an upload was interrupted.
+     *
+     * @param name unique name for the content as provided by the end user. Cannot be <code>null</code>
+     * @return the partial content, or <code>null</code> if there is none
+     * @throws IOException
+     */
+    PartialDeploymentContent getPartialDeploymentContent(String name) throws IOException;
+
     /**
      * Requests that the content with the given unique name and hash be mounted
      * in VFS at the given {@code mountPoint}.
@@ -67,4 +93,13 @@ public interface ServerDeploymentRepository {
      * @throws IOException
      */
     Closeable mountDeploymentContent(String name, String runtimeName, byte[] deploymentHash, VirtualFile mountPoint) throws IOException;
+
+    /**
+     * Get a directory in which data derived from the content with the given hash, such as its annotation index,
+     * can be cached across restarts.  The directory is removed along with the content.
+     *
+     * @param deploymentHash internal identification hash. May be <code>null</code> for internal deployments
+     * @return the directory, or <code>null</code> if nothing should be cached for the content
+     */
+    File getDeploymentCacheDirectory(byte[] deploymentHash);
 }
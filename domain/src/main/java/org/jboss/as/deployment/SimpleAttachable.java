@@ -22,6 +22,7 @@
 
 package org.jboss.as.deployment;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -31,7 +32,8 @@ import java.util.Map;
  * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
  */
 public class SimpleAttachable implements Attachable {
-    private final Map<AttachmentKey<?>, Object> attachments = new HashMap<AttachmentKey<?>, Object>();
+    // concurrent deployment processors attach to the same context
+    private final Map<AttachmentKey<?>, Object> attachments = Collections.synchronizedMap(new HashMap<AttachmentKey<?>, Object>());
 
     /** {@inheritDoc} */
     public <T> T getAttachment(final AttachmentKey<T> key) {
@@ -0,0 +1,49 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.jboss.as.deployment.attachment;
+
+import java.util.concurrent.Executor;
+
+import org.jboss.as.deployment.AttachmentKey;
+import org.jboss.as.deployment.unit.DeploymentUnitContext;
+import org.jboss.msc.service.ServiceName;
+
+/**
+ * Utility to help attach and retrieve the executor which deployment processors may hand work to.  The executor is
+ * the server's deployment pool, which runs tasks in the submitting thread once it is saturated, so a processor may
+ * wait for the tasks it submits.  It is not attached when the pool is not running.
+ */
+public class DeploymentExecutorAttachment {
+    /** The name of the service providing the server's deployment pool. */
+    public static final ServiceName SERVICE_NAME = ServiceName.JBOSS.append("server", "executor", "deployment");
+    public static final AttachmentKey<Executor> KEY = AttachmentKey.create(Executor.class);
+
+    public static void attachDeploymentExecutor(final DeploymentUnitContext context, final Executor executor) {
+        context.putAttachment(KEY, executor);
+    }
+
+    public static Executor getDeploymentExecutor(final DeploymentUnitContext context) {
+        return context.getAttachment(KEY);
+    }
+}
@@ -22,20 +22,61 @@
 
 package org.jboss.as.deployment.chain;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.jboss.as.deployment.Phase;
+import org.jboss.as.deployment.unit.ConcurrentDeploymentUnitProcessor;
 import org.jboss.as.deployment.unit.DeploymentUnitContext;
 import org.jboss.as.deployment.unit.DeploymentUnitProcessingException;
 import org.jboss.as.deployment.unit.DeploymentUnitProcessor;
 
 /**
  * Deployment chain implementation used to execute multiple DeploymentUnitProcessor instances in priority order.
+ * If the chain has an executor, {@link ConcurrentDeploymentUnitProcessor}s are handed to it and run alongside the rest
+ * of their phase; the next phase starts once they have all completed.  The time spent in each processor and phase is
+ * recorded in the chain's {@link DeploymentChainMetrics}.
  *
  * @author John E. Bailey
  */
 public class DeploymentChainImpl implements DeploymentChain {
     private final Set<OrderedProcessor> orderedProcessors = new ConcurrentSkipListSet<OrderedProcessor>();
+    private final Executor executor;
+    private final DeploymentChainMetrics metrics = new DeploymentChainMetrics();
+
+    /**
+     * Create a chain which runs every processor on the calling thread.
+     */
+    public DeploymentChainImpl() {
+        this(null);
+    }
+
+    /**
+     * Create a chain which runs concurrent processors on the given executor.
+     *
+     * @param executor the executor, or {@code null} to run every processor on the calling thread
+     */
+    public DeploymentChainImpl(final Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Get the processing times recorded by this chain.
+     *
+     * @return the metrics
+     */
+    public DeploymentChainMetrics getMetrics() {
+        return metrics;
+    }
 
     /**
      * Process the deployment unit using the chain of DeploymentUnitProcessor instances.
@@ -46,8 +87,83 @@ public class DeploymentChainImpl implements DeploymentChain {
      */
     public void processDeployment(DeploymentUnitContext context) throws DeploymentUnitProcessingException {
         final Set<OrderedProcessor> processors = this.orderedProcessors;
-        for(OrderedProcessor orderedProcessor : processors) {
-            orderedProcessor.processor.processDeployment(context);
+        final Executor executor = this.executor;
+        final Map<String, Long> processorTimes = Collections.synchronizedMap(new LinkedHashMap<String, Long>());
+        final Map<String, Long> phaseTimes = new LinkedHashMap<String, Long>();
+        final List<ProcessorTask> pending = new ArrayList<ProcessorTask>();
+        final long start = System.nanoTime();
+        long phaseStart = start;
+        int phase = -1;
+        try {
+            for(OrderedProcessor orderedProcessor : processors) {
+                final int processorPhase = Phase.getPhase(orderedProcessor.processingOrder);
+                if (processorPhase != phase) {
+                    if (phase != -1) {
+                        join(pending);
+                        final long now = System.nanoTime();
+                        phaseTimes.put(Phase.getPhaseName(phase), Long.valueOf(now - phaseStart));
+                        phaseStart = now;
+                    }
+                    phase = processorPhase;
+                }
+                final ProcessorTask task = new ProcessorTask(orderedProcessor, context, processorTimes);
+                if (executor != null && orderedProcessor.processor instanceof ConcurrentDeploymentUnitProcessor) {
+                    pending.add(task);
+                    try {
+                        executor.execute(task);
+                    } catch (RejectedExecutionException e) {
+                        // the task is run by this thread when the phase is joined
+                    }
+                } else {
+                    task.run();
+                    task.rethrow();
+                }
+            }
+            join(pending);
+        } finally {
+            // on failure, do not leave concurrent processors working on the context
+            cancel(pending);
+        }
+        final long end = System.nanoTime();
+        if (phase != -1) {
+            phaseTimes.put(Phase.getPhaseName(phase), Long.valueOf(end - phaseStart));
+        }
+        metrics.record(context.getName(), end - start, processorTimes, phaseTimes);
+    }
+
+    private static void join(final List<ProcessorTask> tasks) throws DeploymentUnitProcessingException {
+        // run whatever the executor has not picked up yet rather than waiting for it
+        for (ProcessorTask task : tasks) {
+            task.run();
+        }
+        for (ProcessorTask task : tasks) {
+            task.await();
+            task.rethrow();
+        }
+        tasks.clear();
+    }
+
+    private static void cancel(final List<ProcessorTask> tasks) {
+        for (ProcessorTask task : tasks) {
+            task.cancel();
+        }
+        boolean intr = false;
+        try {
+            for (ProcessorTask task : tasks) {
+                while (true) {
+                    try {
+                        task.done.await();
+                        break;
+                    } catch (InterruptedException e) {
+                        intr = true;
+                    }
+                }
+            }
+        } finally {
+            tasks.clear();
+            if (intr) {
+                Thread.currentThread().interrupt();
+            }
         }
     }
 
@@ -68,10 +184,74 @@ public class DeploymentChainImpl implements DeploymentChain {
         return "DeploymentChainImpl{processors=" + orderedProcessors + "}";
     }
 
+    /**
+     * A processor run for one deployment unit, by whichever of the executor or the deploying thread claims it first.
+     */
+    private static final class ProcessorTask implements Runnable {
+        private final OrderedProcessor orderedProcessor;
+        private final DeploymentUnitContext context;
+        private final Map<String, Long> processorTimes;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile Throwable failure;
+
+        private ProcessorTask(final OrderedProcessor orderedProcessor, final DeploymentUnitContext context, final Map<String, Long> processorTimes) {
+            this.orderedProcessor = orderedProcessor;
+            this.context = context;
+            this.processorTimes = processorTimes;
+        }
+
+        public void run() {
+            if (! claimed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                final long start = System.nanoTime();
+                orderedProcessor.processor.processDeployment(context);
+                processorTimes.put(orderedProcessor.key, Long.valueOf(System.nanoTime() - start));
+            } catch (Throwable t) {
+                failure = t;
+            } finally {
+                done.countDown();
+            }
+        }
+
+        private void cancel() {
+            if (claimed.compareAndSet(false, true)) {
+                done.countDown();
+            }
+        }
+
+        private void await() throws DeploymentUnitProcessingException {
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new DeploymentUnitProcessingException("Interrupted waiting for " + orderedProcessor);
+            }
+        }
+
+        private void rethrow() throws DeploymentUnitProcessingException {
+            final Throwable failure = this.failure;
+            if (failure == null) {
+                return;
+            }
+            if (failure instanceof DeploymentUnitProcessingException) {
+                throw (DeploymentUnitProcessingException) failure;
+            } else if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            } else if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+            throw new DeploymentUnitProcessingException("Processor " + orderedProcessor + " failed", failure);
+        }
+    }
+
     private static final class OrderedProcessor implements Comparable<OrderedProcessor> {
         private final DeploymentUnitProcessor processor;
         private final String name;
         private final long processingOrder;
+        private final String key;
 
         private OrderedProcessor(final DeploymentUnitProcessor processor, final long processingOrder) {
             if (processor == null)
@@ -80,6 +260,8 @@ public class DeploymentChainImpl implements DeploymentChain {
             this.processor = processor;
             this.name = processor.getClass().getName();
             this.processingOrder = processingOrder;
+            final String simpleName = processor.getClass().getSimpleName();
+            this.key = String.format("%08x %s", Long.valueOf(processingOrder), simpleName.length() == 0 ? name : simpleName);
         }
 
         @Override
@@ -0,0 +1,127 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.deployment.chain;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jboss.logging.Logger;
+
+/**
+ * Accumulates the time a {@link DeploymentChainImpl} spends in each processor and phase.  Per deployment figures are
+ * kept for the most recently processed deployment units only.
+ */
+public final class DeploymentChainMetrics implements DeploymentChainMetricsMXBean {
+    private static final Logger log = Logger.getLogger("org.jboss.as.deployment.chain");
+    private static final int MAX_DEPLOYMENTS = 32;
+
+    private final AtomicLong deploymentCount = new AtomicLong();
+    private final Map<String, Long> processorNanos = new HashMap<String, Long>();
+    private final Map<String, Long> phaseNanos = new HashMap<String, Long>();
+    private final Map<String, Deployment> deployments = new LinkedHashMap<String, Deployment>(MAX_DEPLOYMENTS, 0.75f, false) {
+        private static final long serialVersionUID = 1L;
+
+        protected boolean removeEldestEntry(final Map.Entry<String, Deployment> eldest) {
+            return size() > MAX_DEPLOYMENTS;
+        }
+    };
+
+    /**
+     * Record the timings of one deployment unit.
+     *
+     * @param deploymentName the deployment unit name
+     * @param totalNanos the total processing time
+     * @param processors the time spent in each processor
+     * @param phases the wall-clock time spent in each phase
+     */
+    void record(final String deploymentName, final long totalNanos, final Map<String, Long> processors, final Map<String, Long> phases) {
+        deploymentCount.incrementAndGet();
+        synchronized (this) {
+            add(processorNanos, processors);
+            add(phaseNanos, phases);
+            deployments.put(deploymentName, new Deployment(totalNanos, processors));
+        }
+        if (log.isDebugEnabled()) {
+            log.debugf("Processed deployment %s in %d ms; phases: %s", deploymentName, Long.valueOf(toMillis(totalNanos)), toMillis(phases));
+        }
+    }
+
+    public long getDeploymentCount() {
+        return deploymentCount.get();
+    }
+
+    public synchronized Map<String, Long> getProcessorTimes() {
+        return toMillis(processorNanos);
+    }
+
+    public synchronized Map<String, Long> getPhaseTimes() {
+        return toMillis(phaseNanos);
+    }
+
+    public synchronized Map<String, Long> getDeploymentTimes() {
+        final Map<String, Long> result = new LinkedHashMap<String, Long>();
+        for (Map.Entry<String, Deployment> entry : deployments.entrySet()) {
+            result.put(entry.getKey(), Long.valueOf(toMillis(entry.getValue().totalNanos)));
+        }
+        return result;
+    }
+
+    public synchronized Map<String, Long> getDeploymentProcessorTimes(final String deploymentName) {
+        final Deployment deployment = deployments.get(deploymentName);
+        return deployment == null ? null : toMillis(deployment.processorNanos);
+    }
+
+    private static void add(final Map<String, Long> totals, final Map<String, Long> values) {
+        for (Map.Entry<String, Long> entry : values.entrySet()) {
+            final Long total = totals.get(entry.getKey());
+            totals.put(entry.getKey(), Long.valueOf(total == null ? entry.getValue().longValue() : total.longValue() + entry.getValue().longValue()));
+        }
+    }
+
+    private static Map<String, Long> toMillis(final Map<String, Long> nanos) {
+        final Map<String, Long> result = new TreeMap<String, Long>();
+        for (Map.Entry<String, Long> entry : nanos.entrySet()) {
+            result.put(entry.getKey(), Long.valueOf(toMillis(entry.getValue().longValue())));
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    private static long toMillis(final long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    private static final class Deployment {
+        private final long totalNanos;
+        private final Map<String, Long> processorNanos;
+
+        private Deployment(final long totalNanos, final Map<String, Long> processorNanos) {
+            this.totalNanos = totalNanos;
+            this.processorNanos = processorNanos;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.deployment.chain;
+
+import java.util.Map;
+
+/**
+ * Management view of the time spent in a deployment chain.  All times are in milliseconds.
+ */
+public interface DeploymentChainMetricsMXBean {
+
+    /**
+     * Get the number of deployment units processed by the chain.
+     *
+     * @return the deployment count
+     */
+    long getDeploymentCount();
+
+    /**
+     * Get the total time spent in each processor, keyed by priority and processor class name.
+     *
+     * @return the processor times
+     */
+    Map<String, Long> getProcessorTimes();
+
+    /**
+     * Get the total wall-clock time spent in each phase.
+     *
+     * @return the phase times
+     */
+    Map<String, Long> getPhaseTimes();
+
+    /**
+     * Get the total processing time of the most recently processed deployment units.
+     *
+     * @return the deployment times, keyed by deployment unit name
+     */
+    Map<String, Long> getDeploymentTimes();
+
+    /**
+     * Get the time spent in each processor for one of the most recently processed deployment units.
+     *
+     * @param deploymentName the deployment unit name
+     * @return the processor times, or {@code null} if the deployment is not known
+     */
+    Map<String, Long> getDeploymentProcessorTimes(String deploymentName);
+}
@@ -22,6 +22,11 @@
 
 package org.jboss.as.deployment.chain;
 
+import java.lang.management.ManagementFactory;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.jboss.logging.Logger;
 import org.jboss.msc.service.Service;
 import org.jboss.msc.service.StartContext;
 import org.jboss.msc.service.StartException;
@@ -35,7 +40,11 @@ import org.jboss.msc.value.Values;
  * @author John E. Bailey
  */
 public class DeploymentChainService implements Service<DeploymentChain> {
+    private static final Logger log = Logger.getLogger("org.jboss.as.deployment.chain");
+    private static final String OBJECT_NAME = "jboss:type=DeploymentChain";
+
     private final Value<DeploymentChain> deploymentChainValue;
+    private ObjectName registeredName;
 
     public DeploymentChainService(final Value<DeploymentChain> deploymentChainValue) {
         this.deploymentChainValue = deploymentChainValue;
@@ -46,11 +55,35 @@ public class DeploymentChainService implements Service<DeploymentChain> {
     }
 
     @Override
-    public void start(final StartContext context) throws StartException {
+    public synchronized void start(final StartContext context) throws StartException {
+        final DeploymentChain deploymentChain = deploymentChainValue.getValue();
+        if (deploymentChain instanceof DeploymentChainImpl) {
+            // the metrics are informational, so a chain without them is still usable
+            try {
+                final ObjectName objectName = new ObjectName(OBJECT_NAME);
+                getMBeanServer().registerMBean(DeploymentChainImpl.class.cast(deploymentChain).getMetrics(), objectName);
+                registeredName = objectName;
+            } catch (Exception e) {
+                log.debugf(e, "Failed to register deployment chain metrics as %s", OBJECT_NAME);
+            }
+        }
     }
 
     @Override
-    public void stop(final StopContext context) {
+    public synchronized void stop(final StopContext context) {
+        final ObjectName objectName = registeredName;
+        if (objectName != null) {
+            registeredName = null;
+            try {
+                getMBeanServer().unregisterMBean(objectName);
+            } catch (Exception e) {
+                log.debugf(e, "Failed to unregister deployment chain metrics %s", objectName);
+            }
+        }
+    }
+
+    private static MBeanServer getMBeanServer() {
+        return ManagementFactory.getPlatformMBeanServer();
     }
 
     @Override
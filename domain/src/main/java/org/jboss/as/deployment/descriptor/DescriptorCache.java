@@ -0,0 +1,237 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.deployment.descriptor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.jboss.as.deployment.unit.DeploymentUnitProcessingException;
+import org.jboss.logging.Logger;
+import org.jboss.vfs.VFSUtils;
+import org.jboss.vfs.VirtualFile;
+
+/**
+ * A server wide cache of parsed deployment descriptors, keyed by a digest of the descriptor's content.  Libraries
+ * which are packaged in many deployments, such as the JSTL tag libraries, are parsed only once as long as their
+ * descriptors are byte for byte identical.
+ * <p>
+ * Metadata which is modified by later deployment processors must not be shared between deployments; such caches
+ * are created with {@code copyOnRead} set, keep the parsed metadata in serialized form and return a new copy on
+ * each read.
+ *
+ * @param <T> the parsed metadata type
+ */
+public final class DescriptorCache<T> {
+
+    private static final Logger log = Logger.getLogger("org.jboss.as.deployment");
+
+    private final Map<BigInteger, CachedDescriptor<T>> entries;
+    private final boolean copyOnRead;
+
+    /**
+     * Construct a new instance.
+     *
+     * @param maxEntries the number of descriptors to keep, the least recently used are dropped first
+     * @param copyOnRead {@code true} to return a copy of the cached metadata on each read
+     */
+    public DescriptorCache(final int maxEntries, final boolean copyOnRead) {
+        this.copyOnRead = copyOnRead;
+        entries = Collections.synchronizedMap(new LinkedHashMap<BigInteger, CachedDescriptor<T>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            protected boolean removeEldestEntry(final Map.Entry<BigInteger, CachedDescriptor<T>> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    /**
+     * Get the parsed metadata of a descriptor, parsing it if no descriptor with the same content was parsed before.
+     *
+     * @param descriptor the descriptor file
+     * @param parser the parser for the descriptor type
+     * @return the parsed metadata
+     * @throws DeploymentUnitProcessingException if the descriptor cannot be read or parsed
+     */
+    public T get(final VirtualFile descriptor, final Parser<T> parser) throws DeploymentUnitProcessingException {
+        final byte[] content;
+        InputStream is = null;
+        try {
+            is = descriptor.openStream();
+            content = readFully(is);
+        } catch (IOException e) {
+            throw new DeploymentUnitProcessingException("Failed to read " + descriptor, e);
+        } finally {
+            VFSUtils.safeClose(is);
+        }
+        try {
+            return get(content, parser);
+        } catch (DeploymentUnitProcessingException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new DeploymentUnitProcessingException("Failed to parse " + descriptor, e);
+        }
+    }
+
+    T get(final byte[] content, final Parser<T> parser) throws Exception {
+        final BigInteger key = digest(content);
+        final CachedDescriptor<T> cached = entries.get(key);
+        if (cached != null) {
+            return cached.getValue();
+        }
+        // two deployments may parse the same descriptor at the same time, the last one parsed is kept
+        final T value = parser.parse(new ByteArrayInputStream(content));
+        if (value == null) {
+            return null;
+        }
+        if (copyOnRead) {
+            final CachedDescriptor<T> copied;
+            try {
+                copied = new CopiedDescriptor<T>(value);
+            } catch (IOException e) {
+                log.debugf(e, "Not caching descriptor of type %s", value.getClass().getName());
+                return value;
+            }
+            entries.put(key, copied);
+        } else {
+            entries.put(key, new SharedDescriptor<T>(value));
+        }
+        return value;
+    }
+
+    /**
+     * Get the number of cached descriptors.
+     *
+     * @return the number of cached descriptors
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Remove all cached descriptors.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    private static byte[] readFully(final InputStream is) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+        final byte[] buffer = new byte[8192];
+        int res;
+        while ((res = is.read(buffer)) != -1) {
+            out.write(buffer, 0, res);
+        }
+        return out.toByteArray();
+    }
+
+    private static BigInteger digest(final byte[] content) {
+        try {
+            return new BigInteger(1, MessageDigest.getInstance("SHA-1").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * A parser for one descriptor type.
+     *
+     * @param <T> the parsed metadata type
+     */
+    public interface Parser<T> {
+
+        /**
+         * Parse a descriptor.
+         *
+         * @param input the descriptor content
+         * @return the parsed metadata
+         * @throws Exception if the descriptor cannot be parsed
+         */
+        T parse(InputStream input) throws Exception;
+    }
+
+    private interface CachedDescriptor<T> {
+        T getValue() throws Exception;
+    }
+
+    private static final class SharedDescriptor<T> implements CachedDescriptor<T> {
+        private final T value;
+
+        SharedDescriptor(final T value) {
+            this.value = value;
+        }
+
+        public T getValue() {
+            return value;
+        }
+    }
+
+    private static final class CopiedDescriptor<T> implements CachedDescriptor<T> {
+        private final byte[] bytes;
+        private final Class<? extends T> type;
+
+        @SuppressWarnings("unchecked")
+        CopiedDescriptor(final T value) throws IOException {
+            if (! (value instanceof Serializable)) {
+                throw new IOException("Not serializable: " + value.getClass());
+            }
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final ObjectOutputStream oos = new ObjectOutputStream(out);
+            oos.writeObject(value);
+            oos.close();
+            bytes = out.toByteArray();
+            type = (Class<? extends T>) value.getClass();
+        }
+
+        public T getValue() throws Exception {
+            // resolve against the metadata's own class loader, which need not be visible from this module
+            final ClassLoader classLoader = type.getClassLoader();
+            final ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes)) {
+                protected Class<?> resolveClass(final ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+                    try {
+                        return Class.forName(desc.getName(), false, classLoader);
+                    } catch (ClassNotFoundException e) {
+                        return super.resolveClass(desc);
+                    }
+                }
+            };
+            try {
+                return type.cast(ois.readObject());
+            } finally {
+                ois.close();
+            }
+        }
+    }
+}
@@ -23,19 +23,14 @@
 package org.jboss.as.deployment.processor;
 
 import org.jboss.as.deployment.AttachmentKey;
+import org.jboss.as.deployment.unit.ConcurrentDeploymentUnitProcessor;
 import org.jboss.as.deployment.unit.DeploymentUnitContext;
 import org.jboss.as.deployment.unit.DeploymentUnitProcessingException;
-import org.jboss.as.deployment.unit.DeploymentUnitProcessor;
 import org.jboss.jandex.Index;
-import org.jboss.jandex.Indexer;
-import org.jboss.vfs.VFSUtils;
 import org.jboss.vfs.VirtualFile;
-import org.jboss.vfs.VisitorAttributes;
-import org.jboss.vfs.util.SuffixMatchFilter;
-
-import java.io.InputStream;
-import java.util.List;
 
+import static org.jboss.as.deployment.attachment.ContentCacheAttachment.getContentCacheDirectory;
+import static org.jboss.as.deployment.attachment.DeploymentExecutorAttachment.getDeploymentExecutor;
 import static org.jboss.as.deployment.attachment.VirtualFileAttachment.getVirtualFileAttachment;
 
 /**
@@ -43,12 +38,14 @@ import static org.jboss.as.deployment.attachment.VirtualFileAttachment.getVirtua
  *
  * @author John E. Bailey
  */
-public class AnnotationIndexProcessor implements DeploymentUnitProcessor {
+public class AnnotationIndexProcessor implements ConcurrentDeploymentUnitProcessor {
     public static final AttachmentKey<Index> ATTACHMENT_KEY = new AttachmentKey<Index>(Index.class);
+    private static final String CACHE_NAME = "deployment";
 
     /**
      * Process this deployment for annotations.  This will use an annotation indexer to create an index of all annotations
-     * found in this deployment and attach it to the deployment unit context.
+     * found in this deployment and attach it to the deployment unit context.  The index is reused from the deployment's
+     * content cache when the content has been indexed before.
      *
      * @param context the deployment unit context
      * @throws DeploymentUnitProcessingException
@@ -58,19 +55,8 @@ public class AnnotationIndexProcessor implements DeploymentUnitProcessor {
             return;
 
         final VirtualFile virtualFile = getVirtualFileAttachment(context);
-        final Indexer indexer = new Indexer();
         try {
-            final List<VirtualFile> classChildren = virtualFile.getChildren(new SuffixMatchFilter(".class", VisitorAttributes.RECURSE_LEAVES_ONLY));
-            for(VirtualFile classFile : classChildren) {
-                InputStream inputStream = null;
-                try {
-                    inputStream = classFile.openStream();
-                    indexer.index(inputStream);
-                } finally {
-                    VFSUtils.safeClose(inputStream);
-                }
-            }
-            final Index index = indexer.complete();
+            final Index index = AnnotationIndexSupport.indexRoot(virtualFile, getContentCacheDirectory(context), CACHE_NAME, getDeploymentExecutor(context));
             context.putAttachment(ATTACHMENT_KEY, index);
         } catch(Throwable t) {
             throw new DeploymentUnitProcessingException("Failed to index deployment root for annotations", t);
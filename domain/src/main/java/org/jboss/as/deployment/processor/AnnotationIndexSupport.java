@@ -0,0 +1,305 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.jboss.as.deployment.processor;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.jboss.jandex.Index;
+import org.jboss.jandex.IndexReader;
+import org.jboss.jandex.IndexWriter;
+import org.jboss.jandex.Indexer;
+import org.jboss.logging.Logger;
+import org.jboss.vfs.VFSUtils;
+import org.jboss.vfs.VirtualFile;
+import org.jboss.vfs.VisitorAttributes;
+import org.jboss.vfs.util.SuffixMatchFilter;
+
+/**
+ * Builds annotation indexes for deployment roots.  Class files are read on the given executor, at most
+ * {@link #MAX_IN_FLIGHT} tasks at a time for each caller, and roots which get an index of their own, such as the jars
+ * of a web application, are indexed concurrently.  Jandex indexers are not thread safe, so the classes of any one root
+ * are still parsed by a single indexer.  When a cache directory is given the index is kept there, so the classes of
+ * unchanged content are only indexed once.
+ */
+public final class AnnotationIndexSupport {
+    private static final Logger log = Logger.getLogger("org.jboss.as.deployment");
+
+    private static final String INDEX_SUFFIX = ".idx";
+    /** The number of class files read by each task when a single root is indexed */
+    private static final int BATCH_SIZE = 64;
+    /** The most tasks one caller has submitted and not yet consumed, which bounds the class files held in memory */
+    private static final int MAX_IN_FLIGHT = Runtime.getRuntime().availableProcessors() + 1;
+
+    private AnnotationIndexSupport() {
+    }
+
+    /**
+     * Get the annotation index for the class files beneath a root.  The class files are read on the executor while
+     * the calling thread parses them, in order, with a single indexer.  The calling thread waits for the executor, so
+     * it must not be a thread the executor is waiting for; the server's deployment pool runs tasks in the submitting
+     * thread once it is saturated.
+     *
+     * @param root the root to index
+     * @param cacheDirectory the directory the index is cached in, or {@code null} if it should not be cached
+     * @param cacheName the name the index is cached under
+     * @param executor the executor reading the class files, or {@code null} to read them on the calling thread
+     * @return the index
+     * @throws IOException if a class file cannot be read or parsed
+     */
+    public static Index indexRoot(final VirtualFile root, final File cacheDirectory, final String cacheName, final Executor executor) throws IOException {
+        final File cacheFile = getCacheFile(cacheDirectory, cacheName);
+        Index index = readIndex(cacheFile);
+        if (index == null) {
+            final List<VirtualFile> classFiles = getClassFiles(root);
+            final List<ClassFileReader> batches = new ArrayList<ClassFileReader>();
+            for (int i = 0; i < classFiles.size(); i += BATCH_SIZE) {
+                batches.add(new ClassFileReader(classFiles.subList(i, Math.min(i + BATCH_SIZE, classFiles.size()))));
+            }
+            final Indexer indexer = new Indexer();
+            execute(batches, executor, new ResultHandler<List<byte[]>>() {
+                public void handle(final int task, final List<byte[]> classes) throws IOException {
+                    index(indexer, classes);
+                }
+            });
+            index = indexer.complete();
+            writeIndex(cacheFile, index);
+        }
+        return index;
+    }
+
+    /**
+     * Get an annotation index for each of the given roots, indexing the roots concurrently.
+     *
+     * @param roots the roots to index, by name
+     * @param cacheDirectory the directory the indexes are cached in, or {@code null} if they should not be cached
+     * @param cachePrefix the prefix added to the name of each root to get the name its index is cached under
+     * @param executor the executor indexing the roots, or {@code null} to index them on the calling thread
+     * @return the indexes, by the name of their root
+     * @throws IOException if a class file cannot be read or parsed
+     */
+    public static Map<String, Index> indexRoots(final Map<String, VirtualFile> roots, final File cacheDirectory, final String cachePrefix, final Executor executor) throws IOException {
+        final List<String> names = new ArrayList<String>(roots.size());
+        final List<Callable<Index>> tasks = new ArrayList<Callable<Index>>(roots.size());
+        for (Map.Entry<String, VirtualFile> entry : roots.entrySet()) {
+            final VirtualFile root = entry.getValue();
+            final File cacheFile = getCacheFile(cacheDirectory, cachePrefix + entry.getKey());
+            names.add(entry.getKey());
+            tasks.add(new Callable<Index>() {
+                public Index call() throws IOException {
+                    Index index = readIndex(cacheFile);
+                    if (index == null) {
+                        final Indexer indexer = new Indexer();
+                        index(indexer, new ClassFileReader(getClassFiles(root)).call());
+                        index = indexer.complete();
+                        writeIndex(cacheFile, index);
+                    }
+                    return index;
+                }
+            });
+        }
+        final Map<String, Index> indexes = new LinkedHashMap<String, Index>();
+        execute(tasks, executor, new ResultHandler<Index>() {
+            public void handle(final int task, final Index index) {
+                indexes.put(names.get(task), index);
+            }
+        });
+        return indexes;
+    }
+
+    /**
+     * Run the tasks, keeping at most {@link #MAX_IN_FLIGHT} of them submitted to the executor, and hand their results
+     * to the handler in order.  Tasks are run on the calling thread when there is no executor or it rejects them.
+     */
+    private static <T> void execute(final List<? extends Callable<T>> tasks, final Executor executor, final ResultHandler<T> handler) throws IOException {
+        final Queue<FutureTask<T>> inFlight = new ArrayDeque<FutureTask<T>>(MAX_IN_FLIGHT);
+        try {
+            int next = 0;
+            int handled = 0;
+            while (handled < tasks.size()) {
+                while (next < tasks.size() && inFlight.size() < MAX_IN_FLIGHT) {
+                    final FutureTask<T> task = new FutureTask<T>(tasks.get(next++));
+                    inFlight.add(task);
+                    if (executor == null) {
+                        task.run();
+                    } else {
+                        try {
+                            executor.execute(task);
+                        } catch (RejectedExecutionException e) {
+                            task.run();
+                        }
+                    }
+                }
+                handler.handle(handled++, getResult(inFlight.remove()));
+            }
+        } finally {
+            for (FutureTask<T> task : inFlight) {
+                task.cancel(true);
+            }
+        }
+    }
+
+    private static List<VirtualFile> getClassFiles(final VirtualFile root) throws IOException {
+        return root.getChildren(new SuffixMatchFilter(".class", VisitorAttributes.RECURSE_LEAVES_ONLY));
+    }
+
+    private static void index(final Indexer indexer, final List<byte[]> classFiles) throws IOException {
+        for (byte[] classFile : classFiles) {
+            indexer.index(new ByteArrayInputStream(classFile));
+        }
+    }
+
+    private static <T> T getResult(final Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while indexing");
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private static File getCacheFile(final File cacheDirectory, final String cacheName) {
+        return cacheDirectory == null ? null : new File(cacheDirectory, cacheName + INDEX_SUFFIX);
+    }
+
+    private static Index readIndex(final File cacheFile) {
+        if (cacheFile == null || !cacheFile.isFile()) {
+            return null;
+        }
+        InputStream in = null;
+        try {
+            in = new FileInputStream(cacheFile);
+            return new IndexReader(in).read();
+        } catch (Exception e) {
+            // written by an incompatible Jandex, or damaged; index again and replace it
+            log.debugf(e, "Ignoring cached annotation index %s", cacheFile);
+            return null;
+        } finally {
+            VFSUtils.safeClose(in);
+        }
+    }
+
+    private static void writeIndex(final File cacheFile, final Index index) {
+        if (cacheFile == null) {
+            return;
+        }
+        File tmp = null;
+        OutputStream out = null;
+        try {
+            tmp = File.createTempFile(cacheFile.getName(), ".tmp", cacheFile.getParentFile());
+            out = new FileOutputStream(tmp);
+            new IndexWriter(out).write(index);
+            out.close();
+            out = null;
+            // concurrent writers of the same index write the same bytes, so whichever rename wins is fine
+            if (!tmp.renameTo(cacheFile) && !(cacheFile.delete() && tmp.renameTo(cacheFile))) {
+                log.debugf("Cannot store annotation index %s", cacheFile);
+            }
+        } catch (IOException e) {
+            log.debugf(e, "Cannot store annotation index %s", cacheFile);
+        } finally {
+            VFSUtils.safeClose(out);
+            if (tmp != null && tmp.exists() && !tmp.delete()) {
+                tmp.deleteOnExit();
+            }
+        }
+    }
+
+    private interface ResultHandler<T> {
+        void handle(int task, T result) throws IOException;
+    }
+
+    private static final class ClassFileReader implements Callable<List<byte[]>> {
+        private final List<VirtualFile> classFiles;
+
+        ClassFileReader(final List<VirtualFile> classFiles) {
+            this.classFiles = classFiles;
+        }
+
+        public List<byte[]> call() throws IOException {
+            final List<byte[]> result = new ArrayList<byte[]>(classFiles.size());
+            for (VirtualFile classFile : classFiles) {
+                InputStream inputStream = null;
+                try {
+                    inputStream = classFile.openStream();
+                    result.add(readFully(inputStream, (int) classFile.getSize()));
+                } finally {
+                    VFSUtils.safeClose(inputStream);
+                }
+            }
+            return result;
+        }
+
+        private static byte[] readFully(final InputStream in, final int sizeHint) throws IOException {
+            byte[] buffer = new byte[sizeHint > 0 ? sizeHint : 8192];
+            int count = 0;
+            int res;
+            while ((res = in.read(buffer, count, buffer.length - count)) != -1) {
+                count += res;
+                if (count == buffer.length) {
+                    final int next = in.read();
+                    if (next == -1) {
+                        return buffer;
+                    }
+                    final byte[] bigger = new byte[buffer.length * 2];
+                    System.arraycopy(buffer, 0, bigger, 0, count);
+                    buffer = bigger;
+                    buffer[count++] = (byte) next;
+                }
+            }
+            final byte[] result = new byte[count];
+            System.arraycopy(buffer, 0, result, 0, count);
+            return result;
+        }
+    }
+}
@@ -54,6 +54,49 @@ public interface DeploymentScanner {
      */
     void setScanInterval(long scanInterval);
 
+    /**
+     * Check whether the scanner only reads directories which changed since the last scan.
+     *
+     * @return true if incremental, false if every scan reads the whole directory tree
+     */
+    boolean isIncrementalScan();
+
+    /**
+     * Set whether the scanner only reads directories which changed since the last scan.
+     *
+     * @param incrementalScan true for incremental scans, false to read the whole directory tree on every scan
+     */
+    void setIncrementalScan(boolean incrementalScan);
+
+    /**
+     * Get the maximum number of batches of independent deployments the scanner deploys in parallel.
+     *
+     * @return the maximum number of batches
+     */
+    int getMaxParallelDeployments();
+
+    /**
+     * Set the maximum number of batches of independent deployments the scanner deploys in parallel.  With 1, all
+     * changes found by a scan are deployed by a single plan.
+     *
+     * @param maxParallelDeployments the maximum number of batches, at least 1
+     */
+    void setMaxParallelDeployments(int maxParallelDeployments);
+
+    /**
+     * Get the time the last scan took.
+     *
+     * @return the duration in ms
+     */
+    long getLastScanDuration();
+
+    /**
+     * Get the number of files and directories the last scan read the attributes of.
+     *
+     * @return the file count
+     */
+    int getLastScanFileCount();
+
     /**
      * Start the scanner, if not already started.
      */
@@ -22,7 +22,14 @@
 
 package org.jboss.as.model;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -50,6 +57,8 @@ public abstract class AbstractModel<M extends AbstractModel<M>> extends Abstract
     private final Map<String, NamespacePrefix> prefixes = new LinkedHashMap<String, NamespacePrefix>();
     private final Map<String, SchemaLocation> schemaLocations = new LinkedHashMap<String, SchemaLocation>();
     private String noNamespaceSchemaLocation;
+    // Incremented before and after each update, so it is odd while an update is in progress
+    private transient volatile long version;
 
     /**
      * Construct a new instance.
@@ -83,8 +92,92 @@ public abstract class AbstractModel<M extends AbstractModel<M>> extends Abstract
      * @param <R> the update's result type
      * @throws UpdateFailedException if an error occurs
      */
-    public <R> void update(AbstractModelUpdate<M, R> update) throws UpdateFailedException {
-        update.applyUpdate(cast());
+    public synchronized <R> void update(AbstractModelUpdate<M, R> update) throws UpdateFailedException {
+        version++;
+        try {
+            update.applyUpdate(cast());
+        } finally {
+            version++;
+        }
+    }
+
+    /**
+     * Get the version of this model.  Each update advances the version, and the version is odd while an update is
+     * being applied.
+     *
+     * @return the version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Read from this model without locking.  The query is run again if an update is applied while it runs, so the
+     * result always reflects a single version of the model.
+     *
+     * @param query the query to run
+     * @param <T> the result type
+     * @return the query result
+     */
+    public <T> T read(ModelQuery<M, T> query) {
+        for (;;) {
+            final long start = version;
+            if ((start & 1L) != 0L) {
+                // an update is in progress
+                Thread.yield();
+                continue;
+            }
+            final T result;
+            try {
+                result = query.execute(cast());
+            } catch (RuntimeException e) {
+                if (version == start) {
+                    throw e;
+                }
+                // the query saw a partially applied update
+                continue;
+            }
+            if (version == start) {
+                return result;
+            }
+        }
+    }
+
+    /**
+     * Take a deep copy of this model.  The model is serialized while holding its monitor, which updates hold while
+     * they are applied, so the copy reflects a single version of the model.  The copy shares nothing with this
+     * model, so it can be written to a stream without holding the monitor.
+     *
+     * @return the copy
+     */
+    public M snapshot() {
+        // resolve the copy's classes from the model's own, whatever module they come from
+        final Map<String, Class<?>> classes = new HashMap<String, Class<?>>();
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            final ObjectOutputStream out = new ObjectOutputStream(bytes) {
+                @Override
+                protected void annotateClass(final Class<?> cl) {
+                    classes.put(cl.getName(), cl);
+                }
+            };
+            synchronized (this) {
+                out.writeObject(this);
+            }
+            out.close();
+            final ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())) {
+                @Override
+                protected Class<?> resolveClass(final ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+                    final Class<?> cl = classes.get(desc.getName());
+                    return cl != null ? cl : super.resolveClass(desc);
+                }
+            };
+            return cast(in.readObject());
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot copy " + getClass().getSimpleName(), e);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Cannot copy " + getClass().getSimpleName(), e);
+        }
     }
 
     /**
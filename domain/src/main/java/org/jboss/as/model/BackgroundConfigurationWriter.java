@@ -0,0 +1,293 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.jboss.logging.Logger;
+import org.jboss.staxmapper.XMLContentWriter;
+import org.jboss.staxmapper.XMLMapper;
+
+/**
+ * Writes a configuration file on a background thread, so that management operations do not wait on disk I/O.
+ * <p>
+ * The document is serialized on the thread requesting the write, so it is a snapshot of the model at that time; only
+ * syncing the file to disk, renaming it and rotating the history happen in the background.  Writes requested while
+ * another is pending are coalesced: only the most recently requested snapshot is written.
+ * Each write goes to a temporary file which is synced to disk and then renamed over the configuration file, so the
+ * file is never left partially written.  Before the rename, the previous file is kept as
+ * {@code <name>.last-known-good}, and older versions as {@code <name>.last-known-good.1} and so on up to the
+ * configured history size.
+ */
+public final class BackgroundConfigurationWriter {
+
+    /** Suffix appended to the configuration file name for the copy of the previous version. */
+    public static final String BACKUP_SUFFIX = ".last-known-good";
+
+    /** The default number of previous versions kept. */
+    public static final int DEFAULT_HISTORY_SIZE = 5;
+
+    private static final Logger log = Logger.getLogger("org.jboss.as.model");
+
+    private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private static final ThreadFactory THREAD_FACTORY = new ThreadFactory() {
+        public Thread newThread(final Runnable r) {
+            final Thread thread = new Thread(r, "configuration-writer-" + THREAD_COUNT.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    };
+
+    private final File configFile;
+    private final int historySize;
+    private final Executor executor;
+    private final Runnable writeTask = new Runnable() {
+        public void run() {
+            writePending();
+        }
+    };
+
+    private final Object lock = new Object();
+    // guarded by lock
+    private byte[] pending;
+    private boolean scheduled;
+    private long requested;
+    private long completed;
+
+    /**
+     * Create a new writer keeping the {@link #DEFAULT_HISTORY_SIZE default} number of previous versions.
+     *
+     * @param configFile the configuration file
+     */
+    public BackgroundConfigurationWriter(final File configFile) {
+        this(configFile, DEFAULT_HISTORY_SIZE);
+    }
+
+    /**
+     * Create a new writer.
+     *
+     * @param configFile the configuration file
+     * @param historySize the number of previous versions to keep, including the {@code .last-known-good} copy
+     */
+    public BackgroundConfigurationWriter(final File configFile, final int historySize) {
+        // A single thread which exits when idle
+        this(configFile, historySize, new ThreadPoolExecutor(0, 1, 30L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), THREAD_FACTORY));
+    }
+
+    BackgroundConfigurationWriter(final File configFile, final int historySize, final Executor executor) {
+        if (configFile == null) {
+            throw new IllegalArgumentException("configFile is null");
+        }
+        if (historySize < 0) {
+            throw new IllegalArgumentException("historySize is negative");
+        }
+        this.configFile = configFile;
+        this.historySize = historySize;
+        this.executor = executor;
+    }
+
+    /**
+     * Request that the configuration file be written.  The content is serialized before this method returns, so the
+     * caller should hold whatever lock keeps the model from changing while it is written.  A document which cannot be
+     * serialized is logged and not written.
+     *
+     * @param content the writer of the document content
+     */
+    public void write(final XMLContentWriter content) {
+        final byte[] document;
+        try {
+            document = serialize(content);
+        } catch (Throwable t) {
+            log.errorf(t, "Failed persisting configuration file %s", configFile.getAbsolutePath());
+            return;
+        }
+        synchronized (lock) {
+            pending = document;
+            requested++;
+            if (! scheduled) {
+                scheduled = true;
+                executor.execute(writeTask);
+            }
+        }
+    }
+
+    /**
+     * Wait for all writes requested so far to complete.
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public void flush() throws InterruptedException {
+        synchronized (lock) {
+            final long target = requested;
+            while (completed < target) {
+                lock.wait();
+            }
+        }
+    }
+
+    /**
+     * Wait for all writes requested so far to complete, logging rather than failing if the thread is interrupted.
+     * For use when shutting down.
+     */
+    public void flushQuietly() {
+        try {
+            flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warnf("Interrupted waiting for configuration file %s to be written", configFile.getAbsolutePath());
+        }
+    }
+
+    private void writePending() {
+        for (;;) {
+            final byte[] document;
+            final long sequence;
+            synchronized (lock) {
+                document = pending;
+                sequence = requested;
+                pending = null;
+                if (document == null) {
+                    scheduled = false;
+                    return;
+                }
+            }
+            try {
+                writeFile(document);
+            } catch (Throwable t) {
+                log.errorf(t, "Failed persisting configuration file %s", configFile.getAbsolutePath());
+            } finally {
+                synchronized (lock) {
+                    completed = sequence;
+                    lock.notifyAll();
+                }
+            }
+        }
+    }
+
+    private static byte[] serialize(final XMLContentWriter content) throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+        final XMLStreamWriter writer = OUTPUT_FACTORY.createXMLStreamWriter(out);
+        try {
+            XMLMapper.Factory.create().deparseDocument(content, writer);
+        } finally {
+            writer.close();
+        }
+        return out.toByteArray();
+    }
+
+    private void writeFile(final byte[] document) throws IOException {
+        final File tempFile = new File(configFile.getParentFile(), configFile.getName() + ".tmp");
+        final FileOutputStream fos = new FileOutputStream(tempFile);
+        boolean ok = false;
+        try {
+            fos.write(document);
+            fos.getFD().sync();
+            fos.close();
+            ok = true;
+        } finally {
+            safeClose(fos);
+            if (! ok) {
+                tempFile.delete();
+            }
+        }
+
+        if (configFile.exists()) {
+            rotateHistory();
+        }
+        if (! tempFile.renameTo(configFile)) {
+            // Some platforms do not rename over an existing file
+            if (! configFile.delete() || ! tempFile.renameTo(configFile)) {
+                throw new IOException("Could not rename " + tempFile.getAbsolutePath() + " to " + configFile.getAbsolutePath());
+            }
+        }
+        log.debugf("Persisted configuration file %s", configFile.getAbsolutePath());
+    }
+
+    private void rotateHistory() throws IOException {
+        if (historySize == 0) {
+            return;
+        }
+        final File backup = new File(configFile.getParentFile(), configFile.getName() + BACKUP_SUFFIX);
+        for (int i = historySize - 1; i > 0; i--) {
+            final File older = historyFile(backup, i);
+            if (older.exists()) {
+                older.delete();
+            }
+            final File newer = historyFile(backup, i - 1);
+            if (newer.exists()) {
+                newer.renameTo(older);
+            }
+        }
+        // Copy rather than rename so a configuration file exists throughout
+        copyFile(configFile, backup);
+    }
+
+    private static File historyFile(final File backup, final int index) {
+        return index == 0 ? backup : new File(backup.getParentFile(), backup.getName() + "." + index);
+    }
+
+    private static void copyFile(final File file, final File backup) throws IOException {
+        final InputStream in = new FileInputStream(file);
+        try {
+            final OutputStream out = new FileOutputStream(backup);
+            try {
+                final byte[] bytes = new byte[8192];
+                int read;
+                while ((read = in.read(bytes)) != -1) {
+                    out.write(bytes, 0, read);
+                }
+                out.close();
+            } finally {
+                safeClose(out);
+            }
+        } finally {
+            safeClose(in);
+        }
+    }
+
+    private static void safeClose(final Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (Throwable ignored) {
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.model;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Helpers for the copy-on-write collections held by the model roots.  A collection published to a model field is
+ * never modified again; writers publish a modified copy which shares the unchanged elements, so readers can use the
+ * collection without locking.
+ */
+final class CopyOnWrite {
+
+    private CopyOnWrite() {
+    }
+
+    static <K, V> Map<K, V> put(final Map<K, V> map, final K key, final V value) {
+        final Map<K, V> copy = new LinkedHashMap<K, V>(map);
+        copy.put(key, value);
+        return copy;
+    }
+
+    static <K, V> Map<K, V> remove(final Map<K, V> map, final K key) {
+        if (! map.containsKey(key)) {
+            return map;
+        }
+        final Map<K, V> copy = new LinkedHashMap<K, V>(map);
+        copy.remove(key);
+        return copy;
+    }
+
+    static <E> Set<E> add(final Set<E> set, final E element) {
+        final Set<E> copy = new LinkedHashSet<E>(set);
+        copy.add(element);
+        return copy;
+    }
+
+    static <E> Set<E> remove(final Set<E> set, final E element) {
+        if (! set.contains(element)) {
+            return set;
+        }
+        final Set<E> copy = new LinkedHashSet<E>(set);
+        copy.remove(element);
+        return copy;
+    }
+}
@@ -37,6 +37,15 @@ public final class DomainExtensionAdd extends AbstractDomainModelUpdate<Void> {
         this.moduleName = moduleName;
     }
 
+    /**
+     * Get the name of the extension module.
+     *
+     * @return the module name
+     */
+    public String getModuleName() {
+        return moduleName;
+    }
+
     /** {@inheritDoc} */
     @Override
     protected void applyUpdate(final DomainModel element) throws UpdateFailedException {
@@ -47,13 +47,16 @@ public final class DomainModel extends AbstractModel<DomainModel> {
     private static final long serialVersionUID = 5516070442013067881L;
 
     // model fields
-    private final Set<String> extensions = new LinkedHashSet<String>();
-    private final Map<String, ServerGroupElement> serverGroups = new LinkedHashMap<String, ServerGroupElement>();
-    private final Map<String, DeploymentUnitElement> deployments = new LinkedHashMap<String, DeploymentUnitElement>();
-    private final Map<String, ProfileElement> profiles = new LinkedHashMap<String, ProfileElement>();
-    private final Map<String, PathElement> paths = new LinkedHashMap<String, PathElement>();
-    private final Map<String, InterfaceElement> interfaces = new LinkedHashMap<String, InterfaceElement>();
-    private final Map<String, SocketBindingGroupElement> bindingGroups = new LinkedHashMap<String, SocketBindingGroupElement>();
+    // The collections are copy-on-write (see CopyOnWrite) so they can be read without locking;
+    // writers synchronize on the model.  The elements in them are changed in place, so reads reaching
+    // into them go through read(), and the whole model is serialized from a snapshot()
+    private volatile Set<String> extensions = new LinkedHashSet<String>();
+    private volatile Map<String, ServerGroupElement> serverGroups = new LinkedHashMap<String, ServerGroupElement>();
+    private volatile Map<String, DeploymentUnitElement> deployments = new LinkedHashMap<String, DeploymentUnitElement>();
+    private volatile Map<String, ProfileElement> profiles = new LinkedHashMap<String, ProfileElement>();
+    private volatile Map<String, PathElement> paths = new LinkedHashMap<String, PathElement>();
+    private volatile Map<String, InterfaceElement> interfaces = new LinkedHashMap<String, InterfaceElement>();
+    private volatile Map<String, SocketBindingGroupElement> bindingGroups = new LinkedHashMap<String, SocketBindingGroupElement>();
     private PropertiesElement systemProperties = new PropertiesElement(Element.PROPERTY, true);
 
     private static final QName ELEMENT_NAME = new QName(Namespace.CURRENT.getUriString(), Element.DOMAIN.getLocalName());
@@ -71,9 +74,7 @@ public final class DomainModel extends AbstractModel<DomainModel> {
      * @return the extensions. May be empty but will not be <code>null</code>
      */
     public Set<String> getExtensions() {
-        synchronized (extensions) {
-            return new HashSet<String>(extensions);
-        }
+        return new HashSet<String>(extensions);
     }
 
     /**
@@ -82,13 +83,7 @@ public final class DomainModel extends AbstractModel<DomainModel> {
      * @return the interfaces. May be empty but will not be <code>null</code>
      */
     public Set<InterfaceElement> getInterfaces() {
-        Set<InterfaceElement> intfs = new LinkedHashSet<InterfaceElement>();
-        synchronized (interfaces) {
-            for (Map.Entry<String, InterfaceElement> entry : interfaces.entrySet()) {
-                intfs.add(entry.getValue());
-            }
-        }
-        return intfs;
+        return new LinkedHashSet<InterfaceElement>(interfaces.values());
     }
 
     /**
@@ -101,9 +96,7 @@ public final class DomainModel extends AbstractModel<DomainModel> {
      *         named <code>name</code> is configured
      */
     public InterfaceElement getInterface(String name) {
-        synchronized (interfaces) {
-            return interfaces.get(name);
-        }
+        return interfaces.get(name);
     }
 
     /**
@@ -114,9 +107,7 @@ public final class DomainModel extends AbstractModel<DomainModel> {
      *         named <code>name</code> is configured
      */
     public ProfileElement getProfile(String name) {
-        synchronized (profiles) {
-            return profiles.get(name);
-        }
+        return profiles.get(name);
     }
 
     /**
@@ -128,23 +119,21 @@ public final class DomainModel extends AbstractModel<DomainModel> {
      */
     public Map<String, ProfileElement> getProfiles(String name) {
         Map<String, ProfileElement> result = new HashMap<String, ProfileElement>();
-        synchronized (profiles) {
-            getProfiles(result, name);
-        }
+        getProfiles(this.profiles, result, name);
         return result;
     }
 
-    private void getProfiles(Map<String, ProfileElement> profiles, String name) {
+    private static void getProfiles(Map<String, ProfileElement> available, Map<String, ProfileElement> profiles, String name) {
         if (profiles.containsKey(name))
             return;
 
-        ProfileElement pe = getProfile(name);
+        ProfileElement pe = available.get(name);
         if (pe == null) {
             throw new IllegalArgumentException("Profile " + name + " is unknown");
         }
         profiles.put(name, pe);
         for (String included : pe.getIncludedProfiles()) {
-            getProfiles(profiles, included);
+            getProfiles(available, profiles, included);
         }
     }
 
@@ -154,7 +143,7 @@ public final class DomainModel extends AbstractModel<DomainModel> {
      * @return the paths
      */
     public Collection<PathElement> getPaths() {
-        return Collections.unmodifiableCollection(new HashSet<PathElement>(paths.values()));
+        return Collections.unmodifiableCollection(paths.values());
     }
 
     /**
@@ -168,9 +157,7 @@ public final class DomainModel extends AbstractModel<DomainModel> {
     }
 
     public Set<String> getSocketBindingGroupNames() {
-        synchronized (bindingGroups) {
-            return new HashSet<String>(bindingGroups.keySet());
-        }
+        return new HashSet<String>(bindingGroups.keySet());
     }
 
     /**
@@ -182,15 +169,11 @@ public final class DomainModel extends AbstractModel<DomainModel> {
      *         no socket binding named <code>name</code> is configured
      */
     public SocketBindingGroupElement getSocketBindingGroup(String name) {
-        synchronized (bindingGroups) {
-            return bindingGroups.get(name);
-        }
+        return bindingGroups.get(name);
     }
 
     public Set<String> getServerGroupNames() {
-        synchronized (serverGroups) {
-            return new HashSet<String>(serverGroups.keySet());
-        }
+        return new HashSet<String>(serverGroups.keySet());
     }
 
     /**
@@ -202,9 +185,7 @@ public final class DomainModel extends AbstractModel<DomainModel> {
      *         group named <code>name</code> is configured
      */
     public ServerGroupElement getServerGroup(String name) {
-        synchronized (serverGroups) {
-            return serverGroups.get(name);
-        }
+        return serverGroups.get(name);
     }
 
     /**
@@ -229,15 +210,11 @@ public final class DomainModel extends AbstractModel<DomainModel> {
      *         deployment exists
      */
     public DeploymentUnitElement getDeployment(String uniqueName) {
-        synchronized (deployments) {
-            return deployments.get(uniqueName);
-        }
+        return deployments.get(uniqueName);
     }
 
     public Set<String> getDeploymentNames() {
-        synchronized (deployments) {
-            return new LinkedHashSet<String>(deployments.keySet());
-        }
+        return new LinkedHashSet<String>(deployments.keySet());
     }
 
     /** {@inheritDoc} */
@@ -252,6 +229,7 @@ public final class DomainModel extends AbstractModel<DomainModel> {
 
         writeNamespaces(streamWriter);
 
+        final Set<String> extensions = this.extensions;
         if (! extensions.isEmpty()) {
             streamWriter.writeStartElement(Element.EXTENSIONS.getLocalName());
             for (String extension : extensions) {
@@ -261,48 +239,44 @@ public final class DomainModel extends AbstractModel<DomainModel> {
             streamWriter.writeEndElement();
         }
 
-        synchronized(paths) {
-            if(! paths.isEmpty()) {
-                streamWriter.writeStartElement(Element.PATHS.getLocalName());
-                for(final PathElement path : paths.values()) {
-                    streamWriter.writeStartElement(Element.PATH.getLocalName());
-                    path.writeContent(streamWriter);
-                }
-                streamWriter.writeEndElement();
+        final Map<String, PathElement> paths = this.paths;
+        if(! paths.isEmpty()) {
+            streamWriter.writeStartElement(Element.PATHS.getLocalName());
+            for(final PathElement path : paths.values()) {
+                streamWriter.writeStartElement(Element.PATH.getLocalName());
+                path.writeContent(streamWriter);
             }
+            streamWriter.writeEndElement();
         }
 
-        synchronized (profiles) {
-            if (! profiles.isEmpty()) {
-                streamWriter.writeStartElement(Element.PROFILES.getLocalName());
-                for (ProfileElement element : profiles.values()) {
-                    streamWriter.writeStartElement(Element.PROFILE.getLocalName());
-                    element.writeContent(streamWriter);
-                }
-                streamWriter.writeEndElement();
+        final Map<String, ProfileElement> profiles = this.profiles;
+        if (! profiles.isEmpty()) {
+            streamWriter.writeStartElement(Element.PROFILES.getLocalName());
+            for (ProfileElement element : profiles.values()) {
+                streamWriter.writeStartElement(Element.PROFILE.getLocalName());
+                element.writeContent(streamWriter);
             }
+            streamWriter.writeEndElement();
         }
 
-        synchronized (interfaces) {
-            if (! interfaces.isEmpty()) {
-                streamWriter.writeStartElement(Element.INTERFACES.getLocalName());
-                for (InterfaceElement element : interfaces.values()) {
-                    streamWriter.writeStartElement(Element.INTERFACE.getLocalName());
-                    element.writeContent(streamWriter);
-                }
-                streamWriter.writeEndElement();
+        final Map<String, InterfaceElement> interfaces = this.interfaces;
+        if (! interfaces.isEmpty()) {
+            streamWriter.writeStartElement(Element.INTERFACES.getLocalName());
+            for (InterfaceElement element : interfaces.values()) {
+                streamWriter.writeStartElement(Element.INTERFACE.getLocalName());
+                element.writeContent(streamWriter);
             }
+            streamWriter.writeEndElement();
         }
 
-        synchronized (bindingGroups) {
-            if (!bindingGroups.isEmpty()) {
-                streamWriter.writeStartElement(Element.SOCKET_BINDING_GROUPS.getLocalName());
-                for (SocketBindingGroupElement element : bindingGroups.values()) {
-                    streamWriter.writeStartElement(Element.SOCKET_BINDING_GROUP.getLocalName());
-                    element.writeContent(streamWriter);
-                }
-                streamWriter.writeEndElement();
+        final Map<String, SocketBindingGroupElement> bindingGroups = this.bindingGroups;
+        if (!bindingGroups.isEmpty()) {
+            streamWriter.writeStartElement(Element.SOCKET_BINDING_GROUPS.getLocalName());
+            for (SocketBindingGroupElement element : bindingGroups.values()) {
+                streamWriter.writeStartElement(Element.SOCKET_BINDING_GROUP.getLocalName());
+                element.writeContent(streamWriter);
             }
+            streamWriter.writeEndElement();
         }
 
         if (systemProperties != null && systemProperties.size() > 0) {
@@ -310,102 +284,125 @@ public final class DomainModel extends AbstractModel<DomainModel> {
             systemProperties.writeContent(streamWriter);
         }
 
-        synchronized (deployments) {
-            if (! deployments.isEmpty()) {
-                streamWriter.writeStartElement(Element.DEPLOYMENTS.getLocalName());
-                for (DeploymentUnitElement element : deployments.values()) {
-                    streamWriter.writeStartElement(Element.DEPLOYMENT.getLocalName());
-                    element.writeContent(streamWriter);
-                }
-                streamWriter.writeEndElement();
+        final Map<String, DeploymentUnitElement> deployments = this.deployments;
+        if (! deployments.isEmpty()) {
+            streamWriter.writeStartElement(Element.DEPLOYMENTS.getLocalName());
+            for (DeploymentUnitElement element : deployments.values()) {
+                streamWriter.writeStartElement(Element.DEPLOYMENT.getLocalName());
+                element.writeContent(streamWriter);
             }
+            streamWriter.writeEndElement();
         }
 
-        synchronized (serverGroups) {
-            if (! serverGroups.isEmpty()) {
-                streamWriter.writeStartElement(Element.SERVER_GROUPS.getLocalName());
-                for (ServerGroupElement element : serverGroups.values()) {
+        final Map<String, ServerGroupElement> serverGroups = this.serverGroups;
+        if (! serverGroups.isEmpty()) {
+            streamWriter.writeStartElement(Element.SERVER_GROUPS.getLocalName());
+            for (ServerGroupElement element : serverGroups.values()) {
 
-                    streamWriter.writeStartElement(Element.SERVER_GROUP.getLocalName());
-                    element.writeContent(streamWriter);
-                }
-                streamWriter.writeEndElement();
+                streamWriter.writeStartElement(Element.SERVER_GROUP.getLocalName());
+                element.writeContent(streamWriter);
             }
+            streamWriter.writeEndElement();
         }
 
         // close domain
         streamWriter.writeEndElement();
     }
 
-    boolean addExtension(final String name) {
-        return extensions.add(name);
+    synchronized boolean addExtension(final String name) {
+        if (extensions.contains(name)) {
+            return false;
+        }
+        extensions = CopyOnWrite.add(extensions, name);
+        return true;
     }
 
-    boolean removeExtension(final String name) {
-        return extensions.remove(name);
+    synchronized boolean removeExtension(final String name) {
+        if (! extensions.contains(name)) {
+            return false;
+        }
+        extensions = CopyOnWrite.remove(extensions, name);
+        return true;
     }
 
-    boolean addProfile(String name) {
+    synchronized boolean addProfile(String name) {
         if (profiles.containsKey(name))
             return false;
         ProfileElement pe = new ProfileElement(name);
-        profiles.put(name, pe);
+        profiles = CopyOnWrite.put(profiles, name, pe);
         return true;
     }
 
-    boolean removeProfile(String name) {
-        ProfileElement pe = profiles.remove(name);
-        return pe != null;
+    synchronized boolean removeProfile(String name) {
+        if (! profiles.containsKey(name))
+            return false;
+        profiles = CopyOnWrite.remove(profiles, name);
+        return true;
     }
 
-    boolean addServerGroup(String name, String profile) {
+    synchronized boolean addServerGroup(String name, String profile) {
         if(serverGroups.containsKey(name)) {
             return false;
         }
         final ServerGroupElement group = new ServerGroupElement(name, profile);
-        serverGroups.put(name, group);
+        serverGroups = CopyOnWrite.put(serverGroups, name, group);
         return true;
     }
 
-    boolean removeServerGroup(final String name) {
-        return serverGroups.remove(name) != null;
+    synchronized boolean removeServerGroup(final String name) {
+        if(! serverGroups.containsKey(name)) {
+            return false;
+        }
+        serverGroups = CopyOnWrite.remove(serverGroups, name);
+        return true;
     }
 
-    SocketBindingGroupElement addSocketBindingGroup(final String name) {
+    synchronized SocketBindingGroupElement addSocketBindingGroup(final String name) {
         if(bindingGroups.containsKey(name)) {
             return null;
         }
         final SocketBindingGroupElement bindingGroup = new SocketBindingGroupElement(name);
-        bindingGroups.put(name, bindingGroup);
+        bindingGroups = CopyOnWrite.put(bindingGroups, name, bindingGroup);
         return bindingGroup;
     }
 
-    boolean removeBindingGroup(final String name) {
-        return bindingGroups.remove(name) != null;
+    synchronized boolean removeBindingGroup(final String name) {
+        if(! bindingGroups.containsKey(name)) {
+            return false;
+        }
+        bindingGroups = CopyOnWrite.remove(bindingGroups, name);
+        return true;
     }
 
-    InterfaceElement addInterface(final String name) {
+    synchronized InterfaceElement addInterface(final String name) {
         if(interfaces.containsKey(name)) {
             return null;
         }
         final InterfaceElement networkInterface = new InterfaceElement(name);
-        interfaces.put(name, networkInterface);
+        interfaces = CopyOnWrite.put(interfaces, name, networkInterface);
         return networkInterface;
     }
 
-    boolean removeInterface(final String name) {
-        return interfaces.remove(name) != null;
+    synchronized boolean removeInterface(final String name) {
+        if(! interfaces.containsKey(name)) {
+            return false;
+        }
+        interfaces = CopyOnWrite.remove(interfaces, name);
+        return true;
     }
 
-    boolean addDeployment(DeploymentUnitElement deployment) {
+    synchronized boolean addDeployment(DeploymentUnitElement deployment) {
         if (deployments.containsKey(deployment.getUniqueName()))
             return false;
-        deployments.put(deployment.getUniqueName(), deployment);
+        deployments = CopyOnWrite.put(deployments, deployment.getUniqueName(), deployment);
         return true;
     }
 
-    boolean removeDeployment(String uniqueName) {
-        return deployments.remove(uniqueName) != null;
+    synchronized boolean removeDeployment(String uniqueName) {
+        if (! deployments.containsKey(uniqueName))
+            return false;
+        deployments = CopyOnWrite.remove(deployments, uniqueName);
+        return true;
     }
 
     Set<String> getServerGroupDeploymentsMappings(String deploymentUniqueName) {
@@ -418,17 +415,20 @@ public final class DomainModel extends AbstractModel<DomainModel> {
         return mappings;
     }
 
-    PathElement addPath(final String name) {
+    synchronized PathElement addPath(final String name) {
         if(paths.containsKey(name)) {
             return null;
         }
         final PathElement element = new PathElement(name);
-        paths.put(name, element);
+        paths = CopyOnWrite.put(paths, name, element);
         return element;
     }
 
-    boolean removePath(final String name) {
-        return paths.remove(name) != null;
+    synchronized boolean removePath(final String name) {
+        if(! paths.containsKey(name)) {
+            return false;
+        }
+        paths = CopyOnWrite.remove(paths, name);
+        return true;
     }
-
 }
@@ -43,6 +43,15 @@ public final class HostExtensionAdd extends AbstractHostModelUpdate<Void> {
         this.moduleName = moduleName;
     }
 
+    /**
+     * Get the name of the extension module.
+     *
+     * @return the module name
+     */
+    public String getModuleName() {
+        return moduleName;
+    }
+
     /** {@inheritDoc} */
     @Override
     protected void applyUpdate(final HostModel element) throws UpdateFailedException {
@@ -0,0 +1,368 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+
+import org.jboss.as.Extension;
+import org.jboss.logging.Logger;
+import org.jboss.marshalling.Marshaller;
+import org.jboss.marshalling.MarshallerFactory;
+import org.jboss.marshalling.Marshalling;
+import org.jboss.marshalling.MarshallingConfiguration;
+import org.jboss.marshalling.ModularClassResolver;
+import org.jboss.marshalling.Unmarshaller;
+import org.jboss.modules.Module;
+import org.jboss.modules.ModuleIdentifier;
+import org.jboss.modules.ModuleLoadException;
+import org.jboss.staxmapper.XMLMapper;
+
+/**
+ * Parses a configuration file into its list of updates, keeping a binary copy of the result.  The copy is keyed by
+ * a digest of the file's content, a fingerprint of the archive holding the core parsers, and a fingerprint of each
+ * extension module the configuration names; it is used instead of parsing the XML as long as none of these changed.
+ * <p>
+ * The cache is only an optimization: if it is missing, stale or cannot be read, the XML is parsed as usual and the
+ * cache rewritten.
+ */
+public final class ParsedConfigurationCache {
+
+    /** Suffix appended to the configuration file name to name its cache file. */
+    public static final String CACHE_SUFFIX = ".cache";
+
+    private static final Logger log = Logger.getLogger("org.jboss.as.model");
+
+    // Change whenever the cache layout or the serialized form of the updates changes incompatibly
+    private static final int CACHE_VERSION = 2;
+
+    private static final String EXTENSION_SERVICES = "META-INF/services/" + Extension.class.getName();
+
+    private static final byte[] NO_FINGERPRINT = new byte[0];
+
+    private static final XMLInputFactory INPUT_FACTORY = XMLInputFactory.newInstance();
+
+    private static final MarshallerFactory MARSHALLER_FACTORY;
+    private static final MarshallingConfiguration CONFIG;
+
+    static {
+        MarshallerFactory marshallerFactory = null;
+        try {
+            marshallerFactory = Marshalling.getMarshallerFactory("river", Module.getModuleFromDefaultLoader(ModuleIdentifier.fromString("org.jboss.marshalling.river")).getClassLoader());
+        } catch (ModuleLoadException e) {
+        } catch (RuntimeException e) {
+            // not running in a modular environment
+        }
+        if (marshallerFactory == null) {
+            marshallerFactory = Marshalling.getMarshallerFactory("river", ParsedConfigurationCache.class.getClassLoader());
+        }
+        MARSHALLER_FACTORY = marshallerFactory;
+        CONFIG = new MarshallingConfiguration();
+        CONFIG.setClassResolver(ModularClassResolver.getInstance());
+    }
+
+    private final File cacheFile;
+
+    /**
+     * Construct a new instance.
+     *
+     * @param cacheFile the file holding the cached updates, or {@code null} to always parse the XML
+     */
+    public ParsedConfigurationCache(final File cacheFile) {
+        this.cacheFile = cacheFile;
+    }
+
+    /**
+     * Get the default cache file for a configuration file.
+     *
+     * @param configFile the configuration file
+     * @return the cache file
+     */
+    public static File getCacheFile(final File configFile) {
+        return new File(configFile.getParentFile(), configFile.getName() + CACHE_SUFFIX);
+    }
+
+    /**
+     * Get the list of updates described by a configuration document.  The stream is read fully and closed.
+     *
+     * @param input the configuration document
+     * @param mapper the mapper with the root element readers for the document registered
+     * @param <U> the update type
+     * @return the updates
+     * @throws IOException if the document cannot be read
+     * @throws XMLStreamException if the document cannot be parsed
+     */
+    public <U extends AbstractModelUpdate<?, ?>> List<U> parse(final InputStream input, final XMLMapper mapper) throws IOException, XMLStreamException {
+        final long start = System.currentTimeMillis();
+        final byte[] content = readFully(input);
+        final byte[] digest = digest(content);
+        if (cacheFile != null && MARSHALLER_FACTORY != null) {
+            final List<U> cached = load(digest);
+            if (cached != null) {
+                log.debugf("Loaded %d updates from %s in %d ms", Integer.valueOf(cached.size()), cacheFile, Long.valueOf(System.currentTimeMillis() - start));
+                return cached;
+            }
+        }
+        final List<U> updates = new ArrayList<U>();
+        mapper.parseDocument(updates, INPUT_FACTORY.createXMLStreamReader(new ByteArrayInputStream(content)));
+        log.debugf("Parsed %d updates in %d ms", Integer.valueOf(updates.size()), Long.valueOf(System.currentTimeMillis() - start));
+        if (cacheFile != null && MARSHALLER_FACTORY != null) {
+            store(digest, updates);
+        }
+        return updates;
+    }
+
+    private <U> List<U> load(final byte[] digest) {
+        if (! cacheFile.isFile()) {
+            return null;
+        }
+        try {
+            final InputStream in = new BufferedInputStream(new FileInputStream(cacheFile));
+            try {
+                final Unmarshaller unmarshaller = MARSHALLER_FACTORY.createUnmarshaller(CONFIG);
+                unmarshaller.start(Marshalling.createByteInput(in));
+                if (unmarshaller.readInt() != CACHE_VERSION) {
+                    return null;
+                }
+                if (! Arrays.equals(digest, readBytes(unmarshaller))) {
+                    return null;
+                }
+                if (! Arrays.equals(parserFingerprint(), readBytes(unmarshaller))) {
+                    log.debugf("Configuration parsers changed since %s was written", cacheFile);
+                    return null;
+                }
+                final int modules = unmarshaller.readInt();
+                for (int i = 0; i < modules; i ++) {
+                    final String moduleName = unmarshaller.readUTF();
+                    if (! Arrays.equals(moduleFingerprint(moduleName), readBytes(unmarshaller))) {
+                        log.debugf("Extension module %s changed since %s was written", moduleName, cacheFile);
+                        return null;
+                    }
+                }
+                @SuppressWarnings("unchecked")
+                final List<U> updates = unmarshaller.readObject(List.class);
+                unmarshaller.finish();
+                return updates;
+            } finally {
+                safeClose(in);
+            }
+        } catch (Exception e) {
+            log.debugf(e, "Ignoring unreadable configuration cache %s", cacheFile);
+            return null;
+        }
+    }
+
+    private void store(final byte[] digest, final List<?> updates) {
+        final File tmp = new File(cacheFile.getParentFile(), cacheFile.getName() + ".tmp");
+        try {
+            final OutputStream out = new BufferedOutputStream(new FileOutputStream(tmp));
+            try {
+                final Marshaller marshaller = MARSHALLER_FACTORY.createMarshaller(CONFIG);
+                marshaller.start(Marshalling.createByteOutput(out));
+                marshaller.writeInt(CACHE_VERSION);
+                writeBytes(marshaller, digest);
+                writeBytes(marshaller, parserFingerprint());
+                final Set<String> modules = extensionModules(updates);
+                marshaller.writeInt(modules.size());
+                for (String moduleName : modules) {
+                    marshaller.writeUTF(moduleName);
+                    writeBytes(marshaller, moduleFingerprint(moduleName));
+                }
+                marshaller.writeObject(new ArrayList<Object>(updates));
+                marshaller.finish();
+            } finally {
+                safeClose(out);
+            }
+            if (! tmp.renameTo(cacheFile)) {
+                cacheFile.delete();
+                if (! tmp.renameTo(cacheFile)) {
+                    throw new IOException("Cannot rename " + tmp + " to " + cacheFile);
+                }
+            }
+        } catch (Exception e) {
+            // not every update can be serialized; such configurations are simply parsed on each boot
+            log.debugf(e, "Failed writing configuration cache %s", cacheFile);
+            tmp.delete();
+            cacheFile.delete();
+        }
+    }
+
+    private static byte[] readBytes(final Unmarshaller unmarshaller) throws IOException {
+        final byte[] bytes = new byte[unmarshaller.readInt()];
+        unmarshaller.readFully(bytes);
+        return bytes;
+    }
+
+    private static void writeBytes(final Marshaller marshaller, final byte[] bytes) throws IOException {
+        marshaller.writeInt(bytes.length);
+        marshaller.write(bytes);
+    }
+
+    private static Set<String> extensionModules(final List<?> updates) {
+        final Set<String> modules = new LinkedHashSet<String>();
+        for (Object update : updates) {
+            if (update instanceof ServerExtensionAdd) {
+                modules.add(((ServerExtensionAdd) update).getModuleName());
+            } else if (update instanceof DomainExtensionAdd) {
+                modules.add(((DomainExtensionAdd) update).getModuleName());
+            } else if (update instanceof HostExtensionAdd) {
+                modules.add(((HostExtensionAdd) update).getModuleName());
+            }
+        }
+        return modules;
+    }
+
+    private static byte[] parserFingerprint() throws IOException {
+        return archiveFingerprint(ParsedConfigurationCache.class.getResource(ParsedConfigurationCache.class.getSimpleName() + ".class"));
+    }
+
+    private static byte[] moduleFingerprint(final String moduleName) throws IOException {
+        final ClassLoader loader;
+        try {
+            loader = Module.getModuleFromDefaultLoader(ModuleIdentifier.fromString(moduleName)).getClassLoader();
+        } catch (ModuleLoadException e) {
+            // parsing will fail on the same module, so there is nothing to compare
+            return NO_FINGERPRINT;
+        } catch (RuntimeException e) {
+            // not running in a modular environment
+            return NO_FINGERPRINT;
+        }
+        final List<URL> resources = Collections.list(loader.getResources(EXTENSION_SERVICES));
+        Collections.sort(resources, new Comparator<URL>() {
+            public int compare(final URL o1, final URL o2) {
+                return o1.toExternalForm().compareTo(o2.toExternalForm());
+            }
+        });
+        final MessageDigest digest = sha1();
+        for (URL resource : resources) {
+            digest.update(archiveFingerprint(resource));
+        }
+        return digest.digest();
+    }
+
+    /**
+     * Get a fingerprint of the archive holding a resource.  The fingerprint changes whenever the archive is replaced;
+     * if the archive cannot be located, the resource's own content is used instead.
+     *
+     * @param resource the resource
+     * @return the fingerprint
+     * @throws IOException if the resource cannot be read
+     */
+    public static byte[] archiveFingerprint(final URL resource) throws IOException {
+        final MessageDigest digest = sha1();
+        digest.update(resource.toExternalForm().getBytes("UTF-8"));
+        final File archive = archiveOf(resource);
+        if (archive != null && archive.exists()) {
+            update(digest, archive.length());
+            update(digest, archive.lastModified());
+        } else {
+            digest.update(readFully(resource.openStream()));
+        }
+        return digest.digest();
+    }
+
+    private static File archiveOf(final URL resource) {
+        String spec = resource.toExternalForm();
+        if ("jar".equals(resource.getProtocol())) {
+            final int idx = spec.indexOf("!/");
+            if (idx == -1) {
+                return null;
+            }
+            spec = spec.substring(4, idx);
+        }
+        if (! spec.startsWith("file:")) {
+            return null;
+        }
+        try {
+            return new File(new URI(spec));
+        } catch (URISyntaxException e) {
+            return null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void update(final MessageDigest digest, final long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            digest.update((byte) (value >>> shift));
+        }
+    }
+
+    private static byte[] readFully(final InputStream input) throws IOException {
+        try {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+            final byte[] buffer = new byte[8192];
+            int res;
+            while ((res = input.read(buffer)) != -1) {
+                out.write(buffer, 0, res);
+            }
+            return out.toByteArray();
+        } finally {
+            safeClose(input);
+        }
+    }
+
+    private static byte[] digest(final byte[] content) {
+        return sha1().digest(content);
+    }
+
+    private static MessageDigest sha1() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void safeClose(final Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            log.tracef(e, "Failed to close %s", closeable);
+        }
+    }
+}
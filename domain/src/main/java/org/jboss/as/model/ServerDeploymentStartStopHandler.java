@@ -25,13 +25,17 @@ package org.jboss.as.model;
 import static org.jboss.as.deployment.attachment.VirtualFileAttachment.attachVirtualFile;
 
 import java.io.Closeable;
+import java.io.File;
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.concurrent.Executor;
 import java.util.jar.Manifest;
 
 import org.jboss.as.deployment.DeploymentFailureListener;
 import org.jboss.as.deployment.DeploymentService;
 import org.jboss.as.deployment.ServerDeploymentRepository;
+import org.jboss.as.deployment.attachment.ContentCacheAttachment;
+import org.jboss.as.deployment.attachment.DeploymentExecutorAttachment;
 import org.jboss.as.deployment.attachment.ManifestAttachment;
 import org.jboss.as.deployment.chain.DeploymentChain;
 import org.jboss.as.deployment.module.MountHandle;
@@ -180,6 +184,12 @@ public final class ServerDeploymentStartStopHandler implements Serializable {
             final DeploymentUnitContext deploymentUnitContext = new DeploymentUnitContextImpl(deploymentServiceName.getSimpleName(), deploymentSubBatch, serviceBuilder);
             attachVirtualFile(deploymentUnitContext, deploymentRoot);
             deploymentUnitContext.putAttachment(MountHandle.ATTACHMENT_KEY, handle);
+            final File cacheDirectory = deploymentRepo.getDeploymentCacheDirectory(deploymentHash);
+            if (cacheDirectory != null)
+                ContentCacheAttachment.attachContentCacheDirectory(deploymentUnitContext, cacheDirectory);
+            final Executor deploymentExecutor = getDeploymentExecutor(serviceContainer);
+            if (deploymentExecutor != null)
+                DeploymentExecutorAttachment.attachDeploymentExecutor(deploymentUnitContext, deploymentExecutor);
 
             // Get the optional Manifest for this deployment
             try {
@@ -217,6 +227,13 @@ public final class ServerDeploymentStartStopHandler implements Serializable {
         return serviceController.getValue();
     }
 
+    private Executor getDeploymentExecutor(ServiceContainer serviceContainer) {
+        final ServiceController<?> serviceController = serviceContainer.getService(DeploymentExecutorAttachment.SERVICE_NAME);
+        if (serviceController == null || serviceController.getState() != ServiceController.State.UP)
+            return null;
+        return (Executor) serviceController.getValue();
+    }
+
 //    private static String getFullyQualifiedDeploymentPath(String name) {
 //        final String fileName = name;
 //        String path = System.getProperty("jboss.server.deploy.dir");
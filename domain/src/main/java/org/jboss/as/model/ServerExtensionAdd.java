@@ -41,6 +41,15 @@ public final class ServerExtensionAdd extends AbstractServerModelUpdate<Void> {
         this.moduleName = moduleName;
     }
 
+    /**
+     * Get the name of the extension module.
+     *
+     * @return the module name
+     */
+    public String getModuleName() {
+        return moduleName;
+    }
+
     /** {@inheritDoc} */
     protected void applyUpdate(final ServerModel element) throws UpdateFailedException {
         element.addExtension(moduleName);
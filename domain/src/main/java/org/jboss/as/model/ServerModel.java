@@ -73,17 +73,20 @@ public final class ServerModel extends AbstractModel<ServerModel> {
     private static final QName ELEMENT_NAME = new QName(Namespace.CURRENT.getUriString(), Element.SERVER.getLocalName());
 
     /** Name for this server that was actually provided via configuration */
-    private String configuredServerName;
-    private final Set<String> extensions = new LinkedHashSet<String>();
-    private final Map<String, DeploymentRepositoryElement> repositories = new LinkedHashMap<String, DeploymentRepositoryElement>();
-    private final Map<String, ServerGroupDeploymentElement> deployments = new LinkedHashMap<String, ServerGroupDeploymentElement>();
-    private final Map<String, InterfaceElement> interfaces = new LinkedHashMap<String, InterfaceElement>();
-    private final Map<String, PathElement> paths = new LinkedHashMap<String, PathElement>();
-    private ProfileElement profile;
-    private SocketBindingGroupElement socketBindings;
-    private int portOffset;
+    private volatile String configuredServerName;
+    // The collections are copy-on-write (see CopyOnWrite) so they can be read without locking;
+    // writers synchronize on the model.  The elements in them are changed in place, so reads reaching
+    // into them go through read(), and the whole model is serialized from a snapshot()
+    private volatile Set<String> extensions = new LinkedHashSet<String>();
+    private volatile Map<String, DeploymentRepositoryElement> repositories = new LinkedHashMap<String, DeploymentRepositoryElement>();
+    private volatile Map<String, ServerGroupDeploymentElement> deployments = new LinkedHashMap<String, ServerGroupDeploymentElement>();
+    private volatile Map<String, InterfaceElement> interfaces = new LinkedHashMap<String, InterfaceElement>();
+    private volatile Map<String, PathElement> paths = new LinkedHashMap<String, PathElement>();
+    private volatile ProfileElement profile;
+    private volatile SocketBindingGroupElement socketBindings;
+    private volatile int portOffset;
     private final PropertiesElement systemProperties = new PropertiesElement(Element.PROPERTY, true);
-    private ManagementElement managementElement;
+    private volatile ManagementElement managementElement;
 
     /**
      * Construct a new instance.
@@ -163,7 +166,7 @@ public final class ServerModel extends AbstractModel<ServerModel> {
      * @return the paths
      */
     public Collection<PathElement> getPaths() {
-        return Collections.unmodifiableCollection(new HashSet<PathElement>(paths.values()));
+        return Collections.unmodifiableCollection(paths.values());
     }
 
     /**
@@ -190,12 +193,14 @@ public final class ServerModel extends AbstractModel<ServerModel> {
     @Override
     public void writeContent(final XMLExtendedStreamWriter streamWriter) throws XMLStreamException {
 
+        final String configuredServerName = this.configuredServerName;
         if (configuredServerName != null) {
             streamWriter.writeAttribute(Attribute.NAME.getLocalName(), configuredServerName);
         }
 
         writeNamespaces(streamWriter);
 
+        final Set<String> extensions = this.extensions;
         if (! extensions.isEmpty()) {
             streamWriter.writeStartElement(Element.EXTENSIONS.getLocalName());
             for (String extension : extensions) {
@@ -205,17 +210,17 @@ public final class ServerModel extends AbstractModel<ServerModel> {
             streamWriter.writeEndElement();
         }
 
-        synchronized(paths) {
-            if(! paths.isEmpty()) {
-                streamWriter.writeStartElement(Element.PATHS.getLocalName());
-                for(final PathElement path : paths.values()) {
-                    streamWriter.writeStartElement(Element.PATH.getLocalName());
-                    path.writeContent(streamWriter);
-                }
-                streamWriter.writeEndElement();
+        final Map<String, PathElement> paths = this.paths;
+        if(! paths.isEmpty()) {
+            streamWriter.writeStartElement(Element.PATHS.getLocalName());
+            for(final PathElement path : paths.values()) {
+                streamWriter.writeStartElement(Element.PATH.getLocalName());
+                path.writeContent(streamWriter);
             }
+            streamWriter.writeEndElement();
         }
 
+        final ManagementElement managementElement = this.managementElement;
         if (managementElement != null) {
             streamWriter.writeStartElement(Element.MANAGEMENT.getLocalName());
             managementElement.writeContent(streamWriter);
@@ -224,17 +229,17 @@ public final class ServerModel extends AbstractModel<ServerModel> {
         streamWriter.writeStartElement(Element.PROFILE.getLocalName());
         profile.writeContent(streamWriter);
 
-        synchronized (interfaces) {
-            if (! interfaces.isEmpty()) {
-                streamWriter.writeStartElement(Element.INTERFACES.getLocalName());
-                for (InterfaceElement element : interfaces.values()) {
-                    streamWriter.writeStartElement(Element.INTERFACE.getLocalName());
-                    element.writeContent(streamWriter);
-                }
-                streamWriter.writeEndElement();
+        final Map<String, InterfaceElement> interfaces = this.interfaces;
+        if (! interfaces.isEmpty()) {
+            streamWriter.writeStartElement(Element.INTERFACES.getLocalName());
+            for (InterfaceElement element : interfaces.values()) {
+                streamWriter.writeStartElement(Element.INTERFACE.getLocalName());
+                element.writeContent(streamWriter);
             }
+            streamWriter.writeEndElement();
         }
 
+        final SocketBindingGroupElement socketBindings = this.socketBindings;
         if (socketBindings != null) {
             streamWriter.writeStartElement(Element.SOCKET_BINDING_GROUP.getLocalName());
             socketBindings.writeContent(streamWriter);
@@ -247,6 +252,7 @@ public final class ServerModel extends AbstractModel<ServerModel> {
             systemProperties.writeContent(streamWriter);
         }
 
+        final Map<String, DeploymentRepositoryElement> repositories = this.repositories;
         if (! repositories.isEmpty()) {
             for (DeploymentRepositoryElement element : repositories.values()) {
                 streamWriter.writeStartElement(Element.DEPLOYMENT_REPOSITORY.getLocalName());
@@ -254,6 +260,7 @@ public final class ServerModel extends AbstractModel<ServerModel> {
             }
         }
 
+        final Map<String, ServerGroupDeploymentElement> deployments = this.deployments;
         if (! deployments.isEmpty()) {
             streamWriter.writeStartElement(Element.DEPLOYMENTS.getLocalName());
             for (ServerGroupDeploymentElement element : deployments.values()) {
@@ -266,40 +273,39 @@ public final class ServerModel extends AbstractModel<ServerModel> {
         streamWriter.writeEndElement();
     }
 
-    boolean addExtension(final String name) {
-        return extensions.add(name);
+    synchronized boolean addExtension(final String name) {
+        if (extensions.contains(name)) {
+            return false;
+        }
+        extensions = CopyOnWrite.add(extensions, name);
+        return true;
     }
 
     AbstractSubsystemElement<?> getSubsystem(final String namespaceUri) {
         return profile.getSubsystem(namespaceUri);
     }
 
-    void addDeployment(final ServerGroupDeploymentElement deploymentElement) {
-        synchronized (deployments) {
-            if(deployments.put(deploymentElement.getUniqueName(), deploymentElement) != null) {
-                throw new IllegalArgumentException("Deployment " + deploymentElement.getUniqueName() +
-                                        " with sha1 hash " + bytesToHexString(deploymentElement.getSha1Hash()) +
-                                        " already declared");
-            }
+    synchronized void addDeployment(final ServerGroupDeploymentElement deploymentElement) {
+        if(deployments.containsKey(deploymentElement.getUniqueName())) {
+            throw new IllegalArgumentException("Deployment " + deploymentElement.getUniqueName() +
+                                    " with sha1 hash " + bytesToHexString(deploymentElement.getSha1Hash()) +
+                                    " already declared");
         }
+        deployments = CopyOnWrite.put(deployments, deploymentElement.getUniqueName(), deploymentElement);
     }
 
-    ServerGroupDeploymentElement removeDeployment(final String deploymentName) {
-        synchronized (deployments) {
-            return deployments.remove(deploymentName);
-        }
+    synchronized ServerGroupDeploymentElement removeDeployment(final String deploymentName) {
+        final ServerGroupDeploymentElement deployment = deployments.get(deploymentName);
+        deployments = CopyOnWrite.remove(deployments, deploymentName);
+        return deployment;
     }
 
     public Set<ServerGroupDeploymentElement> getDeployments() {
-        synchronized (deployments) {
-            return new HashSet<ServerGroupDeploymentElement>(deployments.values());
-        }
+        return new HashSet<ServerGroupDeploymentElement>(deployments.values());
     }
 
     public InterfaceElement getInterface(final String name) {
-        synchronized(interfaces) {
-            return interfaces.get(name);
-        }
+        return interfaces.get(name);
     }
 
     boolean addSubsystem(final String namespaceUri, final AbstractSubsystemElement<?> element) {
@@ -322,59 +328,69 @@ public final class ServerModel extends AbstractModel<ServerModel> {
         this.socketBindings = socketBindings;
     }
 
-    InterfaceElement addInterface(final String name) {
+    synchronized InterfaceElement addInterface(final String name) {
         if(interfaces.containsKey(name)) {
             return null;
         }
         final InterfaceElement element = new InterfaceElement(name);
-        this.interfaces.put(name, element);
+        interfaces = CopyOnWrite.put(interfaces, name, element);
         return element;
     }
 
-    boolean removeInterface(final String name) {
-        return interfaces.remove(name) != null;
+    synchronized boolean removeInterface(final String name) {
+        if(! interfaces.containsKey(name)) {
+            return false;
+        }
+        interfaces = CopyOnWrite.remove(interfaces, name);
+        return true;
     }
 
-    PathElement addPath(final String name) {
+    synchronized PathElement addPath(final String name) {
         if(paths.containsKey(name)) {
             return null;
         }
         final PathElement path = new PathElement(name);
-        paths.put(name, path);
+        paths = CopyOnWrite.put(paths, name, path);
         return path;
     }
 
-    boolean removePath(final String name) {
-        return paths.remove(name) != null;
+    synchronized boolean removePath(final String name) {
+        if(! paths.containsKey(name)) {
+            return false;
+        }
+        paths = CopyOnWrite.remove(paths, name);
+        return true;
     }
 
-    boolean addDeploymentRepository(final String path) {
+    synchronized boolean addDeploymentRepository(final String path) {
         if(repositories.containsKey(path)) {
             return false;
         }
         final DeploymentRepositoryElement repository = new DeploymentRepositoryElement(path);
-        repositories.put(path, repository);
+        repositories = CopyOnWrite.put(repositories, path, repository);
         return true;
     }
 
-    boolean removeDeploymentRepository(final String path) {
-        return repositories.remove(path) != null;
+    synchronized boolean removeDeploymentRepository(final String path) {
+        if(! repositories.containsKey(path)) {
+            return false;
+        }
+        repositories = CopyOnWrite.remove(repositories, path);
+        return true;
     }
 
-    boolean addManagementElement(String interfaceName, int port) {
+    synchronized boolean addManagementElement(String interfaceName, int port) {
         if (managementElement != null)
             return false;
         managementElement = new ManagementElement(interfaceName, port);
         return true;
     }
 
-    boolean removeManagementElement() {
+    synchronized boolean removeManagementElement() {
         if (managementElement != null) {
             managementElement = null;
             return true;
         }
         return false;
     }
-
-
 }
@@ -0,0 +1,148 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.jboss.as.deployment;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.logging.Logger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of {@link DeploymentContentCleaner}.
+ */
+public class DeploymentContentCleanerTestCase {
+
+    private static final Logger log = Logger.getLogger(DeploymentContentCleanerTestCase.class);
+
+    private final Set<String> referenced = new HashSet<String>();
+    private File repoRoot;
+    private DeploymentContentWriter writer;
+
+    @Before
+    public void setUp() throws Exception {
+        repoRoot = File.createTempFile("content", "repo");
+        repoRoot.delete();
+        repoRoot.mkdirs();
+        writer = new DeploymentContentWriter(repoRoot, log);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        delete(repoRoot);
+    }
+
+    @Test
+    public void testUnreferencedContentRemoved() throws Exception {
+        final File kept = add("kept.jar", 1);
+        final File mounted = add("mounted.jar", 2);
+        final File removed = add("removed.jar", 3);
+        referenced.add(sha1(kept));
+
+        final DeploymentContentCleaner cleaner = new DeploymentContentCleaner(repoRoot, references(), -1000L, log);
+        cleaner.acquire(sha1(mounted));
+        cleaner.run();
+        assertTrue(kept.exists());
+        assertTrue(mounted.exists());
+        assertFalse(removed.exists());
+
+        cleaner.release(sha1(mounted));
+        cleaner.run();
+        assertTrue(kept.exists());
+        assertFalse(mounted.exists());
+    }
+
+    @Test
+    public void testRecentContentKept() throws Exception {
+        final File recent = add("recent.jar", 1);
+        new DeploymentContentCleaner(repoRoot, references(), DeploymentContentCleaner.DEFAULT_GRACE_PERIOD, log).run();
+        assertTrue(recent.exists());
+    }
+
+    @Test
+    public void testNoReferencesAvailable() throws Exception {
+        final File content = add("test.jar", 1);
+        new DeploymentContentCleaner(repoRoot, new DeploymentContentCleaner.ContentReferences() {
+            public Set<String> getReferencedContent() {
+                throw new IllegalStateException();
+            }
+        }, -1000L, log).run();
+        assertTrue(content.exists());
+    }
+
+    @Test
+    public void testContentClaimedAfterSnapshotKept() throws Exception {
+        final File claimed = add("claimed.jar", 1);
+        final File removed = add("removed.jar", 2);
+        final AtomicInteger calls = new AtomicInteger();
+        new DeploymentContentCleaner(writer, new DeploymentContentCleaner.ContentReferences() {
+            public Set<String> getReferencedContent() {
+                // the deployment is added to the model just after the cleaner's first look at it
+                return calls.getAndIncrement() == 0 ? Collections.<String>emptySet() : Collections.singleton(sha1(claimed));
+            }
+        }, -1000L, log).run();
+        assertTrue(claimed.exists());
+        assertFalse(removed.exists());
+    }
+
+    private DeploymentContentCleaner.ContentReferences references() {
+        return new DeploymentContentCleaner.ContentReferences() {
+            public Set<String> getReferencedContent() {
+                return referenced;
+            }
+        };
+    }
+
+    private File add(final String name, final int size) throws Exception {
+        final byte[] hash = writer.addContent(name, new ByteArrayInputStream(new byte[size]), 0L);
+        final StringBuilder sha1 = new StringBuilder();
+        for (byte b : hash) {
+            sha1.append(String.format("%02x", Integer.valueOf(b & 0xff)));
+        }
+        return new File(new File(repoRoot, sha1.substring(0, 2)), sha1.substring(2));
+    }
+
+    private static String sha1(final File hashDir) {
+        return hashDir.getParentFile().getName() + hashDir.getName();
+    }
+
+    private static void delete(final File file) {
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.deployment;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.jboss.logging.Logger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Compares the throughput of N parallel uploads into a {@link DeploymentContentWriter} with the same uploads run
+ * serially, and with hash-only uploads of content the repository already holds.  Run with {@code -Dbenchmark}.
+ */
+public class DeploymentContentWriterBenchmark {
+
+    private static final long SEED = 123L;
+    private static final int UPLOADS = 8;
+    private static final int UPLOAD_SIZE = 4 << 20;
+
+    private File repoRoot;
+    private DeploymentContentWriter writer;
+
+    @Before
+    public void setUp() throws Exception {
+        repoRoot = File.createTempFile("content", "repo");
+        repoRoot.delete();
+        repoRoot.mkdirs();
+        writer = new DeploymentContentWriter(repoRoot, Logger.getLogger(DeploymentContentWriterBenchmark.class));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        delete(repoRoot);
+    }
+
+    @Test
+    public void testParallelUploads() throws Exception {
+        final byte[][] contents = new byte[UPLOADS][];
+        for (int i = 0; i < UPLOADS; i++) {
+            contents[i] = new byte[UPLOAD_SIZE];
+            new Random(SEED + i).nextBytes(contents[i]);
+        }
+        // warm up
+        upload(contents, 1, null, true);
+        final long serial = upload(contents, 1, null, true);
+        final long parallel = upload(contents, UPLOADS, null, false);
+        final byte[][] hashes = new byte[UPLOADS][];
+        upload(contents, 1, hashes, false);
+        final long hashOnly = upload(contents, UPLOADS, hashes, false);
+        System.out.printf("%d uploads of %d bytes; serial: %d ms; parallel: %d ms; parallel hash-only: %d ms\n", Integer.valueOf(UPLOADS),
+                Integer.valueOf(UPLOAD_SIZE), Long.valueOf(serial / 1000000L), Long.valueOf(parallel / 1000000L), Long.valueOf(hashOnly / 1000000L));
+    }
+
+    private long upload(final byte[][] contents, final int threads, final byte[][] hashes, final boolean clear) throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final long start = System.nanoTime();
+            final List<Future<byte[]>> futures = new ArrayList<Future<byte[]>>();
+            for (int i = 0; i < contents.length; i++) {
+                final String name = "test" + i + ".jar";
+                final byte[] content = contents[i];
+                final byte[] expectedHash = hashes == null ? null : hashes[i];
+                futures.add(executor.submit(new Callable<byte[]>() {
+                    public byte[] call() throws Exception {
+                        return writer.addContent(name, new ByteArrayInputStream(content), 0L, expectedHash);
+                    }
+                }));
+            }
+            for (int i = 0; i < contents.length; i++) {
+                final byte[] hash = futures.get(i).get();
+                if (hashes != null) {
+                    hashes[i] = hash;
+                }
+            }
+            final long time = System.nanoTime() - start;
+            if (clear) {
+                // let the next round store the content again
+                for (File child : repoRoot.listFiles()) {
+                    delete(child);
+                }
+            }
+            return time;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void delete(final File file) {
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.jboss.as.deployment;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.jboss.logging.Logger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests of {@link DeploymentContentWriter}.
+ */
+public class DeploymentContentWriterTestCase {
+
+    private static final long SEED = 123L;
+    private static final int UPLOADS = 8;
+
+    private File repoRoot;
+    private DeploymentContentWriter writer;
+
+    @Before
+    public void setUp() throws Exception {
+        repoRoot = File.createTempFile("content", "repo");
+        repoRoot.delete();
+        repoRoot.mkdirs();
+        writer = new DeploymentContentWriter(repoRoot, Logger.getLogger(DeploymentContentWriterTestCase.class));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        delete(repoRoot);
+    }
+
+    @Test
+    public void testAddContent() throws Exception {
+        final byte[] content = content(100000, 1);
+        final byte[] hash = writer.addContent("test.jar", new ByteArrayInputStream(content), 0L);
+        assertArrayEquals(MessageDigest.getInstance("SHA-1").digest(content), hash);
+        assertEquals(content.length, contentFile(hash).length());
+    }
+
+    @Test
+    public void testHashOnlyReupload() throws Exception {
+        final byte[] content = content(100000, 1);
+        final byte[] hash = writer.addContent("test.jar", new ByteArrayInputStream(content), 0L);
+        final File stored = contentFile(hash);
+        stored.setLastModified(1000L);
+        assertArrayEquals(hash, writer.addContent("other.jar", new ByteArrayInputStream(content), 0L, hash));
+        // the content was only hashed; nothing was rewritten and no temp file was left
+        assertEquals(1000L, stored.lastModified());
+        assertEquals(1, repoRoot.list().length);
+    }
+
+    @Test
+    public void testHashOnlyMismatch() throws Exception {
+        final byte[] content = content(100000, 1);
+        final byte[] hash = writer.addContent("test.jar", new ByteArrayInputStream(content), 0L);
+        final byte[] changed = content.clone();
+        changed[50000]++;
+        try {
+            writer.addContent("test.jar", new ByteArrayInputStream(changed), 0L, hash);
+            fail("Expected exception");
+        } catch (IOException expected) {
+        }
+        assertArrayEquals(hash, MessageDigest.getInstance("SHA-1").digest(read(contentFile(hash))));
+        assertEquals(1, repoRoot.list().length);
+    }
+
+    @Test
+    public void testExpectedHashOfNewContent() throws Exception {
+        final byte[] content = content(100000, 1);
+        final byte[] hash = MessageDigest.getInstance("SHA-1").digest(content);
+        assertArrayEquals(hash, writer.addContent("test.jar", new ByteArrayInputStream(content), 0L, hash));
+        assertEquals(content.length, contentFile(hash).length());
+
+        final byte[] other = content(100000, 2);
+        try {
+            writer.addContent("other.jar", new ByteArrayInputStream(other), 0L, MessageDigest.getInstance("SHA-1").digest(content(10, 3)));
+            fail("Expected exception");
+        } catch (IOException expected) {
+        }
+        assertTrue(! contentFile(MessageDigest.getInstance("SHA-1").digest(other)).exists());
+        assertEquals(1, repoRoot.list().length);
+    }
+
+    @Test
+    public void testChangedReupload() throws Exception {
+        final byte[] content = content(200000, 1);
+        writer.addContent("test.jar", new ByteArrayInputStream(content), 0L);
+        final byte[] changed = content.clone();
+        changed[150000]++;
+        final byte[] hash = writer.addContent("test.jar", new ByteArrayInputStream(changed), 0L);
+        assertArrayEquals(MessageDigest.getInstance("SHA-1").digest(changed), hash);
+        assertArrayEquals(hash, MessageDigest.getInstance("SHA-1").digest(read(contentFile(hash))));
+    }
+
+    @Test
+    public void testInterruptedUpload() throws Exception {
+        final byte[] content = content(200000, 1);
+        try {
+            writer.addContent("test.jar", new FailingInputStream(content, 100000), 0L);
+            fail("Expected exception");
+        } catch (IOException expected) {
+        }
+        final PartialDeploymentContent partial = writer.getPartialContent("test.jar");
+        assertEquals(100000L, partial.getLength());
+        final InputStream rest = new ByteArrayInputStream(content, 100000, content.length - 100000);
+        final byte[] hash = writer.addContent("test.jar", rest, partial.getLength());
+        assertArrayEquals(MessageDigest.getInstance("SHA-1").digest(content), hash);
+    }
+
+    @Test
+    public void testParallelUploads() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(UPLOADS);
+        try {
+            final List<Future<byte[]>> futures = new ArrayList<Future<byte[]>>();
+            for (int i = 0; i < UPLOADS; i++) {
+                final String name = "test" + i + ".jar";
+                final byte[] content = content(100000, i);
+                futures.add(executor.submit(new Callable<byte[]>() {
+                    public byte[] call() throws Exception {
+                        return writer.addContent(name, new ByteArrayInputStream(content), 0L);
+                    }
+                }));
+            }
+            for (int i = 0; i < UPLOADS; i++) {
+                final byte[] hash = futures.get(i).get();
+                assertArrayEquals(MessageDigest.getInstance("SHA-1").digest(content(100000, i)), hash);
+                assertArrayEquals(hash, MessageDigest.getInstance("SHA-1").digest(read(contentFile(hash))));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private File contentFile(final byte[] hash) {
+        final StringBuilder sha1 = new StringBuilder();
+        for (byte b : hash) {
+            sha1.append(String.format("%02x", Integer.valueOf(b & 0xff)));
+        }
+        return new File(new File(new File(repoRoot, sha1.substring(0, 2)), sha1.substring(2)), "content");
+    }
+
+    private static byte[] content(final int size, final int seed) {
+        final byte[] content = new byte[size];
+        new Random(SEED + seed).nextBytes(content);
+        return content;
+    }
+
+    private static byte[] read(final File file) throws IOException {
+        final byte[] bytes = new byte[(int) file.length()];
+        final InputStream in = new FileInputStream(file);
+        try {
+            int cnt = 0;
+            int read;
+            while (cnt < bytes.length && (read = in.read(bytes, cnt, bytes.length - cnt)) != -1) {
+                cnt += read;
+            }
+        } finally {
+            in.close();
+        }
+        return bytes;
+    }
+
+    private static void delete(final File file) {
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    private static final class FailingInputStream extends InputStream {
+        private final InputStream content;
+        private int remaining;
+
+        FailingInputStream(final byte[] content, final int failAt) {
+            this.content = new ByteArrayInputStream(content);
+            remaining = failAt;
+        }
+
+        public int read() throws IOException {
+            final byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+        }
+
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (remaining == 0) {
+                throw new IOException("Connection lost");
+            }
+            final int read = content.read(b, off, Math.min(len, remaining));
+            remaining -= read;
+            return read;
+        }
+    }
+}
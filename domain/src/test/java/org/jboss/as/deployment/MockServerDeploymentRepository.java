@@ -61,6 +61,21 @@ public class MockServerDeploymentRepository implements ServerDeploymentRepositor
         return null;
     }
 
+    @Override
+    public byte[] addDeploymentContent(String name, String runtimeName, InputStream stream, long offset, byte[] expectedHash) throws IOException {
+        return null;
+    }
+
+    @Override
+    public PartialDeploymentContent getPartialDeploymentContent(String name) throws IOException {
+        return null;
+    }
+
+    @Override
+    public File getDeploymentCacheDirectory(byte[] deploymentHash) {
+        return null;
+    }
+
     @Override
     public Closeable mountDeploymentContent(String name, String runtimeName, byte[] deploymentHash, VirtualFile mountPoint) throws IOException {
         Closeable handle = null;
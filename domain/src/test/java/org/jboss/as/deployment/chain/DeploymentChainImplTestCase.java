@@ -0,0 +1,156 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.deployment.chain;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.as.deployment.AttachmentKey;
+import org.jboss.as.deployment.Phase;
+import org.jboss.as.deployment.unit.ConcurrentDeploymentUnitProcessor;
+import org.jboss.as.deployment.unit.DeploymentUnitContext;
+import org.jboss.as.deployment.unit.DeploymentUnitContextImpl;
+import org.jboss.as.deployment.unit.DeploymentUnitProcessingException;
+import org.jboss.as.deployment.unit.DeploymentUnitProcessor;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests of {@link DeploymentChainImpl} running concurrent processors and recording processing times.
+ */
+public class DeploymentChainImplTestCase {
+
+    private static final AttachmentKey<String> FIRST = new AttachmentKey<String>(String.class);
+    private static final AttachmentKey<String> SECOND = new AttachmentKey<String>(String.class);
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @After
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testConcurrentProcessors() throws Exception {
+        final DeploymentChainImpl chain = new DeploymentChainImpl(executor);
+        // each processor waits for the other to start, so they only complete if they run at the same time
+        final CountDownLatch started = new CountDownLatch(2);
+        chain.addProcessor(new RendezvousProcessor(started, FIRST), Phase.PARSE + 0x100);
+        chain.addProcessor(new RendezvousProcessor(started, SECOND), Phase.PARSE + 0x200);
+        chain.addProcessor(new DeploymentUnitProcessor() {
+            public void processDeployment(final DeploymentUnitContext context) throws DeploymentUnitProcessingException {
+                // the next phase sees the results of both
+                assertNotNull(context.getAttachment(FIRST));
+                assertNotNull(context.getAttachment(SECOND));
+            }
+        }, Phase.DEPENDENCIES + 0x100);
+
+        chain.processDeployment(createContext("test.war"));
+
+        final DeploymentChainMetrics metrics = chain.getMetrics();
+        assertEquals(1L, metrics.getDeploymentCount());
+        assertEquals(3, metrics.getDeploymentProcessorTimes("test.war").size());
+        assertTrue(metrics.getPhaseTimes().containsKey("PARSE"));
+        assertTrue(metrics.getPhaseTimes().containsKey("DEPENDENCIES"));
+        assertTrue(metrics.getDeploymentTimes().containsKey("test.war"));
+    }
+
+    @Test
+    public void testWithoutExecutor() throws Exception {
+        final DeploymentChainImpl chain = new DeploymentChainImpl();
+        final StringBuilder order = new StringBuilder();
+        chain.addProcessor(new OrderProcessor(order, "a"), Phase.PARSE + 0x200);
+        chain.addProcessor(new OrderProcessor(order, "b"), Phase.PARSE + 0x100);
+        chain.processDeployment(createContext("test.jar"));
+        assertEquals("ba", order.toString());
+    }
+
+    @Test
+    public void testConcurrentProcessorFailure() throws Exception {
+        final DeploymentChainImpl chain = new DeploymentChainImpl(executor);
+        chain.addProcessor(new ConcurrentDeploymentUnitProcessor() {
+            public void processDeployment(final DeploymentUnitContext context) throws DeploymentUnitProcessingException {
+                throw new DeploymentUnitProcessingException("expected");
+            }
+        }, Phase.PARSE + 0x100);
+        chain.addProcessor(new DeploymentUnitProcessor() {
+            public void processDeployment(final DeploymentUnitContext context) throws DeploymentUnitProcessingException {
+                fail("Should not reach the next phase");
+            }
+        }, Phase.DEPENDENCIES + 0x100);
+        try {
+            chain.processDeployment(createContext("test.jar"));
+            fail("Expected exception");
+        } catch (DeploymentUnitProcessingException expected) {
+            assertEquals("expected", expected.getMessage());
+        }
+        assertEquals(0L, chain.getMetrics().getDeploymentCount());
+    }
+
+    private static DeploymentUnitContext createContext(final String name) {
+        return new DeploymentUnitContextImpl(name, null, null);
+    }
+
+    private static class RendezvousProcessor implements ConcurrentDeploymentUnitProcessor {
+        private final CountDownLatch started;
+        private final AttachmentKey<String> key;
+
+        RendezvousProcessor(final CountDownLatch started, final AttachmentKey<String> key) {
+            this.started = started;
+            this.key = key;
+        }
+
+        public void processDeployment(final DeploymentUnitContext context) throws DeploymentUnitProcessingException {
+            started.countDown();
+            try {
+                if (! started.await(10L, TimeUnit.SECONDS)) {
+                    throw new DeploymentUnitProcessingException("Processors did not run concurrently");
+                }
+            } catch (InterruptedException e) {
+                throw new DeploymentUnitProcessingException(e);
+            }
+            context.putAttachment(key, Thread.currentThread().getName());
+        }
+    }
+
+    private static class OrderProcessor implements ConcurrentDeploymentUnitProcessor {
+        private final StringBuilder order;
+        private final String name;
+
+        OrderProcessor(final StringBuilder order, final String name) {
+            this.order = order;
+            this.name = name;
+        }
+
+        public void processDeployment(final DeploymentUnitContext context) throws DeploymentUnitProcessingException {
+            order.append(name);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.deployment.descriptor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.as.deployment.unit.DeploymentUnitProcessingException;
+import org.jboss.vfs.VFS;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests of {@link DescriptorCache}.
+ */
+public class DescriptorCacheTestCase {
+
+    private final CountingParser parser = new CountingParser();
+
+    @Test
+    public void testSharedDescriptor() throws Exception {
+        final DescriptorCache<ArrayList<String>> cache = new DescriptorCache<ArrayList<String>>(16, false);
+        final ArrayList<String> first = cache.get("<taglib/>".getBytes(), parser);
+        assertSame(first, cache.get("<taglib/>".getBytes(), parser));
+        assertEquals(1, parser.parses.get());
+        cache.get("<taglib></taglib>".getBytes(), parser);
+        assertEquals(2, parser.parses.get());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testCopiedDescriptor() throws Exception {
+        final DescriptorCache<ArrayList<String>> cache = new DescriptorCache<ArrayList<String>>(16, true);
+        final ArrayList<String> first = cache.get("<web-fragment/>".getBytes(), parser);
+        first.add("modified");
+        final ArrayList<String> second = cache.get("<web-fragment/>".getBytes(), parser);
+        final ArrayList<String> third = cache.get("<web-fragment/>".getBytes(), parser);
+        assertEquals(1, parser.parses.get());
+        assertEquals(1, second.size());
+        assertEquals("<web-fragment/>", second.get(0));
+        assertNotSame(second, third);
+        assertEquals(second, third);
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        final DescriptorCache<ArrayList<String>> cache = new DescriptorCache<ArrayList<String>>(2, false);
+        cache.get("a".getBytes(), parser);
+        cache.get("b".getBytes(), parser);
+        // touch the first so the second is the least recently used
+        cache.get("a".getBytes(), parser);
+        cache.get("c".getBytes(), parser);
+        assertEquals(2, cache.size());
+        cache.get("a".getBytes(), parser);
+        assertEquals(3, parser.parses.get());
+        cache.get("b".getBytes(), parser);
+        assertEquals(4, parser.parses.get());
+    }
+
+    @Test
+    public void testVirtualFile() throws Exception {
+        final File file = File.createTempFile("descriptor", ".tld");
+        try {
+            final OutputStream out = new FileOutputStream(file);
+            try {
+                out.write("<taglib/>".getBytes());
+            } finally {
+                out.close();
+            }
+            final DescriptorCache<ArrayList<String>> cache = new DescriptorCache<ArrayList<String>>(16, false);
+            assertEquals("<taglib/>", cache.get(VFS.getChild(file.toURI()), parser).get(0));
+            assertEquals("<taglib/>", cache.get("<taglib/>".getBytes(), parser).get(0));
+            assertEquals(1, parser.parses.get());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testParseFailure() throws Exception {
+        final File file = File.createTempFile("descriptor", ".xml");
+        try {
+            final DescriptorCache<ArrayList<String>> cache = new DescriptorCache<ArrayList<String>>(16, false);
+            try {
+                cache.get(VFS.getChild(file.toURI()), parser);
+                fail("Expected exception");
+            } catch (DeploymentUnitProcessingException expected) {
+            }
+            assertEquals(0, cache.size());
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static final class CountingParser implements DescriptorCache.Parser<ArrayList<String>> {
+        private final AtomicInteger parses = new AtomicInteger();
+
+        public ArrayList<String> parse(final InputStream input) throws Exception {
+            parses.incrementAndGet();
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            int b;
+            while ((b = input.read()) != -1) {
+                out.write(b);
+            }
+            if (out.size() == 0) {
+                throw new IllegalArgumentException("Empty descriptor");
+            }
+            final ArrayList<String> result = new ArrayList<String>();
+            result.add(out.toString());
+            return result;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.jboss.as.deployment.processor;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.jboss.as.deployment.AttachmentKey;
+import org.jboss.as.deployment.ServerDeploymentRepository;
+import org.jboss.as.deployment.unit.DeploymentUnitProcessor;
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.Index;
+import org.jboss.jandex.Indexer;
+import org.jboss.vfs.VFS;
+import org.jboss.vfs.VFSUtils;
+import org.jboss.vfs.VirtualFile;
+import org.jboss.vfs.VisitorAttributes;
+import org.jboss.vfs.util.SuffixMatchFilter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Compares indexing a web application sized layout of 200 library roots one after another with
+ * {@link AnnotationIndexSupport} indexing them concurrently, and with reading their cached indexes.  Run with
+ * {@code -Dbenchmark}.
+ */
+public class AnnotationIndexSupportBenchmark {
+
+    private static final int LIBS = 200;
+    private static final Class<?>[] CLASSES = {
+        AnnotationIndexSupport.class, AnnotationIndexProcessor.class, AttachmentKey.class,
+        DeploymentUnitProcessor.class, ServerDeploymentRepository.class, AnnotationIndexSupportBenchmark.class
+    };
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    private File root;
+    private File cacheDirectory;
+    private final Map<String, VirtualFile> libs = new LinkedHashMap<String, VirtualFile>();
+
+    @Before
+    public void setUp() throws Exception {
+        root = File.createTempFile("annotation", "index");
+        root.delete();
+        root.mkdirs();
+        cacheDirectory = new File(root, "cache");
+        cacheDirectory.mkdirs();
+        for (int i = 0; i < LIBS; i++) {
+            final File lib = new File(root, "lib" + i + ".jar");
+            for (Class<?> clazz : CLASSES) {
+                copyClassFile(clazz, lib);
+            }
+            libs.put(lib.getName(), VFS.getChild(lib.toURI()));
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+        delete(root);
+    }
+
+    @Test
+    public void testThroughput() throws Exception {
+        // warm up all three before measuring
+        for (int i = 0; i < 2; i++) {
+            indexSequentially();
+            AnnotationIndexSupport.indexRoots(libs, null, "lib-", executor);
+        }
+        long start = System.nanoTime();
+        indexSequentially();
+        final long sequential = System.nanoTime() - start;
+        start = System.nanoTime();
+        AnnotationIndexSupport.indexRoots(libs, null, "lib-", executor);
+        final long parallel = System.nanoTime() - start;
+        AnnotationIndexSupport.indexRoots(libs, cacheDirectory, "lib-", executor);
+        start = System.nanoTime();
+        AnnotationIndexSupport.indexRoots(libs, cacheDirectory, "lib-", executor);
+        final long cached = System.nanoTime() - start;
+        System.out.printf("Indexing %d libraries; sequential: %d ms; parallel: %d ms; cached: %d ms\n", Integer.valueOf(LIBS),
+                Long.valueOf(sequential / 1000000L), Long.valueOf(parallel / 1000000L), Long.valueOf(cached / 1000000L));
+    }
+
+    /**
+     * Index the libraries the way the deployers did before indexing was parallel.
+     */
+    private void indexSequentially() throws Exception {
+        for (VirtualFile lib : libs.values()) {
+            final Indexer indexer = new Indexer();
+            final List<VirtualFile> classChildren = lib.getChildren(new SuffixMatchFilter(".class", VisitorAttributes.RECURSE_LEAVES_ONLY));
+            for (VirtualFile classFile : classChildren) {
+                InputStream inputStream = null;
+                try {
+                    inputStream = classFile.openStream();
+                    indexer.index(inputStream);
+                } finally {
+                    VFSUtils.safeClose(inputStream);
+                }
+            }
+            assertIndexed(indexer.complete());
+        }
+    }
+
+    private static void assertIndexed(final Index index) {
+        assertNotNull(index);
+        for (Class<?> clazz : CLASSES) {
+            assertNotNull(clazz.getName(), index.getClassByName(DotName.createSimple(clazz.getName())));
+        }
+    }
+
+    private static void copyClassFile(final Class<?> clazz, final File lib) throws Exception {
+        final String path = clazz.getName().replace('.', '/') + ".class";
+        final File file = new File(lib, path);
+        file.getParentFile().mkdirs();
+        final InputStream in = clazz.getClassLoader().getResourceAsStream(path);
+        try {
+            final OutputStream out = new FileOutputStream(file);
+            try {
+                VFSUtils.copyStream(in, out);
+            } finally {
+                out.close();
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    private static void delete(final File file) {
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.jboss.as.deployment.processor;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.jboss.as.deployment.AttachmentKey;
+import org.jboss.as.deployment.ServerDeploymentRepository;
+import org.jboss.as.deployment.unit.DeploymentUnitProcessor;
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.Index;
+import org.jboss.vfs.VFS;
+import org.jboss.vfs.VFSUtils;
+import org.jboss.vfs.VirtualFile;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of {@link AnnotationIndexSupport}, indexing a web application sized layout of 200 library roots.
+ */
+public class AnnotationIndexSupportTestCase {
+
+    private static final int LIBS = 200;
+    private static final Class<?>[] CLASSES = {
+        AnnotationIndexSupport.class, AnnotationIndexProcessor.class, AttachmentKey.class,
+        DeploymentUnitProcessor.class, ServerDeploymentRepository.class, AnnotationIndexSupportTestCase.class
+    };
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private File root;
+    private File cacheDirectory;
+    private final Map<String, VirtualFile> libs = new LinkedHashMap<String, VirtualFile>();
+
+    @Before
+    public void setUp() throws Exception {
+        root = File.createTempFile("annotation", "index");
+        root.delete();
+        root.mkdirs();
+        cacheDirectory = new File(root, "cache");
+        cacheDirectory.mkdirs();
+        for (int i = 0; i < LIBS; i++) {
+            final File lib = new File(root, "lib" + i + ".jar");
+            for (Class<?> clazz : CLASSES) {
+                copyClassFile(clazz, lib);
+            }
+            libs.put(lib.getName(), VFS.getChild(lib.toURI()));
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+        delete(root);
+    }
+
+    @Test
+    public void testIndexRoots() throws Exception {
+        final Map<String, Index> indexes = AnnotationIndexSupport.indexRoots(libs, null, "lib-", executor);
+        assertEquals(libs.keySet(), indexes.keySet());
+        for (Index index : indexes.values()) {
+            assertIndexed(index);
+        }
+        assertEquals(0, cacheDirectory.list().length);
+    }
+
+    @Test
+    public void testIndexRoot() throws Exception {
+        // one root holding every class file, so several batches are read in parallel
+        final Index index = AnnotationIndexSupport.indexRoot(VFS.getChild(root.toURI()), cacheDirectory, "root", executor);
+        assertIndexed(index);
+        assertTrue(new File(cacheDirectory, "root.idx").isFile());
+        assertEquals(index.getKnownClasses().size(), AnnotationIndexSupport.indexRoot(VFS.getChild(root.toURI()), cacheDirectory, "root", executor).getKnownClasses().size());
+    }
+
+    @Test
+    public void testCachedIndexes() throws Exception {
+        AnnotationIndexSupport.indexRoots(libs, cacheDirectory, "lib-", executor);
+        assertEquals(LIBS, cacheDirectory.list().length);
+        for (Index index : AnnotationIndexSupport.indexRoots(libs, cacheDirectory, "lib-", executor).values()) {
+            assertIndexed(index);
+        }
+    }
+
+    @Test
+    public void testDamagedCacheIgnored() throws Exception {
+        final File cacheFile = new File(cacheDirectory, "lib-lib0.jar.idx");
+        final OutputStream out = new FileOutputStream(cacheFile);
+        try {
+            out.write(new byte[] { 1, 2, 3 });
+        } finally {
+            out.close();
+        }
+        final Map<String, Index> indexes = AnnotationIndexSupport.indexRoots(libs, cacheDirectory, "lib-", executor);
+        assertIndexed(indexes.get("lib0.jar"));
+        assertTrue(cacheFile.length() > 3);
+    }
+
+    @Test
+    public void testBoundedInFlight() throws Exception {
+        final CountingExecutor executor = new CountingExecutor();
+        try {
+            assertIndexed(AnnotationIndexSupport.indexRoot(VFS.getChild(root.toURI()), null, "root", executor));
+            for (Index index : AnnotationIndexSupport.indexRoots(libs, null, "lib-", executor).values()) {
+                assertIndexed(index);
+            }
+        } finally {
+            executor.pool.shutdownNow();
+        }
+        assertTrue(executor.submitted.size() > 0);
+        assertTrue("in flight: " + executor.maxInFlight, executor.maxInFlight <= Runtime.getRuntime().availableProcessors() + 1);
+    }
+
+    private static void assertIndexed(final Index index) {
+        assertNotNull(index);
+        for (Class<?> clazz : CLASSES) {
+            assertNotNull(clazz.getName(), index.getClassByName(DotName.createSimple(clazz.getName())));
+        }
+    }
+
+    /**
+     * Runs tasks on a pool, recording the most tasks which have been submitted and not yet completed.
+     */
+    private static final class CountingExecutor implements Executor {
+        private final ExecutorService pool = Executors.newFixedThreadPool(2);
+        private final List<Future<?>> submitted = new ArrayList<Future<?>>();
+        private int maxInFlight;
+
+        public synchronized void execute(final Runnable command) {
+            submitted.add((Future<?>) command);
+            int inFlight = 0;
+            for (Future<?> future : submitted) {
+                if (!future.isDone()) {
+                    inFlight++;
+                }
+            }
+            maxInFlight = Math.max(maxInFlight, inFlight);
+            pool.execute(command);
+        }
+    }
+
+    private static void copyClassFile(final Class<?> clazz, final File lib) throws Exception {
+        final String path = clazz.getName().replace('.', '/') + ".class";
+        final File file = new File(lib, path);
+        file.getParentFile().mkdirs();
+        final InputStream in = clazz.getClassLoader().getResourceAsStream(path);
+        try {
+            final OutputStream out = new FileOutputStream(file);
+            try {
+                VFSUtils.copyStream(in, out);
+            } finally {
+                out.close();
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    private static void delete(final File file) {
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
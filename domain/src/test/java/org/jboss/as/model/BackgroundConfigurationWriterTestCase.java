@@ -0,0 +1,180 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.model;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.jboss.staxmapper.XMLContentWriter;
+import org.jboss.staxmapper.XMLExtendedStreamWriter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Tests of {@link BackgroundConfigurationWriter}.
+ */
+public class BackgroundConfigurationWriterTestCase {
+
+    private File configDir;
+    private File configFile;
+
+    @Before
+    public void setUp() throws Exception {
+        configDir = File.createTempFile("config", "dir");
+        configDir.delete();
+        configDir.mkdirs();
+        configFile = new File(configDir, "test.xml");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        for (File file : configDir.listFiles()) {
+            file.delete();
+        }
+        configDir.delete();
+    }
+
+    @Test
+    public void testWriteAndFlush() throws Exception {
+        final BackgroundConfigurationWriter writer = new BackgroundConfigurationWriter(configFile);
+        writer.write(new ValueWriter("1"));
+        writer.flush();
+        assertEquals("1", readValue(configFile));
+        assertFalse(new File(configDir, "test.xml.tmp").exists());
+    }
+
+    @Test
+    public void testBurstIsCoalesced() throws Exception {
+        final HeldExecutor executor = new HeldExecutor();
+        final BackgroundConfigurationWriter writer = new BackgroundConfigurationWriter(configFile, 0, executor);
+        for (int i = 0; i < 100; i++) {
+            writer.write(new ValueWriter(Integer.toString(i)));
+        }
+        assertEquals(1, executor.tasks.size());
+        executor.release();
+        writer.flush();
+        assertEquals("99", readValue(configFile));
+    }
+
+    @Test
+    public void testSnapshotTakenWhenRequested() throws Exception {
+        final HeldExecutor executor = new HeldExecutor();
+        final BackgroundConfigurationWriter writer = new BackgroundConfigurationWriter(configFile, 0, executor);
+        final ValueWriter content = new ValueWriter("requested");
+        writer.write(content);
+        // a later change to the model must not reach the pending write
+        content.value = "changed";
+        executor.release();
+        writer.flush();
+        assertEquals("requested", readValue(configFile));
+    }
+
+    @Test
+    public void testHistory() throws Exception {
+        final BackgroundConfigurationWriter writer = new BackgroundConfigurationWriter(configFile, 3);
+        for (int i = 0; i < 6; i++) {
+            writer.write(new ValueWriter(Integer.toString(i)));
+            writer.flush();
+        }
+        assertEquals("5", readValue(configFile));
+        assertEquals("4", readValue(new File(configDir, "test.xml" + BackgroundConfigurationWriter.BACKUP_SUFFIX)));
+        assertEquals("3", readValue(new File(configDir, "test.xml" + BackgroundConfigurationWriter.BACKUP_SUFFIX + ".1")));
+        assertEquals("2", readValue(new File(configDir, "test.xml" + BackgroundConfigurationWriter.BACKUP_SUFFIX + ".2")));
+        assertFalse(new File(configDir, "test.xml" + BackgroundConfigurationWriter.BACKUP_SUFFIX + ".3").exists());
+    }
+
+    @Test
+    public void testFailedWriteKeepsFile() throws Exception {
+        final BackgroundConfigurationWriter writer = new BackgroundConfigurationWriter(configFile);
+        writer.write(new ValueWriter("good"));
+        writer.flush();
+        writer.write(new XMLContentWriter() {
+            public void writeContent(final XMLExtendedStreamWriter streamWriter) throws XMLStreamException {
+                streamWriter.writeStartDocument();
+                throw new XMLStreamException("broken");
+            }
+        });
+        writer.flush();
+        assertEquals("good", readValue(configFile));
+        assertFalse(new File(configDir, "test.xml.tmp").exists());
+    }
+
+    private static String readValue(final File file) throws IOException {
+        final InputStream in = new FileInputStream(file);
+        try {
+            final StringBuilder builder = new StringBuilder();
+            int c;
+            while ((c = in.read()) != -1) {
+                builder.append((char) c);
+            }
+            final String content = builder.toString();
+            return content.substring(content.indexOf("<value>") + 7, content.indexOf("</value>"));
+        } finally {
+            in.close();
+        }
+    }
+
+    private static class ValueWriter implements XMLContentWriter {
+        private volatile String value;
+
+        ValueWriter(final String value) {
+            this.value = value;
+        }
+
+        public void writeContent(final XMLExtendedStreamWriter streamWriter) throws XMLStreamException {
+            streamWriter.writeStartDocument();
+            streamWriter.writeStartElement("value");
+            streamWriter.writeCharacters(value);
+            streamWriter.writeEndElement();
+            streamWriter.writeEndDocument();
+        }
+    }
+
+    /**
+     * Holds the background writes until released, then runs them on a thread of their own.
+     */
+    private static class HeldExecutor implements Executor {
+        private final List<Runnable> tasks = new ArrayList<Runnable>();
+
+        public synchronized void execute(final Runnable task) {
+            tasks.add(task);
+        }
+
+        synchronized void release() {
+            for (Runnable task : tasks) {
+                new Thread(task).start();
+            }
+        }
+    }
+}
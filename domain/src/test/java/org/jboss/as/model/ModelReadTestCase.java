@@ -0,0 +1,179 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.model;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of {@link AbstractModel#read(ModelQuery)}, of {@link AbstractModel#snapshot()} and of the model's monitor,
+ * which updates hold.
+ */
+public class ModelReadTestCase {
+
+    private static final int UPDATES = 2000;
+
+    @Test
+    public void testVersion() throws Exception {
+        final DomainModel model = new DomainModel();
+        final long start = model.getVersion();
+        model.update(new ExtensionPairAdd(0));
+        assertEquals(start + 2, model.getVersion());
+        assertEquals(2, model.getExtensions().size());
+    }
+
+    @Test
+    public void testConsistentReads() throws Exception {
+        final DomainModel model = new DomainModel();
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Future<Void> writer = executor.submit(new Callable<Void>() {
+                public Void call() throws Exception {
+                    for (int i = 0; i < UPDATES; i++) {
+                        model.update(new ExtensionPairAdd(i));
+                    }
+                    return null;
+                }
+            });
+            final ModelQuery<DomainModel, Integer> query = new ModelQuery<DomainModel, Integer>() {
+                public Integer execute(final DomainModel model) {
+                    return Integer.valueOf(model.getExtensions().size());
+                }
+            };
+            int last = 0;
+            while (last < UPDATES * 2) {
+                final Integer size = model.read(query);
+                assertNotNull(size);
+                // each update adds two extensions, so a consistent read never sees an odd count
+                assertEquals(0, size.intValue() & 1);
+                assertTrue(size.intValue() >= last);
+                last = size.intValue();
+            }
+            writer.get();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testConsistentSnapshots() throws Exception {
+        final DomainModel model = new DomainModel();
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Future<Void> writer = executor.submit(new Callable<Void>() {
+                public Void call() throws Exception {
+                    for (int i = 0; i < UPDATES; i++) {
+                        model.update(new ExtensionPairAdd(i));
+                    }
+                    return null;
+                }
+            });
+            int last = 0;
+            while (last < UPDATES * 2) {
+                final DomainModel snapshot = model.snapshot();
+                assertNotSame(model, snapshot);
+                final int size = snapshot.getExtensions().size();
+                assertEquals(0, size & 1);
+                assertTrue(size >= last);
+                last = size;
+            }
+            writer.get();
+            // the copy shares nothing with the model
+            final DomainModel snapshot = model.snapshot();
+            model.update(new ExtensionPairAdd(UPDATES));
+            assertEquals(UPDATES * 2, snapshot.getExtensions().size());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testMonitorHoldsOffUpdates() throws Exception {
+        final DomainModel model = new DomainModel();
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final long start = model.getVersion();
+            final Future<Void> writer;
+            synchronized (model) {
+                writer = executor.submit(new Callable<Void>() {
+                    public Void call() throws Exception {
+                        model.update(new ExtensionPairAdd(0));
+                        return null;
+                    }
+                });
+                Thread.sleep(100L);
+                assertEquals(start, model.getVersion());
+                assertFalse(writer.isDone());
+            }
+            writer.get();
+            assertEquals(start + 2, model.getVersion());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static final class ExtensionPairAdd extends AbstractDomainModelUpdate<Void> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int index;
+
+        ExtensionPairAdd(final int index) {
+            this.index = index;
+        }
+
+        @Override
+        protected void applyUpdate(final DomainModel element) throws UpdateFailedException {
+            element.addExtension("org.jboss.test.a" + index);
+            Thread.yield();
+            element.addExtension("org.jboss.test.b" + index);
+        }
+
+        @Override
+        public AbstractDomainModelUpdate<?> getCompensatingUpdate(final DomainModel original) {
+            return null;
+        }
+
+        @Override
+        public AbstractServerModelUpdate<Void> getServerModelUpdate() {
+            return null;
+        }
+
+        @Override
+        public List<String> getAffectedServers(final DomainModel domainModel, final HostModel hostModel) {
+            return Collections.emptyList();
+        }
+    }
+}
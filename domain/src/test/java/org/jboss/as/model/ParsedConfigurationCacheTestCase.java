@@ -0,0 +1,168 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+
+import org.jboss.staxmapper.XMLElementReader;
+import org.jboss.staxmapper.XMLExtendedStreamReader;
+import org.jboss.staxmapper.XMLMapper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of {@link ParsedConfigurationCache}.
+ */
+public class ParsedConfigurationCacheTestCase {
+
+    private static final String NAMESPACE = "urn:jboss:test:cache:1.0";
+
+    private File configDir;
+    private File cacheFile;
+    private AtomicInteger parses;
+    private XMLMapper mapper;
+
+    @Before
+    public void setUp() throws Exception {
+        configDir = File.createTempFile("config", "dir");
+        configDir.delete();
+        configDir.mkdirs();
+        cacheFile = new File(configDir, "test.xml" + ParsedConfigurationCache.CACHE_SUFFIX);
+        parses = new AtomicInteger();
+        mapper = XMLMapper.Factory.create();
+        mapper.registerRootElement(new QName(NAMESPACE, "config"), new ExtensionListReader(parses));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        for (File file : configDir.listFiles()) {
+            file.delete();
+        }
+        configDir.delete();
+    }
+
+    @Test
+    public void testUnchangedConfigurationIsLoadedFromCache() throws Exception {
+        final ParsedConfigurationCache cache = new ParsedConfigurationCache(cacheFile);
+        final List<AbstractServerModelUpdate<?>> parsed = cache.parse(document("a", "b"), mapper);
+        assertEquals(2, parsed.size());
+        assertEquals(1, parses.get());
+        assertTrue(cacheFile.isFile());
+
+        final List<AbstractServerModelUpdate<?>> cached = cache.parse(document("a", "b"), mapper);
+        assertEquals(1, parses.get());
+        assertEquals(2, cached.size());
+        assertTrue(cached.get(0) instanceof ServerExtensionAdd);
+    }
+
+    @Test
+    public void testChangedConfigurationIsParsed() throws Exception {
+        final ParsedConfigurationCache cache = new ParsedConfigurationCache(cacheFile);
+        cache.parse(document("a", "b"), mapper);
+        final List<AbstractServerModelUpdate<?>> updates = cache.parse(document("a", "b", "c"), mapper);
+        assertEquals(2, parses.get());
+        assertEquals(3, updates.size());
+    }
+
+    @Test
+    public void testCorruptCacheIsIgnored() throws Exception {
+        final FileOutputStream out = new FileOutputStream(cacheFile);
+        try {
+            out.write(new byte[] { 1, 2, 3, 4, 5 });
+        } finally {
+            out.close();
+        }
+        final ParsedConfigurationCache cache = new ParsedConfigurationCache(cacheFile);
+        final List<AbstractServerModelUpdate<?>> updates = cache.parse(document("a"), mapper);
+        assertEquals(1, parses.get());
+        assertEquals(1, updates.size());
+        // and rewritten
+        cache.parse(document("a"), mapper);
+        assertEquals(1, parses.get());
+    }
+
+    @Test
+    public void testArchiveFingerprintTracksArchive() throws Exception {
+        final File archive = new File(configDir, "extension.jar");
+        write(archive, new byte[] { 1, 2, 3 });
+        archive.setLastModified(10000L);
+        final URL resource = new URL("jar:" + archive.toURI() + "!/META-INF/services/org.jboss.as.Extension");
+        final byte[] original = ParsedConfigurationCache.archiveFingerprint(resource);
+        assertTrue(Arrays.equals(original, ParsedConfigurationCache.archiveFingerprint(resource)));
+
+        write(archive, new byte[] { 1, 2, 3, 4 });
+        archive.setLastModified(10000L);
+        assertFalse(Arrays.equals(original, ParsedConfigurationCache.archiveFingerprint(resource)));
+    }
+
+    private static void write(final File file, final byte[] content) throws Exception {
+        final FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(content);
+        } finally {
+            out.close();
+        }
+    }
+
+    private static InputStream document(final String... modules) {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("<?xml version=\"1.0\" ?><config xmlns=\"").append(NAMESPACE).append("\">");
+        for (String module : modules) {
+            builder.append("<extension module=\"").append(module).append("\"/>");
+        }
+        builder.append("</config>");
+        return new ByteArrayInputStream(builder.toString().getBytes());
+    }
+
+    private static final class ExtensionListReader implements XMLElementReader<List<? super AbstractServerModelUpdate<?>>> {
+        private final AtomicInteger parses;
+
+        ExtensionListReader(final AtomicInteger parses) {
+            this.parses = parses;
+        }
+
+        public void readElement(final XMLExtendedStreamReader reader, final List<? super AbstractServerModelUpdate<?>> list) throws XMLStreamException {
+            parses.incrementAndGet();
+            while (reader.nextTag() != END_ELEMENT) {
+                list.add(new ServerExtensionAdd(reader.getAttributeValue(null, "module")));
+                reader.nextTag();
+            }
+        }
+    }
+}
@@ -23,7 +23,6 @@
 package org.jboss.as.host.controller;
 
 import org.jboss.as.domain.controller.FileRepository;
-import org.jboss.as.model.DomainModel;
 import org.jboss.msc.service.ServiceName;
 
 /**
@@ -37,9 +36,11 @@ public interface DomainControllerConnection {
     /**
      * Register with the domain controller.
      *
-     * @return The latest domain model
+     * @param logId The id of the update log our copy of the domain model was last synchronized with, or {@code null}
+     * @param version The version of our copy of the domain model, or {@code -1} if we have none
+     * @return The latest domain model, or the updates needed to bring our copy up to date
      */
-    DomainModel register();
+    DomainModelSync register(String logId, long version);
 
     /*
      * Unregister from the domain controller.
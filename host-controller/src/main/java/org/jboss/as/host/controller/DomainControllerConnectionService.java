@@ -61,7 +61,7 @@ public class DomainControllerConnectionService implements Service<DomainControll
 
     private final long connectTimeout;
 
-    private DomainControllerConnection domainControllerConnection;
+    private RemoteDomainControllerConnection domainControllerConnection;
 
     public DomainControllerConnectionService(final HostController hostController, final FileRepository localRepository, final long connectTimeout) {
         this.hostController = hostController;
@@ -89,11 +89,12 @@ public class DomainControllerConnectionService implements Service<DomainControll
     }
 
     /**
-     * Stop the service.  Remove the domain controller connection from the host controller.
+     * Stop the service.  Close the pooled connections to the domain controller and remove the connection from the host controller.
      *
      * @param context The stop context.
      */
     public synchronized void stop(final StopContext context) {
+        domainControllerConnection.close();
         domainControllerConnection = null;
     }
 
@@ -0,0 +1,96 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.host.controller;
+
+import java.util.List;
+
+import org.jboss.as.model.AbstractDomainModelUpdate;
+import org.jboss.as.model.DomainModel;
+
+/**
+ * The result of registering with a domain controller: either the full domain model, or the updates the host
+ * controller's copy missed since the version it reported.
+ */
+public final class DomainModelSync {
+    private final String logId;
+    private final long version;
+    private final DomainModel domainModel;
+    private final List<AbstractDomainModelUpdate<?>> updates;
+
+    private DomainModelSync(final String logId, final long version, final DomainModel domainModel, final List<AbstractDomainModelUpdate<?>> updates) {
+        this.logId = logId;
+        this.version = version;
+        this.domainModel = domainModel;
+        this.updates = updates;
+    }
+
+    /**
+     * Create a result carrying the full domain model.
+     *
+     * @param logId the id of the domain controller's update log
+     * @param version the version of the domain model
+     * @param domainModel the domain model
+     * @return the result
+     */
+    public static DomainModelSync full(final String logId, final long version, final DomainModel domainModel) {
+        return new DomainModelSync(logId, version, domainModel, null);
+    }
+
+    /**
+     * Create a result carrying the missed updates.
+     *
+     * @param logId the id of the domain controller's update log
+     * @param version the version of the domain model once the updates are applied
+     * @param updates the updates, in the order they must be applied
+     * @return the result
+     */
+    public static DomainModelSync updates(final String logId, final long version, final List<AbstractDomainModelUpdate<?>> updates) {
+        return new DomainModelSync(logId, version, null, updates);
+    }
+
+    public String getLogId() {
+        return logId;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Get the full domain model.
+     *
+     * @return the domain model, or {@code null} if this result carries updates
+     */
+    public DomainModel getDomainModel() {
+        return domainModel;
+    }
+
+    /**
+     * Get the missed updates.
+     *
+     * @return the updates, or {@code null} if this result carries the full domain model
+     */
+    public List<AbstractDomainModelUpdate<?>> getUpdates() {
+        return updates;
+    }
+}
@@ -683,9 +683,20 @@ public class HostController {
      * also invoke the server launch process.
      *
      * @param domain The domain configuration
+     * @param version The version of the domain configuration
      */
-    public void setDomain(final DomainModel domain) {
-        modelManager.setDomainModel(domain);
+    public void setDomain(final DomainModel domain, final long version) {
+        modelManager.setDomainModel(domain, version);
+    }
+
+    /**
+     * Bring the domain for the host controller up to date with the result of registering with the domain controller.
+     *
+     * @param sync The domain configuration or the updates missed since the version we hold
+     * @return {@code true} if the domain is up to date, {@code false} if the full domain configuration is needed
+     */
+    boolean synchronizeDomain(final DomainModelSync sync) {
+        return modelManager.synchronizeDomainModel(sync);
     }
 
     public ManagedServer getServer(String name) {
@@ -23,7 +23,6 @@
 package org.jboss.as.host.controller;
 
 import java.net.InetSocketAddress;
-import org.jboss.as.model.DomainModel;
 import org.jboss.as.services.net.NetworkInterfaceBinding;
 import org.jboss.msc.inject.Injector;
 import org.jboss.msc.service.Service;
@@ -50,8 +49,12 @@ public class HostControllerService implements Service<Void> {
         // Register with the domain controller
         final DomainControllerConnection domainControllerConnection = this.domainControllerConnection.getValue();
         hostController.setDomainControllerConnection(domainControllerConnection);
-        final DomainModel domainModel = domainControllerConnection.register();
-        hostController.setDomain(domainModel);
+        final ModelManager modelManager = hostController.getModelManager();
+        final DomainModelSync sync = domainControllerConnection.register(modelManager.getDomainModelLogId(), modelManager.getDomainModelVersion());
+        if (!hostController.synchronizeDomain(sync)) {
+            // Our copy could not be brought up to date with the missed updates; start over from the full model
+            hostController.synchronizeDomain(domainControllerConnection.register(null, -1));
+        }
 
         // Start the servers
         final NetworkInterfaceBinding interfaceBinding = managementInterface.getValue();
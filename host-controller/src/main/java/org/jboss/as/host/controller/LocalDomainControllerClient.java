@@ -72,8 +72,8 @@ public class LocalDomainControllerClient implements HostControllerClient {
 
     /** {@inheritDoc} */
     @Override
-    public void updateDomainModel(final DomainModel domain) {
-        hostController.setDomain(domain);
+    public void updateDomainModel(final DomainModel domain, final long version) {
+        hostController.setDomain(domain, version);
     }
 
     @Override
@@ -89,14 +89,17 @@ public class LocalDomainControllerClient implements HostControllerClient {
 
     /** {@inheritDoc} */
     @Override
-    public List<ModelUpdateResponse<List<ServerIdentity>>> updateDomainModel(List<AbstractDomainModelUpdate<?>> updates) {
+    public List<ModelUpdateResponse<List<ServerIdentity>>> updateDomainModel(List<AbstractDomainModelUpdate<?>> updates, long version) {
         final List<ModelUpdateResponse<List<ServerIdentity>>> responses = new ArrayList<ModelUpdateResponse<List<ServerIdentity>>>(updates.size());
         for(AbstractDomainModelUpdate<?> update : updates) {
             ModelUpdateResponse<List<ServerIdentity>> response = executeUpdate(update);
             responses.add(response);
-            if (!response.isSuccess())
+            if (!response.isSuccess()) {
+                version = -1;
                 break;
+            }
         }
+        hostController.getModelManager().setDomainModelVersion(version);
         return responses;
     }
 
@@ -130,6 +133,12 @@ public class LocalDomainControllerClient implements HostControllerClient {
         return hostController.stopServer(serverName, gracefulTimeout);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public void close() {
+        // nothing to release, the host controller is in this process
+    }
+
     private ModelUpdateResponse<List<ServerIdentity>> executeUpdate(AbstractDomainModelUpdate<?> domainUpdate) {
         try {
             final List<ServerIdentity> result = hostController.getModelManager().applyDomainModelUpdate(domainUpdate, false);
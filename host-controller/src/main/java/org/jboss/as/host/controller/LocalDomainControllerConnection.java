@@ -23,8 +23,8 @@
 package org.jboss.as.host.controller;
 
 import org.jboss.as.domain.controller.DomainController;
+import org.jboss.as.domain.controller.DomainModelUpdateLog;
 import org.jboss.as.domain.controller.FileRepository;
-import org.jboss.as.model.DomainModel;
 import org.jboss.msc.service.Service;
 import org.jboss.msc.service.StartContext;
 import org.jboss.msc.service.StartException;
@@ -63,9 +63,11 @@ public class LocalDomainControllerConnection implements DomainControllerConnecti
     }
 
     /** {@inheritDoc} */
-    public DomainModel register() {
+    public DomainModelSync register(final String logId, final long version) {
         domainController.addClient(client);
-        return domainController.getDomainModel();
+        // We share the domain controller's model, so there is nothing to gain from sending updates
+        final DomainModelUpdateLog updateLog = domainController.getDomainModelUpdateLog();
+        return DomainModelSync.full(updateLog.getId(), updateLog.getVersion(), domainController.getDomainModel());
     }
 
     /** {@inheritDoc} */
@@ -34,6 +34,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.jboss.as.model.AbstractServerModelUpdate;
@@ -58,6 +59,7 @@ import org.jboss.as.protocol.mgmt.ManagementRequest;
 import org.jboss.as.protocol.mgmt.ManagementRequestConnectionStrategy;
 import org.jboss.as.server.ServerController;
 import org.jboss.as.server.ServerEnvironment;
+import org.jboss.as.server.ServerExecutorService;
 import org.jboss.as.server.HostControllerClient;
 import org.jboss.as.server.HostControllerConnectionService;
 import org.jboss.as.server.ServerStartTask;
@@ -421,6 +423,7 @@ public final class ManagedServer {
             final HostControllerConnectionService smConnection = new HostControllerConnectionService();
             batchBuilder.addService(HostControllerConnectionService.SERVICE_NAME, smConnection)
                 .addInjection(smConnection.getSmAddressInjector(), managementSocket)
+                .addDependency(ServerExecutorService.IO, ExecutorService.class, smConnection.getExecutorInjector())
                 .setInitialMode(ServiceController.Mode.ACTIVE);
 
             final HostControllerClient client = new HostControllerClient();
@@ -22,13 +22,11 @@
 
 package org.jboss.as.host.controller;
 
-import java.io.BufferedInputStream;
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
-import javax.xml.stream.XMLInputFactory;
-
 import org.jboss.as.domain.client.api.ServerIdentity;
 import org.jboss.as.domain.controller.FileRepository;
 import org.jboss.as.domain.client.impl.HostUpdateApplierResponse;
@@ -37,6 +35,7 @@ import org.jboss.as.model.AbstractHostModelUpdate;
 import org.jboss.as.model.DomainModel;
 import org.jboss.as.model.HostModel;
 import org.jboss.as.model.NewRepositoryContentUpdate;
+import org.jboss.as.model.ParsedConfigurationCache;
 import org.jboss.as.model.ServerElement;
 import org.jboss.as.model.UpdateFailedException;
 import org.jboss.logging.Logger;
@@ -52,22 +51,32 @@ public class ModelManager {
     private static final Logger log = Logger.getLogger("org.jboss.as.host.controller");
 
     private final HostConfigurationPersister configPersister;
-    private DomainModel domainModel;
+    private final ParsedConfigurationCache parsedConfigurationCache;
+    private volatile DomainModel domainModel;
+    // Which version of the domain controller's update log our copy of the domain model is at
+    private volatile String domainModelLogId;
+    private volatile long domainModelVersion = -1;
     private volatile HostModel hostModel;
 
     private final StandardElementReaderRegistrar extensionRegistrar;
     private FileRepository repository;
 
     ModelManager(final HostControllerEnvironment environment, final StandardElementReaderRegistrar extensionRegistrar) {
-        this(new HostConfigurationPersisterImpl(environment.getDomainConfigurationDir()), extensionRegistrar);
+        this(new HostConfigurationPersisterImpl(environment.getDomainConfigurationDir()), extensionRegistrar,
+                new File(environment.getDomainConfigurationDir(), HostConfigurationPersisterImpl.CONFIG_FILE + ParsedConfigurationCache.CACHE_SUFFIX));
     }
 
     ModelManager(final HostConfigurationPersister configPersister, final StandardElementReaderRegistrar extensionRegistrar) {
+        this(configPersister, extensionRegistrar, null);
+    }
+
+    ModelManager(final HostConfigurationPersister configPersister, final StandardElementReaderRegistrar extensionRegistrar, final File cacheFile) {
 
         assert configPersister != null : "configPersister is null";
         assert extensionRegistrar != null : "extensionRegistrar is null";
         this.configPersister = configPersister;
         this.extensionRegistrar = extensionRegistrar;
+        this.parsedConfigurationCache = new ParsedConfigurationCache(cacheFile);
     }
 
 
@@ -90,9 +99,64 @@ public class ModelManager {
         return domainModel;
     }
 
-    void setDomainModel(final DomainModel model) {
+    void setDomainModel(final DomainModel model, final long version) {
         assert model != null : "model is null";
         this.domainModel = model;
+        this.domainModelVersion = version;
+    }
+
+    /**
+     * Get the id of the domain controller update log our copy of the domain model was last synchronized with.
+     *
+     * @return the log id, or {@code null} if unknown
+     */
+    public String getDomainModelLogId() {
+        return domainModelLogId;
+    }
+
+    /**
+     * Get the version of our copy of the domain model.
+     *
+     * @return the version, or {@code -1} if unknown
+     */
+    public long getDomainModelVersion() {
+        return domainModelVersion;
+    }
+
+    /**
+     * Record the version our copy of the domain model reached by applying updates pushed by the domain controller.
+     *
+     * @param version the version, or {@code -1} if the updates did not all apply and the version is unknown
+     */
+    public void setDomainModelVersion(final long version) {
+        this.domainModelVersion = version;
+    }
+
+    /**
+     * Bring our copy of the domain model up to date with the result of registering with the domain controller.
+     *
+     * @param sync the full domain model or the updates we missed
+     * @return {@code true} if the model is up to date, {@code false} if a missed update could not be applied and the
+     *         full domain model is needed
+     */
+    boolean synchronizeDomainModel(final DomainModelSync sync) {
+        if (sync.getDomainModel() != null) {
+            setDomainModel(sync.getDomainModel(), sync.getVersion());
+        } else {
+            log.debugf("Applying %s missed domain updates", sync.getUpdates().size());
+            for (AbstractDomainModelUpdate<?> update : sync.getUpdates()) {
+                try {
+                    applyDomainModelUpdate(update, true);
+                } catch (UpdateFailedException e) {
+                    log.debugf(e, "Failed applying missed update %s", update);
+                    domainModelVersion = -1;
+                    return false;
+                }
+            }
+            domainModelVersion = sync.getVersion();
+        }
+        domainModelLogId = sync.getLogId();
+        return true;
     }
 
     void setFileRepository(final FileRepository repository) {
@@ -221,10 +285,9 @@ public class ModelManager {
     private HostModel parseHostXml() {
 
         try {
-            final List<AbstractHostModelUpdate<?>> hostUpdates = new ArrayList<AbstractHostModelUpdate<?>>();
             final XMLMapper mapper = XMLMapper.Factory.create();
             extensionRegistrar.registerStandardHostReaders(mapper);
-            mapper.parseDocument(hostUpdates, XMLInputFactory.newInstance().createXMLStreamReader(new BufferedInputStream(configPersister.getConfigurationInputStream())));
+            final List<AbstractHostModelUpdate<?>> hostUpdates = parsedConfigurationCache.parse(configPersister.getConfigurationInputStream(), mapper);
             final HostModel hostModel = new HostModel();
             for(final AbstractHostModelUpdate<?> update : hostUpdates) {
                 hostModel.update(update);
@@ -29,17 +29,22 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ScheduledExecutorService;
 
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import org.jboss.as.domain.controller.FileRepository;
 import org.jboss.as.domain.controller.mgmt.DomainControllerProtocol;
+import org.jboss.as.model.AbstractDomainModelUpdate;
 import org.jboss.as.model.DeploymentUnitElement;
 import org.jboss.as.model.DomainModel;
 import org.jboss.as.protocol.ByteDataInput;
 import org.jboss.as.protocol.ByteDataOutput;
 import org.jboss.as.protocol.ProtocolUtils;
 import static org.jboss.as.protocol.ProtocolUtils.unmarshal;
+import org.jboss.as.protocol.mgmt.ManagementConnectionPool;
 import org.jboss.as.protocol.mgmt.ManagementException;
 import org.jboss.as.protocol.mgmt.ManagementRequest;
 import org.jboss.as.protocol.SimpleByteDataInput;
@@ -60,6 +65,8 @@ import org.jboss.marshalling.Unmarshaller;
  */
 public class RemoteDomainControllerConnection implements DomainControllerConnection {
     private static final Logger log = Logger.getLogger("org.jboss.as.management");
+    private static final int MAX_POOLED_CONNECTIONS = 4;
+    private static final long POOLED_CONNECTION_IDLE_TIMEOUT = TimeUnit.SECONDS.toMillis(60L);
     private final String hostControllerId;
     private final InetAddress dcAddress;
     private final int dcPort;
@@ -69,6 +76,7 @@ public class RemoteDomainControllerConnection implements DomainControllerConnect
     private final RemoteFileRepository remoteFileRepository;
     private final ScheduledExecutorService executorService;
     private final ThreadFactory threadFactory;
+    private final ManagementConnectionPool connectionPool;
 
     /**
      * Create an instance.
@@ -93,12 +101,13 @@ public class RemoteDomainControllerConnection implements DomainControllerConnect
         this.connectTimeout = connectTimeout;
         this.executorService = executorService;
         this.threadFactory = threadFactory;
+        this.connectionPool = new ManagementConnectionPool(MAX_POOLED_CONNECTIONS, ManagementConnectionPool.DEFAULT_MAX_CHANNELS_PER_CONNECTION, POOLED_CONNECTION_IDLE_TIMEOUT, connectTimeout, executorService, threadFactory, executorService);
     }
 
     /** {@inheritDoc} */
-    public DomainModel register() {
+    public DomainModelSync register(final String logId, final long version) {
         try {
-            return new RegisterOperation(localManagementAddress, localManagementPort, this).executeForResult(getConnectionStrategy());
+            return new RegisterOperation(localManagementAddress, localManagementPort, logId, version, this).executeForResult(getConnectionStrategy());
         } catch (Exception e) {
             throw new ManagementException("Failed to register with the domain controller", e);
         }
@@ -113,6 +122,14 @@ public class RemoteDomainControllerConnection implements DomainControllerConnect
         }
     }
 
+    /**
+     * Close the pooled connections to the domain controller.  Requests in progress, such as an unregistration,
+     * complete first; no further requests can be made.
+     */
+    public void close() {
+        connectionPool.close();
+    }
+
     /** {@inheritDoc} */
     public FileRepository getRemoteFileRepository() {
         return remoteFileRepository;
@@ -137,14 +154,18 @@ public class RemoteDomainControllerConnection implements DomainControllerConnect
         }
     }
 
-    private static class RegisterOperation extends DomainControllerRequest<DomainModel> {
+    private static class RegisterOperation extends DomainControllerRequest<DomainModelSync> {
         private final InetAddress localManagementAddress;
         private final int localManagementPort;
+        private final String logId;
+        private final long version;
 
-        private RegisterOperation(final InetAddress localManagementAddress, final int localManagementPort, final RemoteDomainControllerConnection connection) {
+        private RegisterOperation(final InetAddress localManagementAddress, final int localManagementPort, final String logId, final long version, final RemoteDomainControllerConnection connection) {
             super(connection);
             this.localManagementAddress = localManagementAddress;
             this.localManagementPort = localManagementPort;
+            this.logId = logId;
+            this.version = version;
         }
 
         @Override
@@ -169,6 +190,10 @@ public class RemoteDomainControllerConnection implements DomainControllerConnect
                 output.write(address);
                 output.writeByte(DomainControllerProtocol.PARAM_HOST_CONTROLLER_PORT);
                 output.writeInt(localManagementPort);
+                output.writeByte(DomainControllerProtocol.PARAM_DOMAIN_MODEL_LOG_ID);
+                output.writeUTF(logId == null ? "" : logId);
+                output.writeByte(DomainControllerProtocol.PARAM_DOMAIN_MODEL_VERSION);
+                output.writeLong(version);
                 output.close();
             } finally {
                 safeClose(output);
@@ -176,15 +201,32 @@ public class RemoteDomainControllerConnection implements DomainControllerConnect
         }
 
         @Override
-        protected final DomainModel receiveResponse(final InputStream input) throws IOException {
+        protected final DomainModelSync receiveResponse(final InputStream input) throws IOException {
             final Unmarshaller unmarshaller = getUnmarshaller();
             unmarshaller.start(Marshalling.createByteInput(input));
             try {
-                expectHeader(unmarshaller, DomainControllerProtocol.PARAM_DOMAIN_MODEL);
-                log.infof("Registered with remote domain controller");
-                final DomainModel domainModel = unmarshal(unmarshaller, DomainModel.class);
+                expectHeader(unmarshaller, DomainControllerProtocol.PARAM_DOMAIN_MODEL_LOG_ID);
+                final String remoteLogId = unmarshaller.readUTF();
+                final DomainModelSync sync;
+                final byte header = unmarshaller.readByte();
+                if (header == DomainControllerProtocol.PARAM_DOMAIN_MODEL_UPDATE_COUNT) {
+                    final int count = unmarshaller.readInt();
+                    final List<AbstractDomainModelUpdate<?>> updates = new ArrayList<AbstractDomainModelUpdate<?>>(count);
+                    for (int i = 0; i < count; i++) {
+                        expectHeader(unmarshaller, DomainControllerProtocol.PARAM_DOMAIN_MODEL_UPDATE);
+                        updates.add(unmarshal(unmarshaller, AbstractDomainModelUpdate.class));
+                    }
+                    log.infof("Registered with remote domain controller; %d domain updates missed", Integer.valueOf(count));
+                    sync = DomainModelSync.updates(remoteLogId, version + count, updates);
+                } else {
+                    expectHeader(header, DomainControllerProtocol.PARAM_DOMAIN_MODEL_VERSION);
+                    final long remoteVersion = unmarshaller.readLong();
+                    expectHeader(unmarshaller, DomainControllerProtocol.PARAM_DOMAIN_MODEL);
+                    log.infof("Registered with remote domain controller");
+                    sync = DomainModelSync.full(remoteLogId, remoteVersion, unmarshal(unmarshaller, DomainModel.class));
+                }
                 unmarshaller.finish();
-                return domainModel;
+                return sync;
             } finally {
                 safeFinish(unmarshaller);
             }
@@ -381,6 +423,6 @@ public class RemoteDomainControllerConnection implements DomainControllerConnect
     }
 
     private ManagementRequestConnectionStrategy getConnectionStrategy() {
-        return new ManagementRequestConnectionStrategy.EstablishConnectingStrategy(dcAddress, dcPort, connectTimeout, executorService, threadFactory);
+        return connectionPool.getConnectionStrategy(dcAddress, dcPort);
     }
 }
@@ -160,9 +160,11 @@ public class HostControllerOperationHandler extends AbstractMessageHandler imple
             final Unmarshaller unmarshaller = getUnmarshaller();
             unmarshaller.start(createByteInput(input));
             try {
+                expectHeader(unmarshaller, HostControllerProtocol.PARAM_DOMAIN_MODEL_VERSION);
+                final long version = unmarshaller.readLong();
                 expectHeader(unmarshaller, HostControllerProtocol.PARAM_DOMAIN_MODEL);
                 final DomainModel domainModel = unmarshal(unmarshaller, DomainModel.class);
-                hostController.setDomain(domainModel);
+                hostController.setDomain(domainModel, version);
                 unmarshaller.finish();
                 log.info("Received domain update.");
             } finally {
@@ -173,6 +175,7 @@ public class HostControllerOperationHandler extends AbstractMessageHandler imple
 
     private class UpdateDomainModelOperation extends ManagementResponse {
         private List<AbstractDomainModelUpdate<?>> updates;
+        private long version;
 
         @Override
         protected final byte getResponseCode() {
@@ -184,6 +187,8 @@ public class HostControllerOperationHandler extends AbstractMessageHandler imple
             final Unmarshaller unmarshaller = getUnmarshaller();
             unmarshaller.start(createByteInput(input));
             try {
+                expectHeader(unmarshaller, HostControllerProtocol.PARAM_DOMAIN_MODEL_VERSION);
+                version = unmarshaller.readLong();
                 expectHeader(unmarshaller, HostControllerProtocol.PARAM_DOMAIN_MODEL_UPDATE_COUNT);
                 int count = unmarshaller.readInt();
                 updates = new ArrayList<AbstractDomainModelUpdate<?>>(count);
@@ -202,9 +207,14 @@ public class HostControllerOperationHandler extends AbstractMessageHandler imple
         @Override
         protected void sendResponse(final OutputStream output) throws IOException {
             List<ModelUpdateResponse<?>> responses = new ArrayList<ModelUpdateResponse<?>>(updates.size());
+            boolean ok = true;
             for(AbstractDomainModelUpdate<?> update : updates) {
-                responses.add(processUpdate(update));
+                final ModelUpdateResponse<?> response = processUpdate(update);
+                ok &= response.isSuccess();
+                responses.add(response);
             }
+            // Once an update fails our copy no longer matches any version the domain controller knows of
+            hostController.getModelManager().setDomainModelVersion(ok ? version : -1);
             final Marshaller marshaller = getMarshaller();
             marshaller.start(createByteOutput(output));
             try {
@@ -289,7 +299,8 @@ public class HostControllerOperationHandler extends AbstractMessageHandler imple
             final Marshaller marshaller = getMarshaller();
             marshaller.start(createByteOutput(output));
             try {
-                marshaller.writeObject(hostController.getModelManager().getHostModel());
+                // a consistent copy, written without holding off updates
+                marshaller.writeObject(hostController.getModelManager().getHostModel().snapshot());
                 marshaller.finish();
             } finally {
                 safeFinish(marshaller);
@@ -25,6 +25,7 @@ package org.jboss.as.host.controller.mgmt;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.PushbackInputStream;
 import java.net.InetSocketAddress;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -40,6 +41,7 @@ import org.jboss.as.protocol.mgmt.ManagementOperationHandler;
 import org.jboss.as.protocol.mgmt.ManagementProtocol;
 import org.jboss.as.protocol.mgmt.ManagementRequestHeader;
 import org.jboss.as.protocol.mgmt.ManagementResponseHeader;
+import org.jboss.as.protocol.mgmt.MultiplexedConnection;
 import org.jboss.as.protocol.MessageHandler;
 import org.jboss.as.protocol.ProtocolServer;
 import org.jboss.as.protocol.SimpleByteDataInput;
@@ -90,6 +92,8 @@ public class ManagementCommunicationService implements Service<ManagementCommuni
             config.setReadExecutor(executorService);
             config.setSocketFactory(ServerSocketFactory.getDefault());
             config.setBacklog(50);
+            // Many managed servers keep their connections open, so read them from a small number of threads
+            config.setSelectorThreads(2);
             config.setConnectionHandler(this);
 
             server = new ProtocolServer(config);
@@ -168,8 +172,16 @@ public class ManagementCommunicationService implements Service<ManagementCommuni
             final ManagementRequestHeader requestHeader;
             final ManagementOperationHandler handler;
             ByteDataInput input = null;
+            final PushbackInputStream pushbackStream = new PushbackInputStream(dataStream);
+            if (MultiplexedConnection.isMultiplexed(pushbackStream)) {
+                // The client runs its requests on separate channels of this connection
+                final MultiplexedConnection multiplexedConnection = new MultiplexedConnection(connection, ManagementCommunicationService.this, executorServiceValue.getValue());
+                connection.setMessageHandler(multiplexedConnection);
+                multiplexedConnection.handleMessage(connection, pushbackStream);
+                return;
+            }
             try {
-                input = new SimpleByteDataInput(dataStream);
+                input = new SimpleByteDataInput(pushbackStream);
 
                 // Start by reading the request header
                 requestHeader = new ManagementRequestHeader(input);
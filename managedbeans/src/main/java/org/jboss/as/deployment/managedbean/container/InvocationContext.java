@@ -24,7 +24,6 @@ package org.jboss.as.deployment.managedbean.container;
 
 import java.lang.reflect.Method;
 import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -40,7 +39,8 @@ public class InvocationContext<T> implements javax.interceptor.InvocationContext
     private T target;
     private Method method;
     private Object[] parameters;
-    private final Iterator<ManagedBeanInterceptor.AroundInvokeInterceptor<?>> interceptors;
+    private final ManagedBeanInterceptor.AroundInvokeInterceptor<?>[] interceptors;
+    private int next;
     private final Map<String, Object> contextData = Collections.emptyMap();
 
     /**
@@ -55,7 +55,23 @@ public class InvocationContext<T> implements javax.interceptor.InvocationContext
         this.target = target;
         this.method = method;
         this.parameters = parameters;
-        this.interceptors = interceptors.iterator();
+        this.interceptors = interceptors.toArray(new ManagedBeanInterceptor.AroundInvokeInterceptor<?>[interceptors.size()]);
+    }
+
+    /**
+     * Create an instance with a set of interceptors to run around the method.  The array is not copied, and must not
+     * change while the invocation runs.
+     *
+     * @param target The target object of the invocation
+     * @param method The method invoked
+     * @param parameters The parameters to the method
+     * @param interceptors The interceptor chain
+     */
+    public InvocationContext(final T target, final Method method, final Object[] parameters, final ManagedBeanInterceptor.AroundInvokeInterceptor<?>[] interceptors) {
+        this.target = target;
+        this.method = method;
+        this.parameters = parameters;
+        this.interceptors = interceptors;
     }
 
     /** {@inheritDoc} */
@@ -98,8 +114,8 @@ public class InvocationContext<T> implements javax.interceptor.InvocationContext
      * @throws Exception
      */
     public Object proceed() throws Exception {
-        if(interceptors.hasNext()) {
-            final ManagedBeanInterceptor.AroundInvokeInterceptor<?> interceptor = interceptors.next();
+        if(next < interceptors.length) {
+            final ManagedBeanInterceptor.AroundInvokeInterceptor<?> interceptor = interceptors[next++];
             return interceptor.intercept(this);
         } else {
             return method.invoke(target, parameters);
@@ -23,8 +23,8 @@
 package org.jboss.as.deployment.managedbean.container;
 
 import java.lang.reflect.Method;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ConcurrentMap;
 import static org.jboss.as.deployment.managedbean.container.SecurityActions.getContextClassLoader;
 import static org.jboss.as.deployment.managedbean.container.SecurityActions.setContextClassLoader;
 
@@ -42,6 +42,8 @@ public class ManagedBeanContainer<T> {
     private final List<Method> preDestroyMethods;
     private final List<ResourceInjection<?>> resourceInjections;
     private final List<ManagedBeanInterceptor<?>> interceptors;
+    private final ConcurrentMap<Method, MethodInvocationPlan> invocationPlans;
+    private volatile Class<? extends T> proxyClass;
 
     /**
      * Construct with managed bean configuration.
@@ -60,6 +62,7 @@ public class ManagedBeanContainer<T> {
         this.preDestroyMethods = preDestroyMethods;
         this.resourceInjections = resourceInjections;
         this.interceptors = interceptors;
+        this.invocationPlans = MethodInvocationPlan.createPlans(beanClass);
     }
 
     /**
@@ -99,16 +102,17 @@ public class ManagedBeanContainer<T> {
 
         if(!interceptors.isEmpty()) {
             // Create a proxy
-            final List<ManagedBeanInterceptor.AroundInvokeInterceptor<?>> aroundInvokeInterceptors = new ArrayList<ManagedBeanInterceptor.AroundInvokeInterceptor<?>>(interceptors.size());
+            final ManagedBeanInterceptor.AroundInvokeInterceptor<?>[] aroundInvokeInterceptors = new ManagedBeanInterceptor.AroundInvokeInterceptor<?>[interceptors.size()];
+            int i = 0;
             for(ManagedBeanInterceptor<?> managedBeanInterceptor : interceptors) {
                 try {
-                    aroundInvokeInterceptors.add(managedBeanInterceptor.createInstance());
+                    aroundInvokeInterceptors[i++] = managedBeanInterceptor.createInstance();
                 } catch (Throwable t) {
                     throw new RuntimeException("Failed to create instance of interceptor " + managedBeanInterceptor.toString(), t);
                 }
             }
             try {
-                managedBean = ManagedBeanProxyHandler.createProxy(beanClass, deploymentClassLoader, managedBean, aroundInvokeInterceptors);
+                managedBean = ManagedBeanProxyHandler.createProxy(getProxyClass(), deploymentClassLoader, managedBean, aroundInvokeInterceptors, invocationPlans);
             } catch (Throwable t) {
                 throw new RuntimeException("Unable to create managed bean proxy for " + beanClass, t);
             }
@@ -116,5 +120,13 @@ public class ManagedBeanContainer<T> {
         return managedBean;
     }
 
-
+    private Class<? extends T> getProxyClass() {
+        // the interceptors are only known once the deployment is processed, so the proxy class is resolved on first use
+        Class<? extends T> proxyClass = this.proxyClass;
+        if (proxyClass == null) {
+            proxyClass = ManagedBeanProxyHandler.getProxyClass(beanClass);
+            this.proxyClass = proxyClass;
+        }
+        return proxyClass;
+    }
 }
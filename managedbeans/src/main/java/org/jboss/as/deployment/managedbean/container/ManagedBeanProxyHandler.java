@@ -26,32 +26,66 @@ import javassist.util.proxy.MethodHandler;
 import javassist.util.proxy.ProxyFactory;
 import javassist.util.proxy.ProxyObject;
 
-import javax.interceptor.ExcludeClassInterceptors;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Method;
-import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentMap;
 import static org.jboss.as.deployment.managedbean.container.SecurityActions.getContextClassLoader;
 import static org.jboss.as.deployment.managedbean.container.SecurityActions.setContextClassLoader;
 
 /**
- * Method handler used to proxy managed bean method invocations.  For each method called it will check to see if the method
- * supports interception and will execute a new {@link InvocationContext}.  If the method does not support interceptors,
- * it will run the method directly on the managed bean instance.
+ * Method handler used to proxy managed bean method invocations.  For each method called it will look up the method's
+ * {@link MethodInvocationPlan} and, if the method supports interception, execute a new {@link InvocationContext}.  If the
+ * method does not support interceptors, it will run the method directly on the managed bean instance.
  *
  * @author John E. Bailey
  */
 public class ManagedBeanProxyHandler<T> /* extends ProxyHandler<T> */ implements MethodHandler {
-    private final List<ManagedBeanInterceptor.AroundInvokeInterceptor<?>> interceptors;
+    private final ManagedBeanInterceptor.AroundInvokeInterceptor<?>[] interceptors;
     private final T instance;
     private final ClassLoader deploymentClassLoader;
+    private final ConcurrentMap<Method, MethodInvocationPlan> invocationPlans;
 
-    public static <T> T createProxy(final Class<T> managedBeanClass, final ClassLoader deploymentClassLoader, final T managedBean, final List<ManagedBeanInterceptor.AroundInvokeInterceptor<?>> interceptors) throws IllegalAccessException, InstantiationException {
-        final ManagedBeanProxyHandler<T> handler = new ManagedBeanProxyHandler<T>(managedBean, interceptors, deploymentClassLoader);
-        //return ProxyFactory.createProxy(managedBeanClass, );
-        final ProxyFactory proxyFactory = new ProxyFactory();
-        proxyFactory.setSuperclass(managedBeanClass);
+    /**
+     * Proxy classes by managed bean class.  A bean class identifies its deployment class loader, which also defines the
+     * proxy class, so both the key and the value are weak and go away with the deployment.
+     */
+    private static final Map<Class<?>, WeakReference<Class<?>>> proxyClasses = new WeakHashMap<Class<?>, WeakReference<Class<?>>>();
+
+    /**
+     * Get the proxy class for a managed bean class, generating it on first use.
+     *
+     * @param managedBeanClass The managed bean class
+     * @return The proxy class
+     */
+    public static <T> Class<? extends T> getProxyClass(final Class<T> managedBeanClass) {
+        synchronized (proxyClasses) {
+            final WeakReference<Class<?>> ref = proxyClasses.get(managedBeanClass);
+            Class<?> proxyClass = ref == null ? null : ref.get();
+            if (proxyClass == null) {
+                final ProxyFactory proxyFactory = new ProxyFactory();
+                proxyFactory.setSuperclass(managedBeanClass);
+                proxyClass = proxyFactory.createClass();
+                proxyClasses.put(managedBeanClass, new WeakReference<Class<?>>(proxyClass));
+            }
+            return castClass(proxyClass, managedBeanClass);
+        }
+    }
 
-        final Class<? extends T> type = castClass(proxyFactory.createClass(), managedBeanClass);
-        T proxy = type.newInstance();
+    /**
+     * Create a proxy from a previously generated proxy class, binding it to the bean instance and its interceptors.
+     *
+     * @param proxyClass The proxy class from {@link #getProxyClass(Class)}
+     * @param deploymentClassLoader The classloader for the deployment
+     * @param managedBean The managed bean instance
+     * @param interceptors The interceptor instances for this managed bean instance
+     * @param invocationPlans The invocation plans of the managed bean class, shared by all its instances
+     * @return The proxy
+     */
+    public static <T> T createProxy(final Class<? extends T> proxyClass, final ClassLoader deploymentClassLoader, final T managedBean, final ManagedBeanInterceptor.AroundInvokeInterceptor<?>[] interceptors, final ConcurrentMap<Method, MethodInvocationPlan> invocationPlans) throws IllegalAccessException, InstantiationException {
+        final ManagedBeanProxyHandler<T> handler = new ManagedBeanProxyHandler<T>(managedBean, interceptors, deploymentClassLoader, invocationPlans);
+        T proxy = proxyClass.newInstance();
         ((ProxyObject)proxy).setHandler(handler);
         return proxy;
     }
@@ -67,12 +101,14 @@ public class ManagedBeanProxyHandler<T> /* extends ProxyHandler<T> */ implements
      *
      * @param managedBeanInstance The managed bean instance
      * @param interceptors The interceptor chain
+     * @param invocationPlans The invocation plans
      */
-    private ManagedBeanProxyHandler(final T managedBeanInstance, final List<ManagedBeanInterceptor.AroundInvokeInterceptor<?>> interceptors, final ClassLoader deploymentClassLoader) {
+    private ManagedBeanProxyHandler(final T managedBeanInstance, final ManagedBeanInterceptor.AroundInvokeInterceptor<?>[] interceptors, final ClassLoader deploymentClassLoader, final ConcurrentMap<Method, MethodInvocationPlan> invocationPlans) {
         //super(managedBeanInstance);
         this.instance = managedBeanInstance;
         this.interceptors = interceptors;
         this.deploymentClassLoader = deploymentClassLoader;
+        this.invocationPlans = invocationPlans;
     }
 
     /**
@@ -84,17 +120,24 @@ public class ManagedBeanProxyHandler<T> /* extends ProxyHandler<T> */ implements
      * @return The value of the invocation context execution
      */
     protected Object invokeMethod(T instance, Method method, Object[] arguments) {
+        final MethodInvocationPlan plan = MethodInvocationPlan.getPlan(invocationPlans, method);
         final ClassLoader contextCl = getContextClassLoader();
-        setContextClassLoader(deploymentClassLoader);
+        // calls between beans of the same deployment already run with its classloader
+        final boolean swapContextCl = contextCl != deploymentClassLoader;
+        if(swapContextCl) {
+            setContextClassLoader(deploymentClassLoader);
+        }
         try {
-            if(!method.isAnnotationPresent(ExcludeClassInterceptors.class)) {
+            if(plan.isIntercepted()) {
                 return new InvocationContext<T>(instance, method, arguments, interceptors).proceed();
             }
             return method.invoke(instance, arguments);
         } catch(Throwable t) {
             throw new RuntimeException(t);
         } finally {
-            setContextClassLoader(contextCl);
+            if(swapContextCl) {
+                setContextClassLoader(contextCl);
+            }
         }
     }
 
@@ -0,0 +1,85 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.deployment.managedbean.container;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.interceptor.ExcludeClassInterceptors;
+
+/**
+ * How calls to one managed bean method are dispatched, resolved once rather than on every invocation.
+ */
+final class MethodInvocationPlan {
+    private final boolean intercepted;
+
+    private MethodInvocationPlan(final Method method) {
+        intercepted = !method.isAnnotationPresent(ExcludeClassInterceptors.class);
+    }
+
+    /**
+     * Determine whether the class interceptors run around this method.
+     *
+     * @return {@code true} if the method is intercepted
+     */
+    boolean isIntercepted() {
+        return intercepted;
+    }
+
+    /**
+     * Resolve the plans for every method a proxy of the managed bean class can dispatch.
+     *
+     * @param beanClass The managed bean class
+     * @return The plans, by method
+     */
+    static ConcurrentMap<Method, MethodInvocationPlan> createPlans(final Class<?> beanClass) {
+        final ConcurrentMap<Method, MethodInvocationPlan> plans = new ConcurrentHashMap<Method, MethodInvocationPlan>();
+        for (Class<?> current = beanClass; current != null && current != Object.class; current = current.getSuperclass()) {
+            for (Method method : current.getDeclaredMethods()) {
+                final int modifiers = method.getModifiers();
+                if (!Modifier.isStatic(modifiers) && !Modifier.isPrivate(modifiers)) {
+                    plans.put(method, new MethodInvocationPlan(method));
+                }
+            }
+        }
+        return plans;
+    }
+
+    /**
+     * Get the plan for a method, resolving it if the method was not known when the plans were created.
+     *
+     * @param plans The plans
+     * @param method The method invoked
+     * @return The plan
+     */
+    static MethodInvocationPlan getPlan(final ConcurrentMap<Method, MethodInvocationPlan> plans, final Method method) {
+        final MethodInvocationPlan plan = plans.get(method);
+        if (plan != null) {
+            return plan;
+        }
+        final MethodInvocationPlan newPlan = new MethodInvocationPlan(method);
+        final MethodInvocationPlan appearing = plans.putIfAbsent(method, newPlan);
+        return appearing == null ? newPlan : appearing;
+    }
+}
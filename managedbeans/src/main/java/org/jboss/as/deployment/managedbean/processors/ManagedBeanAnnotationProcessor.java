@@ -363,31 +363,10 @@ public class ManagedBeanAnnotationProcessor implements DeploymentUnitProcessor {
     }
 
     private String getTargetContextName(final Resource resource, final String contextNameSuffix, final Class<?> injectionType) throws DeploymentUnitProcessingException {
-        String targetContextName = resource.mappedName(); // TODO: Figure out how to use .lookup in IDE/Maven
-
-        if(targetContextName.isEmpty()) {
-            if(isEnvironmentEntryType(injectionType)) {
-                 targetContextName = contextNameSuffix;
-            } else if(injectionType.isAnnotationPresent(ManagedBean.class)) {
-                final ManagedBean managedBean = injectionType.getAnnotation(ManagedBean.class);
-                 targetContextName = managedBean.value().isEmpty() ? injectionType.getName() : managedBean.value();
-            } else {
-                throw new DeploymentUnitProcessingException("Unable to determine mapped name for @Resource injection.");
-            }
+        final String targetContextName = ResourceInjectionSupport.getTargetContextName(resource, contextNameSuffix, injectionType);
+        if(targetContextName == null) {
+            throw new DeploymentUnitProcessingException("Unable to determine mapped name for @Resource injection.");
         }
         return targetContextName;
     }
-
-    private boolean isEnvironmentEntryType(Class<?> type) {
-        return type.equals(String.class)
-                || type.equals(Character.class)
-                || type.equals(Byte.class)
-                || type.equals(Short.class)
-                || type.equals(Integer.class)
-                || type.equals(Long.class)
-                || type.equals(Boolean.class)
-                || type.equals(Double.class)
-                || type.equals(Float.class)
-                || type.isPrimitive();
-    }
 }
@@ -35,7 +35,6 @@ import org.jboss.as.deployment.managedbean.config.ResourceConfiguration;
 import org.jboss.as.deployment.managedbean.container.ResourceInjection;
 import org.jboss.as.deployment.module.ModuleDeploymentProcessor;
 import org.jboss.as.deployment.naming.ContextService;
-import org.jboss.as.deployment.naming.DuplicateBindingException;
 import org.jboss.as.deployment.naming.JndiName;
 import org.jboss.as.deployment.naming.ModuleContextConfig;
 import org.jboss.as.deployment.naming.NamingLookupValue;
@@ -51,15 +50,12 @@ import org.jboss.msc.value.Value;
 import org.jboss.msc.value.Values;
 
 import javax.naming.Context;
-import javax.naming.LinkRef;
 import javax.naming.Reference;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.List;
 
-import static org.jboss.as.deployment.naming.NamespaceBindings.getNamespaceBindings;
-
 /**
  * Deployment unit processors responsible for adding deployment items for each managed bean configuration.
  *
@@ -147,32 +143,12 @@ public class ManagedBeanDeploymentProcessor implements DeploymentUnitProcessor {
         final ResourceInjection<T> resourceInjection = getResourceInjection(resourceConfiguration, lookupValue);
 
         // Now add a binder for the local context
-        final ServiceName binderName = beanContextServiceName.append(localContextName.getLocalName());
+        final ServiceName binderName = ResourceInjectionSupport.bindResource(deploymentContext, moduleContext, batchBuilder, beanContextServiceName, localContextName, targetContextName);
         if(resourceInjection != null) {
             serviceBuilder.addDependency(binderName);
             serviceBuilder.addDependency(beanContextServiceName, Context.class, lookupValue.getContextInjector());
         }
 
-        final LinkRef linkRef = new LinkRef(targetContextName.startsWith("java") ? targetContextName : moduleContext.getContextName().append(targetContextName).getAbsoluteName());
-        final boolean shouldBind;
-        try {
-            shouldBind = getNamespaceBindings(deploymentContext).addBinding(localContextName, linkRef);
-        } catch (DuplicateBindingException e) {
-            throw new DeploymentUnitProcessingException("Unable to process managed bean resource.", e);
-        }
-        if(shouldBind) {
-            final ResourceBinder<LinkRef> resourceBinder = new ResourceBinder<LinkRef>(localContextName, Values.immediateValue(linkRef));
-
-            final BatchServiceBuilder<Object> binderServiceBuilder = batchBuilder.addService(binderName, resourceBinder);
-            binderServiceBuilder.addDependency(beanContextServiceName, Context.class, resourceBinder.getContextInjector());
-
-            if(targetContextName.startsWith("java:")) {
-                binderServiceBuilder.addOptionalDependency(ResourceBinder.JAVA_BINDER.append(targetContextName));
-            } else {
-                binderServiceBuilder.addOptionalDependency(moduleContext.getContextServiceName().append(targetContextName));
-            }
-        }
-
         return resourceInjection;
     }
 
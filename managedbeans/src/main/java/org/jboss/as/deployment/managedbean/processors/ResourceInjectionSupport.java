@@ -0,0 +1,133 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.deployment.managedbean.processors;
+
+import static org.jboss.as.deployment.naming.NamespaceBindings.getNamespaceBindings;
+
+import javax.annotation.ManagedBean;
+import javax.annotation.Resource;
+import javax.naming.Context;
+import javax.naming.LinkRef;
+
+import org.jboss.as.deployment.naming.DuplicateBindingException;
+import org.jboss.as.deployment.naming.JndiName;
+import org.jboss.as.deployment.naming.ModuleContextConfig;
+import org.jboss.as.deployment.naming.ResourceBinder;
+import org.jboss.as.deployment.unit.DeploymentUnitContext;
+import org.jboss.as.deployment.unit.DeploymentUnitProcessingException;
+import org.jboss.msc.service.BatchBuilder;
+import org.jboss.msc.service.BatchServiceBuilder;
+import org.jboss.msc.service.ServiceName;
+import org.jboss.msc.value.Values;
+
+/**
+ * Resolves {@code @Resource} injections the way managed beans do, for use by any deployer injecting resources into
+ * the components of a deployment: each resource is bound as a link in a component naming context, pointing at its
+ * target in the module or global naming context.
+ */
+public final class ResourceInjectionSupport {
+
+    private ResourceInjectionSupport() {
+    }
+
+    /**
+     * Determine the name of the context entry a resource refers to.
+     *
+     * @param resource the resource annotation
+     * @param environmentEntryName the name to use if the resource is an environment entry
+     * @param injectionType the type of the injected value
+     * @return the mapped name of the resource, the environment entry name if the type is an environment entry type,
+     *      the managed bean name if the type is a managed bean, or {@code null} if none of these apply
+     */
+    public static String getTargetContextName(final Resource resource, final String environmentEntryName, final Class<?> injectionType) {
+        if (!resource.mappedName().isEmpty()) { // TODO: Figure out how to use .lookup in IDE/Maven
+            return resource.mappedName();
+        }
+        if (isEnvironmentEntryType(injectionType)) {
+            return environmentEntryName;
+        }
+        if (injectionType.isAnnotationPresent(ManagedBean.class)) {
+            final ManagedBean managedBean = injectionType.getAnnotation(ManagedBean.class);
+            return managedBean.value().isEmpty() ? injectionType.getName() : managedBean.value();
+        }
+        return null;
+    }
+
+    /**
+     * Determine whether values of a type are environment entries.
+     *
+     * @param type the type
+     * @return {@code true} for strings, primitives and their wrappers
+     */
+    public static boolean isEnvironmentEntryType(final Class<?> type) {
+        return type.equals(String.class)
+                || type.equals(Character.class)
+                || type.equals(Byte.class)
+                || type.equals(Short.class)
+                || type.equals(Integer.class)
+                || type.equals(Long.class)
+                || type.equals(Boolean.class)
+                || type.equals(Double.class)
+                || type.equals(Float.class)
+                || type.isPrimitive();
+    }
+
+    /**
+     * Bind a link to a resource in a component naming context.  The link is bound once per deployment; the binder
+     * service is named after the local name, below the context service.
+     *
+     * @param deploymentContext the deployment unit context
+     * @param moduleContext the module naming context
+     * @param batchBuilder the batch builder to add the binder service to
+     * @param contextServiceName the name of the component naming context service
+     * @param localContextName the name to bind in the component naming context
+     * @param targetContextName the name of the resource, absolute if it starts with {@code java}, otherwise relative to
+     *      the module naming context
+     * @return the name of the binder service
+     * @throws DeploymentUnitProcessingException if a different link is already bound to the local name
+     */
+    public static ServiceName bindResource(final DeploymentUnitContext deploymentContext, final ModuleContextConfig moduleContext, final BatchBuilder batchBuilder,
+            final ServiceName contextServiceName, final JndiName localContextName, final String targetContextName) throws DeploymentUnitProcessingException {
+        final ServiceName binderName = contextServiceName.append(localContextName.getLocalName());
+        final LinkRef linkRef = new LinkRef(targetContextName.startsWith("java") ? targetContextName : moduleContext.getContextName().append(targetContextName).getAbsoluteName());
+        final boolean shouldBind;
+        try {
+            shouldBind = getNamespaceBindings(deploymentContext).addBinding(localContextName, linkRef);
+        } catch (DuplicateBindingException e) {
+            throw new DeploymentUnitProcessingException("Unable to bind resource " + localContextName, e);
+        }
+        if(shouldBind) {
+            final ResourceBinder<LinkRef> resourceBinder = new ResourceBinder<LinkRef>(localContextName, Values.immediateValue(linkRef));
+
+            final BatchServiceBuilder<Object> binderServiceBuilder = batchBuilder.addService(binderName, resourceBinder);
+            binderServiceBuilder.addDependency(contextServiceName, Context.class, resourceBinder.getContextInjector());
+
+            if(targetContextName.startsWith("java:")) {
+                binderServiceBuilder.addOptionalDependency(ResourceBinder.JAVA_BINDER.append(targetContextName));
+            } else {
+                binderServiceBuilder.addOptionalDependency(moduleContext.getContextServiceName().append(targetContextName));
+            }
+        }
+        return binderName;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.deployment.managedbean;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.List;
+
+import javassist.util.proxy.ProxyFactory;
+import javax.interceptor.InvocationContext;
+
+import org.jboss.as.deployment.managedbean.container.ManagedBeanContainer;
+import org.jboss.as.deployment.managedbean.container.ManagedBeanInterceptor;
+import org.jboss.as.deployment.managedbean.container.ResourceInjection;
+import org.junit.Test;
+
+/**
+ * Measures managed bean creation throughput with and without interceptors, and against creating a proxy class for
+ * every instance.  Run with {@code -Dbenchmark}.
+ */
+public class ManagedBeanContainerBenchmark {
+
+    private static final int INSTANCES = 100000;
+
+    @Test
+    public void testCreationThroughput() throws Exception {
+        final ManagedBeanContainer<TestManagedBean> plain = createContainer(false);
+        final ManagedBeanContainer<TestManagedBean> intercepted = createContainer(true);
+        // warm up before measuring
+        for (int i = 0; i < 2; i++) {
+            run(plain, INSTANCES);
+            run(intercepted, INSTANCES);
+            runUncached(INSTANCES / 10);
+        }
+        final long plainNanos = run(plain, INSTANCES);
+        final long interceptedNanos = run(intercepted, INSTANCES);
+        final long uncachedNanos = runUncached(INSTANCES / 10);
+        System.out.printf("Managed bean creation: %d ns/instance; with interceptors: %d ns/instance; with a proxy class lookup per instance: %d ns/instance\n",
+                Long.valueOf(plainNanos / INSTANCES), Long.valueOf(interceptedNanos / INSTANCES), Long.valueOf(uncachedNanos / (INSTANCES / 10)));
+    }
+
+    private static long run(final ManagedBeanContainer<TestManagedBean> container, final int instances) {
+        final long start = System.nanoTime();
+        for (int i = 0; i < instances; i++) {
+            container.createInstance();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long runUncached(final int instances) throws Exception {
+        // the way a proxy used to be created for every instance
+        final long start = System.nanoTime();
+        for (int i = 0; i < instances; i++) {
+            final ProxyFactory proxyFactory = new ProxyFactory();
+            proxyFactory.setSuperclass(TestManagedBean.class);
+            proxyFactory.createClass().newInstance();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private ManagedBeanContainer<TestManagedBean> createContainer(final boolean intercepted) throws Exception {
+        final List<ManagedBeanInterceptor<?>> interceptors;
+        if (intercepted) {
+            final Method aroundInvoke = TestInterceptor.class.getMethod("intercept", InvocationContext.class);
+            interceptors = Collections.<ManagedBeanInterceptor<?>>singletonList(new ManagedBeanInterceptor<TestInterceptor>(TestInterceptor.class, aroundInvoke, Collections.<ResourceInjection<?>>emptyList()));
+        } else {
+            interceptors = Collections.emptyList();
+        }
+        return new ManagedBeanContainer<TestManagedBean>(TestManagedBean.class, getClass().getClassLoader(),
+                Collections.<Method>emptyList(), Collections.<Method>emptyList(), Collections.<ResourceInjection<?>>emptyList(), interceptors);
+    }
+}
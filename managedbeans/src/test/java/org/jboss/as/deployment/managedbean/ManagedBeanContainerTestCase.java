@@ -0,0 +1,82 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.deployment.managedbean;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.List;
+
+import javassist.util.proxy.ProxyObject;
+import javax.interceptor.InvocationContext;
+
+import org.jboss.as.deployment.managedbean.container.ManagedBeanContainer;
+import org.jboss.as.deployment.managedbean.container.ManagedBeanInterceptor;
+import org.jboss.as.deployment.managedbean.container.ManagedBeanProxyHandler;
+import org.jboss.as.deployment.managedbean.container.ResourceInjection;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that {@link ManagedBeanContainer} reuses one proxy class per managed bean class.
+ */
+public class ManagedBeanContainerTestCase {
+
+    @Test
+    public void testProxyClassShared() throws Exception {
+        final ManagedBeanContainer<TestManagedBean> container = createContainer(true);
+        final TestManagedBean first = container.createInstance();
+        final TestManagedBean second = container.createInstance();
+        assertTrue(first instanceof ProxyObject);
+        assertNotSame(first, second);
+        assertSame(first.getClass(), second.getClass());
+        // a second container for the same bean class shares the proxy class too
+        assertSame(first.getClass(), createContainer(true).createInstance().getClass());
+        assertSame(first.getClass(), ManagedBeanProxyHandler.getProxyClass(TestManagedBean.class));
+
+        TestInterceptor.invoked = false;
+        first.toString();
+        assertTrue(TestInterceptor.invoked);
+    }
+
+    @Test
+    public void testWithoutInterceptors() throws Exception {
+        final TestManagedBean instance = createContainer(false).createInstance();
+        assertEquals(TestManagedBean.class, instance.getClass());
+    }
+
+    private ManagedBeanContainer<TestManagedBean> createContainer(final boolean intercepted) throws Exception {
+        final List<ManagedBeanInterceptor<?>> interceptors;
+        if (intercepted) {
+            final Method aroundInvoke = TestInterceptor.class.getMethod("intercept", InvocationContext.class);
+            interceptors = Collections.<ManagedBeanInterceptor<?>>singletonList(new ManagedBeanInterceptor<TestInterceptor>(TestInterceptor.class, aroundInvoke, Collections.<ResourceInjection<?>>emptyList()));
+        } else {
+            interceptors = Collections.emptyList();
+        }
+        return new ManagedBeanContainer<TestManagedBean>(TestManagedBean.class, getClass().getClassLoader(),
+                Collections.<Method>emptyList(), Collections.<Method>emptyList(), Collections.<ResourceInjection<?>>emptyList(), interceptors);
+    }
+}
@@ -22,6 +22,7 @@
 
 package org.jboss.as.mc;
 
+import org.jboss.as.deployment.PartialDeploymentContent;
 import org.jboss.as.deployment.ServerDeploymentRepository;
 import org.jboss.as.deployment.module.TempFileProviderService;
 import org.jboss.msc.service.*;
@@ -58,6 +59,21 @@ public class MockServerDeploymentRepository implements ServerDeploymentRepositor
         return null;
     }
 
+    @Override
+    public byte[] addDeploymentContent(String name, String runtimeName, InputStream stream, long offset, byte[] expectedHash) throws IOException {
+        return null;
+    }
+
+    @Override
+    public PartialDeploymentContent getPartialDeploymentContent(String name) throws IOException {
+        return null;
+    }
+
+    @Override
+    public File getDeploymentCacheDirectory(byte[] deploymentHash) {
+        return null;
+    }
+
     @Override
     public Closeable mountDeploymentContent(String name, String runtimeName, byte[] deploymentHash, VirtualFile mountPoint) throws IOException {
         Closeable handle = null;
@@ -42,6 +42,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.jboss.as.deployment.DeploymentService;
+import org.jboss.as.deployment.PartialDeploymentContent;
 import org.jboss.as.deployment.ServerDeploymentRepository;
 import org.jboss.as.deployment.chain.DeploymentChain;
 import org.jboss.as.deployment.chain.DeploymentChainImpl;
@@ -574,6 +575,21 @@ public class OSGiSubsystemSupport {
             return null;
         }
 
+        @Override
+        public byte[] addDeploymentContent(String name, String runtimeName, InputStream stream, long offset, byte[] expectedHash) throws IOException {
+            return null;
+        }
+
+        @Override
+        public PartialDeploymentContent getPartialDeploymentContent(String name) throws IOException {
+            return null;
+        }
+
+        @Override
+        public File getDeploymentCacheDirectory(byte[] deploymentHash) {
+            return null;
+        }
+
         @Override
         public Closeable mountDeploymentContent(String name, String runtimeName, byte[] hash, VirtualFile mountPoint) throws IOException {
             JavaArchive archive = repository.remove(name);
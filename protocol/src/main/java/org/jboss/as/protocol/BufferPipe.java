@@ -0,0 +1,352 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.protocol;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A single producer, single consumer pipe which passes data as a chain of pooled buffer segments.  The producer
+ * fills a segment and publishes it to a lock-free queue; the consumer reads it in place and returns it to the pool.
+ * Threads only block, by parking, when the queue is empty or holds the maximum number of segments.
+ */
+final class BufferPipe {
+    private final BufferPool bufferPool;
+    private final int maxSegments;
+    private final Queue<ByteBuffer> segments = new ConcurrentLinkedQueue<ByteBuffer>();
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private volatile boolean writeClosed;
+    private volatile boolean readClosed;
+    private volatile Thread waitingReader;
+    private volatile Thread waitingWriter;
+    private final AtomicReference<Runnable> writableTask = new AtomicReference<Runnable>();
+
+    /**
+     * Create a new pipe.
+     *
+     * @param bufferPool the pool of segments
+     * @param maxSegments the number of published segments at which the producer blocks
+     */
+    BufferPipe(final BufferPool bufferPool, final int maxSegments) {
+        this.bufferPool = bufferPool;
+        this.maxSegments = maxSegments;
+    }
+
+    /**
+     * Wait for the consumer to close the input side.
+     */
+    public void await() {
+        boolean intr = false;
+        try {
+            while (! readClosed) {
+                waitingWriter = Thread.currentThread();
+                if (! readClosed) {
+                    LockSupport.park(this);
+                }
+                waitingWriter = null;
+                if (Thread.interrupted()) {
+                    intr = true;
+                }
+            }
+        } finally {
+            if (intr) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Read exactly {@code count} bytes from a stream straight into pipe segments.
+     *
+     * @param source the stream to read
+     * @param count the number of bytes to transfer
+     * @throws IOException if the stream fails or ends early, or the pipe is closed
+     */
+    public void transferFrom(final InputStream source, int count) throws IOException {
+        while (count > 0) {
+            checkWritable();
+            final ByteBuffer segment = bufferPool.allocate();
+            final int res;
+            try {
+                res = source.read(segment.array(), segment.arrayOffset(), Math.min(count, segment.capacity()));
+            } catch (IOException e) {
+                bufferPool.free(segment);
+                throw e;
+            }
+            if (res == -1) {
+                bufferPool.free(segment);
+                throw new EOFException("Unexpected end of stream");
+            }
+            segment.limit(res);
+            publish(segment);
+            count -= res;
+        }
+    }
+
+    /**
+     * Copy up to {@code count} bytes from a buffer into pipe segments without blocking.  Bytes written after the
+     * consumer closed the input side are discarded.
+     *
+     * @param source the buffer to read
+     * @param count the number of bytes to transfer
+     * @return the number of bytes consumed from the buffer, less than {@code count} if the pipe is full
+     * @throws IOException if the output side is closed
+     */
+    public int offer(final ByteBuffer source, final int count) throws IOException {
+        if (writeClosed && ! readClosed) {
+            throw new IOException("Stream closed");
+        }
+        int transferred = 0;
+        while (transferred < count) {
+            if (readClosed) {
+                source.position(source.position() + count - transferred);
+                return count;
+            }
+            if (queued.get() >= maxSegments) {
+                break;
+            }
+            final ByteBuffer segment = bufferPool.allocate();
+            final int cnt = Math.min(count - transferred, segment.remaining());
+            source.get(segment.array(), segment.arrayOffset(), cnt);
+            segment.limit(cnt);
+            transferred += cnt;
+            queued.incrementAndGet();
+            segments.add(segment);
+            final Thread reader = waitingReader;
+            if (reader != null) {
+                LockSupport.unpark(reader);
+            }
+        }
+        return transferred;
+    }
+
+    /**
+     * Run a task once the pipe has room for another segment, or the consumer has closed it.  The task runs at once
+     * if there is room already, otherwise on the consumer's thread.  Only one task may be pending.
+     *
+     * @param task the task
+     */
+    public void whenWritable(final Runnable task) {
+        writableTask.set(task);
+        if (queued.get() < maxSegments || readClosed) {
+            runWritableTask();
+        }
+    }
+
+    private void runWritableTask() {
+        final Runnable task = writableTask.getAndSet(null);
+        if (task != null) {
+            task.run();
+        }
+    }
+
+    private void checkWritable() throws IOException {
+        if (writeClosed || readClosed) {
+            throw new IOException("Stream closed");
+        }
+    }
+
+    private void publish(final ByteBuffer segment) throws IOException {
+        if (queued.get() >= maxSegments) {
+            awaitSpace();
+        }
+        if (readClosed) {
+            bufferPool.free(segment);
+            throw new IOException("Stream closed");
+        }
+        queued.incrementAndGet();
+        segments.add(segment);
+        final Thread reader = waitingReader;
+        if (reader != null) {
+            LockSupport.unpark(reader);
+        }
+    }
+
+    private void awaitSpace() throws IOException {
+        while (queued.get() >= maxSegments && ! readClosed) {
+            waitingWriter = Thread.currentThread();
+            if (queued.get() >= maxSegments && ! readClosed) {
+                LockSupport.park(this);
+            }
+            waitingWriter = null;
+            if (Thread.interrupted()) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+        }
+    }
+
+    private void wakeWriter() {
+        final Thread writer = waitingWriter;
+        if (writer != null) {
+            LockSupport.unpark(writer);
+        }
+        if (writableTask.get() != null) {
+            runWritableTask();
+        }
+    }
+
+    private final InputStream in = new InputStream() {
+        // only touched by the consumer
+        private ByteBuffer current;
+
+        public int read() throws IOException {
+            final ByteBuffer segment = next();
+            return segment == null ? -1 : segment.get() & 0xff;
+        }
+
+        public int read(final byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            ByteBuffer segment = next();
+            if (segment == null) {
+                return -1;
+            }
+            int total = 0;
+            do {
+                final int cnt = Math.min(len, segment.remaining());
+                segment.get(b, off, cnt);
+                off += cnt;
+                len -= cnt;
+                total += cnt;
+                // keep going only while data is available without blocking
+            } while (len > 0 && (segment = poll()) != null);
+            return total;
+        }
+
+        public int available() throws IOException {
+            final ByteBuffer current = this.current;
+            return current == null ? 0 : current.remaining();
+        }
+
+        public void close() throws IOException {
+            writeClosed = true;
+            readClosed = true;
+            // closing the read side drops the remaining bytes
+            release();
+            ByteBuffer segment;
+            while ((segment = segments.poll()) != null) {
+                queued.decrementAndGet();
+                bufferPool.free(segment);
+            }
+            wakeWriter();
+        }
+
+        private ByteBuffer poll() {
+            ByteBuffer segment = current;
+            if (segment != null && segment.hasRemaining()) {
+                return segment;
+            }
+            release();
+            segment = segments.poll();
+            if (segment != null) {
+                queued.decrementAndGet();
+                wakeWriter();
+                current = segment;
+            }
+            return segment;
+        }
+
+        private ByteBuffer next() throws IOException {
+            ByteBuffer segment;
+            while ((segment = poll()) == null) {
+                if (readClosed) {
+                    return null;
+                }
+                if (writeClosed) {
+                    // recheck, the last segment may have been published just before the close
+                    if ((segment = poll()) == null) {
+                        return null;
+                    }
+                    return segment;
+                }
+                waitingReader = Thread.currentThread();
+                if (segments.isEmpty() && ! writeClosed) {
+                    LockSupport.park(BufferPipe.this);
+                }
+                waitingReader = null;
+                if (Thread.interrupted()) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException();
+                }
+            }
+            return segment;
+        }
+
+        private void release() {
+            final ByteBuffer current = this.current;
+            if (current != null) {
+                this.current = null;
+                bufferPool.free(current);
+            }
+        }
+    };
+
+    private final OutputStream out = new OutputStream() {
+        public void write(final int b) throws IOException {
+            checkWritable();
+            final ByteBuffer segment = bufferPool.allocate();
+            segment.put((byte) b).flip();
+            publish(segment);
+        }
+
+        public void write(final byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                checkWritable();
+                final ByteBuffer segment = bufferPool.allocate();
+                final int cnt = Math.min(len, segment.remaining());
+                segment.put(b, off, cnt).flip();
+                publish(segment);
+                off += cnt;
+                len -= cnt;
+            }
+        }
+
+        public void close() throws IOException {
+            writeClosed = true;
+            final Thread reader = waitingReader;
+            if (reader != null) {
+                LockSupport.unpark(reader);
+            }
+        }
+    };
+
+    public InputStream getIn() {
+        return in;
+    }
+
+    public OutputStream getOut() {
+        return out;
+    }
+}
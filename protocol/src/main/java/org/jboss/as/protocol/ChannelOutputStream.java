@@ -0,0 +1,82 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.protocol;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+
+/**
+ * An output stream which performs blocking writes on a non-blocking socket channel.  The channel stays registered
+ * for reads with a {@link ConnectionSelector}; when the socket send buffer is full the writing thread waits for
+ * writability on a temporary selector of its own.
+ */
+final class ChannelOutputStream extends OutputStream {
+
+    private final SocketChannel channel;
+    private final int writeTimeout;
+
+    ChannelOutputStream(final SocketChannel channel, final int writeTimeout) {
+        this.channel = channel;
+        this.writeTimeout = writeTimeout;
+    }
+
+    public void write(final int b) throws IOException {
+        write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+        while (buffer.hasRemaining()) {
+            if (channel.write(buffer) == 0) {
+                awaitWritable();
+            }
+        }
+    }
+
+    private void awaitWritable() throws IOException {
+        if (Thread.interrupted()) {
+            throw new InterruptedIOException();
+        }
+        final Selector selector = Selector.open();
+        try {
+            final SelectionKey key = channel.register(selector, SelectionKey.OP_WRITE);
+            try {
+                if (selector.select(writeTimeout) == 0 && writeTimeout != 0) {
+                    throw new SocketTimeoutException("Write timed out");
+                }
+            } finally {
+                key.cancel();
+                // flush the cancelled key so the channel is only registered with the connection selector
+                selector.selectNow();
+            }
+        } finally {
+            selector.close();
+        }
+    }
+}
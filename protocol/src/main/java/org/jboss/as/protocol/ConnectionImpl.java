@@ -23,7 +23,6 @@
 package org.jboss.as.protocol;
 
 import java.io.BufferedOutputStream;
-import java.io.EOFException;
 import java.io.FilterInputStream;
 import java.io.FilterOutputStream;
 import java.io.IOException;
@@ -44,8 +43,15 @@ final class ConnectionImpl implements Connection {
 
     private static final Logger log = Logger.getLogger("org.jboss.as.protocol.connection");
 
+    /** message segments shared by all connections **/
+    static final BufferPool bufferPool = new BufferPool(8192, 256);
+    /** the number of unread segments at which the socket reader waits for the message handler **/
+    static final int MAX_PIPE_SEGMENTS = 16;
+
     private final Socket socket;
 
+    private final OutputStream output;
+
     private final Object lock = new Object();
 
     // protected by {@link #lock}
@@ -61,8 +67,13 @@ final class ConnectionImpl implements Connection {
 
     private volatile Object attachment;
 
-    ConnectionImpl(final Socket socket, final MessageHandler handler, final Executor readExecutor) {
+    ConnectionImpl(final Socket socket, final MessageHandler handler, final Executor readExecutor) throws IOException {
+        this(socket, socket.getOutputStream(), handler, readExecutor);
+    }
+
+    ConnectionImpl(final Socket socket, final OutputStream output, final MessageHandler handler, final Executor readExecutor) {
         this.socket = socket;
+        this.output = output;
         messageHandler = handler;
         this.readExecutor = readExecutor;
     }
@@ -158,11 +169,9 @@ final class ConnectionImpl implements Connection {
         return new Runnable() {
             public void run() {
                 try {
-                    Pipe pipe = null;
+                    BufferPipe pipe = null;
                     final InputStream is = socket.getInputStream();
                     OutputStream mos = null;
-                    final int bufferSize = 8192;
-                    final byte[] buffer = new byte[bufferSize];
                     for (;;) {
 
                         int cmd = is.read();
@@ -171,24 +180,16 @@ final class ConnectionImpl implements Connection {
                                 log.trace("Received end of stream");
                                 // end of stream
                                 safeHandleShutdown();
-                                boolean done;
                                 if (mos != null) {
                                     mos.close();
                                     pipe.await();
                                 }
-                                synchronized (lock) {
-                                    readDone = true;
-                                    done = writeDone;
-                                }
-                                if (done) {
-                                    StreamUtils.safeClose(socket);
-                                    safeHandleFinished();
-                                }
+                                handleReadDone();
                                 return;
                             }
                             case CHUNK_START: {
                                 if (mos == null) {
-                                    pipe = new Pipe(8192);
+                                    pipe = new BufferPipe(bufferPool, MAX_PIPE_SEGMENTS);
                                     // new message!
                                     final InputStream pis = pipe.getIn();
                                     mos = pipe.getOut();
@@ -201,14 +202,7 @@ final class ConnectionImpl implements Connection {
                                 }
                                 int cnt = StreamUtils.readInt(is);
                                 log.tracef("Received data chunk of size %d", Integer.valueOf(cnt));
-                                while (cnt > 0) {
-                                    int sc = is.read(buffer, 0, Math.min(cnt, bufferSize));
-                                    if (sc == -1) {
-                                        throw new EOFException("Unexpected end of stream");
-                                    }
-                                    mos.write(buffer, 0, sc);
-                                    cnt -= sc;
-                                }
+                                pipe.transferFrom(is, cnt);
                                 break;
                             }
                             case CHUNK_END: {
@@ -234,6 +228,21 @@ final class ConnectionImpl implements Connection {
         };
     }
 
+    /**
+     * Mark the read side as finished, closing the socket and notifying the handler if the write side is done too.
+     */
+    void handleReadDone() {
+        boolean done;
+        synchronized (lock) {
+            readDone = true;
+            done = writeDone;
+        }
+        if (done) {
+            StreamUtils.safeClose(socket);
+            safeHandleFinished();
+        }
+    }
+
     void safeHandleMessage(final InputStream pis) {
         try {
             messageHandler.handleMessage(this, pis);
@@ -295,8 +304,8 @@ final class ConnectionImpl implements Connection {
 
         private final byte[] hdr = new byte[5];
 
-        MessageOutputStream() throws IOException {
-            super(socket.getOutputStream());
+        MessageOutputStream() {
+            super(output);
         }
 
         @Override
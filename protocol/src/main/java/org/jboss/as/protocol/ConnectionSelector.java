@@ -0,0 +1,447 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.protocol;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.jboss.logging.Logger;
+
+import static org.jboss.as.protocol.ProtocolConstants.*;
+
+/**
+ * A selector loop which reads the chunked message framing of any number of non-blocking connections.  Each message
+ * is streamed to its handler through a {@link BufferPipe} as it arrives; messages are handed to the read executor in
+ * arrival order, one at a time per connection, so message handlers see the same sequencing as with a dedicated read
+ * thread.  Reads on a connection are suspended while its pipe is full.  If the read executor rejects a delivery,
+ * the connection is closed and its handler notified on the selector thread.
+ */
+final class ConnectionSelector implements Runnable {
+
+    private static final Logger log = Logger.getLogger("org.jboss.as.protocol.selector");
+
+    /** the number of undelivered messages at which reads on a connection are suspended **/
+    private static final int MAX_QUEUED_MESSAGES = 8;
+
+    private static final int STATE_COMMAND = 0;
+    private static final int STATE_LENGTH = 1;
+    private static final int STATE_DATA = 2;
+
+    /** the longest time between read timeout checks, in milliseconds **/
+    private static final long MAX_TIMEOUT_CHECK_INTERVAL = 1000L;
+
+    private final Selector selector;
+    private final Executor readExecutor;
+    private final int readTimeout;
+    private final Queue<Runnable> selectorTasks = new ConcurrentLinkedQueue<Runnable>();
+    private volatile boolean stop;
+
+    /**
+     * Create a new selector.
+     *
+     * @param readExecutor the executor which runs the message handlers
+     * @param readTimeout the time in milliseconds a connection may wait for data before it fails, or zero for no limit
+     * @throws IOException if the selector cannot be opened
+     */
+    ConnectionSelector(final Executor readExecutor, final int readTimeout) throws IOException {
+        this.readExecutor = readExecutor;
+        this.readTimeout = readTimeout;
+        selector = Selector.open();
+    }
+
+    /**
+     * Register a connected, non-blocking channel with this selector.
+     *
+     * @param channel the channel
+     * @param connection the connection which owns the channel
+     */
+    void register(final SocketChannel channel, final ConnectionImpl connection) {
+        execute(new Runnable() {
+            public void run() {
+                try {
+                    final ChannelReader reader = new ChannelReader(channel, connection);
+                    reader.lastRead = System.nanoTime();
+                    channel.register(selector, SelectionKey.OP_READ, reader);
+                } catch (ClosedChannelException e) {
+                    connection.safeHandlerFailure(e);
+                }
+            }
+        });
+    }
+
+    void stop() {
+        stop = true;
+        selector.wakeup();
+    }
+
+    private void execute(final Runnable task) {
+        selectorTasks.add(task);
+        selector.wakeup();
+    }
+
+    public void run() {
+        try {
+            while (! stop) {
+                Runnable task;
+                while ((task = selectorTasks.poll()) != null) {
+                    task.run();
+                }
+                selector.select(readTimeout > 0 ? Math.min(readTimeout, MAX_TIMEOUT_CHECK_INTERVAL) : 0L);
+                final Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+                while (iterator.hasNext()) {
+                    final SelectionKey key = iterator.next();
+                    iterator.remove();
+                    final ChannelReader reader = (ChannelReader) key.attachment();
+                    try {
+                        if (key.isReadable()) {
+                            reader.handleReadable(key);
+                        }
+                    } catch (CancelledKeyException e) {
+                        reader.handleFailure(key, new ClosedChannelException());
+                    }
+                }
+                if (readTimeout > 0) {
+                    checkReadTimeouts();
+                }
+            }
+        } catch (IOException e) {
+            log.errorf(e, "Connection selector failed");
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                StreamUtils.safeClose(key.channel());
+                ((ChannelReader) key.attachment()).closeMessage();
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                log.errorf(e, "Failed to close selector");
+            }
+        }
+    }
+
+    private void checkReadTimeouts() {
+        final long now = System.nanoTime();
+        final long timeout = readTimeout * 1000000L;
+        for (SelectionKey key : selector.keys()) {
+            try {
+                if (key.isValid() && (key.interestOps() & SelectionKey.OP_READ) != 0) {
+                    final ChannelReader reader = (ChannelReader) key.attachment();
+                    if (now - reader.lastRead >= timeout) {
+                        reader.handleFailure(key, new SocketTimeoutException("Read timed out"));
+                    }
+                }
+            } catch (CancelledKeyException e) {
+                // closed concurrently; the failure is reported when the key is selected
+            }
+        }
+    }
+
+    /**
+     * The per-channel read state.  Framing state is only touched by the selector thread; the delivery queue is
+     * shared with the read executor.
+     */
+    private final class ChannelReader {
+        private final SocketChannel channel;
+        private final ConnectionImpl connection;
+        private final ByteBuffer readBuffer = ByteBuffer.allocate(8192);
+
+        private int state = STATE_COMMAND;
+        private int length;
+        private int lengthBytes;
+        private BufferPipe message;
+        // the full pipe which reads wait for, if any
+        private BufferPipe blockedOn;
+        private long lastRead;
+        // set once the connection has been failed because the read executor rejected a delivery
+        private boolean rejected;
+
+        // protected by {@link #deliveries}
+        private final Queue<Runnable> deliveries = new ArrayDeque<Runnable>();
+        // protected by {@link #deliveries}
+        private boolean delivering;
+        // protected by {@link #deliveries}
+        private int queuedMessages;
+        // protected by {@link #deliveries}
+        private boolean suspended;
+
+        private final Runnable deliveryTask = new Runnable() {
+            public void run() {
+                deliver();
+            }
+        };
+
+        ChannelReader(final SocketChannel channel, final ConnectionImpl connection) {
+            this.channel = channel;
+            this.connection = connection;
+        }
+
+        void handleReadable(final SelectionKey key) {
+            if (blockedOn != null) {
+                return;
+            }
+            final ByteBuffer buffer = readBuffer;
+            try {
+                final int res = channel.read(buffer);
+                lastRead = System.nanoTime();
+                if (res == -1) {
+                    log.trace("Received end of stream");
+                    key.cancel();
+                    closeMessage();
+                    enqueue(new Runnable() {
+                        public void run() {
+                            connection.safeHandleShutdown();
+                            connection.handleReadDone();
+                        }
+                    }, false, key);
+                    return;
+                }
+                buffer.flip();
+                try {
+                    parse(buffer, key);
+                } finally {
+                    buffer.compact();
+                }
+            } catch (IOException e) {
+                handleFailure(key, e);
+            }
+        }
+
+        void handleFailure(final SelectionKey key, final IOException e) {
+            key.cancel();
+            StreamUtils.safeClose(channel);
+            closeMessage();
+            enqueue(new Runnable() {
+                public void run() {
+                    connection.safeHandlerFailure(e);
+                }
+            }, false, key);
+        }
+
+        private void parse(final ByteBuffer buffer, final SelectionKey key) throws IOException {
+            // stop once a rejected delivery has closed the connection
+            while (buffer.hasRemaining() && ! rejected) {
+                switch (state) {
+                    case STATE_COMMAND: {
+                        final int cmd = buffer.get() & 0xff;
+                        switch (cmd) {
+                            case CHUNK_START: {
+                                if (message == null) {
+                                    // new message; its handler reads the data as it arrives
+                                    message = new BufferPipe(ConnectionImpl.bufferPool, ConnectionImpl.MAX_PIPE_SEGMENTS);
+                                    enqueueMessage(message, key);
+                                }
+                                length = 0;
+                                lengthBytes = 0;
+                                state = STATE_LENGTH;
+                                break;
+                            }
+                            case CHUNK_END: {
+                                log.trace("Received end data marker");
+                                closeMessage();
+                                break;
+                            }
+                            default: {
+                                throw new IOException("Invalid command byte read: " + cmd);
+                            }
+                        }
+                        break;
+                    }
+                    case STATE_LENGTH: {
+                        length = length << 8 | buffer.get() & 0xff;
+                        if (++lengthBytes == 4) {
+                            if (length < 0) {
+                                throw new IOException("Invalid chunk length: " + length);
+                            }
+                            log.tracef("Received data chunk of size %d", Integer.valueOf(length));
+                            state = length == 0 ? STATE_COMMAND : STATE_DATA;
+                        }
+                        break;
+                    }
+                    case STATE_DATA: {
+                        final int cnt = Math.min(length, buffer.remaining());
+                        final int res = message.offer(buffer, cnt);
+                        length -= res;
+                        if (length == 0) {
+                            state = STATE_COMMAND;
+                        } else if (res < cnt) {
+                            // the handler is behind; leave the rest in the read buffer until it catches up
+                            blockOn(message, key);
+                            return;
+                        }
+                        break;
+                    }
+                    default: {
+                        throw new IllegalStateException();
+                    }
+                }
+            }
+        }
+
+        void closeMessage() {
+            final BufferPipe message = this.message;
+            if (message != null) {
+                this.message = null;
+                StreamUtils.safeClose(message.getOut());
+            }
+        }
+
+        private void blockOn(final BufferPipe pipe, final SelectionKey key) {
+            blockedOn = pipe;
+            key.interestOps(0);
+            pipe.whenWritable(new Runnable() {
+                public void run() {
+                    execute(new Runnable() {
+                        public void run() {
+                            unblock(key);
+                        }
+                    });
+                }
+            });
+        }
+
+        private void unblock(final SelectionKey key) {
+            blockedOn = null;
+            if (! key.isValid()) {
+                return;
+            }
+            final ByteBuffer buffer = readBuffer;
+            buffer.flip();
+            try {
+                parse(buffer, key);
+            } catch (IOException e) {
+                handleFailure(key, e);
+                return;
+            } finally {
+                buffer.compact();
+            }
+            updateInterest(key);
+        }
+
+        private void updateInterest(final SelectionKey key) {
+            if (! key.isValid() || blockedOn != null) {
+                return;
+            }
+            final boolean read;
+            synchronized (deliveries) {
+                read = ! suspended;
+            }
+            if (read && key.interestOps() == 0) {
+                // the connection was not waiting for data while it was suspended
+                lastRead = System.nanoTime();
+            }
+            key.interestOps(read ? SelectionKey.OP_READ : 0);
+        }
+
+        private void enqueueMessage(final BufferPipe message, final SelectionKey key) {
+            enqueue(new Runnable() {
+                public void run() {
+                    try {
+                        connection.safeHandleMessage(message.getIn());
+                    } finally {
+                        messageDelivered();
+                    }
+                }
+            }, true, key);
+        }
+
+        private void enqueue(final Runnable delivery, final boolean isMessage, final SelectionKey key) {
+            synchronized (deliveries) {
+                deliveries.add(delivery);
+                if (isMessage && ++queuedMessages >= MAX_QUEUED_MESSAGES && key.isValid()) {
+                    // the handlers are falling behind; stop reading until they catch up
+                    key.interestOps(0);
+                    suspended = true;
+                }
+                if (delivering) {
+                    return;
+                }
+                delivering = true;
+            }
+            try {
+                readExecutor.execute(deliveryTask);
+            } catch (RejectedExecutionException e) {
+                // nothing would ever deliver the queued messages, so fail the connection instead of stalling it
+                log.errorf(e, "Failed to dispatch a message for delivery, closing connection");
+                synchronized (deliveries) {
+                    deliveries.clear();
+                    queuedMessages = 0;
+                    delivering = false;
+                }
+                key.cancel();
+                StreamUtils.safeClose(channel);
+                closeMessage();
+                if (! rejected) {
+                    rejected = true;
+                    connection.safeHandlerFailure(new IOException("Message delivery was rejected", e));
+                }
+            }
+        }
+
+        private void deliver() {
+            for (;;) {
+                final Runnable delivery;
+                synchronized (deliveries) {
+                    delivery = deliveries.poll();
+                    if (delivery == null) {
+                        delivering = false;
+                        return;
+                    }
+                }
+                delivery.run();
+            }
+        }
+
+        private void messageDelivered() {
+            synchronized (deliveries) {
+                queuedMessages--;
+                if (suspended && queuedMessages < MAX_QUEUED_MESSAGES / 2) {
+                    suspended = false;
+                    resumeReads();
+                }
+            }
+        }
+
+        private void resumeReads() {
+            execute(new Runnable() {
+                public void run() {
+                    final SelectionKey key = channel.keyFor(selector);
+                    if (key != null) {
+                        updateInterest(key);
+                    }
+                }
+            });
+        }
+    }
+}
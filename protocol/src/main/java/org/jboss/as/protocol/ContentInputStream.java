@@ -0,0 +1,144 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.protocol;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Input stream for deployment content written by a {@link ContentOutputStream}.  The stream ends at the content
+ * terminator; if the underlying stream ends first an {@link EOFException} is thrown, so a truncated upload is never
+ * mistaken for complete content.
+ */
+public class ContentInputStream extends InputStream {
+    /** The largest chunk size a receiver accepts **/
+    public static final int MAX_CHUNK_SIZE = 4 * 1024 * 1024;
+
+    private final InputStream input;
+    private final int chunkSize;
+    private int remaining;
+    private boolean finished;
+    private long count;
+
+    /**
+     * Create a new stream, reading the content header.
+     *
+     * @param input the underlying stream
+     * @throws IOException if the header can not be read or is invalid
+     */
+    public ContentInputStream(final InputStream input) throws IOException {
+        this.input = input;
+        chunkSize = StreamUtils.readInt(input);
+        if (chunkSize < 1 || chunkSize > MAX_CHUNK_SIZE) {
+            throw new IOException("Invalid content chunk size " + chunkSize);
+        }
+    }
+
+    /**
+     * Get the chunk size chosen by the sender.  Readers can use it to size their buffers.
+     *
+     * @return the chunk size
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Get the number of content bytes read so far.
+     *
+     * @return the byte count
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /** {@inheritDoc} */
+    public int read() throws IOException {
+        if (! startChunk()) {
+            return -1;
+        }
+        final int b = input.read();
+        if (b == -1) {
+            throw truncated();
+        }
+        remaining--;
+        count++;
+        return b;
+    }
+
+    /** {@inheritDoc} */
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (! startChunk()) {
+            return -1;
+        }
+        final int res = input.read(b, off, Math.min(len, remaining));
+        if (res == -1) {
+            throw truncated();
+        }
+        remaining -= res;
+        count += res;
+        return res;
+    }
+
+    /** {@inheritDoc} */
+    public int available() throws IOException {
+        return finished ? 0 : Math.min(remaining, input.available());
+    }
+
+    /**
+     * Does not close the underlying stream.
+     */
+    public void close() throws IOException {
+    }
+
+    private boolean startChunk() throws IOException {
+        while (remaining == 0) {
+            if (finished) {
+                return false;
+            }
+            final int length;
+            try {
+                length = StreamUtils.readInt(input);
+            } catch (EOFException e) {
+                throw truncated();
+            }
+            if (length == 0) {
+                finished = true;
+                return false;
+            }
+            if (length < 0 || length > chunkSize) {
+                throw new IOException("Invalid content chunk length " + length);
+            }
+            remaining = length;
+        }
+        return true;
+    }
+
+    private EOFException truncated() {
+        return new EOFException("Content ended after " + count + " bytes, before its terminator");
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.protocol;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Output stream for deployment content sent within a management message.  The content is written as a header
+ * holding the chunk size, then chunks of up to that size each prefixed by its length, and a zero length terminator,
+ * so the receiver can tell complete content from a connection which failed part way through.  Content larger than
+ * the chunk size is written straight through to the underlying stream without being copied.
+ * This should be read with a {@link ContentInputStream}.
+ */
+public class ContentOutputStream extends OutputStream {
+    /** The chunk size used when none is given **/
+    public static final int DEFAULT_CHUNK_SIZE = 256 * 1024;
+
+    private final OutputStream output;
+    private final byte[] buffer;
+    private int position;
+    private boolean headerWritten;
+    private boolean closed;
+
+    public ContentOutputStream(final OutputStream output) {
+        this(output, DEFAULT_CHUNK_SIZE);
+    }
+
+    public ContentOutputStream(final OutputStream output, final int chunkSize) {
+        if (chunkSize < 1 || chunkSize > ContentInputStream.MAX_CHUNK_SIZE) {
+            throw new IllegalArgumentException("Invalid chunk size " + chunkSize);
+        }
+        this.output = output;
+        buffer = new byte[chunkSize];
+    }
+
+    /** {@inheritDoc} */
+    public void write(final int b) throws IOException {
+        if (position == buffer.length) {
+            flushBuffer();
+        }
+        buffer[position++] = (byte) b;
+    }
+
+    /** {@inheritDoc} */
+    public void write(final byte[] b, int off, int len) throws IOException {
+        final int chunkSize = buffer.length;
+        while (len > 0) {
+            if (position == 0 && len >= chunkSize) {
+                // a whole chunk is available; don't copy it
+                writeChunk(b, off, chunkSize);
+                off += chunkSize;
+                len -= chunkSize;
+            } else {
+                final int cnt = Math.min(len, chunkSize - position);
+                System.arraycopy(b, off, buffer, position, cnt);
+                position += cnt;
+                off += cnt;
+                len -= cnt;
+                if (position == chunkSize) {
+                    flushBuffer();
+                }
+            }
+        }
+    }
+
+    /**
+     * Write the remaining content of a stream, reading it directly into the chunk buffer.
+     *
+     * @param input the stream to read
+     * @return the number of bytes written
+     * @throws IOException if reading or writing fails
+     */
+    public long transferFrom(final InputStream input) throws IOException {
+        final byte[] buffer = this.buffer;
+        long total = 0L;
+        int res;
+        while ((res = input.read(buffer, position, buffer.length - position)) != -1) {
+            position += res;
+            total += res;
+            if (position == buffer.length) {
+                flushBuffer();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Writes out any buffered content followed by the terminator.  <em>This will not close the underlying stream</em>
+     *
+     * @throws IOException if writing fails
+     */
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        flushBuffer();
+        writeHeader();
+        StreamUtils.writeInt(output, 0);
+        output.flush();
+    }
+
+    private void flushBuffer() throws IOException {
+        if (position > 0) {
+            writeChunk(buffer, 0, position);
+            position = 0;
+        }
+    }
+
+    private void writeChunk(final byte[] b, final int off, final int len) throws IOException {
+        writeHeader();
+        StreamUtils.writeInt(output, len);
+        output.write(b, off, len);
+    }
+
+    private void writeHeader() throws IOException {
+        if (! headerWritten) {
+            headerWritten = true;
+            StreamUtils.writeInt(output, buffer.length);
+        }
+    }
+}
@@ -77,14 +77,15 @@ public final class ProtocolClient {
     public Connection connect() throws IOException {
         log.tracef("Creating connection to %s", serverAddress);
         final Socket socket = socketFactory.createSocket();
+        if (bindAddress != null) socket.bind(bindAddress);
+        if (readTimeout != 0) socket.setSoTimeout(readTimeout);
+        socket.connect(serverAddress, connectTimeout);
         final ConnectionImpl connection = new ConnectionImpl(socket, messageHandler, readExecutor);
         final Thread thread = threadFactory.newThread(connection.getReadTask());
         if (thread == null) {
+            StreamUtils.safeClose(socket);
             throw new IllegalStateException("Thread creation was refused");
         }
-        if (bindAddress != null) socket.bind(bindAddress);
-        if (readTimeout != 0) socket.setSoTimeout(readTimeout);
-        socket.connect(serverAddress, connectTimeout);
         thread.setName("Read thread for " + serverAddress);
         thread.start();
         log.tracef("Connected to %s", serverAddress);
@@ -26,7 +26,10 @@ import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.ThreadFactory;
 
 import javax.net.ServerSocketFactory;
@@ -34,6 +37,11 @@ import javax.net.ServerSocketFactory;
 import org.jboss.logging.Logger;
 
 /**
+ * A protocol server.  By default each accepted connection is read by a dedicated thread; if a positive number of
+ * {@linkplain Configuration#setSelectorThreads(int) selector threads} is configured, connections are instead
+ * read without blocking by that fixed number of threads, and message data is streamed to handlers on the read
+ * executor.
+ *
  * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
  */
 public final class ProtocolServer {
@@ -46,7 +54,11 @@ public final class ProtocolServer {
     private final InetSocketAddress bindAddress;
     private final int backlog;
     private final int readTimeout;
+    private final int writeTimeout;
     private final Executor readExecutor;
+    private final int selectorThreads;
+    private final AtomicInteger nextSelector = new AtomicInteger();
+    private volatile ConnectionSelector[] selectors;
     private volatile boolean stop;
     private volatile Thread thread;
     private volatile ServerSocket serverSocket;
@@ -59,7 +71,9 @@ public final class ProtocolServer {
         bindAddress = configuration.getBindAddress();
         backlog = configuration.getBacklog();
         readTimeout = configuration.getReadTimeout();
+        writeTimeout = configuration.getWriteTimeout();
         readExecutor = configuration.getReadExecutor();
+        selectorThreads = configuration.getSelectorThreads();
         if (bindAddress == null) {
             throw new IllegalArgumentException("bindAddress is null");
         }
@@ -71,7 +85,16 @@ public final class ProtocolServer {
     public void start() throws IOException {
         stop = false;
 
-        final ServerSocket serverSocket = socketFactory.createServerSocket();
+        final ServerSocket serverSocket;
+        if (selectorThreads > 0 && socketFactory == ServerSocketFactory.getDefault()) {
+            serverSocket = ServerSocketChannel.open().socket();
+            startSelectors();
+        } else {
+            if (selectorThreads > 0) {
+                log.warnf("Sockets created by %s cannot be read without blocking; connections to %s will use dedicated read threads", socketFactory, bindAddress);
+            }
+            serverSocket = socketFactory.createServerSocket();
+        }
         this.serverSocket = serverSocket;
         thread = threadFactory.newThread(new Runnable() {
             public void run() {
@@ -112,6 +135,21 @@ public final class ProtocolServer {
         thread.start();
     }
 
+    private void startSelectors() throws IOException {
+        final ConnectionSelector[] selectors = new ConnectionSelector[selectorThreads];
+        for (int i = 0; i < selectors.length; i++) {
+            final ConnectionSelector selector = new ConnectionSelector(readExecutor, readTimeout);
+            final Thread thread = threadFactory.newThread(selector);
+            if (thread == null) {
+                throw new IOException("Failed to create selector thread");
+            }
+            thread.setName("Selector thread " + (i + 1) + " for " + bindAddress);
+            thread.start();
+            selectors[i] = selector;
+        }
+        this.selectors = selectors;
+    }
+
     public void stop() {
         stop = true;
         final Thread thread = this.thread;
@@ -120,11 +158,28 @@ public final class ProtocolServer {
             thread.interrupt();
         }
         StreamUtils.safeClose(serverSocket);
+        final ConnectionSelector[] selectors = this.selectors;
+        if (selectors != null) {
+            this.selectors = null;
+            for (ConnectionSelector selector : selectors) {
+                selector.stop();
+            }
+        }
     }
 
     private void safeHandleConnection(final Socket socket) {
         boolean ok = false;
         try {
+            final SocketChannel channel = socket.getChannel();
+            final ConnectionSelector[] selectors = this.selectors;
+            if (channel != null && selectors != null) {
+                channel.configureBlocking(false);
+                final ConnectionImpl connection = new ConnectionImpl(socket, new ChannelOutputStream(channel, writeTimeout), MessageHandler.NULL, readExecutor);
+                connection.setMessageHandler(connectionHandler.handleConnected(connection));
+                selectors[(nextSelector.getAndIncrement() & Integer.MAX_VALUE) % selectors.length].register(channel, connection);
+                ok = true;
+                return;
+            }
             final ConnectionImpl connection = new ConnectionImpl(socket, MessageHandler.NULL, readExecutor);
             connection.setMessageHandler(connectionHandler.handleConnected(connection));
             final Thread thread = threadFactory.newThread(connection.getReadTask());
@@ -159,7 +214,9 @@ public final class ProtocolServer {
         private InetSocketAddress bindAddress;
         private int backlog;
         private int readTimeout;
+        private int writeTimeout;
         private Executor readExecutor;
+        private int selectorThreads;
 
         public ThreadFactory getThreadFactory() {
             return threadFactory;
@@ -217,6 +274,20 @@ public final class ProtocolServer {
             this.readTimeout = readTimeout;
         }
 
+        public int getWriteTimeout() {
+            return writeTimeout;
+        }
+
+        /**
+         * Set the time in milliseconds a write may wait for the peer to accept data before it fails, or zero to wait
+         * indefinitely.  Only connections read by selector threads support a write timeout.
+         *
+         * @param writeTimeout the write timeout
+         */
+        public void setWriteTimeout(final int writeTimeout) {
+            this.writeTimeout = writeTimeout;
+        }
+
         public Executor getReadExecutor() {
             return readExecutor;
         }
@@ -224,5 +295,21 @@ public final class ProtocolServer {
         public void setReadExecutor(final Executor readExecutor) {
             this.readExecutor = readExecutor;
         }
+
+        public int getSelectorThreads() {
+            return selectorThreads;
+        }
+
+        /**
+         * Set the number of threads which read from accepted connections using non-blocking I/O.  If zero (the
+         * default), each connection gets its own blocking read thread.  Selector threads are only used with the
+         * {@linkplain ServerSocketFactory#getDefault() default} socket factory, since other factories (such as SSL)
+         * create sockets which cannot be read without blocking.
+         *
+         * @param selectorThreads the number of selector threads
+         */
+        public void setSelectorThreads(final int selectorThreads) {
+            this.selectorThreads = selectorThreads;
+        }
     }
 }
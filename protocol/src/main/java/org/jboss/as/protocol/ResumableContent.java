@@ -0,0 +1,138 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.protocol;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Works out where the upload of some content can resume, given the length and SHA-1 hash of the part the receiver
+ * already holds from an interrupted upload.  The leading bytes of the content are hashed locally; if they match, the
+ * upload resumes after them, otherwise the content is sent in full.  The leading bytes are spooled to a temporary
+ * file while they are hashed so they can still be sent if they do not match.
+ */
+public final class ResumableContent {
+    private final long offset;
+    private final InputStream stream;
+
+    private ResumableContent(final long offset, final InputStream stream) {
+        this.offset = offset;
+        this.stream = stream;
+    }
+
+    /**
+     * Get the number of leading bytes the receiver already holds.
+     *
+     * @return the offset to resume from, or {@code 0} to send the full content
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Get the content to send, starting at the {@link #getOffset() offset}.
+     *
+     * @return the content stream
+     */
+    public InputStream getStream() {
+        return stream;
+    }
+
+    /**
+     * Compare the start of some content with a partial upload.
+     *
+     * @param content the full content
+     * @param partialLength the number of bytes the receiver holds
+     * @param partialHash the SHA-1 hash of those bytes
+     * @return the point to resume from
+     * @throws IOException if the content can not be read or spooled
+     */
+    public static ResumableContent resume(final InputStream content, final long partialLength, final byte[] partialHash) throws IOException {
+        if (partialLength <= 0L || partialHash == null) {
+            return new ResumableContent(0L, content);
+        }
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Cannot obtain SHA-1 " + MessageDigest.class.getSimpleName(), e);
+        }
+        final File spool = File.createTempFile("content", ".spool");
+        boolean ok = false;
+        try {
+            long remaining = partialLength;
+            final OutputStream out = new BufferedOutputStream(new FileOutputStream(spool));
+            try {
+                final byte[] buffer = new byte[8192];
+                int res;
+                while (remaining > 0L && (res = content.read(buffer, 0, (int) Math.min(remaining, buffer.length))) != -1) {
+                    digest.update(buffer, 0, res);
+                    out.write(buffer, 0, res);
+                    remaining -= res;
+                }
+                out.close();
+            } finally {
+                StreamUtils.safeClose(out);
+            }
+            if (remaining == 0L && Arrays.equals(partialHash, digest.digest())) {
+                return new ResumableContent(partialLength, content);
+            }
+            // different content; send it all
+            final InputStream spooled = new SpoolInputStream(spool);
+            ok = true;
+            return new ResumableContent(0L, new SequenceInputStream(spooled, content));
+        } finally {
+            if (! ok && ! spool.delete()) {
+                spool.deleteOnExit();
+            }
+        }
+    }
+
+    private static final class SpoolInputStream extends FileInputStream {
+        private final File file;
+
+        SpoolInputStream(final File file) throws IOException {
+            super(file);
+            this.file = file;
+        }
+
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (! file.delete()) {
+                    file.deleteOnExit();
+                }
+            }
+        }
+    }
+}
@@ -69,4 +69,5 @@ public interface HostControllerProtocol {
     int STOP_SERVER_RESPONSE = 0x62;
     int RESTART_SERVER_REQUEST = 0x63;
     int RESTART_SERVER_RESPONSE = 0x64;
+    int PARAM_DOMAIN_MODEL_VERSION = 0x65;
 }
@@ -0,0 +1,544 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.protocol.mgmt;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jboss.as.protocol.Connection;
+import static org.jboss.as.protocol.StreamUtils.safeClose;
+
+/**
+ * A pool of keep-alive management connections.  Each request runs on its own channel of a pooled
+ * {@link MultiplexedConnection}, so concurrent requests to the same endpoint share a connection and a series of
+ * requests only pays the connection cost once.
+ * <p/>
+ * The number of channels on one connection and the number of connections per endpoint are both bounded.  Another
+ * connection is only opened when every open connection carries the maximum number of channels, and when no more
+ * connections may be opened a request waits for a channel to be released.  Connections which have carried no
+ * channel for longer than the idle timeout are closed, and a connection which has failed or been shut down by the
+ * remote side is discarded when it is next looked at.
+ * <p/>
+ * A connection which has not been known to work for {@link #VALIDATION_INTERVAL} is {@link MultiplexedConnection#ping
+ * pinged} before it is handed out, so a peer which went away without closing the connection is noticed before a
+ * request is sent to it.  If the pool is given a scheduled executor, it also closes idle connections and pings
+ * unused ones in the background, so that connections to endpoints which get no further requests do not linger until
+ * the pool is closed.
+ */
+public final class ManagementConnectionPool {
+
+    /** the default number of concurrent requests on one connection **/
+    public static final int DEFAULT_MAX_CHANNELS_PER_CONNECTION = 64;
+
+    /** the time in milliseconds after which an unused connection is pinged before it is used again **/
+    public static final long VALIDATION_INTERVAL = 5000L;
+
+    /** the shortest time in milliseconds a ping may take; otherwise a ping may take as long as the validation interval **/
+    private static final long MIN_PING_TIMEOUT = 1000L;
+
+    private final int maxConnectionsPerEndpoint;
+    private final int maxChannelsPerConnection;
+    private final long idleTimeout;
+    private final long validationInterval;
+    private final long connectTimeout;
+    private final ExecutorService executorService;
+    private final ThreadFactory threadFactory;
+    private final ConcurrentMap<InetSocketAddress, Endpoint> endpoints = new ConcurrentHashMap<InetSocketAddress, Endpoint>();
+    private final ScheduledFuture<?> reaper;
+    private volatile boolean closed;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong creations = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong waitTime = new AtomicLong();
+    private final AtomicLong failedValidations = new AtomicLong();
+
+    /**
+     * Create a new pool which allows {@link #DEFAULT_MAX_CHANNELS_PER_CONNECTION} requests on each connection.
+     *
+     * @param maxConnectionsPerEndpoint The maximum number of connections to one endpoint
+     * @param idleTimeout The time after which an unused connection is closed, in milliseconds
+     * @param connectTimeout The connect timeout in seconds
+     * @param executorService The executor used to read from the connections
+     * @param threadFactory The thread factory
+     */
+    public ManagementConnectionPool(final int maxConnectionsPerEndpoint, final long idleTimeout, final long connectTimeout, final ExecutorService executorService, final ThreadFactory threadFactory) {
+        this(maxConnectionsPerEndpoint, DEFAULT_MAX_CHANNELS_PER_CONNECTION, idleTimeout, connectTimeout, executorService, threadFactory);
+    }
+
+    /**
+     * Create a new pool.
+     *
+     * @param maxConnectionsPerEndpoint The maximum number of connections to one endpoint
+     * @param maxChannelsPerConnection The maximum number of concurrent requests on one connection
+     * @param idleTimeout The time after which an unused connection is closed, in milliseconds
+     * @param connectTimeout The connect timeout in seconds
+     * @param executorService The executor used to read from the connections
+     * @param threadFactory The thread factory
+     */
+    public ManagementConnectionPool(final int maxConnectionsPerEndpoint, final int maxChannelsPerConnection, final long idleTimeout, final long connectTimeout, final ExecutorService executorService, final ThreadFactory threadFactory) {
+        this(maxConnectionsPerEndpoint, maxChannelsPerConnection, idleTimeout, connectTimeout, executorService, threadFactory, null);
+    }
+
+    /**
+     * Create a new pool which closes idle connections and checks unused ones in the background.
+     *
+     * @param maxConnectionsPerEndpoint The maximum number of connections to one endpoint
+     * @param maxChannelsPerConnection The maximum number of concurrent requests on one connection
+     * @param idleTimeout The time after which an unused connection is closed, in milliseconds
+     * @param connectTimeout The connect timeout in seconds
+     * @param executorService The executor used to read from the connections
+     * @param threadFactory The thread factory
+     * @param reaperExecutor The executor which runs the background checks, or {@code null} to only check connections
+     *      when they are requested
+     */
+    public ManagementConnectionPool(final int maxConnectionsPerEndpoint, final int maxChannelsPerConnection, final long idleTimeout, final long connectTimeout, final ExecutorService executorService, final ThreadFactory threadFactory, final ScheduledExecutorService reaperExecutor) {
+        this(maxConnectionsPerEndpoint, maxChannelsPerConnection, idleTimeout, VALIDATION_INTERVAL, connectTimeout, executorService, threadFactory, reaperExecutor);
+    }
+
+    ManagementConnectionPool(final int maxConnectionsPerEndpoint, final int maxChannelsPerConnection, final long idleTimeout, final long validationInterval, final long connectTimeout, final ExecutorService executorService, final ThreadFactory threadFactory, final ScheduledExecutorService reaperExecutor) {
+        if (maxConnectionsPerEndpoint < 1) {
+            throw new IllegalArgumentException("maxConnectionsPerEndpoint must be at least 1");
+        }
+        if (maxChannelsPerConnection < 1) {
+            throw new IllegalArgumentException("maxChannelsPerConnection must be at least 1");
+        }
+        this.maxConnectionsPerEndpoint = maxConnectionsPerEndpoint;
+        this.maxChannelsPerConnection = maxChannelsPerConnection;
+        this.idleTimeout = idleTimeout;
+        this.validationInterval = validationInterval;
+        this.connectTimeout = connectTimeout;
+        this.executorService = executorService;
+        this.threadFactory = threadFactory;
+        if (reaperExecutor != null) {
+            final long period = Math.max(1L, Math.min(idleTimeout, validationInterval / 2));
+            reaper = reaperExecutor.scheduleWithFixedDelay(new Runnable() {
+                public void run() {
+                    reap();
+                }
+            }, period, period, TimeUnit.MILLISECONDS);
+        } else {
+            reaper = null;
+        }
+    }
+
+    /**
+     * Get a connection strategy for a single request to the given endpoint.
+     *
+     * @param address The endpoint address
+     * @param port The endpoint port
+     * @return The connection strategy
+     */
+    public ManagementRequestConnectionStrategy getConnectionStrategy(final InetAddress address, final int port) {
+        final InetSocketAddress key = new InetSocketAddress(address, port);
+        Endpoint endpoint = endpoints.get(key);
+        if (endpoint == null) {
+            final Endpoint newEndpoint = new Endpoint(address, port);
+            endpoint = endpoints.putIfAbsent(key, newEndpoint);
+            if (endpoint == null) {
+                endpoint = newEndpoint;
+            }
+        }
+        return new PooledConnectionStrategy(endpoint);
+    }
+
+    /**
+     * Close all idle connections and stop pooling.  Requests in progress complete normally; their connections are
+     * closed once the last of them is done.
+     */
+    public void close() {
+        closed = true;
+        if (reaper != null) {
+            reaper.cancel(false);
+        }
+        for (Endpoint endpoint : endpoints.values()) {
+            endpoint.closeIdle();
+        }
+    }
+
+    /**
+     * Get the number of requests which reused an open connection.
+     *
+     * @return The number of hits
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Get the number of requests which had to open a connection.
+     *
+     * @return The number of misses
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Get the number of connections opened by the pool.
+     *
+     * @return The number of connections created
+     */
+    public long getCreations() {
+        return creations.get();
+    }
+
+    /**
+     * Get the number of connections closed because they were idle for too long.
+     *
+     * @return The number of evictions
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Get the number of connections closed because they did not answer a ping.
+     *
+     * @return The number of failed validations
+     */
+    public long getFailedValidations() {
+        return failedValidations.get();
+    }
+
+    /**
+     * Get the total time requests have spent waiting for a channel to be released.
+     *
+     * @return The wait time in milliseconds
+     */
+    public long getWaitTime() {
+        return TimeUnit.NANOSECONDS.toMillis(waitTime.get());
+    }
+
+    private void reap() {
+        for (Endpoint endpoint : endpoints.values()) {
+            try {
+                endpoint.reap();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * The connections to a single endpoint.
+     */
+    private final class Endpoint {
+        private final InetAddress address;
+        private final int port;
+
+        // protected by this
+        private final List<PooledConnection> connections = new ArrayList<PooledConnection>();
+        // protected by this; connections being established
+        private int connecting;
+
+        Endpoint(final InetAddress address, final int port) {
+            this.address = address;
+            this.port = port;
+        }
+
+        PooledConnection borrow() throws IOException {
+            for (;;) {
+                PooledConnection unchecked = null;
+                final List<PooledConnection> discarded = new ArrayList<PooledConnection>();
+                try {
+                    synchronized (this) {
+                        long waitStart = 0L;
+                        try {
+                            for (;;) {
+                                if (closed) {
+                                    throw new IOException("Connection pool is closed");
+                                }
+                                evict(discarded);
+                                // the least loaded connection which can take another channel
+                                PooledConnection best = null;
+                                for (PooledConnection pooled : connections) {
+                                    if (!pooled.validating && pooled.channels < maxChannelsPerConnection && (best == null || pooled.channels < best.channels)) {
+                                        best = pooled;
+                                    }
+                                }
+                                if (best != null) {
+                                    best.channels++;
+                                    if (best.channels == 1 && System.currentTimeMillis() - best.lastAlive >= validationInterval) {
+                                        // unused for a while; make sure the remote side still answers before using it
+                                        best.validating = true;
+                                        unchecked = best;
+                                        break;
+                                    }
+                                    hits.incrementAndGet();
+                                    return best;
+                                }
+                                if (connections.size() + connecting < maxConnectionsPerEndpoint) {
+                                    connecting++;
+                                    break;
+                                }
+                                if (waitStart == 0L) {
+                                    waitStart = System.nanoTime();
+                                }
+                                wait();
+                            }
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new InterruptedIOException("Interrupted while waiting for a connection");
+                        } finally {
+                            if (waitStart != 0L) {
+                                waitTime.addAndGet(System.nanoTime() - waitStart);
+                            }
+                        }
+                    }
+                } finally {
+                    for (PooledConnection pooled : discarded) {
+                        pooled.connection.close();
+                    }
+                }
+                if (unchecked == null) {
+                    return connect();
+                }
+                final boolean alive;
+                try {
+                    alive = validate(unchecked);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    release(unchecked);
+                    throw new InterruptedIOException("Interrupted while checking a connection");
+                }
+                if (alive) {
+                    hits.incrementAndGet();
+                    return unchecked;
+                }
+                // the connection was dropped; try the next one
+            }
+        }
+
+        private PooledConnection connect() throws IOException {
+            misses.incrementAndGet();
+            PooledConnection pooled = null;
+            try {
+                pooled = new PooledConnection(MultiplexedConnection.connect(address, port, connectTimeout, executorService, threadFactory));
+                creations.incrementAndGet();
+                return pooled;
+            } finally {
+                synchronized (this) {
+                    connecting--;
+                    if (pooled != null) {
+                        pooled.channels = 1;
+                        connections.add(pooled);
+                    }
+                    // waiters may share the new connection, or open one in place of a failed attempt
+                    notifyAll();
+                }
+            }
+        }
+
+        /**
+         * Ping a connection which is marked as validating, and drop it if it does not answer.  An interrupted check
+         * leaves the connection in the pool.
+         */
+        private boolean validate(final PooledConnection pooled) throws InterruptedException {
+            boolean alive = false;
+            boolean checked = false;
+            try {
+                alive = pooled.connection.ping(Math.max(validationInterval, MIN_PING_TIMEOUT), TimeUnit.MILLISECONDS);
+                checked = true;
+            } finally {
+                final boolean dead = checked && !alive;
+                synchronized (this) {
+                    pooled.validating = false;
+                    if (alive) {
+                        pooled.lastAlive = System.currentTimeMillis();
+                    } else if (dead && connections.remove(pooled)) {
+                        failedValidations.incrementAndGet();
+                    }
+                    notifyAll();
+                }
+                if (dead) {
+                    pooled.connection.close();
+                }
+            }
+            return alive;
+        }
+
+        void reap() throws InterruptedException {
+            final List<PooledConnection> discarded = new ArrayList<PooledConnection>();
+            final List<PooledConnection> unchecked = new ArrayList<PooledConnection>();
+            synchronized (this) {
+                evict(discarded);
+                final long now = System.currentTimeMillis();
+                for (PooledConnection pooled : connections) {
+                    if (pooled.channels == 0 && !pooled.validating && now - pooled.lastAlive >= validationInterval) {
+                        pooled.validating = true;
+                        unchecked.add(pooled);
+                    }
+                }
+                if (!discarded.isEmpty()) {
+                    notifyAll();
+                }
+            }
+            for (PooledConnection pooled : discarded) {
+                pooled.connection.close();
+            }
+            final Iterator<PooledConnection> iterator = unchecked.iterator();
+            try {
+                while (iterator.hasNext()) {
+                    validate(iterator.next());
+                }
+            } finally {
+                // left over if interrupted
+                synchronized (this) {
+                    while (iterator.hasNext()) {
+                        iterator.next().validating = false;
+                    }
+                    notifyAll();
+                }
+            }
+        }
+
+        void release(final PooledConnection pooled) {
+            synchronized (this) {
+                pooled.channels--;
+                pooled.lastUsed = System.currentTimeMillis();
+                pooled.lastAlive = pooled.lastUsed;
+                if (pooled.channels > 0 || (!closed && pooled.connection.isOpen())) {
+                    notifyAll();
+                    return;
+                }
+                connections.remove(pooled);
+                notifyAll();
+            }
+            pooled.connection.close();
+        }
+
+        void closeIdle() {
+            final List<PooledConnection> discarded = new ArrayList<PooledConnection>();
+            synchronized (this) {
+                final Iterator<PooledConnection> iterator = connections.iterator();
+                while (iterator.hasNext()) {
+                    final PooledConnection pooled = iterator.next();
+                    if (pooled.channels == 0) {
+                        iterator.remove();
+                        discarded.add(pooled);
+                    }
+                }
+                notifyAll();
+            }
+            for (PooledConnection pooled : discarded) {
+                pooled.connection.close();
+            }
+        }
+
+        // call with this lock held
+        private void evict(final List<PooledConnection> discarded) {
+            final long now = System.currentTimeMillis();
+            final Iterator<PooledConnection> iterator = connections.iterator();
+            while (iterator.hasNext()) {
+                final PooledConnection pooled = iterator.next();
+                if (pooled.validating) {
+                    // being pinged; dropped by the check if it failed
+                    continue;
+                }
+                if (!pooled.connection.isOpen()) {
+                    // the remote side has gone away; requests still using it fail on their own
+                    iterator.remove();
+                    if (pooled.channels == 0) {
+                        discarded.add(pooled);
+                    }
+                } else if (pooled.channels == 0 && now - pooled.lastUsed >= idleTimeout) {
+                    iterator.remove();
+                    evictions.incrementAndGet();
+                    discarded.add(pooled);
+                }
+            }
+        }
+    }
+
+    private static final class PooledConnection {
+        private final MultiplexedConnection connection;
+        // protected by the endpoint
+        private int channels;
+        // protected by the endpoint
+        private long lastUsed;
+        // protected by the endpoint; the last time a request completed or a ping was answered
+        private long lastAlive = System.currentTimeMillis();
+        // protected by the endpoint; set while the connection is pinged, during which it is not handed out
+        private boolean validating;
+
+        PooledConnection(final MultiplexedConnection connection) {
+            this.connection = connection;
+        }
+    }
+
+    /**
+     * Strategy that runs one request on a channel of a pooled connection.
+     */
+    private static final class PooledConnectionStrategy implements ManagementRequestConnectionStrategy {
+        private final Endpoint endpoint;
+        private PooledConnection pooled;
+        private Connection channel;
+
+        PooledConnectionStrategy(final Endpoint endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        /** {@inheritDoc} */
+        public synchronized Connection getConnection() throws IOException {
+            if (channel == null) {
+                pooled = endpoint.borrow();
+                boolean ok = false;
+                try {
+                    channel = pooled.connection.openChannel();
+                    ok = true;
+                } finally {
+                    if (!ok) {
+                        endpoint.release(pooled);
+                        pooled = null;
+                    }
+                }
+            }
+            return channel;
+        }
+
+        /** {@inheritDoc} */
+        public synchronized void complete() {
+            if (pooled != null) {
+                safeClose(channel);
+                endpoint.release(pooled);
+                pooled = null;
+            }
+        }
+    }
+}
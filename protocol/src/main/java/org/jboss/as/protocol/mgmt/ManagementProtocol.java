@@ -29,7 +29,8 @@ public interface ManagementProtocol {
     // Headers
     byte[] SIGNATURE = {Byte.MAX_VALUE, Byte.MIN_VALUE, Byte.MAX_VALUE, Byte.MIN_VALUE};
     int VERSION_FIELD = 0x00; // The version field header
-    int VERSION = 1; // The current protocol version
+    int VERSION = 2; // The current protocol version
+    int STREAMED_CONTENT_VERSION = 2; // The first version sending deployment content as a ContentOutputStream
 
     int REQUEST_START = 0x01;
     int REQUEST_OPERATION = 0x02;
@@ -38,6 +39,9 @@ public interface ManagementProtocol {
     int RESPONSE_START = 0x05;
     int RESPONSE_BODY = 0x06;
     int RESPONSE_END = 0x07;
+    int REQUEST_ID_FIELD = 0x08; // Prefix of every message on a multiplexed connection
+    int PING = 0x09; // A liveness probe on a multiplexed connection, instead of a request id
+    int PONG = 0x0A; // The answer to a PING
 
 
 }
@@ -78,8 +78,12 @@ public abstract class ManagementRequest<T> extends AbstractMessageHandler {
         this.connectionStrategy = connectionStrategy;
         OutputStream dataOutput = null;
         ByteDataOutput output = null;
+        boolean ok = false;
         try {
             final Connection connection = connectionStrategy.getConnection();
+            if (connection instanceof MultiplexedConnection.Channel) {
+                requestId = ((MultiplexedConnection.Channel) connection).getRequestId();
+            }
             connection.setMessageHandler(initiatingMessageHandler);
             dataOutput = connection.writeMessage();
             output = new SimpleByteDataOutput(dataOutput);
@@ -89,9 +93,13 @@ public abstract class ManagementRequest<T> extends AbstractMessageHandler {
             connection.setMessageHandler(initiatingMessageHandler);
             output.close();
             dataOutput.close();
+            ok = true;
         } finally {
             safeClose(output);
             safeClose(dataOutput);
+            if (!ok) {
+                connectionStrategy.complete();
+            }
         }
         return future;
     }
@@ -107,6 +115,32 @@ public abstract class ManagementRequest<T> extends AbstractMessageHandler {
         return execute(connectionStrategy).get();
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public void handleShutdown(final Connection connection) throws IOException {
+        failRequest(connection);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void handleFailure(final Connection connection, final IOException e) throws IOException {
+        future.setException(e);
+        try {
+            super.handleFailure(connection, e);
+        } finally {
+            connectionStrategy.complete();
+        }
+    }
+
+    private void failRequest(final Connection connection) throws IOException {
+        future.setException(new IOException("Connection closed before the response was received"));
+        try {
+            connection.shutdownWrites();
+        } finally {
+            connectionStrategy.complete();
+        }
+    }
+
     /** {@inheritDoc} */
     @Override
     public void handle(Connection connection, InputStream input) throws IOException {
@@ -122,7 +156,7 @@ public abstract class ManagementRequest<T> extends AbstractMessageHandler {
         }
     }
 
-    private MessageHandler initiatingMessageHandler = new AbstractMessageHandler() {
+    private MessageHandler initiatingMessageHandler = new ResponseMessageHandler() {
         @Override
         public final void handle(final Connection connection, final InputStream inputStream) throws IOException {
             final ManagementResponseHeader responseHeader;
@@ -200,7 +234,7 @@ public abstract class ManagementRequest<T> extends AbstractMessageHandler {
 
     protected abstract byte getResponseCode();
 
-    private MessageHandler responseBodyHandler = new AbstractMessageHandler() {
+    private MessageHandler responseBodyHandler = new ResponseMessageHandler() {
         @Override
         public final void handle(final Connection connection, final InputStream input) throws IOException {
             try {
@@ -216,22 +250,28 @@ public abstract class ManagementRequest<T> extends AbstractMessageHandler {
         }
     };
 
-    private MessageHandler responseEndHandler = new AbstractMessageHandler() {
+    private MessageHandler responseEndHandler = new ResponseMessageHandler() {
         @Override
         public final void handle(final Connection connection, final InputStream input) throws IOException {
+            Exception failure = null;
             try {
                 connection.setMessageHandler(MessageHandler.NULL);
                 expectHeader(input, ManagementProtocol.RESPONSE_END);
-                synchronized (resultLock) {
-                    future.set(result);
-                }
             }
             catch (Exception e) {
-                future.setException(e);
+                failure = e;
             }
             finally {
+                // give the connection back before the caller can issue its next request
                 connectionStrategy.complete();
             }
+            if (failure != null) {
+                future.setException(failure);
+            } else {
+                synchronized (resultLock) {
+                    future.set(result);
+                }
+            }
         }
     };
 
@@ -239,6 +279,21 @@ public abstract class ManagementRequest<T> extends AbstractMessageHandler {
         return null;
     }
 
+    /**
+     * Base for the handlers of the response messages, which fail the request if the connection goes away.
+     */
+    private abstract class ResponseMessageHandler extends AbstractMessageHandler {
+        @Override
+        public void handleShutdown(final Connection connection) throws IOException {
+            failRequest(connection);
+        }
+
+        @Override
+        public void handleFailure(final Connection connection, final IOException e) throws IOException {
+            ManagementRequest.this.handleFailure(connection, e);
+        }
+    }
+
     private final class ResponseFuture<R> implements Future<R>{
         private volatile R result;
         private volatile Exception exception;
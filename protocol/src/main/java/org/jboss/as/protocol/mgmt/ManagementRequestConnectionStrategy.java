@@ -117,4 +117,30 @@ public interface ManagementRequestConnectionStrategy {
             safeClose(connection);
         }
     }
+
+    /**
+     * Strategy that runs the request on its own channel of a shared multiplexed connection.
+     */
+    static class MultiplexedConnectionStrategy implements ManagementRequestConnectionStrategy {
+        private final MultiplexedConnection multiplexedConnection;
+        private Connection channel;
+
+        public MultiplexedConnectionStrategy(final MultiplexedConnection multiplexedConnection) {
+            this.multiplexedConnection = multiplexedConnection;
+        }
+
+        /** {@inheritDoc} */
+        public synchronized Connection getConnection() throws IOException {
+            if (channel == null) {
+                channel = multiplexedConnection.openChannel();
+            }
+            return channel;
+        }
+
+        /** {@inheritDoc} */
+        public synchronized void complete() {
+            // releases the request id, the shared connection stays open
+            safeClose(channel);
+        }
+    }
 }
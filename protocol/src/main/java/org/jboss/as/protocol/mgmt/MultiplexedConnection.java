@@ -0,0 +1,477 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.protocol.mgmt;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.io.SequenceInputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.net.SocketFactory;
+
+import org.jboss.as.protocol.Connection;
+import org.jboss.as.protocol.ConnectionHandler;
+import org.jboss.as.protocol.MessageHandler;
+import org.jboss.as.protocol.ProtocolClient;
+import org.jboss.as.protocol.StreamUtils;
+import static org.jboss.as.protocol.ProtocolUtils.expectHeader;
+import static org.jboss.as.protocol.StreamUtils.safeClose;
+import org.jboss.logging.Logger;
+
+/**
+ * A management connection which carries any number of concurrent requests.  Every message on the underlying
+ * connection starts with a {@link ManagementProtocol#REQUEST_ID_FIELD} header and the id of the request it belongs to,
+ * and is routed to the {@link Channel} registered for that id.  Each channel behaves like a connection of its own, so
+ * the existing {@link ManagementRequest} and {@link ManagementResponse} message handler chains run unchanged on top of it.
+ * <p/>
+ * Channels are opened by the connecting side.  The accepting side creates a channel whenever it sees a request id
+ * for the first time, using the channel handler to obtain the channel's initial message handler.  A channel is
+ * released once its message handler is set to {@link MessageHandler#NULL}, or when it is closed.
+ * <p/>
+ * Either side can {@link #ping(long, TimeUnit) ping} the other to find out whether it still answers, which detects a
+ * peer that went away without closing the connection.
+ */
+public final class MultiplexedConnection implements MessageHandler {
+    private static final Logger log = Logger.getLogger("org.jboss.as.management");
+
+    /** the largest message which is buffered before it is handled on the executor **/
+    private static final int MAX_BUFFERED_MESSAGE_SIZE = 256 * 1024;
+
+    private final Connection connection;
+    private final ConnectionHandler channelHandler;
+    private final Executor executor;
+    private final ConcurrentMap<Integer, Channel> channels = new ConcurrentHashMap<Integer, Channel>();
+    private final AtomicInteger nextRequestId = new AtomicInteger();
+    private volatile boolean closed;
+
+    private final Object pingLock = new Object();
+    // protected by {@link #pingLock}
+    private long pingsSent;
+    // protected by {@link #pingLock}
+    private long pongsReceived;
+
+    /**
+     * Create a multiplexed connection for the connecting side.  Responses are handled on the thread which reads them.
+     *
+     * @param connection the underlying connection
+     */
+    public MultiplexedConnection(final Connection connection) {
+        this(connection, null, null);
+    }
+
+    /**
+     * Create a multiplexed connection for the accepting side.
+     *
+     * @param connection the underlying connection
+     * @param channelHandler the handler which supplies the initial message handler of each new channel
+     * @param executor the executor used to handle each channel's messages, or {@code null} to handle them on the thread which reads them
+     */
+    public MultiplexedConnection(final Connection connection, final ConnectionHandler channelHandler, final Executor executor) {
+        if (connection == null) {
+            throw new IllegalArgumentException("connection is null");
+        }
+        this.connection = connection;
+        this.channelHandler = channelHandler;
+        this.executor = executor;
+    }
+
+    /**
+     * Connect to a remote management endpoint and set up a multiplexed connection over the new socket.
+     *
+     * @param address The remote address
+     * @param port The remote port
+     * @param connectTimeout The connect timeout in seconds
+     * @param executorService The executor used to read from the connection
+     * @param threadFactory The thread factory
+     * @return The multiplexed connection
+     * @throws IOException If the connection cannot be established
+     */
+    public static MultiplexedConnection connect(final InetAddress address, final int port, final long connectTimeout, final ExecutorService executorService, final ThreadFactory threadFactory) throws IOException {
+        final ProtocolClient.Configuration config = new ProtocolClient.Configuration();
+        config.setMessageHandler(MessageHandler.NULL);
+        config.setConnectTimeout((int) TimeUnit.SECONDS.toMillis(connectTimeout));
+        config.setReadExecutor(executorService);
+        config.setSocketFactory(SocketFactory.getDefault());
+        config.setServerAddress(new InetSocketAddress(address, port));
+        config.setThreadFactory(threadFactory);
+
+        final Connection connection = new ProtocolClient(config).connect();
+        final MultiplexedConnection multiplexedConnection = new MultiplexedConnection(connection);
+        connection.setMessageHandler(multiplexedConnection);
+        return multiplexedConnection;
+    }
+
+    /**
+     * Determine whether the first message received on a management connection belongs to a multiplexed conversation.
+     * The stream is left positioned at the start of the message.
+     *
+     * @param input The message input
+     * @return {@code true} if the message starts with a request id header
+     * @throws IOException If the message cannot be read
+     */
+    public static boolean isMultiplexed(final PushbackInputStream input) throws IOException {
+        final int b = input.read();
+        if (b == -1) {
+            return false;
+        }
+        input.unread(b);
+        return b == ManagementProtocol.REQUEST_ID_FIELD;
+    }
+
+    /**
+     * Open a channel for a new request.
+     *
+     * @return The channel
+     * @throws IOException If the connection is closed
+     */
+    public Channel openChannel() throws IOException {
+        if (closed) {
+            throw new IOException("Connection closed");
+        }
+        for (;;) {
+            final int requestId = nextRequestId.incrementAndGet() & Integer.MAX_VALUE;
+            final Channel channel = new Channel(requestId, MessageHandler.NULL);
+            if (channels.putIfAbsent(Integer.valueOf(requestId), channel) == null) {
+                return channel;
+            }
+        }
+    }
+
+    /**
+     * Determine whether new channels can be opened.
+     *
+     * @return {@code true} if the underlying connection has not failed or been shut down
+     */
+    public boolean isOpen() {
+        return !closed;
+    }
+
+    /**
+     * Get the number of requests currently in progress.
+     *
+     * @return The number of open channels
+     */
+    public int getOutstandingRequestCount() {
+        return channels.size();
+    }
+
+    /**
+     * Close the underlying connection.
+     */
+    public void close() {
+        closed = true;
+        safeClose(connection);
+        wakePingers();
+    }
+
+    /**
+     * Check that the remote side still answers.  A ping does not open a channel, so it can be sent while requests are
+     * in progress.
+     *
+     * @param timeout the time to wait for the answer
+     * @param unit the unit of the timeout
+     * @return {@code true} if the remote side answered in time, {@code false} if it did not or the connection failed
+     * @throws InterruptedException if the thread was interrupted while waiting for the answer
+     */
+    public boolean ping(final long timeout, final TimeUnit unit) throws InterruptedException {
+        if (closed) {
+            return false;
+        }
+        final long expected;
+        synchronized (pingLock) {
+            expected = ++pingsSent;
+        }
+        try {
+            writeControl(ManagementProtocol.PING);
+        } catch (IOException e) {
+            log.debugf(e, "Failed to send ping");
+            return false;
+        }
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (pingLock) {
+            while (pongsReceived < expected) {
+                final long remaining = deadline - System.nanoTime();
+                if (closed || remaining <= 0L) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(pingLock, remaining);
+            }
+        }
+        return !closed;
+    }
+
+    private void writeControl(final int header) throws IOException {
+        final OutputStream outputStream = connection.writeMessage();
+        try {
+            outputStream.write(header);
+        } finally {
+            safeClose(outputStream);
+        }
+    }
+
+    private void wakePingers() {
+        synchronized (pingLock) {
+            pingLock.notifyAll();
+        }
+    }
+
+    /** {@inheritDoc} */
+    public void handleMessage(final Connection connection, final InputStream dataStream) throws IOException {
+        final byte header = StreamUtils.readByte(dataStream);
+        if (header == ManagementProtocol.PING) {
+            writeControl(ManagementProtocol.PONG);
+            return;
+        }
+        if (header == ManagementProtocol.PONG) {
+            synchronized (pingLock) {
+                pongsReceived++;
+                pingLock.notifyAll();
+            }
+            return;
+        }
+        expectHeader(header, ManagementProtocol.REQUEST_ID_FIELD);
+        final Integer requestId = Integer.valueOf(StreamUtils.readInt(dataStream));
+        Channel channel = channels.get(requestId);
+        if (channel == null) {
+            if (channelHandler == null) {
+                log.warnf("Discarding message for unknown request %s", requestId);
+                return;
+            }
+            channel = new Channel(requestId.intValue(), MessageHandler.NULL);
+            channel.handler = channelHandler.handleConnected(channel);
+            channels.put(requestId, channel);
+        }
+        if (executor == null) {
+            channel.handler.handleMessage(channel, dataStream);
+            return;
+        }
+        // buffer the message so that the underlying connection can move on to the next one
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        final byte[] bytes = new byte[8192];
+        int res;
+        while ((res = dataStream.read(bytes)) != -1) {
+            buffer.write(bytes, 0, res);
+            if (buffer.size() > MAX_BUFFERED_MESSAGE_SIZE) {
+                // too big to hold in memory, e.g. deployment content; stream the rest from the connection
+                channel.handleDirect(new SequenceInputStream(new ByteArrayInputStream(buffer.toByteArray()), dataStream));
+                return;
+            }
+        }
+        channel.enqueue(new ByteArrayInputStream(buffer.toByteArray()));
+    }
+
+    /** {@inheritDoc} */
+    public void handleShutdown(final Connection connection) throws IOException {
+        closed = true;
+        wakePingers();
+        for (Channel channel : new ArrayList<Channel>(channels.values())) {
+            try {
+                channel.handler.handleShutdown(channel);
+            } catch (IOException e) {
+                log.errorf(e, "Failed to handle shut down of request %d", Integer.valueOf(channel.requestId));
+            }
+        }
+        channels.clear();
+        connection.shutdownWrites();
+    }
+
+    /** {@inheritDoc} */
+    public void handleFailure(final Connection connection, final IOException e) throws IOException {
+        closed = true;
+        wakePingers();
+        for (Channel channel : new ArrayList<Channel>(channels.values())) {
+            try {
+                channel.handler.handleFailure(channel, e);
+            } catch (IOException e1) {
+                log.errorf(e1, "Failed to handle failure of request %d", Integer.valueOf(channel.requestId));
+            }
+        }
+        channels.clear();
+        connection.close();
+    }
+
+    /** {@inheritDoc} */
+    public void handleFinished(final Connection connection) throws IOException {
+        closed = true;
+        wakePingers();
+    }
+
+    /**
+     * A virtual connection carrying the messages of a single request.
+     */
+    public final class Channel implements Connection {
+        private final int requestId;
+        private volatile MessageHandler handler;
+
+        // protected by {@link #pending}
+        private final Queue<InputStream> pending = new ArrayDeque<InputStream>();
+        // protected by {@link #pending}
+        private boolean delivering;
+
+        private final Runnable deliveryTask = new Runnable() {
+            public void run() {
+                deliver();
+            }
+        };
+
+        Channel(final int requestId, final MessageHandler handler) {
+            this.requestId = requestId;
+            this.handler = handler;
+        }
+
+        /**
+         * Get the id of the request carried by this channel.
+         *
+         * @return The request id
+         */
+        public int getRequestId() {
+            return requestId;
+        }
+
+        /** {@inheritDoc} */
+        public OutputStream writeMessage() throws IOException {
+            final OutputStream outputStream = connection.writeMessage();
+            boolean ok = false;
+            try {
+                outputStream.write(ManagementProtocol.REQUEST_ID_FIELD);
+                StreamUtils.writeInt(outputStream, requestId);
+                ok = true;
+                return outputStream;
+            } finally {
+                if (!ok) {
+                    safeClose(outputStream);
+                }
+            }
+        }
+
+        /** {@inheritDoc} */
+        public void shutdownWrites() throws IOException {
+            release();
+        }
+
+        /** {@inheritDoc} */
+        public void close() throws IOException {
+            release();
+        }
+
+        /** {@inheritDoc} */
+        public void setMessageHandler(final MessageHandler messageHandler) {
+            if (messageHandler == null) {
+                throw new IllegalArgumentException("messageHandler is null");
+            }
+            handler = messageHandler;
+            if (messageHandler == MessageHandler.NULL) {
+                // the request is complete
+                release();
+            }
+        }
+
+        /** {@inheritDoc} */
+        public InetAddress getPeerAddress() {
+            return connection.getPeerAddress();
+        }
+
+        /** {@inheritDoc} */
+        public void attach(final Object attachment) {
+            connection.attach(attachment);
+        }
+
+        /** {@inheritDoc} */
+        public Object getAttachment() {
+            return connection.getAttachment();
+        }
+
+        private void release() {
+            channels.remove(Integer.valueOf(requestId), this);
+        }
+
+        void enqueue(final InputStream message) {
+            synchronized (pending) {
+                pending.add(message);
+                if (delivering) {
+                    return;
+                }
+                delivering = true;
+            }
+            executor.execute(deliveryTask);
+        }
+
+        void handleDirect(final InputStream message) throws IOException {
+            // the messages before this one must be handled first
+            synchronized (pending) {
+                boolean intr = false;
+                try {
+                    while (delivering) {
+                        try {
+                            pending.wait();
+                        } catch (InterruptedException e) {
+                            intr = true;
+                        }
+                    }
+                } finally {
+                    if (intr) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+            handler.handleMessage(this, message);
+        }
+
+        private void deliver() {
+            for (;;) {
+                final InputStream message;
+                synchronized (pending) {
+                    message = pending.poll();
+                    if (message == null) {
+                        delivering = false;
+                        pending.notifyAll();
+                        return;
+                    }
+                }
+                try {
+                    handler.handleMessage(this, message);
+                } catch (IOException e) {
+                    log.errorf(e, "Failed to handle message for request %d", Integer.valueOf(requestId));
+                } catch (RuntimeException e) {
+                    log.errorf(e, "Failed to handle message for request %d", Integer.valueOf(requestId));
+                } finally {
+                    safeClose(message);
+                }
+            }
+        }
+    }
+}
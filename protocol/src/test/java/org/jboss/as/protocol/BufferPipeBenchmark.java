@@ -0,0 +1,130 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.protocol;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares the throughput of {@link BufferPipe} with {@link Pipe} for small management messages and for a large
+ * deployment upload.  Run with {@code -Dbenchmark}.
+ */
+public final class BufferPipeBenchmark {
+
+    private static final long SEED = 123L;
+
+    private final BufferPool bufferPool = new BufferPool(8192, 64);
+
+    @Test
+    public void testThroughput() throws Exception {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // small management operations
+            compare(executor, 256, 20000);
+            // a deployment upload
+            compare(executor, 8 << 20, 5);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void compare(final ExecutorService executor, final int messageSize, final int messages) throws Exception {
+        final byte[] message = new byte[messageSize];
+        new Random(SEED).nextBytes(message);
+        // warm up both before measuring
+        for (int i = 0; i < 2; i++) {
+            runPipe(executor, message, messages);
+            runBufferPipe(executor, message, messages);
+        }
+        final long pipeNanos = runPipe(executor, message, messages);
+        final long bufferPipeNanos = runBufferPipe(executor, message, messages);
+        System.out.printf("Message size: %d; messages: %d; Pipe: %d us/message; BufferPipe: %d us/message\n",
+                Integer.valueOf(messageSize), Integer.valueOf(messages),
+                Long.valueOf(pipeNanos / messages / 1000L), Long.valueOf(bufferPipeNanos / messages / 1000L));
+    }
+
+    private long runPipe(final ExecutorService executor, final byte[] message, final int messages) throws Exception {
+        final long start = System.nanoTime();
+        for (int i = 0; i < messages; i++) {
+            final Pipe pipe = new Pipe(8192);
+            final Future<?> consumer = executor.submit(new Consumer(pipe.getIn(), message.length));
+            // the way the connection reader used to copy each chunk
+            final InputStream source = new ByteArrayInputStream(message);
+            final OutputStream out = pipe.getOut();
+            final byte[] buffer = new byte[8192];
+            int res;
+            while ((res = source.read(buffer)) != -1) {
+                out.write(buffer, 0, res);
+            }
+            out.close();
+            pipe.await();
+            consumer.get();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private long runBufferPipe(final ExecutorService executor, final byte[] message, final int messages) throws Exception {
+        final long start = System.nanoTime();
+        for (int i = 0; i < messages; i++) {
+            final BufferPipe pipe = new BufferPipe(bufferPool, 16);
+            final Future<?> consumer = executor.submit(new Consumer(pipe.getIn(), message.length));
+            pipe.transferFrom(new ByteArrayInputStream(message), message.length);
+            pipe.getOut().close();
+            pipe.await();
+            consumer.get();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static final class Consumer implements Callable<Void> {
+        private final InputStream in;
+        private final int expected;
+
+        Consumer(final InputStream in, final int expected) {
+            this.in = in;
+            this.expected = expected;
+        }
+
+        public Void call() throws Exception {
+            final byte[] buffer = new byte[4096];
+            int total = 0;
+            int res;
+            while ((res = in.read(buffer)) != -1) {
+                total += res;
+            }
+            in.close();
+            assertEquals(expected, total);
+            return null;
+        }
+    }
+}
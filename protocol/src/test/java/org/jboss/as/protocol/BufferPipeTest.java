@@ -0,0 +1,166 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.protocol;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that {@link BufferPipe} passes data intact and handles closing either side.
+ */
+public final class BufferPipeTest {
+
+    private static final long SEED = 123L;
+
+    private final BufferPool bufferPool = new BufferPool(8192, 64);
+
+    @Test
+    public void testClose() throws Exception {
+        BufferPipe pipe = new BufferPipe(bufferPool, 4);
+        InputStream in = pipe.getIn();
+        OutputStream out = pipe.getOut();
+        out.close();
+        try {
+            out.write(0);
+            fail("Expected exception");
+        } catch (IOException expected) {
+        }
+        assertEquals(-1, in.read());
+        // should be idempotent
+        out.close();
+        // should not throw exception
+        in.close();
+        // should return immediately
+        pipe.await();
+    }
+
+    @Test
+    public void testIntegrity() throws Exception {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            for (final int maxSegments : PipeTest.ints(1, 4, 16)) {
+                for (final int pieceSize : PipeTest.ints(31, 127, 20000)) {
+                    final int pieceCnt = (1 << 20) / pieceSize;
+                    final BufferPipe pipe = new BufferPipe(bufferPool, maxSegments);
+                    final Future<Void> writer = executor.submit(new Callable<Void>() {
+                        public Void call() throws Exception {
+                            final Random rng = new Random(SEED);
+                            final byte[] piece = new byte[pieceSize];
+                            final OutputStream out = pipe.getOut();
+                            for (int i = 0; i < pieceCnt; i++) {
+                                rng.nextBytes(piece);
+                                if ((i & 1) == 0) {
+                                    out.write(piece);
+                                } else {
+                                    pipe.transferFrom(new ByteArrayInputStream(piece), pieceSize);
+                                }
+                            }
+                            out.close();
+                            pipe.await();
+                            return null;
+                        }
+                    });
+                    final InputStream in = pipe.getIn();
+                    final Random rng = new Random(SEED);
+                    final byte[] expected = new byte[pieceSize];
+                    final byte[] actual = new byte[pieceSize];
+                    for (int i = 0; i < pieceCnt; i++) {
+                        rng.nextBytes(expected);
+                        StreamUtils.readFully(in, actual);
+                        assertArrayEquals("Failure at piece " + i, expected, actual);
+                    }
+                    assertEquals(-1, in.read());
+                    in.close();
+                    writer.get();
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testEarlyReadClose() throws Exception {
+        final BufferPipe pipe = new BufferPipe(bufferPool, 1);
+        final InputStream in = pipe.getIn();
+        final OutputStream out = pipe.getOut();
+        out.write(new byte[100]);
+        assertEquals(0, in.read());
+        in.close();
+        try {
+            out.write(new byte[100]);
+            fail("Expected exception");
+        } catch (IOException expected) {
+        }
+        pipe.await();
+    }
+
+    @Test
+    public void testOffer() throws Exception {
+        final int segmentSize = bufferPool.getBufferSize();
+        final BufferPipe pipe = new BufferPipe(bufferPool, 2);
+        final byte[] data = new byte[segmentSize * 3];
+        new Random(SEED).nextBytes(data);
+        final ByteBuffer source = ByteBuffer.wrap(data);
+        // the third segment does not fit
+        assertEquals(segmentSize * 2, pipe.offer(source, data.length));
+        assertEquals(segmentSize * 2, source.position());
+        final AtomicInteger writable = new AtomicInteger();
+        final Runnable task = new Runnable() {
+            public void run() {
+                writable.incrementAndGet();
+            }
+        };
+        pipe.whenWritable(task);
+        assertEquals(0, writable.get());
+        final InputStream in = pipe.getIn();
+        final byte[] actual = new byte[data.length];
+        StreamUtils.readFully(in, actual, 0, segmentSize + 1);
+        assertEquals(1, writable.get());
+        // room again, so the task runs at once
+        pipe.whenWritable(task);
+        assertEquals(2, writable.get());
+        assertEquals(segmentSize, pipe.offer(source, segmentSize));
+        pipe.getOut().close();
+        StreamUtils.readFully(in, actual, segmentSize + 1, actual.length - segmentSize - 1);
+        assertArrayEquals(data, actual);
+        assertEquals(-1, in.read());
+        // bytes offered after the consumer is gone are dropped
+        final BufferPipe closed = new BufferPipe(bufferPool, 1);
+        closed.getIn().close();
+        assertEquals(100, closed.offer(ByteBuffer.allocate(100), 100));
+    }
+}
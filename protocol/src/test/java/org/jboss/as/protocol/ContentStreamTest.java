@@ -0,0 +1,122 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.jboss.as.protocol;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public final class ContentStreamTest {
+
+    private static final long SEED = 123L;
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        for (final int size : PipeTest.ints(0, 1, 1023, 1024, 1025, 100000)) {
+            final byte[] content = content(size);
+            final byte[] framed = frame(content, 1024);
+            final ContentInputStream in = new ContentInputStream(new ByteArrayInputStream(framed));
+            assertEquals(1024, in.getChunkSize());
+            final byte[] actual = new byte[size];
+            StreamUtils.readFully(in, actual);
+            assertEquals(-1, in.read());
+            assertEquals(size, in.getCount());
+            assertArrayEquals(content, actual);
+        }
+    }
+
+    @Test
+    public void testTrailingData() throws Exception {
+        final byte[] framed = frame(content(5000), 1024);
+        final byte[] stream = Arrays.copyOf(framed, framed.length + 1);
+        stream[framed.length] = 0x42;
+        final InputStream underlying = new ByteArrayInputStream(stream);
+        final ContentInputStream in = new ContentInputStream(underlying);
+        while (in.read(new byte[512]) != -1) {
+        }
+        // the content stream must not consume what follows the terminator
+        assertEquals(0x42, underlying.read());
+    }
+
+    @Test
+    public void testTruncated() throws Exception {
+        final byte[] framed = frame(content(5000), 1024);
+        final ContentInputStream in = new ContentInputStream(new ByteArrayInputStream(Arrays.copyOf(framed, framed.length - 4)));
+        try {
+            while (in.read(new byte[512]) != -1) {
+            }
+            fail("Expected exception");
+        } catch (EOFException expected) {
+        }
+    }
+
+    @Test
+    public void testResume() throws Exception {
+        final byte[] content = content(10000);
+        final MessageDigest digest = MessageDigest.getInstance("SHA-1");
+        digest.update(content, 0, 4000);
+
+        ResumableContent resumed = ResumableContent.resume(new ByteArrayInputStream(content), 4000L, digest.digest());
+        assertEquals(4000L, resumed.getOffset());
+        assertArrayEquals(Arrays.copyOfRange(content, 4000, content.length), readAll(resumed.getStream()));
+
+        // a partial which does not match the content is discarded
+        resumed = ResumableContent.resume(new ByteArrayInputStream(content), 4000L, new byte[20]);
+        assertEquals(0L, resumed.getOffset());
+        assertArrayEquals(content, readAll(resumed.getStream()));
+    }
+
+    private static byte[] content(final int size) {
+        final byte[] content = new byte[size];
+        new Random(SEED).nextBytes(content);
+        return content;
+    }
+
+    private static byte[] frame(final byte[] content, final int chunkSize) throws Exception {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final ContentOutputStream out = new ContentOutputStream(bytes, chunkSize);
+        out.transferFrom(new ByteArrayInputStream(content));
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    private static byte[] readAll(final InputStream in) throws Exception {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[1024];
+        int res;
+        while ((res = in.read(buffer)) != -1) {
+            bytes.write(buffer, 0, res);
+        }
+        in.close();
+        return bytes.toByteArray();
+    }
+}
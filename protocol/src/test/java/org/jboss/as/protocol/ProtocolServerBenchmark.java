@@ -0,0 +1,88 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.protocol;
+
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+import static org.jboss.as.protocol.ProtocolServerTest.*;
+import static org.junit.Assert.*;
+
+/**
+ * Reports the number of server threads and the round trip latency of a {@link ProtocolServer} with many open
+ * connections in each read mode.  Run with {@code -Dbenchmark}.
+ */
+public final class ProtocolServerBenchmark {
+
+    private static final int CONNECTIONS = 200;
+    private static final int MESSAGE_SIZE = 256;
+
+    @Test
+    public void testThreadPerConnection() throws Exception {
+        run(0);
+    }
+
+    @Test
+    public void testSelector() throws Exception {
+        run(2);
+    }
+
+    private void run(final int selectorThreads) throws Exception {
+        final CountingThreadFactory threadFactory = new CountingThreadFactory();
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        final ProtocolServer server = new ProtocolServer(createConfiguration(threadFactory, executor, selectorThreads));
+        server.start();
+        final List<Socket> sockets = new ArrayList<Socket>(CONNECTIONS);
+        try {
+            for (int i = 0; i < CONNECTIONS; i++) {
+                sockets.add(new Socket(server.getBoundAddress().getAddress(), server.getBoundAddress().getPort()));
+            }
+            final Random random = new Random(123L);
+            final byte[] message = new byte[MESSAGE_SIZE];
+            long totalNanos = 0L;
+            for (Socket socket : sockets) {
+                random.nextBytes(message);
+                final long start = System.nanoTime();
+                writeMessage(socket.getOutputStream(), message);
+                final byte[] echo = readMessage(socket.getInputStream());
+                totalNanos += System.nanoTime() - start;
+                assertArrayEquals(message, echo);
+            }
+            System.out.printf("Selector threads: %d; connections: %d; server threads: %d; mean latency: %d us\n",
+                    Integer.valueOf(selectorThreads), Integer.valueOf(CONNECTIONS), Integer.valueOf(threadFactory.count.get()),
+                    Long.valueOf(totalNanos / CONNECTIONS / 1000L));
+        } finally {
+            for (Socket socket : sockets) {
+                StreamUtils.safeClose(socket);
+            }
+            server.stop();
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.protocol;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ServerSocketFactory;
+
+import org.junit.Test;
+
+import static org.jboss.as.protocol.ProtocolConstants.*;
+import static org.junit.Assert.*;
+
+/**
+ * Connects clients to a {@link ProtocolServer} in each read mode and checks that messages are echoed intact.
+ */
+public final class ProtocolServerTest {
+
+    private static final int CONNECTIONS = 50;
+    private static final int MESSAGE_SIZE = 256;
+
+    @Test
+    public void testThreadPerConnection() throws Exception {
+        runEcho(0, CONNECTIONS, MESSAGE_SIZE);
+    }
+
+    @Test
+    public void testSelector() throws Exception {
+        runEcho(2, CONNECTIONS, MESSAGE_SIZE);
+    }
+
+    @Test
+    public void testSelectorLargeMessage() throws Exception {
+        // many times the pipe capacity, so the selector has to suspend reads while the handler catches up
+        runEcho(1, 2, 4 << 20);
+    }
+
+    @Test
+    public void testSelectorReadTimeout() throws Exception {
+        final BlockingQueue<IOException> failures = new LinkedBlockingQueue<IOException>();
+        final ProtocolServer.Configuration configuration = createConfiguration(new CountingThreadFactory(), Executors.newCachedThreadPool(), 1);
+        configuration.setReadTimeout(200);
+        configuration.setConnectionHandler(new ConnectionHandler() {
+            public MessageHandler handleConnected(final Connection connection) throws IOException {
+                return new EchoHandler() {
+                    public void handleFailure(final Connection connection, final IOException e) throws IOException {
+                        failures.add(e);
+                        super.handleFailure(connection, e);
+                    }
+                };
+            }
+        });
+        final ProtocolServer server = new ProtocolServer(configuration);
+        server.start();
+        final Socket socket = new Socket(server.getBoundAddress().getAddress(), server.getBoundAddress().getPort());
+        try {
+            final IOException failure = failures.poll(10L, TimeUnit.SECONDS);
+            assertNotNull(failure);
+            assertTrue(failure instanceof SocketTimeoutException);
+            // the server has closed the connection
+            assertEquals(-1, socket.getInputStream().read());
+        } finally {
+            StreamUtils.safeClose(socket);
+            server.stop();
+            ((ExecutorService) configuration.getReadExecutor()).shutdown();
+        }
+    }
+
+    @Test
+    public void testSelectorRejectedDelivery() throws Exception {
+        final BlockingQueue<IOException> failures = new LinkedBlockingQueue<IOException>();
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        // a shut down executor rejects every delivery
+        executor.shutdown();
+        final ProtocolServer.Configuration configuration = createConfiguration(new CountingThreadFactory(), executor, 1);
+        configuration.setConnectionHandler(new ConnectionHandler() {
+            public MessageHandler handleConnected(final Connection connection) throws IOException {
+                return new EchoHandler() {
+                    public void handleFailure(final Connection connection, final IOException e) throws IOException {
+                        failures.add(e);
+                        super.handleFailure(connection, e);
+                    }
+                };
+            }
+        });
+        final ProtocolServer server = new ProtocolServer(configuration);
+        server.start();
+        final Socket socket = new Socket(server.getBoundAddress().getAddress(), server.getBoundAddress().getPort());
+        try {
+            writeMessage(socket.getOutputStream(), new byte[MESSAGE_SIZE]);
+            final IOException failure = failures.poll(10L, TimeUnit.SECONDS);
+            assertNotNull(failure);
+            assertTrue(failure.getCause() instanceof RejectedExecutionException);
+            // the message is not left queued on an open connection
+            assertEquals(-1, socket.getInputStream().read());
+        } finally {
+            StreamUtils.safeClose(socket);
+            server.stop();
+        }
+    }
+
+    @Test
+    public void testSelectorWithCustomSocketFactory() throws Exception {
+        final AtomicInteger created = new AtomicInteger();
+        final ServerSocketFactory socketFactory = new ServerSocketFactory() {
+            public ServerSocket createServerSocket() throws IOException {
+                created.incrementAndGet();
+                return new ServerSocket();
+            }
+
+            public ServerSocket createServerSocket(final int port) throws IOException {
+                throw new UnsupportedOperationException();
+            }
+
+            public ServerSocket createServerSocket(final int port, final int backlog) throws IOException {
+                throw new UnsupportedOperationException();
+            }
+
+            public ServerSocket createServerSocket(final int port, final int backlog, final InetAddress ifAddress) throws IOException {
+                throw new UnsupportedOperationException();
+            }
+        };
+        final CountingThreadFactory threadFactory = new CountingThreadFactory();
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        final ProtocolServer.Configuration configuration = createConfiguration(threadFactory, executor, 2);
+        configuration.setSocketFactory(socketFactory);
+        final ProtocolServer server = new ProtocolServer(configuration);
+        server.start();
+        final Socket socket = new Socket(server.getBoundAddress().getAddress(), server.getBoundAddress().getPort());
+        try {
+            final byte[] message = new byte[MESSAGE_SIZE];
+            new Random(123L).nextBytes(message);
+            writeMessage(socket.getOutputStream(), message);
+            assertArrayEquals(message, readMessage(socket.getInputStream()));
+            assertEquals(1, created.get());
+            // the accept thread and a read thread; no selectors
+            assertEquals(2, threadFactory.count.get());
+        } finally {
+            StreamUtils.safeClose(socket);
+            server.stop();
+            executor.shutdown();
+        }
+    }
+
+    private void runEcho(final int selectorThreads, final int connections, final int messageSize) throws Exception {
+        final CountingThreadFactory threadFactory = new CountingThreadFactory();
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        final ProtocolServer server = new ProtocolServer(createConfiguration(threadFactory, executor, selectorThreads));
+        server.start();
+        final List<Socket> sockets = new ArrayList<Socket>(connections);
+        try {
+            for (int i = 0; i < connections; i++) {
+                sockets.add(new Socket(server.getBoundAddress().getAddress(), server.getBoundAddress().getPort()));
+            }
+            final Random random = new Random(123L);
+            final byte[] message = new byte[messageSize];
+            for (Socket socket : sockets) {
+                random.nextBytes(message);
+                writeMessage(socket.getOutputStream(), message);
+                assertArrayEquals(message, readMessage(socket.getInputStream()));
+            }
+            if (selectorThreads > 0) {
+                // the accept thread and the selector threads
+                assertEquals(selectorThreads + 1, threadFactory.count.get());
+            } else {
+                assertEquals(connections + 1, threadFactory.count.get());
+            }
+        } finally {
+            for (Socket socket : sockets) {
+                StreamUtils.safeClose(socket);
+            }
+            server.stop();
+            executor.shutdown();
+        }
+    }
+
+    static ProtocolServer.Configuration createConfiguration(final ThreadFactory threadFactory, final ExecutorService executor, final int selectorThreads) throws IOException {
+        final ProtocolServer.Configuration configuration = new ProtocolServer.Configuration();
+        configuration.setBindAddress(new InetSocketAddress(InetAddress.getByName("127.0.0.1"), 0));
+        configuration.setThreadFactory(threadFactory);
+        configuration.setReadExecutor(executor);
+        configuration.setSocketFactory(ServerSocketFactory.getDefault());
+        configuration.setBacklog(1000);
+        configuration.setSelectorThreads(selectorThreads);
+        configuration.setConnectionHandler(new ConnectionHandler() {
+            public MessageHandler handleConnected(final Connection connection) throws IOException {
+                return new EchoHandler();
+            }
+        });
+        return configuration;
+    }
+
+    static void writeMessage(final OutputStream os, final byte[] message) throws IOException {
+        final DataOutputStream output = new DataOutputStream(os);
+        // several chunks, as a connection's message output stream would send them
+        for (int off = 0; off < message.length; off += 8192) {
+            final int len = Math.min(8192, message.length - off);
+            output.writeByte(CHUNK_START);
+            output.writeInt(len);
+            output.write(message, off, len);
+        }
+        output.writeByte(CHUNK_END);
+        output.flush();
+    }
+
+    static byte[] readMessage(final InputStream is) throws IOException {
+        final DataInputStream input = new DataInputStream(is);
+        final ByteArrayOutputStream result = new ByteArrayOutputStream();
+        for (;;) {
+            final int cmd = input.read();
+            if (cmd == CHUNK_START) {
+                final byte[] chunk = new byte[input.readInt()];
+                input.readFully(chunk);
+                result.write(chunk);
+            } else if (cmd == CHUNK_END) {
+                return result.toByteArray();
+            } else {
+                throw new IOException("Invalid command byte read: " + cmd);
+            }
+        }
+    }
+
+    static final class CountingThreadFactory implements ThreadFactory {
+        final AtomicInteger count = new AtomicInteger();
+
+        public Thread newThread(final Runnable r) {
+            count.incrementAndGet();
+            final Thread thread = new Thread(r);
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    static class EchoHandler implements MessageHandler {
+        public void handleMessage(final Connection connection, final InputStream dataStream) throws IOException {
+            final ByteArrayOutputStream content = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[512];
+            int res;
+            while ((res = dataStream.read(buffer)) != -1) {
+                content.write(buffer, 0, res);
+            }
+            final OutputStream os = connection.writeMessage();
+            try {
+                os.write(content.toByteArray());
+            } finally {
+                os.close();
+            }
+        }
+
+        public void handleShutdown(final Connection connection) throws IOException {
+            connection.shutdownWrites();
+        }
+
+        public void handleFailure(final Connection connection, final IOException e) throws IOException {
+            connection.close();
+        }
+
+        public void handleFinished(final Connection connection) throws IOException {
+        }
+    }
+}
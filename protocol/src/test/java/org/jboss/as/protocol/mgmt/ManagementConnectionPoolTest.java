@@ -0,0 +1,337 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.protocol.mgmt;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.as.protocol.StreamUtils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that {@link ManagementConnectionPool} reuses and shares connections.
+ */
+public class ManagementConnectionPoolTest {
+
+    private static final int REQUESTS = 10;
+
+    @Test
+    public void testConnectionReuse() throws Exception {
+        final ExecutorService executor = Executors.newCachedThreadPool();
+        final TestManagementServer server = new TestManagementServer(executor, null);
+        final ManagementConnectionPool pool = new ManagementConnectionPool(2, 60000L, 10L, executor, Executors.defaultThreadFactory());
+        try {
+            for (int i = 0; i < REQUESTS; i++) {
+                assertEquals(Integer.valueOf(i), new TestManagementServer.EchoRequest(i).executeForResult(pool.getConnectionStrategy(server.getAddress(), server.getPort())));
+            }
+            assertEquals(1, pool.getCreations());
+            assertEquals(1, pool.getMisses());
+            assertEquals(REQUESTS - 1, pool.getHits());
+        } finally {
+            pool.close();
+            server.stop();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testIdleEviction() throws Exception {
+        final ExecutorService executor = Executors.newCachedThreadPool();
+        final TestManagementServer server = new TestManagementServer(executor, null);
+        // connections are evicted as soon as they are returned
+        final ManagementConnectionPool pool = new ManagementConnectionPool(2, 0L, 10L, executor, Executors.defaultThreadFactory());
+        try {
+            for (int i = 0; i < REQUESTS; i++) {
+                assertEquals(Integer.valueOf(i), new TestManagementServer.EchoRequest(i).executeForResult(pool.getConnectionStrategy(server.getAddress(), server.getPort())));
+            }
+            assertEquals(REQUESTS, pool.getCreations());
+            assertEquals(REQUESTS - 1, pool.getEvictions());
+            assertEquals(0, pool.getHits());
+        } finally {
+            pool.close();
+            server.stop();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testClosedConnectionIsReplaced() throws Exception {
+        final ExecutorService executor = Executors.newCachedThreadPool();
+        TestManagementServer server = new TestManagementServer(executor, null);
+        final ManagementConnectionPool pool = new ManagementConnectionPool(1, 60000L, 10L, executor, Executors.defaultThreadFactory());
+        try {
+            assertEquals(Integer.valueOf(1), new TestManagementServer.EchoRequest(1).executeForResult(pool.getConnectionStrategy(server.getAddress(), server.getPort())));
+            // closing the pool drops the idle connection; a new pool against a fresh server must still work
+            pool.close();
+            final ManagementConnectionPool other = new ManagementConnectionPool(1, 60000L, 10L, executor, Executors.defaultThreadFactory());
+            try {
+                assertEquals(Integer.valueOf(2), new TestManagementServer.EchoRequest(2).executeForResult(other.getConnectionStrategy(server.getAddress(), server.getPort())));
+                assertEquals(1, other.getCreations());
+            } finally {
+                other.close();
+            }
+        } finally {
+            server.stop();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testConcurrentRequestsShareConnection() throws Exception {
+        final ExecutorService executor = Executors.newCachedThreadPool();
+        // every request is held on the server until all of them have arrived
+        final CountDownLatch arrived = new CountDownLatch(REQUESTS);
+        final TestManagementServer server = new TestManagementServer(executor, arrived);
+        final ManagementConnectionPool pool = new ManagementConnectionPool(4, 60000L, 10L, executor, Executors.defaultThreadFactory());
+        try {
+            final List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+            for (int i = 0; i < REQUESTS; i++) {
+                futures.add(new TestManagementServer.EchoRequest(i).execute(pool.getConnectionStrategy(server.getAddress(), server.getPort())));
+            }
+            assertTrue(arrived.await(10L, TimeUnit.SECONDS));
+            for (int i = 0; i < REQUESTS; i++) {
+                assertEquals(Integer.valueOf(i), futures.get(i).get());
+            }
+            assertEquals(1, pool.getCreations());
+            assertEquals(REQUESTS - 1, pool.getHits());
+        } finally {
+            pool.close();
+            server.stop();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testChannelLimitOpensConnection() throws Exception {
+        final ExecutorService executor = Executors.newCachedThreadPool();
+        final CountDownLatch arrived = new CountDownLatch(4);
+        final TestManagementServer server = new TestManagementServer(executor, arrived);
+        // two requests per connection, so four concurrent requests need two connections
+        final ManagementConnectionPool pool = new ManagementConnectionPool(2, 2, 60000L, 10L, executor, Executors.defaultThreadFactory());
+        try {
+            final List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(new TestManagementServer.EchoRequest(i).execute(pool.getConnectionStrategy(server.getAddress(), server.getPort())));
+            }
+            assertTrue(arrived.await(10L, TimeUnit.SECONDS));
+            for (int i = 0; i < 4; i++) {
+                assertEquals(Integer.valueOf(i), futures.get(i).get());
+            }
+            assertEquals(2, pool.getCreations());
+        } finally {
+            pool.close();
+            server.stop();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testCloseLetsRequestInProgressComplete() throws Exception {
+        final ExecutorService executor = Executors.newCachedThreadPool();
+        final CountDownLatch arrived = new CountDownLatch(2);
+        final TestManagementServer server = new TestManagementServer(executor, arrived);
+        final ManagementConnectionPool pool = new ManagementConnectionPool(1, 60000L, 10L, executor, Executors.defaultThreadFactory());
+        try {
+            final Future<Integer> future = new TestManagementServer.EchoRequest(1).execute(pool.getConnectionStrategy(server.getAddress(), server.getPort()));
+            pool.close();
+            // release the request held in the server
+            arrived.countDown();
+            assertEquals(Integer.valueOf(1), future.get());
+            try {
+                new TestManagementServer.EchoRequest(2).execute(pool.getConnectionStrategy(server.getAddress(), server.getPort()));
+                fail("Expected exception");
+            } catch (IOException expected) {
+            }
+        } finally {
+            server.stop();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testReaperClosesIdleConnections() throws Exception {
+        final ExecutorService executor = Executors.newCachedThreadPool();
+        final ScheduledExecutorService reaperExecutor = Executors.newSingleThreadScheduledExecutor();
+        final TestManagementServer server = new TestManagementServer(executor, null);
+        final ManagementConnectionPool pool = new ManagementConnectionPool(1, 2, 200L, 60000L, 10L, executor, Executors.defaultThreadFactory(), reaperExecutor);
+        try {
+            assertEquals(Integer.valueOf(1), new TestManagementServer.EchoRequest(1).executeForResult(pool.getConnectionStrategy(server.getAddress(), server.getPort())));
+            // no further requests are made, so only the reaper can close the connection
+            final long deadline = System.currentTimeMillis() + 10000L;
+            while (pool.getEvictions() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50L);
+            }
+            assertEquals(1, pool.getEvictions());
+        } finally {
+            pool.close();
+            server.stop();
+            reaperExecutor.shutdown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testCheckoutPingsUnusedConnection() throws Exception {
+        final ExecutorService executor = Executors.newCachedThreadPool();
+        final TestManagementServer server = new TestManagementServer(executor, null);
+        // every checkout of an unused connection pings it first
+        final ManagementConnectionPool pool = new ManagementConnectionPool(1, 2, 60000L, 0L, 10L, executor, Executors.defaultThreadFactory(), null);
+        try {
+            for (int i = 0; i < REQUESTS; i++) {
+                assertEquals(Integer.valueOf(i), new TestManagementServer.EchoRequest(i).executeForResult(pool.getConnectionStrategy(server.getAddress(), server.getPort())));
+            }
+            assertEquals(1, pool.getCreations());
+            assertEquals(0, pool.getFailedValidations());
+        } finally {
+            pool.close();
+            server.stop();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testSilentPeerIsReplaced() throws Exception {
+        final ExecutorService executor = Executors.newCachedThreadPool();
+        final TestManagementServer server = new TestManagementServer(executor, null);
+        final FreezingProxy proxy = new FreezingProxy(new InetSocketAddress(server.getAddress(), server.getPort()));
+        final ManagementConnectionPool pool = new ManagementConnectionPool(1, 2, 60000L, 0L, 1L, executor, Executors.defaultThreadFactory(), null);
+        try {
+            assertEquals(Integer.valueOf(1), new TestManagementServer.EchoRequest(1).executeForResult(pool.getConnectionStrategy(proxy.getAddress(), proxy.getPort())));
+            // the pooled connection stays open but nothing comes back on it, as if the peer had gone away
+            proxy.freeze();
+            assertEquals(Integer.valueOf(2), new TestManagementServer.EchoRequest(2).executeForResult(pool.getConnectionStrategy(proxy.getAddress(), proxy.getPort())));
+            assertEquals(1, pool.getFailedValidations());
+            assertEquals(2, pool.getCreations());
+        } finally {
+            pool.close();
+            proxy.close();
+            server.stop();
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Forwards connections to a server, and can stop forwarding on the connections it has without closing them.
+     */
+    private static final class FreezingProxy implements Runnable {
+        private final InetSocketAddress target;
+        private final ServerSocket serverSocket;
+        private final List<Link> links = new CopyOnWriteArrayList<Link>();
+
+        FreezingProxy(final InetSocketAddress target) throws IOException {
+            this.target = target;
+            serverSocket = new ServerSocket(0, 5, InetAddress.getByName("127.0.0.1"));
+            start(this);
+        }
+
+        InetAddress getAddress() {
+            return serverSocket.getInetAddress();
+        }
+
+        int getPort() {
+            return serverSocket.getLocalPort();
+        }
+
+        void freeze() {
+            for (Link link : links) {
+                link.frozen = true;
+            }
+        }
+
+        void close() {
+            StreamUtils.safeClose(serverSocket);
+            for (Link link : links) {
+                StreamUtils.safeClose(link.client);
+                StreamUtils.safeClose(link.server);
+            }
+        }
+
+        public void run() {
+            try {
+                for (;;) {
+                    final Socket client = serverSocket.accept();
+                    final Socket server = new Socket(target.getAddress(), target.getPort());
+                    final Link link = new Link(client, server);
+                    links.add(link);
+                    start(link.pump(client.getInputStream(), server.getOutputStream()));
+                    start(link.pump(server.getInputStream(), client.getOutputStream()));
+                }
+            } catch (IOException e) {
+                // closed
+            }
+        }
+
+        private static void start(final Runnable task) {
+            final Thread thread = new Thread(task);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        private static final class Link {
+            private final Socket client;
+            private final Socket server;
+            private volatile boolean frozen;
+
+            Link(final Socket client, final Socket server) {
+                this.client = client;
+                this.server = server;
+            }
+
+            Runnable pump(final InputStream input, final OutputStream output) {
+                return new Runnable() {
+                    public void run() {
+                        final byte[] buffer = new byte[8192];
+                        try {
+                            int res;
+                            while ((res = input.read(buffer)) != -1) {
+                                if (!frozen) {
+                                    output.write(buffer, 0, res);
+                                    output.flush();
+                                }
+                            }
+                        } catch (IOException e) {
+                            // closed
+                        }
+                    }
+                };
+            }
+        }
+    }
+}
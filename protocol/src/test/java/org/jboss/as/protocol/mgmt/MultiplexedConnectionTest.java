@@ -0,0 +1,71 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.protocol.mgmt;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs concurrent management requests over a single {@link MultiplexedConnection}.
+ */
+public class MultiplexedConnectionTest {
+
+    private static final int REQUESTS = 20;
+
+    @Test
+    public void testConcurrentRequests() throws Exception {
+        final ExecutorService executor = Executors.newCachedThreadPool();
+        // every request is held on the server until all of them have arrived
+        final CountDownLatch arrived = new CountDownLatch(REQUESTS);
+        final TestManagementServer server = new TestManagementServer(executor, arrived);
+        MultiplexedConnection multiplexedConnection = null;
+        try {
+            multiplexedConnection = MultiplexedConnection.connect(server.getAddress(), server.getPort(), 10L, executor, Executors.defaultThreadFactory());
+            final List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+            for (int i = 0; i < REQUESTS; i++) {
+                futures.add(new TestManagementServer.EchoRequest(i).execute(new ManagementRequestConnectionStrategy.MultiplexedConnectionStrategy(multiplexedConnection)));
+            }
+            assertTrue(arrived.await(10L, TimeUnit.SECONDS));
+            for (int i = 0; i < REQUESTS; i++) {
+                assertEquals(Integer.valueOf(i), futures.get(i).get());
+            }
+            assertEquals(0, multiplexedConnection.getOutstandingRequestCount());
+            assertTrue(multiplexedConnection.isOpen());
+        } finally {
+            if (multiplexedConnection != null) {
+                multiplexedConnection.close();
+            }
+            server.stop();
+            executor.shutdown();
+        }
+    }
+}
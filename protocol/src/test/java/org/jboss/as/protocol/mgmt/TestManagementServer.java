@@ -0,0 +1,197 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.protocol.mgmt;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import javax.net.ServerSocketFactory;
+
+import org.jboss.as.protocol.ByteDataInput;
+import org.jboss.as.protocol.ByteDataOutput;
+import org.jboss.as.protocol.Connection;
+import org.jboss.as.protocol.ConnectionHandler;
+import org.jboss.as.protocol.MessageHandler;
+import org.jboss.as.protocol.ProtocolServer;
+import org.jboss.as.protocol.SimpleByteDataInput;
+import org.jboss.as.protocol.SimpleByteDataOutput;
+import org.jboss.as.protocol.StreamUtils;
+import static org.jboss.as.protocol.ProtocolUtils.expectHeader;
+import static org.jboss.as.protocol.StreamUtils.safeClose;
+
+/**
+ * A management server for tests which answers echo requests, in either the single request or the multiplexed mode.
+ */
+final class TestManagementServer {
+
+    static final byte HANDLER_ID = 0x42;
+    static final byte ECHO_REQUEST = 0x01;
+    static final byte ECHO_RESPONSE = 0x02;
+
+    private final ExecutorService executor;
+    private final ProtocolServer server;
+
+    /**
+     * Start a server.
+     *
+     * @param executor the executor for reading and handling requests
+     * @param arrived if not {@code null}, every request waits in the server until this latch is released
+     * @throws IOException if the server cannot be started
+     */
+    TestManagementServer(final ExecutorService executor, final CountDownLatch arrived) throws IOException {
+        this.executor = executor;
+        final ProtocolServer.Configuration configuration = new ProtocolServer.Configuration();
+        configuration.setBindAddress(new InetSocketAddress(InetAddress.getByName("127.0.0.1"), 0));
+        configuration.setThreadFactory(Executors.defaultThreadFactory());
+        configuration.setReadExecutor(executor);
+        configuration.setSocketFactory(ServerSocketFactory.getDefault());
+        configuration.setBacklog(5);
+        configuration.setConnectionHandler(new ConnectionHandler() {
+            public MessageHandler handleConnected(final Connection connection) throws IOException {
+                return new HeaderHandler(this, TestManagementServer.this.executor, arrived);
+            }
+        });
+        server = new ProtocolServer(configuration);
+        server.start();
+    }
+
+    InetAddress getAddress() {
+        return server.getBoundAddress().getAddress();
+    }
+
+    int getPort() {
+        return server.getBoundAddress().getPort();
+    }
+
+    void stop() {
+        server.stop();
+    }
+
+    static final class EchoRequest extends ManagementRequest<Integer> {
+        private final int value;
+
+        EchoRequest(final int value) {
+            this.value = value;
+        }
+
+        protected byte getHandlerId() {
+            return HANDLER_ID;
+        }
+
+        protected byte getRequestCode() {
+            return ECHO_REQUEST;
+        }
+
+        protected byte getResponseCode() {
+            return ECHO_RESPONSE;
+        }
+
+        protected void sendRequest(final int protocolVersion, final OutputStream output) throws IOException {
+            StreamUtils.writeInt(output, value);
+        }
+
+        protected Integer receiveResponse(final InputStream input) throws IOException {
+            return Integer.valueOf(StreamUtils.readInt(input));
+        }
+    }
+
+    private static final class EchoResponse extends ManagementResponse {
+        private final CountDownLatch arrived;
+        private int value;
+
+        EchoResponse(final CountDownLatch arrived) {
+            this.arrived = arrived;
+        }
+
+        protected byte getResponseCode() {
+            return ECHO_RESPONSE;
+        }
+
+        protected void readRequest(final InputStream input) throws IOException {
+            value = StreamUtils.readInt(input);
+            if (arrived != null) {
+                arrived.countDown();
+                try {
+                    arrived.await(10L, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        protected void sendResponse(final OutputStream output) throws IOException {
+            StreamUtils.writeInt(output, value);
+        }
+    }
+
+    private static final class HeaderHandler extends AbstractMessageHandler {
+        private final ConnectionHandler connectionHandler;
+        private final ExecutorService executor;
+        private final CountDownLatch arrived;
+
+        HeaderHandler(final ConnectionHandler connectionHandler, final ExecutorService executor, final CountDownLatch arrived) {
+            this.connectionHandler = connectionHandler;
+            this.executor = executor;
+            this.arrived = arrived;
+        }
+
+        public void handle(final Connection connection, final InputStream dataStream) throws IOException {
+            final PushbackInputStream pushbackStream = new PushbackInputStream(dataStream);
+            if (MultiplexedConnection.isMultiplexed(pushbackStream)) {
+                final MultiplexedConnection multiplexedConnection = new MultiplexedConnection(connection, connectionHandler, executor);
+                connection.setMessageHandler(multiplexedConnection);
+                multiplexedConnection.handleMessage(connection, pushbackStream);
+                return;
+            }
+            final ByteDataInput input = new SimpleByteDataInput(pushbackStream);
+            final ManagementRequestHeader requestHeader = new ManagementRequestHeader(input);
+            if (requestHeader.getOperationHandlerId() != HANDLER_ID) {
+                throw new IOException("Unexpected handler id " + requestHeader.getOperationHandlerId());
+            }
+            connection.setMessageHandler(new AbstractMessageHandler() {
+                public void handle(final Connection connection, final InputStream input) throws IOException {
+                    expectHeader(input, ManagementProtocol.REQUEST_OPERATION);
+                    expectHeader(input, ECHO_REQUEST);
+                    final ManagementResponse response = new EchoResponse(arrived);
+                    connection.setMessageHandler(response);
+                    response.handle(connection, input);
+                }
+            });
+            final OutputStream dataOutput = connection.writeMessage();
+            final ByteDataOutput output = new SimpleByteDataOutput(dataOutput);
+            try {
+                new ManagementResponseHeader(ManagementProtocol.VERSION, requestHeader.getRequestId()).write(output);
+            } finally {
+                safeClose(output);
+                safeClose(dataOutput);
+            }
+        }
+    }
+}
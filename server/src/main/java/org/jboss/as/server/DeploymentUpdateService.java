@@ -61,6 +61,9 @@ public class DeploymentUpdateService implements Service<Void> {
 
         final ServerStartBatchBuilder batchBuilder = new ServerStartBatchBuilder(serviceContainer.batchBuilder(), serverStartupListener);
         batchBuilder.addListener(serverStartupListener);
+        if (serverStartupListener.getTimeline() != null) {
+            batchBuilder.addListener(serverStartupListener.getTimeline());
+        }
 
         final BootUpdateContext updateContext = new BootUpdateContext() {
             public BatchBuilder getBatchBuilder() {
@@ -295,7 +295,8 @@ public class HostControllerClient implements Service<Void> {
             marshaller.start(createByteOutput(output));
             try {
                 marshaller.writeByte(DomainServerProtocol.RETURN_SERVER_MODEL);
-                marshaller.writeObject(sm);
+                // copy the model rather than hold off updates while it is written
+                marshaller.writeObject(sm.snapshot());
                 marshaller.finish();
             } finally {
                 safeFinish(marshaller);
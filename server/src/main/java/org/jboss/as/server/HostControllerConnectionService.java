@@ -24,6 +24,7 @@ package org.jboss.as.server;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import javax.net.SocketFactory;
 import org.jboss.as.protocol.Connection;
@@ -46,6 +47,7 @@ import org.jboss.msc.value.InjectedValue;
 public class HostControllerConnectionService implements Service<Connection> {
     public static final ServiceName SERVICE_NAME = ServiceName.JBOSS.append("host", "controller", "connection");
     private final InjectedValue<InetSocketAddress> smAddress = new InjectedValue<InetSocketAddress>();
+    private final InjectedValue<ExecutorService> executor = new InjectedValue<ExecutorService>();
 
     private Connection connection;
 
@@ -56,7 +58,7 @@ public class HostControllerConnectionService implements Service<Connection> {
         configuration.setMessageHandler(MessageHandler.NULL);
         configuration.setSocketFactory(SocketFactory.getDefault());
         configuration.setThreadFactory(Executors.defaultThreadFactory());
-        configuration.setReadExecutor(Executors.newCachedThreadPool());
+        configuration.setReadExecutor(executor.getValue());
 
         final ProtocolClient protocolClient = new ProtocolClient(configuration);
         try {
@@ -85,4 +87,13 @@ public class HostControllerConnectionService implements Service<Connection> {
     public Injector<InetSocketAddress> getSmAddressInjector() {
         return smAddress;
     }
+
+    /**
+     * Get the injector for the executor handling messages from the host controller.
+     *
+     * @return The injector
+     */
+    public Injector<ExecutorService> getExecutorInjector() {
+        return executor;
+    }
 }
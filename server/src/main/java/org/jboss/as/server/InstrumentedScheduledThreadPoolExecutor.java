@@ -0,0 +1,128 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.server;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A named scheduled thread pool which keeps the same statistics as {@link InstrumentedThreadPoolExecutor}.  The
+ * queue time of a scheduled task is how late it started: the time between when it was due and when a thread picked
+ * it up.
+ */
+public final class InstrumentedScheduledThreadPoolExecutor extends ScheduledThreadPoolExecutor {
+
+    private final ThreadPoolMetrics metrics;
+
+    /**
+     * Construct a new instance.
+     *
+     * @param name the pool name, used to name its threads
+     * @param threads the number of threads
+     */
+    public InstrumentedScheduledThreadPoolExecutor(final String name, final int threads) {
+        super(threads, new InstrumentedThreadPoolExecutor.PoolThreadFactory(name));
+        metrics = new ThreadPoolMetrics(name, this);
+        setRejectedExecutionHandler(new InstrumentedThreadPoolExecutor.CountingRejectedExecutionHandler(metrics, new AbortPolicy()));
+    }
+
+    // execute() and submit() delegate to schedule(), so they are timed too
+
+    public ScheduledFuture<?> schedule(final Runnable command, final long delay, final TimeUnit unit) {
+        return super.schedule(new TimedTask(command, unit.toNanos(delay), 0L), delay, unit);
+    }
+
+    public <V> ScheduledFuture<V> schedule(final Callable<V> callable, final long delay, final TimeUnit unit) {
+        if (callable == null) {
+            throw new NullPointerException("callable is null");
+        }
+        final long due = System.nanoTime() + unit.toNanos(delay);
+        return super.schedule(new Callable<V>() {
+            public V call() throws Exception {
+                final long start = System.nanoTime();
+                metrics.getQueueTimeHistogram().record(start - due);
+                try {
+                    return callable.call();
+                } finally {
+                    metrics.getRunTimeHistogram().record(System.nanoTime() - start);
+                }
+            }
+        }, delay, unit);
+    }
+
+    public ScheduledFuture<?> scheduleAtFixedRate(final Runnable command, final long initialDelay, final long period, final TimeUnit unit) {
+        return super.scheduleAtFixedRate(new TimedTask(command, unit.toNanos(initialDelay), unit.toNanos(period)), initialDelay, period, unit);
+    }
+
+    public ScheduledFuture<?> scheduleWithFixedDelay(final Runnable command, final long initialDelay, final long delay, final TimeUnit unit) {
+        return super.scheduleWithFixedDelay(new TimedTask(command, unit.toNanos(initialDelay), -unit.toNanos(delay)), initialDelay, delay, unit);
+    }
+
+    /**
+     * Get the statistics of this pool.
+     *
+     * @return the statistics
+     */
+    public ThreadPoolMetrics getMetrics() {
+        return metrics;
+    }
+
+    public String toString() {
+        return metrics.toString();
+    }
+
+    private final class TimedTask implements Runnable {
+        private final Runnable delegate;
+        // as for ScheduledFutureTask: positive for a fixed rate, negative for a fixed delay, zero if not repeating
+        private final long period;
+        // successive runs are ordered by the work queue, which makes this visible to the next running thread
+        private long due;
+
+        TimedTask(final Runnable delegate, final long initialDelay, final long period) {
+            if (delegate == null) {
+                throw new NullPointerException("command is null");
+            }
+            this.delegate = delegate;
+            this.period = period;
+            due = System.nanoTime() + initialDelay;
+        }
+
+        public void run() {
+            final long start = System.nanoTime();
+            metrics.getQueueTimeHistogram().record(start - due);
+            try {
+                delegate.run();
+            } finally {
+                final long end = System.nanoTime();
+                metrics.getRunTimeHistogram().record(end - start);
+                due = period > 0L ? due + period : end - period;
+            }
+        }
+
+        public String toString() {
+            return delegate.toString();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.server;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A named thread pool which keeps statistics about its tasks: how long they wait in the queue, how long they run,
+ * and how many were rejected because the pool was saturated.
+ */
+public final class InstrumentedThreadPoolExecutor extends ThreadPoolExecutor {
+
+    private final ThreadPoolMetrics metrics;
+
+    /**
+     * Construct a new instance.
+     *
+     * @param name the pool name, used to name its threads
+     * @param coreThreads the number of core threads
+     * @param maxThreads the maximum number of threads
+     * @param keepAlive the time after which idle non-core threads exit
+     * @param unit the unit of {@code keepAlive}
+     * @param queue the task queue
+     * @param callerRuns {@code true} to run tasks in the submitting thread when the pool is saturated, {@code false}
+     *      to reject them
+     */
+    public InstrumentedThreadPoolExecutor(final String name, final int coreThreads, final int maxThreads, final long keepAlive,
+            final TimeUnit unit, final BlockingQueue<Runnable> queue, final boolean callerRuns) {
+        super(coreThreads, maxThreads, keepAlive, unit, queue, new PoolThreadFactory(name));
+        metrics = new ThreadPoolMetrics(name, this);
+        setRejectedExecutionHandler(new CountingRejectedExecutionHandler(metrics, callerRuns ? new CallerRunsPolicy() : new AbortPolicy()));
+    }
+
+    public void execute(final Runnable command) {
+        if (command == null) {
+            throw new NullPointerException("command is null");
+        }
+        super.execute(new TimedTask(command));
+    }
+
+    /**
+     * Get the statistics of this pool.
+     *
+     * @return the statistics
+     */
+    public ThreadPoolMetrics getMetrics() {
+        return metrics;
+    }
+
+    public String toString() {
+        return metrics.toString();
+    }
+
+    private final class TimedTask implements Runnable {
+        private final Runnable delegate;
+        private final long submitted = System.nanoTime();
+
+        TimedTask(final Runnable delegate) {
+            this.delegate = delegate;
+        }
+
+        public void run() {
+            final long start = System.nanoTime();
+            metrics.getQueueTimeHistogram().record(start - submitted);
+            try {
+                delegate.run();
+            } finally {
+                metrics.getRunTimeHistogram().record(System.nanoTime() - start);
+            }
+        }
+
+        public String toString() {
+            return delegate.toString();
+        }
+    }
+
+    static final class CountingRejectedExecutionHandler implements RejectedExecutionHandler {
+        private final ThreadPoolMetrics metrics;
+        private final RejectedExecutionHandler delegate;
+
+        CountingRejectedExecutionHandler(final ThreadPoolMetrics metrics, final RejectedExecutionHandler delegate) {
+            this.metrics = metrics;
+            this.delegate = delegate;
+        }
+
+        public void rejectedExecution(final Runnable r, final ThreadPoolExecutor executor) {
+            metrics.rejected();
+            delegate.rejectedExecution(r, executor);
+        }
+    }
+
+    static final class PoolThreadFactory implements ThreadFactory {
+        private final String name;
+        private final AtomicInteger count = new AtomicInteger();
+
+        PoolThreadFactory(final String name) {
+            this.name = name;
+        }
+
+        public Thread newThread(final Runnable r) {
+            return new Thread(r, name + "-" + count.incrementAndGet());
+        }
+    }
+}
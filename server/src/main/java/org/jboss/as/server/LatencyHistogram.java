@@ -0,0 +1,119 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.server;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of task latencies.  Samples are counted in buckets whose upper bounds are successive powers
+ * of two microseconds, so bucket {@code i} counts latencies below {@code 2^i} microseconds; the last bucket counts
+ * everything longer.
+ */
+public final class LatencyHistogram {
+
+    /** The number of buckets. */
+    public static final int BUCKETS = 32;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong totalNanos = new AtomicLong();
+
+    /**
+     * Record a sample.
+     *
+     * @param nanos the latency in nanoseconds; negative values are recorded as zero
+     */
+    public void record(final long nanos) {
+        final long value = nanos < 0L ? 0L : nanos;
+        counts.incrementAndGet(Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(value / 1000L)));
+        totalNanos.addAndGet(value);
+    }
+
+    /**
+     * Get the number of samples recorded.
+     *
+     * @return the sample count
+     */
+    public long getCount() {
+        long count = 0L;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * Get the mean latency.
+     *
+     * @return the mean latency in nanoseconds, or 0 if nothing was recorded
+     */
+    public long getMeanNanos() {
+        final long count = getCount();
+        return count == 0L ? 0L : totalNanos.get() / count;
+    }
+
+    /**
+     * Get a copy of the bucket counts.
+     *
+     * @return the bucket counts, indexed as described for this class
+     */
+    public long[] getCounts() {
+        final long[] result = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            result[i] = counts.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Get the latency below which the given fraction of samples fall, to the resolution of the buckets.
+     *
+     * @param fraction the fraction, between 0 and 1
+     * @return the upper bound of the bucket holding the requested sample, in microseconds, or 0 if nothing was
+     *      recorded
+     */
+    public long getPercentileMicros(final double fraction) {
+        final long[] counts = getCounts();
+        long count = 0L;
+        for (long c : counts) {
+            count += c;
+        }
+        if (count == 0L) {
+            return 0L;
+        }
+        final long target = (long) Math.ceil(count * fraction);
+        long seen = 0L;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return 1L << i;
+            }
+        }
+        return 1L << (BUCKETS - 1);
+    }
+
+    public String toString() {
+        return String.format("count=%d, mean=%dus, p50<%dus, p99<%dus", Long.valueOf(getCount()), Long.valueOf(getMeanNanos() / 1000L),
+                Long.valueOf(getPercentileMicros(0.5)), Long.valueOf(getPercentileMicros(0.99)));
+    }
+}
@@ -116,13 +116,11 @@ final class ServerControllerImpl implements ServerController, Service<ServerCont
 
     public <R, P> void update(final AbstractServerModelUpdate<R> update, final UpdateResultHandler<R, P> resultHandler, final P param) {
         final UpdateContextImpl updateContext = new UpdateContextImpl(container.batchBuilder(), container);
-        synchronized (serverModel) {
-            try {
-                serverModel.update(update);
-            } catch (UpdateFailedException e) {
-                resultHandler.handleFailure(e, param);
-                return;
-            }
+        try {
+            serverModel.update(update);
+        } catch (UpdateFailedException e) {
+            resultHandler.handleFailure(e, param);
+            return;
         }
         update.applyUpdate(updateContext, resultHandler, param);
     }
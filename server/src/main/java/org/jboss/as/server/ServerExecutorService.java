@@ -0,0 +1,213 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.server;
+
+import java.lang.management.ManagementFactory;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.jboss.as.deployment.attachment.DeploymentExecutorAttachment;
+import org.jboss.logging.Logger;
+import org.jboss.msc.service.BatchBuilder;
+import org.jboss.msc.service.Service;
+import org.jboss.msc.service.ServiceName;
+import org.jboss.msc.service.StartContext;
+import org.jboss.msc.service.StartException;
+import org.jboss.msc.service.StopContext;
+
+/**
+ * The server's shared thread pools, each installed as a named service so that server components depend on a pool
+ * rather than creating their own.  Pool sizes are read from system properties:
+ * <ul>
+ * <li>{@value #CONTAINER_THREADS}: threads starting and stopping services, default the number of processors</li>
+ * <li>{@value #MANAGEMENT_MAX_THREADS}: maximum threads applying management operations, default 32</li>
+ * <li>{@value #DEPLOYMENT_MAX_THREADS}: maximum threads executing deployment plans, default 16</li>
+ * <li>{@value #SCHEDULED_THREADS}: threads running periodic tasks such as deployment scans, default 2</li>
+ * <li>{@value #IO_MAX_THREADS}: maximum threads handling management protocol messages, default unbounded</li>
+ * </ul>
+ * While a pool runs, its statistics are registered as a {@link ThreadPoolMetricsMXBean} named
+ * {@code jboss:type=ThreadPool,name=<pool name>}.
+ */
+public final class ServerExecutorService implements Service<ExecutorService> {
+
+    public static final ServiceName EXECUTOR = ServiceName.JBOSS.append("server", "executor");
+    /** The service container's executor. */
+    public static final ServiceName CONTAINER = EXECUTOR.append("container");
+    /** The executor for management operations. */
+    public static final ServiceName MANAGEMENT = EXECUTOR.append("management");
+    /** The executor for deployment plans, also handed to deployment processors. */
+    public static final ServiceName DEPLOYMENT = DeploymentExecutorAttachment.SERVICE_NAME;
+    /** The scheduled executor for periodic tasks. */
+    public static final ServiceName SCHEDULED = EXECUTOR.append("scheduled");
+    /** The executor for management protocol connections. */
+    public static final ServiceName IO = EXECUTOR.append("io");
+
+    public static final String CONTAINER_THREADS = "jboss.server.container.threads";
+    public static final String MANAGEMENT_MAX_THREADS = "jboss.server.management.max-threads";
+    public static final String DEPLOYMENT_MAX_THREADS = "jboss.server.deployment.max-threads";
+    public static final String SCHEDULED_THREADS = "jboss.server.scheduled.threads";
+    public static final String IO_MAX_THREADS = "jboss.server.io.max-threads";
+
+    private static final Logger log = Logger.getLogger("org.jboss.as.server");
+
+    private static final long KEEP_ALIVE_SECONDS = 60L;
+
+    private enum Kind {
+        EXTERNAL,
+        CALLER_RUNS,
+        REJECTING,
+        SCHEDULED,
+    }
+
+    private final String name;
+    private final int maxThreads;
+    private final Kind kind;
+    private ExecutorService executor;
+    private ThreadPoolMetrics metrics;
+    private ObjectName registeredName;
+
+    private ServerExecutorService(final String name, final int maxThreads, final Kind kind) {
+        this.name = name;
+        this.maxThreads = maxThreads;
+        this.kind = kind;
+    }
+
+    private ServerExecutorService(final InstrumentedThreadPoolExecutor executor) {
+        this(executor.getMetrics().getName(), 0, Kind.EXTERNAL);
+        this.executor = executor;
+        metrics = executor.getMetrics();
+    }
+
+    /**
+     * Create the executor for the service container.  It is created outside of the service container and lives as
+     * long as the container does.
+     *
+     * @param properties the properties holding the pool size
+     * @return the executor
+     */
+    public static InstrumentedThreadPoolExecutor createContainerExecutor(final Properties properties) {
+        final int threads = getThreads(properties, CONTAINER_THREADS, Runtime.getRuntime().availableProcessors());
+        return new InstrumentedThreadPoolExecutor("server-container", threads, threads, Long.MAX_VALUE, TimeUnit.NANOSECONDS,
+                new LinkedBlockingQueue<Runnable>(), false);
+    }
+
+    /**
+     * Install the shared executor services.
+     *
+     * @param containerExecutor the service container's executor, exposed as {@link #CONTAINER}
+     * @param properties the properties holding the pool sizes
+     * @param batchBuilder service batch builder to use to install the services.  Cannot be {@code null}
+     */
+    public static void addServices(final InstrumentedThreadPoolExecutor containerExecutor, final Properties properties, final BatchBuilder batchBuilder) {
+        batchBuilder.addService(CONTAINER, new ServerExecutorService(containerExecutor));
+        batchBuilder.addService(MANAGEMENT, new ServerExecutorService("server-management", getThreads(properties, MANAGEMENT_MAX_THREADS, 32), Kind.CALLER_RUNS));
+        batchBuilder.addService(DEPLOYMENT, new ServerExecutorService("server-deployment", getThreads(properties, DEPLOYMENT_MAX_THREADS, 16), Kind.CALLER_RUNS));
+        batchBuilder.addService(SCHEDULED, new ServerExecutorService("server-scheduled", getThreads(properties, SCHEDULED_THREADS, 2), Kind.SCHEDULED));
+        batchBuilder.addService(IO, new ServerExecutorService("server-io", getThreads(properties, IO_MAX_THREADS, Integer.MAX_VALUE), Kind.REJECTING));
+    }
+
+    public synchronized void start(final StartContext context) throws StartException {
+        switch (kind) {
+            case EXTERNAL:
+                // not ours to create
+                break;
+            case SCHEDULED: {
+                final InstrumentedScheduledThreadPoolExecutor executor = new InstrumentedScheduledThreadPoolExecutor(name, maxThreads);
+                this.executor = executor;
+                metrics = executor.getMetrics();
+                break;
+            }
+            default: {
+                // management and deployment tasks may wait on one another, so when saturated they run new tasks in the
+                // caller instead of queueing them; connection handlers wait on their connection's reader thread and so
+                // must never run there
+                final InstrumentedThreadPoolExecutor executor = new InstrumentedThreadPoolExecutor(name, 0, maxThreads,
+                        KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), kind == Kind.CALLER_RUNS);
+                this.executor = executor;
+                metrics = executor.getMetrics();
+            }
+        }
+        // the metrics are informational, so a pool without them is still usable
+        try {
+            final ObjectName objectName = new ObjectName("jboss:type=ThreadPool,name=" + name);
+            getMBeanServer().registerMBean(metrics, objectName);
+            registeredName = objectName;
+        } catch (Exception e) {
+            log.debugf(e, "Failed to register metrics for executor %s", name);
+        }
+    }
+
+    public synchronized void stop(final StopContext context) {
+        final ExecutorService executor = this.executor;
+        log.debugf("Stopping executor %s", executor);
+        final ObjectName objectName = registeredName;
+        if (objectName != null) {
+            registeredName = null;
+            try {
+                getMBeanServer().unregisterMBean(objectName);
+            } catch (Exception e) {
+                log.debugf(e, "Failed to unregister executor metrics %s", objectName);
+            }
+        }
+        if (kind == Kind.EXTERNAL) {
+            // the container keeps using its executor until it has stopped every service
+            return;
+        }
+        executor.shutdown();
+        this.executor = null;
+        metrics = null;
+    }
+
+    public synchronized ExecutorService getValue() throws IllegalStateException {
+        final ExecutorService executor = this.executor;
+        if (executor == null) {
+            throw new IllegalStateException();
+        }
+        return executor;
+    }
+
+    private static MBeanServer getMBeanServer() {
+        return ManagementFactory.getPlatformMBeanServer();
+    }
+
+    private static int getThreads(final Properties properties, final String key, final int defaultValue) {
+        final String value = properties.getProperty(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            final int threads = Integer.parseInt(value.trim());
+            if (threads > 0) {
+                return threads;
+            }
+        } catch (NumberFormatException ignored) {
+        }
+        log.warnf("Ignoring invalid value %s for %s; using %d", value, key, Integer.valueOf(defaultValue));
+        return defaultValue;
+    }
+}
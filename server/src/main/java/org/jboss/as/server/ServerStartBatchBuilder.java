@@ -36,7 +36,8 @@ import org.jboss.msc.service.ServiceRegistryException;
 import org.jboss.msc.value.Value;
 
 /**
- * Super-hack batch builder used to ignore on-demand services for the server startup listener.
+ * Super-hack batch builder used to ignore on-demand services for the server startup listener, and to record service
+ * dependencies for the boot timeline.
  *
  * @author John E. Bailey
  */
@@ -151,60 +152,78 @@ public class ServerStartBatchBuilder implements BatchBuilder {
 
         @Override
         public BatchServiceBuilder<T> addDependencies(ServiceName... dependencies) {
+            for (ServiceName dependency : dependencies) {
+                recordDependency(dependency);
+            }
             delegate.addDependencies(dependencies);
             return this;
         }
 
         @Override
         public BatchServiceBuilder<T> addOptionalDependencies(ServiceName... dependencies) {
+            for (ServiceName dependency : dependencies) {
+                recordDependency(dependency);
+            }
             delegate.addOptionalDependencies(dependencies);
             return this;
         }
 
         @Override
         public BatchServiceBuilder<T> addDependencies(Iterable<ServiceName> dependencies) {
+            for (ServiceName dependency : dependencies) {
+                recordDependency(dependency);
+            }
             delegate.addDependencies(dependencies);
             return this;
         }
 
         @Override
         public BatchServiceBuilder<T> addOptionalDependencies(Iterable<ServiceName> dependencies) {
+            for (ServiceName dependency : dependencies) {
+                recordDependency(dependency);
+            }
             delegate.addOptionalDependencies(dependencies);
             return this;
         }
 
         @Override
         public BatchServiceBuilder<T> addDependency(ServiceName dependency) {
+            recordDependency(dependency);
             delegate.addDependency(dependency);
             return this;
         }
 
         @Override
         public BatchServiceBuilder<T> addOptionalDependency(ServiceName dependency) {
+            recordDependency(dependency);
             delegate.addOptionalDependency(dependency);
             return this;
         }
 
         @Override
         public BatchServiceBuilder<T> addDependency(ServiceName dependency, Injector<Object> target) {
+            recordDependency(dependency);
             delegate.addDependency(dependency, target);
             return this;
         }
 
         @Override
         public BatchServiceBuilder<T> addOptionalDependency(ServiceName dependency, Injector<Object> target) {
+            recordDependency(dependency);
             delegate.addOptionalDependency(dependency, target);
             return this;
         }
 
         @Override
         public <I> BatchServiceBuilder<T> addDependency(ServiceName dependency, Class<I> type, Injector<I> target) {
+            recordDependency(dependency);
             delegate.addDependency(dependency, type, target);
             return this;
         }
 
         @Override
         public <I> BatchServiceBuilder<T> addOptionalDependency(ServiceName dependency, Class<I> type, Injector<I> target) {
+            recordDependency(dependency);
             delegate.addOptionalDependency(dependency, type, target);
             return this;
         }
@@ -238,5 +257,12 @@ public class ServerStartBatchBuilder implements BatchBuilder {
             delegate.addListener(collection);
             return this;
         }
+
+        private void recordDependency(final ServiceName dependency) {
+            final ServiceStartTimeline timeline = serverStartupListener.getTimeline();
+            if (timeline != null) {
+                timeline.dependencyAdded(serviceName, dependency);
+            }
+        }
     }
 }
@@ -30,10 +30,7 @@ import java.io.Serializable;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
-import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ExecutorService;
 
 import org.jboss.as.deployment.Phase;
 import org.jboss.as.deployment.chain.DeploymentChain;
@@ -121,12 +118,17 @@ public final class ServerStartTask implements ServerTask, Serializable, ObjectIn
             log.infof("Starting standalone server");
         }
         final ServiceContainer container = ServiceContainer.Factory.create();
-        final int threads = Runtime.getRuntime().availableProcessors();
-        container.setExecutor(new ThreadPoolExecutor(threads, threads, Long.MAX_VALUE, TimeUnit.NANOSECONDS, new LinkedBlockingQueue<Runnable>()));
+        final Properties systemProperties = System.getProperties();
+        final InstrumentedThreadPoolExecutor containerExecutor = ServerExecutorService.createContainerExecutor(systemProperties);
+        container.setExecutor(containerExecutor);
 
-        final ServerStartupListener serverStartupListener = new ServerStartupListener(createListenerCallback());
+        final ServiceStartTimeline timeline = systemProperties.getProperty(ServiceStartTimeline.PROFILE_FILE) != null ? new ServiceStartTimeline() : null;
+        final ServerStartupListener serverStartupListener = new ServerStartupListener(createListenerCallback(), timeline);
         final ServerStartBatchBuilder batchBuilder = new ServerStartBatchBuilder(container.batchBuilder(), serverStartupListener);
         batchBuilder.addListener(serverStartupListener);
+        if (timeline != null) {
+            batchBuilder.addListener(timeline);
+        }
 
         // First-stage (boot) services
 
@@ -155,20 +157,21 @@ public final class ServerStartTask implements ServerTask, Serializable, ObjectIn
         // Initial model
         final ServerModel serverModel = new ServerModel(serverName, portOffset);
 
-        final Properties systemProperties = System.getProperties();
         final ServerEnvironment environment = providedEnvironment != null
                         ? providedEnvironment
                         : new ServerEnvironment(systemProperties, serverName, false);
 
         log.info("Activating core services");
 
+        // Shared thread pools
+        ServerExecutorService.addServices(containerExecutor, systemProperties, batchBuilder);
+
         // The server controller
         // TODO make ServerConfigurationPersister internal
-        // TODO share thread pool
         ServerControllerImpl serverController = new ServerControllerImpl(serverModel, container, environment.isStandalone());
         batchBuilder.addService(ServerController.SERVICE_NAME, serverController)
             .addDependency(ServerConfigurationPersister.SERVICE_NAME, ServerConfigurationPersister.class, serverController.getConfigurationPersisterValue())
-            .addInjection(serverController.getExecutorValue(), Executors.newCachedThreadPool());
+            .addDependency(ServerExecutorService.MANAGEMENT, ExecutorService.class, serverController.getExecutorValue());
 
         // Server environment services
         ServerEnvironmentServices.addServices(environment, batchBuilder);
@@ -198,7 +201,8 @@ public final class ServerStartTask implements ServerTask, Serializable, ObjectIn
         batchBuilder.addService(ClassifyingModuleLoaderService.SERVICE_NAME, new ClassifyingModuleLoaderService());
 
         // todo move elsewhere...
-        final DeploymentChain deploymentChain = new DeploymentChainImpl();
+        // concurrent processors share the container threads; the deploying thread runs any they have not reached
+        final DeploymentChain deploymentChain = new DeploymentChainImpl(containerExecutor);
         deploymentChain.addProcessor(new DeploymentModuleLoaderProcessor(new DeploymentModuleLoaderImpl()), Phase.DEPLOYMENT_MODULE_LOADER_PROCESSOR);
         batchBuilder.addService(DeploymentChain.SERVICE_NAME, new DeploymentChainService(deploymentChain))
             .setInitialMode(ServiceController.Mode.ACTIVE);
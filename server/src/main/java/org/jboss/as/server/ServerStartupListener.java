@@ -50,6 +50,7 @@ public class ServerStartupListener extends AbstractServiceListener<Object>{
     private final long start = Module.getStartTime();
     private final Map<ServiceName, StartException> serviceFailures = new HashMap<ServiceName, StartException>();
     private final Callback finishCallback;
+    private final ServiceStartTimeline timeline;
     private final Set<ServiceName> expectedNonActiveServices = new HashSet<ServiceName>();
     private final AtomicBoolean callbackRan = new AtomicBoolean();
 
@@ -64,7 +65,27 @@ public class ServerStartupListener extends AbstractServiceListener<Object>{
      * @param finishCallback The finish callback
      */
     public ServerStartupListener(final Callback finishCallback) {
+        this(finishCallback, null);
+    }
+
+    /**
+     * Construct new instance with a callback listener and a timeline of the services being started.
+     *
+     * @param finishCallback The finish callback
+     * @param timeline The timeline, or {@code null} to not record one
+     */
+    public ServerStartupListener(final Callback finishCallback, final ServiceStartTimeline timeline) {
         this.finishCallback = finishCallback;
+        this.timeline = timeline;
+    }
+
+    /**
+     * Get the timeline of the services being started.
+     *
+     * @return the timeline, or {@code null} if none is being recorded
+     */
+    public ServiceStartTimeline getTimeline() {
+        return timeline;
     }
 
     /** {@inheritDoc} */
@@ -108,6 +129,9 @@ public class ServerStartupListener extends AbstractServiceListener<Object>{
         if(callbackRan.compareAndSet(false, true)) {
             final long end = System.currentTimeMillis();
             finishCallback.run(serviceFailures, end - start, totalServices, expectedNonActiveServices.size() - startedOnDemandServicesUpdater.get(this), startedServices);
+            if (timeline != null) {
+                timeline.complete();
+            }
         }
     }
 
@@ -0,0 +1,274 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.server;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.jboss.logging.Logger;
+import org.jboss.msc.service.AbstractServiceListener;
+import org.jboss.msc.service.ServiceController;
+import org.jboss.msc.service.ServiceName;
+import org.jboss.msc.service.StartException;
+
+/**
+ * Service listener which records when each service was installed, began starting and finished starting, along with
+ * the dependencies it was installed with.  From this it can work out which dependency held up each service, and
+ * so the critical path through the services started at boot.
+ * <p>
+ * The timeline is recorded only when the {@value #PROFILE_FILE} system property names a file to write it to, in the
+ * Chrome trace event format (load it in {@code chrome://tracing}).
+ */
+public final class ServiceStartTimeline extends AbstractServiceListener<Object> {
+
+    /** The system property naming the file the boot timeline is written to. */
+    public static final String PROFILE_FILE = "jboss.server.boot.profile";
+
+    private static final Logger log = Logger.getLogger("org.jboss.as.server");
+
+    private final long start = System.nanoTime();
+    private final ConcurrentMap<ServiceName, Entry> entries = new ConcurrentHashMap<ServiceName, Entry>();
+
+    /**
+     * Record a dependency of a service being installed.
+     *
+     * @param serviceName the service
+     * @param dependency the dependency
+     */
+    public void dependencyAdded(final ServiceName serviceName, final ServiceName dependency) {
+        getEntry(serviceName).addDependency(dependency);
+    }
+
+    /** {@inheritDoc} */
+    public void listenerAdded(final ServiceController<? extends Object> serviceController) {
+        getEntry(serviceController.getName()).added = System.nanoTime();
+    }
+
+    /** {@inheritDoc} */
+    public void serviceStarting(final ServiceController<? extends Object> serviceController) {
+        final Entry entry = getEntry(serviceController.getName());
+        entry.thread = Thread.currentThread().getName();
+        entry.starting = System.nanoTime();
+    }
+
+    /** {@inheritDoc} */
+    public void serviceStarted(final ServiceController<? extends Object> serviceController) {
+        getEntry(serviceController.getName()).finished = System.nanoTime();
+        serviceController.removeListener(this);
+    }
+
+    /** {@inheritDoc} */
+    public void serviceFailed(final ServiceController<? extends Object> serviceController, final StartException reason) {
+        final Entry entry = getEntry(serviceController.getName());
+        entry.failed = true;
+        entry.finished = System.nanoTime();
+        serviceController.removeListener(this);
+    }
+
+    /**
+     * Get the dependency which finished starting last, after the given service had been installed.
+     *
+     * @param serviceName the service
+     * @return the gating dependency, or {@code null} if all dependencies were up before the service was installed
+     */
+    public ServiceName getGatingDependency(final ServiceName serviceName) {
+        final Entry entry = entries.get(serviceName);
+        return entry == null ? null : gate(entry);
+    }
+
+    /**
+     * Get the chain of services, each gated by the next, which ends with the service that finished starting last.
+     *
+     * @return the critical path, the earliest service first
+     */
+    public List<ServiceName> getCriticalPath() {
+        Entry last = null;
+        for (Entry entry : entries.values()) {
+            if (entry.finished != 0L && (last == null || entry.finished > last.finished)) {
+                last = entry;
+            }
+        }
+        final List<ServiceName> path = new ArrayList<ServiceName>();
+        while (last != null && ! path.contains(last.name)) {
+            path.add(last.name);
+            final ServiceName gate = gate(last);
+            last = gate == null ? null : entries.get(gate);
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * Log the critical path and, if a profile file was requested, write the timeline to it.
+     */
+    void complete() {
+        final List<ServiceName> path = getCriticalPath();
+        final StringBuilder builder = new StringBuilder("Boot critical path:");
+        for (ServiceName name : path) {
+            final Entry entry = entries.get(name);
+            builder.append(String.format("\n\t%s started at %dms, took %dms", name, Long.valueOf(millis(entry.getStart() - start)),
+                    Long.valueOf(millis(entry.finished - entry.getStart()))));
+        }
+        log.info(builder);
+
+        final String fileName = System.getProperty(PROFILE_FILE);
+        if (fileName != null) {
+            final File file = new File(fileName);
+            try {
+                final Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+                try {
+                    writeChromeTrace(writer);
+                } finally {
+                    writer.close();
+                }
+                log.infof("Wrote boot timeline of %d services to %s", Integer.valueOf(entries.size()), file.getAbsolutePath());
+            } catch (IOException e) {
+                log.warnf(e, "Failed to write boot timeline to %s", file.getAbsolutePath());
+            }
+        }
+    }
+
+    /**
+     * Write the timeline in the Chrome trace event format.  Each service is a complete event spanning the time it
+     * spent starting; its arguments give the time it waited after installation and the dependency that gated it.
+     *
+     * @param writer the writer
+     * @throws IOException if an error occurs
+     */
+    public void writeChromeTrace(final Writer writer) throws IOException {
+        writer.write("{\"traceEvents\":[");
+        boolean first = true;
+        for (Entry entry : entries.values()) {
+            if (entry.finished == 0L) {
+                continue;
+            }
+            if (! first) {
+                writer.write(',');
+            }
+            first = false;
+            final long begin = entry.getStart();
+            final ServiceName gate = gate(entry);
+            writer.write("\n{\"name\":");
+            writeString(writer, entry.name.getCanonicalName());
+            writer.write(",\"cat\":\"service\",\"ph\":\"X\",\"pid\":1,\"tid\":");
+            writeString(writer, entry.thread == null ? "unknown" : entry.thread);
+            writer.write(",\"ts\":" + micros(begin - start) + ",\"dur\":" + micros(entry.finished - begin));
+            writer.write(",\"args\":{\"waited_us\":" + (entry.added == 0L ? 0L : micros(begin - entry.added)));
+            if (gate != null) {
+                writer.write(",\"gated_by\":");
+                writeString(writer, gate.getCanonicalName());
+            }
+            if (entry.failed) {
+                writer.write(",\"failed\":true");
+            }
+            writer.write("}}");
+        }
+        writer.write("\n]}\n");
+    }
+
+    private ServiceName gate(final Entry entry) {
+        ServiceName gate = null;
+        long gateFinished = entry.added;
+        for (ServiceName dependency : entry.getDependencies()) {
+            final Entry dependencyEntry = entries.get(dependency);
+            if (dependencyEntry != null && dependencyEntry.finished > gateFinished) {
+                gate = dependency;
+                gateFinished = dependencyEntry.finished;
+            }
+        }
+        return gate;
+    }
+
+    private Entry getEntry(final ServiceName serviceName) {
+        Entry entry = entries.get(serviceName);
+        if (entry == null) {
+            final Entry newEntry = new Entry(serviceName);
+            entry = entries.putIfAbsent(serviceName, newEntry);
+            if (entry == null) {
+                entry = newEntry;
+            }
+        }
+        return entry;
+    }
+
+    private static long millis(final long nanos) {
+        return nanos / 1000000L;
+    }
+
+    private static long micros(final long nanos) {
+        return nanos / 1000L;
+    }
+
+    private static void writeString(final Writer writer, final String value) throws IOException {
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                writer.write('\\');
+                writer.write(c);
+            } else if (c < 0x20) {
+                writer.write(String.format("\\u%04x", Integer.valueOf(c)));
+            } else {
+                writer.write(c);
+            }
+        }
+        writer.write('"');
+    }
+
+    private static final class Entry {
+        private final ServiceName name;
+        private final List<ServiceName> dependencies = new ArrayList<ServiceName>();
+        private volatile long added;
+        private volatile long starting;
+        private volatile long finished;
+        private volatile boolean failed;
+        private volatile String thread;
+
+        Entry(final ServiceName name) {
+            this.name = name;
+        }
+
+        synchronized void addDependency(final ServiceName dependency) {
+            dependencies.add(dependency);
+        }
+
+        synchronized List<ServiceName> getDependencies() {
+            return new ArrayList<ServiceName>(dependencies);
+        }
+
+        long getStart() {
+            // the starting event is not sent for every service
+            final long starting = this.starting;
+            return starting != 0L ? starting : added;
+        }
+    }
+}
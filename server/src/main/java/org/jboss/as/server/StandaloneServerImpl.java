@@ -21,19 +21,15 @@
  */
 package org.jboss.as.server;
 
-import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
-import javax.xml.stream.XMLInputFactory;
-import javax.xml.stream.XMLStreamReader;
-
 import org.jboss.as.model.AbstractServerModelUpdate;
+import org.jboss.as.model.ParsedConfigurationCache;
 import org.jboss.logging.Logger;
 import org.jboss.msc.service.AbstractServiceListener;
 import org.jboss.msc.service.BatchBuilder;
@@ -90,13 +86,12 @@ public class StandaloneServerImpl implements StandaloneServer {
         if (!standalone.canWrite()) {
             throw new ServerStartException("File " + standalone.getAbsolutePath() + " is not writable.");
         }
-        final List<AbstractServerModelUpdate<?>> updates = new ArrayList<AbstractServerModelUpdate<?>>();
+        final List<AbstractServerModelUpdate<?>> updates;
         try {
             final XMLMapper mapper = XMLMapper.Factory.create();
             extensionRegistrar.registerStandardStandaloneReaders(mapper);
-            BufferedInputStream input = new BufferedInputStream(new FileInputStream(standalone));
-            XMLStreamReader streamReader = XMLInputFactory.newInstance().createXMLStreamReader(input);
-            mapper.parseDocument(updates, streamReader);
+            final ParsedConfigurationCache cache = new ParsedConfigurationCache(ParsedConfigurationCache.getCacheFile(standalone));
+            updates = cache.parse(new FileInputStream(standalone), mapper);
         } catch (Exception e) {
             throw new ServerStartException("Caught exception during processing of standalone.xml", e);
         }
@@ -0,0 +1,113 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.server;
+
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The statistics kept by an instrumented pool, registered over JMX by {@link ServerExecutorService}.
+ */
+public final class ThreadPoolMetrics implements ThreadPoolMetricsMXBean {
+
+    private final String name;
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final LatencyHistogram queueTime = new LatencyHistogram();
+    private final LatencyHistogram runTime = new LatencyHistogram();
+
+    ThreadPoolMetrics(final String name, final ThreadPoolExecutor executor) {
+        this.name = name;
+        this.executor = executor;
+    }
+
+    void rejected() {
+        rejectedCount.incrementAndGet();
+    }
+
+    LatencyHistogram getQueueTimeHistogram() {
+        return queueTime;
+    }
+
+    LatencyHistogram getRunTimeHistogram() {
+        return runTime;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getPoolSize() {
+        return executor.getPoolSize();
+    }
+
+    public int getMaximumPoolSize() {
+        return executor.getMaximumPoolSize();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    public long getCompletedTaskCount() {
+        return executor.getCompletedTaskCount();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    public long getQueueTimeMean() {
+        return queueTime.getMeanNanos() / 1000L;
+    }
+
+    public long getQueueTime99thPercentile() {
+        return queueTime.getPercentileMicros(0.99);
+    }
+
+    public long[] getQueueTimeCounts() {
+        return queueTime.getCounts();
+    }
+
+    public long getRunTimeMean() {
+        return runTime.getMeanNanos() / 1000L;
+    }
+
+    public long getRunTime99thPercentile() {
+        return runTime.getPercentileMicros(0.99);
+    }
+
+    public long[] getRunTimeCounts() {
+        return runTime.getCounts();
+    }
+
+    public String toString() {
+        return String.format("%s [threads=%d, active=%d, queued=%d, completed=%d, rejected=%d, queue time: %s, run time: %s]",
+                name, Integer.valueOf(getPoolSize()), Integer.valueOf(getActiveCount()), Integer.valueOf(getQueueSize()),
+                Long.valueOf(getCompletedTaskCount()), Long.valueOf(getRejectedCount()), queueTime, runTime);
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.server;
+
+/**
+ * Management view of one of the server's thread pools.  Latencies are in microseconds.
+ */
+public interface ThreadPoolMetricsMXBean {
+
+    /**
+     * Get the pool name.
+     *
+     * @return the name
+     */
+    String getName();
+
+    /**
+     * Get the current number of threads.
+     *
+     * @return the thread count
+     */
+    int getPoolSize();
+
+    /**
+     * Get the maximum number of threads.
+     *
+     * @return the maximum thread count
+     */
+    int getMaximumPoolSize();
+
+    /**
+     * Get the number of threads running tasks.
+     *
+     * @return the active thread count
+     */
+    int getActiveCount();
+
+    /**
+     * Get the number of tasks waiting in the queue.
+     *
+     * @return the queue depth
+     */
+    int getQueueSize();
+
+    /**
+     * Get the number of completed tasks.
+     *
+     * @return the completed task count
+     */
+    long getCompletedTaskCount();
+
+    /**
+     * Get the number of tasks that found the pool saturated.
+     *
+     * @return the rejected task count
+     */
+    long getRejectedCount();
+
+    /**
+     * Get the mean time tasks waited before starting.  For scheduled tasks this is the time they started late.
+     *
+     * @return the mean queue time
+     */
+    long getQueueTimeMean();
+
+    /**
+     * Get the time below which 99% of tasks started, to the resolution of the histogram.
+     *
+     * @return the 99th percentile queue time
+     */
+    long getQueueTime99thPercentile();
+
+    /**
+     * Get the queue time histogram, as described for {@link LatencyHistogram}.
+     *
+     * @return the bucket counts
+     */
+    long[] getQueueTimeCounts();
+
+    /**
+     * Get the mean task run time.
+     *
+     * @return the mean run time
+     */
+    long getRunTimeMean();
+
+    /**
+     * Get the time below which 99% of tasks completed, to the resolution of the histogram.
+     *
+     * @return the 99th percentile run time
+     */
+    long getRunTime99thPercentile();
+
+    /**
+     * Get the run time histogram, as described for {@link LatencyHistogram}.
+     *
+     * @return the bucket counts
+     */
+    long[] getRunTimeCounts();
+}
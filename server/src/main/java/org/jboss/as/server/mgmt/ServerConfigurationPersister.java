@@ -37,7 +37,13 @@ public interface ServerConfigurationPersister {
 
     /**
      * Notification that the server configuration has been modified
-     * and thus needs to be persisted.
+     * and thus needs to be persisted.  The configuration may be written
+     * after this method returns.
      */
     void configurationModified();
+
+    /**
+     * Wait for any pending persistence of the server configuration to complete.
+     */
+    void flush();
 }
@@ -22,21 +22,14 @@
 
 package org.jboss.as.server.mgmt;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamException;
-import javax.xml.stream.XMLStreamWriter;
 
+import org.jboss.as.model.BackgroundConfigurationWriter;
 import org.jboss.as.model.Element;
 import org.jboss.as.model.ServerModel;
 import org.jboss.as.server.ServerEnvironment;
 import org.jboss.as.server.ServerEnvironmentService;
-import org.jboss.logging.Logger;
 import org.jboss.msc.service.BatchBuilder;
 import org.jboss.msc.service.Service;
 import org.jboss.msc.service.StartContext;
@@ -45,7 +38,6 @@ import org.jboss.msc.service.StopContext;
 import org.jboss.msc.value.InjectedValue;
 import org.jboss.staxmapper.XMLContentWriter;
 import org.jboss.staxmapper.XMLExtendedStreamWriter;
-import org.jboss.staxmapper.XMLMapper;
 
 /**
  * Default implementation of {@link ServerConfigurationPersister}.
@@ -54,11 +46,9 @@ import org.jboss.staxmapper.XMLMapper;
  */
 public class ServerConfigurationPersisterImpl implements ServerConfigurationPersister, Service<ServerConfigurationPersister> {
 
-    private static Logger logger = Logger.getLogger("org.jboss.as.server");
-
     private final InjectedValue<ServerEnvironment> serverEnvironment = new InjectedValue<ServerEnvironment>();
     private final ServerModel configuration;
-    private File configFile;
+    private volatile BackgroundConfigurationWriter writer;
 
     public static void addService(ServerModel configuration, BatchBuilder batchBuilder) {
         ServerConfigurationPersisterImpl service = new ServerConfigurationPersisterImpl(configuration);
@@ -74,86 +64,20 @@ public class ServerConfigurationPersisterImpl implements ServerConfigurationPers
 
     @Override
     public void configurationModified() {
-        if (configFile != null) {
-
-            FileOutputStream fos = null;
-            BufferedOutputStream bos = null;
-            XMLStreamWriter writer = null;
-            try {
-                backupConfigFile();
-                configFile.createNewFile();
-                fos = new FileOutputStream(configFile);
-                bos = new BufferedOutputStream(fos);
-                writer = XMLOutputFactory.newInstance().createXMLStreamWriter(bos);
-                final XMLMapper mapper = XMLMapper.Factory.create();
-                mapper.deparseDocument(new RootElementWriter(), writer);
-            }
-            catch (Exception e) {
-                logger.errorf(e, "Failed persisting configuration file %s" , configFile.getAbsolutePath());
-            }
-            finally {
-                 if (writer != null) {
-                     try {
-                        writer.close();
-                    } catch (XMLStreamException e) {
-                        logger.warnf(e, "Failed closing writer to configuration file %s" , configFile.getAbsolutePath());
-                    }
-                 }
-                 if (fos != null) {
-                     try {
-                        fos.close();
-                    } catch (IOException e) {
-                        logger.warnf(e, "Failed closing output stream to configuration file %s" , configFile.getAbsolutePath());
-                    }
-                 }
+        final BackgroundConfigurationWriter writer = this.writer;
+        if (writer != null) {
+            // updates hold the model's monitor, so the document is a consistent snapshot
+            synchronized (configuration) {
+                writer.write(new RootElementWriter());
             }
-
         }
-
     }
 
-    private void backupConfigFile() throws IOException {
-        File backup = new File(configFile.getParent(), configFile.getName() + ".last-known-good");
-        copyFile(configFile, backup);
-    }
-
-    private void copyFile(File file, File backup) throws IOException {
-
-        if (backup.exists())
-            backup.delete();
-
-        if (!file.renameTo(backup)) {
-            FileOutputStream fos = null;
-            BufferedOutputStream bos = null;
-            FileInputStream fis = null;
-            try {
-                fos = new FileOutputStream(backup);
-                bos = new BufferedOutputStream(fos);
-                fis = new FileInputStream(file);
-                BufferedInputStream bis = new BufferedInputStream(fis);
-                byte[] bytes = new byte[8192];
-                int read;
-                while ((read = bis.read(bytes)) > -1) {
-                    bos.write(bytes, 0, read);
-                }
-            }
-            finally {
-                try {
-                    if (bos != null) {
-                        bos.close();
-                    }
-                 } catch (Exception ignored) {}
-                 try {
-                     if (fos != null) {
-                         fos.close();
-                     }
-                  } catch (Exception ignored) {}
-                  try {
-                      if (fis != null) {
-                          fis.close();
-                      }
-                   } catch (Exception ignored) {}
-            }
+    @Override
+    public void flush() {
+        final BackgroundConfigurationWriter writer = this.writer;
+        if (writer != null) {
+            writer.flushQuietly();
         }
     }
 
@@ -182,7 +106,7 @@ public class ServerConfigurationPersisterImpl implements ServerConfigurationPers
                 throw new StartException("Cannot create directory " + configDir.getAbsolutePath());
             }
 
-            configFile = new File(configDir, "standalone.xml");
+            final File configFile = new File(configDir, "standalone.xml");
             if (configFile.exists()) {
                 if (configFile.isDirectory()) {
                     throw new StartException(configFile.getAbsolutePath() + " is a directory");
@@ -192,12 +116,15 @@ public class ServerConfigurationPersisterImpl implements ServerConfigurationPers
                 }
 
             }
+            writer = new BackgroundConfigurationWriter(configFile);
         }
     }
 
     @Override
     public void stop(StopContext context) {
-        configFile = null;
+        // Don't lose configuration changes still being written
+        flush();
+        writer = null;
     }
 
     @Override
@@ -35,7 +35,6 @@ import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
@@ -48,6 +47,7 @@ import org.jboss.as.model.ServerModelDeploymentRemove;
 import org.jboss.as.model.ServerModelDeploymentReplaceUpdate;
 import org.jboss.as.model.ServerModelDeploymentStartStopUpdate;
 import org.jboss.as.model.UpdateResultHandler;
+import org.jboss.as.server.ServerExecutorService;
 import org.jboss.as.server.mgmt.ServerConfigurationPersister;
 import org.jboss.as.server.mgmt.ServerUpdateController;
 import org.jboss.as.server.mgmt.ServerUpdateController.ServerUpdateCommitHandler;
@@ -107,11 +107,8 @@ public class ServerDeploymentManagerImpl implements ServerDeploymentManager, Ser
         batchBuilder.addService(SERVICE_NAME_LOCAL, service)
             .addDependency(ServerDeploymentRepository.SERVICE_NAME, ServerDeploymentRepository.class, service.injectedDeploymentRepository)
             .addDependency(ServerConfigurationPersister.SERVICE_NAME, ServerConfigurationPersister.class, service.injectedConfigurationPersister)
-            .addDependency(ShutdownHandler.SERVICE_NAME, ShutdownHandler.class, service.injectedShutdownHandler);
-
-        // FIXME inject Executor from an external service dependency
-        final Executor hack = Executors.newCachedThreadPool();
-        service.injectedDeploymentExecutor.inject(hack);
+            .addDependency(ShutdownHandler.SERVICE_NAME, ShutdownHandler.class, service.injectedShutdownHandler)
+            .addDependency(ServerExecutorService.DEPLOYMENT, Executor.class, service.injectedDeploymentExecutor);
     }
 
     /**
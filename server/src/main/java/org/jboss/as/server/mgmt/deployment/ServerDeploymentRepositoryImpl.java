@@ -22,22 +22,32 @@
 
 package org.jboss.as.server.mgmt.deployment;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.Closeable;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.security.DigestOutputStream;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-
+import java.io.OutputStream;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.jboss.as.deployment.DeploymentContentCleaner;
+import org.jboss.as.deployment.DeploymentContentWriter;
+import org.jboss.as.deployment.PartialDeploymentContent;
 import org.jboss.as.deployment.ServerDeploymentRepository;
 import org.jboss.as.deployment.module.TempFileProviderService;
+import org.jboss.as.model.ServerGroupDeploymentElement;
+import org.jboss.as.model.ServerModel;
 import org.jboss.as.server.ServerEnvironment;
 import org.jboss.as.server.ServerEnvironmentService;
+import org.jboss.as.server.ServerExecutorService;
 import org.jboss.logging.Logger;
 import org.jboss.msc.service.BatchBuilder;
 import org.jboss.msc.service.Service;
@@ -53,14 +63,23 @@ import org.jboss.vfs.VirtualFile;
  *
  * @author Brian Stansberry
  */
-public class ServerDeploymentRepositoryImpl implements ServerDeploymentRepository, Service<ServerDeploymentRepository> {
+public class ServerDeploymentRepositoryImpl implements ServerDeploymentRepository, Service<ServerDeploymentRepository>, DeploymentContentCleaner.ContentReferences {
 
     private static final Logger log = Logger.getLogger("org.jboss.as.server.deployment");
 
     private static final String CONTENT = "content";
+    private static final String EXPLODED = "exploded";
+    private static final String CACHE = "cache";
+    /** How often unreferenced content is looked for, in minutes **/
+    private static final long CLEANUP_INTERVAL = 10L;
+
     private final InjectedValue<ServerEnvironment> serverEnvironment = new InjectedValue<ServerEnvironment>();
+    private final InjectedValue<ServerModel> serverModel = new InjectedValue<ServerModel>();
+    private final InjectedValue<ScheduledExecutorService> scheduledExecutor = new InjectedValue<ScheduledExecutorService>();
     private File repoRoot;
-    private MessageDigest messageDigest;
+    private DeploymentContentWriter contentWriter;
+    private DeploymentContentCleaner contentCleaner;
+    private ScheduledFuture<?> cleanupFuture;
 
     /**
      * Creates an instance of ServerDeploymentRepositoryImpl and configures the BatchBuilder to install it.
@@ -70,7 +89,9 @@ public class ServerDeploymentRepositoryImpl implements ServerDeploymentRepositor
     public static void addService(BatchBuilder batchBuilder) {
         ServerDeploymentRepositoryImpl service = new ServerDeploymentRepositoryImpl();
         batchBuilder.addService(SERVICE_NAME, service)
-                    .addDependency(ServerEnvironmentService.SERVICE_NAME, ServerEnvironment.class, service.serverEnvironment);
+                    .addDependency(ServerEnvironmentService.SERVICE_NAME, ServerEnvironment.class, service.serverEnvironment)
+                    .addDependency(ServerExecutorService.SCHEDULED, ScheduledExecutorService.class, service.scheduledExecutor)
+                    .addDependency(ServerModel.SERVICE_NAME, ServerModel.class, service.serverModel);
     }
 
     /**
@@ -83,51 +104,21 @@ public class ServerDeploymentRepositoryImpl implements ServerDeploymentRepositor
     @Override
     public byte[] addDeploymentContent(String name, String runtimeName, InputStream stream)
             throws IOException {
+        return addDeploymentContent(name, runtimeName, stream, 0L, null);
+    }
+
+    @Override
+    public byte[] addDeploymentContent(String name, String runtimeName, InputStream stream, long offset, byte[] expectedHash)
+            throws IOException {
 
         log.debugf("Adding content with name %s", name);
 
-        byte[] sha1Bytes = null;
-        File tmp = File.createTempFile(name, "tmp", repoRoot);
-        FileOutputStream fos = new FileOutputStream(tmp);
-        synchronized (messageDigest) {
-            messageDigest.reset();
-            try {
-                DigestOutputStream dos = new DigestOutputStream(fos, messageDigest);
-                BufferedInputStream bis = new BufferedInputStream(stream);
-                byte[] bytes = new byte[8192];
-                int read;
-                while ((read = bis.read(bytes)) > -1) {
-                    dos.write(bytes, 0, read);
-                }
-            }
-            finally {
-                try { fos.close(); } catch (Exception ignored) {}
-            }
-            sha1Bytes = messageDigest.digest();
-        }
-        String sha1 = bytesToHexString(sha1Bytes);
-        String partA = sha1.substring(0,2);
-        String partB = sha1.substring(2);
-        File base = new File(repoRoot, partA);
-        validateDir(base);
-        File realDir = new File(base, partB);
-        if (!realDir.exists() && !realDir.mkdirs()) {
-            throw new IllegalStateException("Cannot create directory " + realDir.getAbsolutePath());
-        }
-        File realFile = new File(realDir, CONTENT);
-        if (realFile.exists()) {
-            // we've already got this content
-            if (!tmp.delete()) {
-                tmp.deleteOnExit();
-            }
-            log.debugf("Content with name %s was already present in repository at location %s" , name, realFile.getAbsolutePath());
-        }
-        else {
-            moveTempToPermanent(tmp, realFile);
-            log.infof("Content with name %s added at location %s" , name, realFile.getAbsolutePath());
-        }
+        return contentWriter.addContent(name, stream, offset, expectedHash);
+    }
 
-        return sha1Bytes;
+    @Override
+    public PartialDeploymentContent getPartialDeploymentContent(String name) throws IOException {
+        return contentWriter.getPartialContent(name);
     }
 
     @Override
@@ -139,18 +130,171 @@ public class ServerDeploymentRepositoryImpl implements ServerDeploymentRepositor
         }
 
         // TODO recognize exploded content stored in a hot-deploy dir
-        String sha1 = bytesToHexString(deploymentHash);
+        final String sha1 = bytesToHexString(deploymentHash);
+        File hashDir = getHashDir(sha1);
+        File content = new File(hashDir, CONTENT);
+        final DeploymentContentCleaner cleaner = contentCleaner;
+        cleaner.acquire(sha1);
+        final Closeable mount;
+        try {
+            // FIXME
+            if(name.endsWith("war")) {
+                mount = VFS.mountReal(getExplodedContent(hashDir, content), mountPoint);
+            } else {
+                mount = VFS.mountZip(content, mountPoint, TempFileProviderService.provider());
+            }
+        } catch (IOException e) {
+            cleaner.release(sha1);
+            throw e;
+        } catch (RuntimeException e) {
+            cleaner.release(sha1);
+            throw e;
+        }
+        final AtomicBoolean closed = new AtomicBoolean();
+        return new Closeable() {
+            public void close() throws IOException {
+                if (closed.compareAndSet(false, true)) {
+                    try {
+                        mount.close();
+                    } finally {
+                        cleaner.release(sha1);
+                    }
+                }
+            }
+        };
+    }
+
+    @Override
+    public File getDeploymentCacheDirectory(byte[] deploymentHash) {
+        if (deploymentHash == null) {
+            return null;
+        }
+        final File hashDir = getHashDir(bytesToHexString(deploymentHash));
+        if (!hashDir.isDirectory()) {
+            return null;
+        }
+        final File cacheDir = new File(hashDir, CACHE);
+        if (!cacheDir.mkdir() && !cacheDir.isDirectory()) {
+            log.warnf("Cannot create cache directory %s", cacheDir.getAbsolutePath());
+            return null;
+        }
+        return cacheDir;
+    }
+
+    private File getHashDir(final String sha1) {
         String partA = sha1.substring(0,2);
         String partB = sha1.substring(2);
         File base = new File(repoRoot, partA);
-        File hashDir = new File(base, partB);
-        File content = new File(hashDir, CONTENT);
-        // FIXME
-        if(name.endsWith("war")) {
-            return VFS.mountZipExpanded(content, mountPoint, TempFileProviderService.provider());
-        } else {
-            return VFS.mountZip(content, mountPoint, TempFileProviderService.provider());
+        return new File(base, partB);
+    }
+
+    @Override
+    public Set<String> getReferencedContent() {
+        final Set<String> referenced = new HashSet<String>();
+        for (ServerGroupDeploymentElement deployment : serverModel.getValue().getDeployments()) {
+            referenced.add(deployment.getSha1HashAsHexString());
         }
+        return referenced;
+    }
+
+    /**
+     * Get the expanded copy of an archive kept next to it in the repository, expanding it if this is the first
+     * time it is mounted.  The copy outlives restarts and redeployments, and is only removed with the content.
+     * It is shared by every mount of the content, and in a domain by every server on the host, so it is made
+     * read-only; a deployment that needs to write files uses its cache directory or a temp file provider.
+     */
+    private File getExplodedContent(final File hashDir, final File content) throws IOException {
+        final File exploded = new File(hashDir, EXPLODED);
+        if (exploded.isDirectory()) {
+            return exploded;
+        }
+        final File tmp = File.createTempFile(EXPLODED, "tmp", hashDir);
+        if (!tmp.delete() || !tmp.mkdir()) {
+            throw new IOException("Cannot create directory " + tmp.getAbsolutePath());
+        }
+        boolean ok = false;
+        try {
+            expand(content, tmp);
+            setReadOnly(tmp);
+            // another mount may have expanded the same content meanwhile
+            ok = tmp.renameTo(exploded) || exploded.isDirectory();
+        } finally {
+            if (!ok) {
+                delete(tmp);
+            }
+        }
+        if (tmp.exists()) {
+            delete(tmp);
+        }
+        if (!ok) {
+            throw new IOException("Cannot create directory " + exploded.getAbsolutePath());
+        }
+        log.debugf("Expanded content %s to %s", content.getAbsolutePath(), exploded.getAbsolutePath());
+        return exploded;
+    }
+
+    private static void setReadOnly(final File file) {
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                setReadOnly(child);
+            }
+        }
+        file.setWritable(false, false);
+    }
+
+    private static void expand(final File archive, final File target) throws IOException {
+        final String targetPath = target.getCanonicalPath() + File.separator;
+        final ZipFile zipFile = new ZipFile(archive);
+        try {
+            final byte[] buffer = new byte[8192];
+            final Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                final ZipEntry entry = entries.nextElement();
+                final File file = new File(target, entry.getName());
+                if (!file.getCanonicalPath().startsWith(targetPath)) {
+                    throw new IOException("Entry " + entry.getName() + " is outside of " + archive.getAbsolutePath());
+                }
+                if (entry.isDirectory()) {
+                    if (!file.isDirectory() && !file.mkdirs()) {
+                        throw new IOException("Cannot create directory " + file.getAbsolutePath());
+                    }
+                    continue;
+                }
+                final File parent = file.getParentFile();
+                if (!parent.isDirectory() && !parent.mkdirs()) {
+                    throw new IOException("Cannot create directory " + parent.getAbsolutePath());
+                }
+                final InputStream in = zipFile.getInputStream(entry);
+                try {
+                    final OutputStream out = new FileOutputStream(file);
+                    try {
+                        int read;
+                        while ((read = in.read(buffer)) != -1) {
+                            out.write(buffer, 0, read);
+                        }
+                    } finally {
+                        try { out.close(); } catch (Exception ignored) {}
+                    }
+                } finally {
+                    try { in.close(); } catch (Exception ignored) {}
+                }
+            }
+        } finally {
+            try { zipFile.close(); } catch (Exception ignored) {}
+        }
+    }
+
+    private static void delete(final File file) {
+        // an expanded copy is read-only
+        file.setWritable(true);
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
     }
 
 
@@ -181,11 +325,14 @@ public class ServerDeploymentRepositoryImpl implements ServerDeploymentRepositor
         }
 
         this.repoRoot = deployDir;
-
-        try {
-            this.messageDigest = MessageDigest.getInstance("SHA-1");
-        } catch (NoSuchAlgorithmException e) {
-            throw new StartException("Cannot obtain SHA-1 " + MessageDigest.class.getSimpleName(), e);
+        this.contentWriter = new DeploymentContentWriter(deployDir, log);
+        this.contentCleaner = new DeploymentContentCleaner(contentWriter, this, DeploymentContentCleaner.DEFAULT_GRACE_PERIOD, log);
+        if (env.isStandalone()) {
+            this.cleanupFuture = scheduledExecutor.getValue().scheduleWithFixedDelay(contentCleaner, CLEANUP_INTERVAL, CLEANUP_INTERVAL, TimeUnit.MINUTES);
+        } else {
+            // a managed server shares its host's repository and only knows its own deployments;
+            // the domain controller removes unreferenced content
+            log.debugf("Not removing unreferenced content from shared repository %s", deployDir.getAbsolutePath());
         }
 
         log.debugf("%s started", ServerDeploymentRepository.class.getSimpleName());
@@ -194,7 +341,13 @@ public class ServerDeploymentRepositoryImpl implements ServerDeploymentRepositor
 
     @Override
     public void stop(StopContext context) {
+        if (cleanupFuture != null) {
+            cleanupFuture.cancel(false);
+            cleanupFuture = null;
+        }
         this.repoRoot = null;
+        this.contentWriter = null;
+        this.contentCleaner = null;
 
         log.debugf("%s stopped", ServerDeploymentRepository.class.getSimpleName());
     }
@@ -205,61 +358,6 @@ public class ServerDeploymentRepositoryImpl implements ServerDeploymentRepositor
         return this;
     }
 
-    private void validateDir(File dir) {
-        if (!dir.exists()) {
-            if (!dir.mkdirs()) {
-                throw new IllegalStateException("Cannot create directory " + dir.getAbsolutePath());
-            }
-        }
-        else if (!dir.isDirectory()) {
-            throw new IllegalStateException(dir.getAbsolutePath() + " is not a directory");
-        }
-        else if (!dir.canWrite()) {
-            throw new IllegalStateException("Cannot write to directory " + dir.getAbsolutePath());
-        }
-    }
-
-    private void moveTempToPermanent(File tmpFile, File permanentFile) throws IOException {
-
-        if (!tmpFile.renameTo(permanentFile)) {
-            FileOutputStream fos = null;
-            BufferedOutputStream bos = null;
-            FileInputStream fis = null;
-            try {
-                fos = new FileOutputStream(permanentFile);
-                bos = new BufferedOutputStream(fos);
-                fis = new FileInputStream(tmpFile);
-                BufferedInputStream bis = new BufferedInputStream(fis);
-                byte[] bytes = new byte[8192];
-                int read;
-                while ((read = bis.read(bytes)) > -1) {
-                    bos.write(bytes, 0, read);
-                }
-            }
-            finally {
-                try {
-                    if (bos != null) {
-                        bos.close();
-                    }
-                 } catch (Exception ignored) {}
-                 try {
-                     if (fos != null) {
-                         fos.close();
-                     }
-                  } catch (Exception ignored) {}
-                  try {
-                      if (fis != null) {
-                          fis.close();
-                      }
-                  } catch (Exception ignored) {}
-
-                  if (!tmpFile.delete()) {
-                      tmpFile.deleteOnExit();
-                  }
-            }
-        }
-    }
-
     // TODO move this sha1 translation stuff to a general utility class
     private static char[] table = {
             '0', '1', '2', '3', '4', '5', '6', '7',
@@ -23,12 +23,12 @@
 package org.jboss.as.server.standalone.deployment;
 
 import java.io.File;
-import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 
 import org.jboss.as.deployment.scanner.DeploymentScanner;
 import org.jboss.as.deployment.scanner.DeploymentScannerFactory;
 import org.jboss.as.model.ServerModel;
+import org.jboss.as.server.ServerExecutorService;
 import org.jboss.as.standalone.client.api.deployment.ServerDeploymentManager;
 import org.jboss.msc.service.BatchBuilder;
 import org.jboss.msc.service.BatchServiceBuilder;
@@ -56,11 +56,8 @@ public class DeploymentScannerFactoryService implements DeploymentScannerFactory
 
     public static BatchServiceBuilder<?> addService(final BatchBuilder builder) {
         final DeploymentScannerFactoryService service = new DeploymentScannerFactoryService();
-        // FIXME inject ScheduledExecutorService from an external service dependency
-        final ScheduledExecutorService hack = Executors.newSingleThreadScheduledExecutor();
-
-        service.injectedScheduleExecutor.inject(hack);
         return builder.addService(DeploymentScannerFactory.SERVICE_NAME, service)
+                .addDependency(ServerExecutorService.SCHEDULED, ScheduledExecutorService.class, service.injectedScheduleExecutor)
                 .addDependency(ServerDeploymentManager.SERVICE_NAME_LOCAL, ServerDeploymentManager.class, service.injectedDeploymentManager)
                 .addDependency(ServerModel.SERVICE_NAME, ServerModel.class, service.injectedServerModel)
                 .setInitialMode(Mode.ON_DEMAND);
@@ -26,9 +26,11 @@ import java.io.File;
 import java.io.FileFilter;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
@@ -49,6 +51,7 @@ import org.jboss.as.standalone.client.api.deployment.DeploymentPlanBuilder;
 import org.jboss.as.standalone.client.api.deployment.DuplicateDeploymentNameException;
 import org.jboss.as.standalone.client.api.deployment.ServerDeploymentManager;
 import org.jboss.as.standalone.client.api.deployment.ServerDeploymentPlanResult;
+import org.jboss.as.standalone.client.impl.deployment.DeploymentPlanImpl;
 import org.jboss.logging.Logger;
 
 /**
@@ -62,6 +65,10 @@ class FileSystemDeploymentService implements DeploymentScanner {
     private static final Set<String> ARCHIVES = new HashSet<String>(Arrays.asList(".jar", ".war", ".ear", ".rar", ".sar", ".beans"));
     private static final Logger log = Logger.getLogger("org.jboss.as.deployment");
     private static final String DEPLOYED = ".deployed";
+    /** Directory timestamps closer than this to the time of a listing may not reflect later changes **/
+    private static final long TIMESTAMP_GRANULARITY = 2000L;
+    /** In incremental mode, every this many scans re-read every directory anyway **/
+    private static final int FULL_SCAN_CYCLES = 60;
 
     private File deploymentDir;
     private long scanInterval = 0;
@@ -69,6 +76,16 @@ class FileSystemDeploymentService implements DeploymentScanner {
     private ScheduledFuture<?> scanTask;
     private final Lock scanLock = new ReentrantLock();
     private Set<String> deployed = new HashSet<String>();
+    private volatile boolean incrementalScan = true;
+    private volatile int maxParallelDeployments = Runtime.getRuntime().availableProcessors();
+    /** The last listing of each directory; only used with the scan lock held **/
+    private final Map<File, DirectoryListing> listings = new HashMap<File, DirectoryListing>();
+    private final Set<File> listed = new HashSet<File>();
+    private int scansUntilFull;
+    private boolean fullScan;
+    private int fileCount;
+    private volatile long lastScanDuration;
+    private volatile int lastScanFileCount;
 
     private ServerModel serverModel;
     private ServerDeploymentManager deploymentManager;
@@ -103,6 +120,39 @@ class FileSystemDeploymentService implements DeploymentScanner {
         return scanEnabled;
     }
 
+    /** {@inheritDoc} */
+    public boolean isIncrementalScan() {
+        return incrementalScan;
+    }
+
+    /** {@inheritDoc} */
+    public void setIncrementalScan(boolean incrementalScan) {
+        this.incrementalScan = incrementalScan;
+    }
+
+    /** {@inheritDoc} */
+    public int getMaxParallelDeployments() {
+        return maxParallelDeployments;
+    }
+
+    /** {@inheritDoc} */
+    public void setMaxParallelDeployments(int maxParallelDeployments) {
+        if (maxParallelDeployments < 1) {
+            throw new IllegalArgumentException("maxParallelDeployments must be at least 1");
+        }
+        this.maxParallelDeployments = maxParallelDeployments;
+    }
+
+    /** {@inheritDoc} */
+    public long getLastScanDuration() {
+        return lastScanDuration;
+    }
+
+    /** {@inheritDoc} */
+    public int getLastScanFileCount() {
+        return lastScanFileCount;
+    }
+
     /** {@inheritDoc} */
     public synchronized void startScanner() {
         final boolean scanEnabled = this.scanEnabled;
@@ -205,10 +255,19 @@ class FileSystemDeploymentService implements DeploymentScanner {
 
                 log.tracef("Scanning directory %s for deployment content changes", deploymentDir.getAbsolutePath());
 
+                final long start = System.currentTimeMillis();
+                fileCount = 0;
+                fullScan = !incrementalScan || scansUntilFull-- <= 0;
+                if (fullScan) {
+                    scansUntilFull = FULL_SCAN_CYCLES;
+                }
                 DeploymentPlanBuilder builder = this.deploymentManager.newDeploymentPlan();
                 Map<String, File> foundDeployed = new HashMap<String, File>();
                 Set<String> newlyAdded = new HashSet<String>();
                 builder = scanDirectory(deploymentDir, builder, foundDeployed, newlyAdded);
+                // forget directories which have gone away
+                listings.keySet().retainAll(listed);
+                listed.clear();
 
                 // Add remove actions to the plan for anything we count as
                 // deployed that we didn't find on the scan
@@ -224,6 +283,10 @@ class FileSystemDeploymentService implements DeploymentScanner {
                 validFinds.addAll(newlyAdded);
                 this.deployed = validFinds;
 
+                lastScanDuration = System.currentTimeMillis() - start;
+                lastScanFileCount = fileCount;
+                log.tracef("Checked %d files in %d ms", Integer.valueOf(fileCount), Long.valueOf(lastScanDuration));
+
                 DeploymentPlan plan = builder.build();
 
                 if (plan.getDeploymentActions().size() > 0) {
@@ -232,14 +295,42 @@ class FileSystemDeploymentService implements DeploymentScanner {
                             log.debugf("Deployment plan %s includes action of type %s affecting deployment %s", plan.getId(), action.getType(), action.getDeploymentUnitUniqueName());
                         }
                     }
-                    Future<ServerDeploymentPlanResult> future = deploymentManager.execute(plan);
+                    final long start = System.currentTimeMillis();
+                    // independent deployments go in separate plans which the deployment manager executes in parallel,
+                    // each with its own result and rollback
+                    final List<DeploymentPlanImpl> batches = plan instanceof DeploymentPlanImpl
+                            ? ((DeploymentPlanImpl) plan).partition(maxParallelDeployments)
+                            : null;
+                    final List<Future<ServerDeploymentPlanResult>> futures = new ArrayList<Future<ServerDeploymentPlanResult>>();
+                    if (batches == null) {
+                        futures.add(deploymentManager.execute(plan));
+                    }
+                    else {
+                        for (DeploymentPlan batch : batches) {
+                            futures.add(deploymentManager.execute(batch));
+                        }
+                    }
 
-                    try {
-                        ServerDeploymentPlanResult result = future.get(60, TimeUnit.SECONDS);
-                        // FIXME deal with result
-                    } catch (TimeoutException e) {
-                        // This could be a WARN but deployments could validly take over 60 seconds
-                        log.infof("Deployment plan %s did not complete within 60 seconds. Resuming scanning for deployment changes.", plan.getId());
+                    final long deadline = start + TimeUnit.SECONDS.toMillis(60);
+                    boolean complete = true;
+                    for (Future<ServerDeploymentPlanResult> future : futures) {
+                        try {
+                            ServerDeploymentPlanResult result = future.get(Math.max(0L, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                            // FIXME deal with result
+                        } catch (TimeoutException e) {
+                            // This could be a WARN but deployments could validly take over 60 seconds
+                            log.infof("Deployment plan %s did not complete within 60 seconds. Resuming scanning for deployment changes.", plan.getId());
+                            complete = false;
+                            break;
+                        } catch (ExecutionException e) {
+                            log.error("Retrieval of " + ServerDeploymentPlanResult.class.getName() + " threw an exception.", e);
+                            // FIXME any other handling?
+                        }
+                    }
+                    if (complete) {
+                        log.infof("Deployment plan %s with %d actions completed in %d ms in %d parallel batches", plan.getId(),
+                                Integer.valueOf(plan.getDeploymentActions().size()), Long.valueOf(System.currentTimeMillis() - start),
+                                Integer.valueOf(futures.size()));
                     }
                 }
 
@@ -248,9 +339,6 @@ class FileSystemDeploymentService implements DeploymentScanner {
         } catch (InterruptedException e) {
             log.warn("Interrupted waiting on completion of deployment plan");
             Thread.currentThread().interrupt();
-        } catch (ExecutionException e) {
-            log.error("Retrieval of " + ServerDeploymentPlanResult.class.getName() + " threw an exception.", e);
-            // FIXME any other handling?
         }
         finally {
             scanLock.unlock();
@@ -285,21 +373,21 @@ class FileSystemDeploymentService implements DeploymentScanner {
      */
     private DeploymentPlanBuilder scanDirectory(File directory, DeploymentPlanBuilder builder, Map<String, File> foundDeployed, Set<String> newlyAdded) {
 
-        //TODO externalize config of filter?
-        File[] children = directory.listFiles(filter);
-        if (children == null) {
+        DirectoryListing listing = listDirectory(directory);
+        if (listing == null) {
             return builder;
         }
 
-        for (File child : children) {
+        for (int i = 0; i < listing.children.length; i++) {
 
+            File child = listing.children[i];
             String fileName = child.getName();
 
             if (fileName.endsWith(DEPLOYED)) {
                 String origName = fileName.substring(0, fileName.length() - DEPLOYED.length());
                 foundDeployed.put(origName, child);
             }
-            else if (child.isDirectory()) {
+            else if (listing.directories[i]) {
                 int idx = fileName.lastIndexOf('.');
                 if (idx > -1 && ARCHIVES.contains(fileName.substring(idx))) {
                     // FIXME handle exploded deployments
@@ -370,6 +458,42 @@ class FileSystemDeploymentService implements DeploymentScanner {
         return builder;
     }
 
+    /**
+     * Get the filtered children of a directory.  Adding, removing or renaming an entry changes the timestamp of its
+     * directory, so in incremental mode a directory is only read again when its timestamp changes; otherwise only
+     * the directory itself is checked.
+     *
+     * @param directory the directory
+     * @return the listing, or {@code null} if the directory can not be read
+     */
+    private DirectoryListing listDirectory(File directory) {
+        final long now = System.currentTimeMillis();
+        final long lastModified = directory.lastModified();
+        fileCount++;
+        listed.add(directory);
+        DirectoryListing listing = listings.get(directory);
+        if (!fullScan && listing != null && listing.stable && listing.lastModified == lastModified) {
+            return listing;
+        }
+        //TODO externalize config of filter?
+        File[] children = directory.listFiles(filter);
+        if (children == null) {
+            listings.remove(directory);
+            return null;
+        }
+        boolean[] directories = new boolean[children.length];
+        for (int i = 0; i < children.length; i++) {
+            if (!children[i].getName().endsWith(DEPLOYED)) {
+                directories[i] = children[i].isDirectory();
+                fileCount++;
+            }
+        }
+        // a change made just after the listing may not move a coarse timestamp, so read it again next time
+        listing = new DirectoryListing(lastModified, lastModified < now - TIMESTAMP_GRANULARITY, children, directories);
+        listings.put(directory, listing);
+        return listing;
+    }
+
     /** Adds a marker file, deletes the regular content file */
     private boolean replaceWithDeployedMarker(File child) {
         boolean ok = false;
@@ -437,4 +561,18 @@ class FileSystemDeploymentService implements DeploymentScanner {
         }
     }
 
+    private static final class DirectoryListing {
+        private final long lastModified;
+        private final boolean stable;
+        private final File[] children;
+        private final boolean[] directories;
+
+        private DirectoryListing(long lastModified, boolean stable, File[] children, boolean[] directories) {
+            this.lastModified = lastModified;
+            this.stable = stable;
+            this.children = children;
+            this.directories = directories;
+        }
+    }
+
 }
@@ -25,6 +25,7 @@ package org.jboss.as.server.standalone.management;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.PushbackInputStream;
 import java.net.InetSocketAddress;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -44,6 +45,7 @@ import org.jboss.as.protocol.mgmt.ManagementOperationHandler;
 import org.jboss.as.protocol.mgmt.ManagementProtocol;
 import org.jboss.as.protocol.mgmt.ManagementRequestHeader;
 import org.jboss.as.protocol.mgmt.ManagementResponseHeader;
+import org.jboss.as.protocol.mgmt.MultiplexedConnection;
 import org.jboss.as.services.net.NetworkInterfaceBinding;
 import org.jboss.msc.inject.Injector;
 import org.jboss.msc.service.Service;
@@ -172,8 +174,16 @@ public class ManagementCommunicationService implements Service<ManagementCommuni
             final ManagementRequestHeader requestHeader;
             final ManagementOperationHandler handler;
             ByteDataInput input = null;
+            final PushbackInputStream pushbackStream = new PushbackInputStream(dataStream);
+            if (MultiplexedConnection.isMultiplexed(pushbackStream)) {
+                // The client runs its requests on separate channels of this connection
+                final MultiplexedConnection multiplexedConnection = new MultiplexedConnection(connection, ManagementCommunicationService.this, executorServiceValue.getValue());
+                connection.setMessageHandler(multiplexedConnection);
+                multiplexedConnection.handleMessage(connection, pushbackStream);
+                return;
+            }
             try {
-                input = new SimpleByteDataInput(dataStream);
+                input = new SimpleByteDataInput(pushbackStream);
 
                 // Start by reading the request header
                 requestHeader = new ManagementRequestHeader(input);
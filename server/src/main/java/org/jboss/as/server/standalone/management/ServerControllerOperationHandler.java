@@ -38,6 +38,7 @@ import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
+import org.jboss.as.deployment.PartialDeploymentContent;
 import org.jboss.as.deployment.ServerDeploymentRepository;
 import org.jboss.as.model.AbstractServerModelUpdate;
 import org.jboss.as.model.UpdateFailedException;
@@ -45,6 +46,7 @@ import org.jboss.as.model.UpdateResultHandler;
 import org.jboss.as.protocol.ByteDataInput;
 import org.jboss.as.protocol.ByteDataOutput;
 import org.jboss.as.protocol.Connection;
+import org.jboss.as.protocol.ContentInputStream;
 import org.jboss.as.protocol.ProtocolUtils;
 import org.jboss.as.protocol.SimpleByteDataInput;
 import org.jboss.as.protocol.SimpleByteDataOutput;
@@ -193,6 +195,8 @@ class ServerControllerOperationHandler extends AbstractMessageHandler implements
                 return new GetServerModel();
             case StandaloneClientProtocol.ADD_DEPLOYMENT_CONTENT_REQUEST:
                 return new AddDeploymentContentOperation();
+            case StandaloneClientProtocol.GET_PARTIAL_DEPLOYMENT_CONTENT_REQUEST:
+                return new GetPartialDeploymentContentOperation();
             case StandaloneClientProtocol.APPLY_UPDATES_REQUEST:
                 return new ApplyUpdates();
             case StandaloneClientProtocol.CHECK_UNIQUE_DEPLOYMENT_NAME_REQUEST:
@@ -216,7 +220,8 @@ class ServerControllerOperationHandler extends AbstractMessageHandler implements
             marshaller.start(createByteOutput(outputStream));
             try {
                 marshaller.writeByte(StandaloneClientProtocol.PARAM_SERVER_MODEL);
-                marshaller.writeObject(serverController.getServerModel());
+                // copy the model rather than hold off updates while a slow client reads it
+                marshaller.writeObject(serverController.getServerModel().snapshot());
                 marshaller.finish();
             } finally {
                 safeFinish(marshaller);
@@ -337,8 +342,21 @@ class ServerControllerOperationHandler extends AbstractMessageHandler implements
             final String deploymentName = StreamUtils.readUTFZBytes(inputStream);
             expectHeader(inputStream, StandaloneClientProtocol.PARAM_DEPLOYMENT_RUNTIME_NAME);
             final String deploymentRuntimeName = StreamUtils.readUTFZBytes(inputStream);
-            expectHeader(inputStream, StandaloneClientProtocol.PARAM_DEPLOYMENT_CONTENT);
-            deploymentHash = deploymentRepository.addDeploymentContent(deploymentName, deploymentRuntimeName, inputStream);
+            final byte contentHeader = readByte(inputStream);
+            if (contentHeader == StandaloneClientProtocol.PARAM_DEPLOYMENT_CONTENT_STREAM) {
+                final long offset = StreamUtils.readLong(inputStream);
+                byte[] expectedHash = null;
+                final int hashLength = StreamUtils.readInt(inputStream);
+                if (hashLength > 0) {
+                    expectedHash = new byte[hashLength];
+                    StreamUtils.readFully(inputStream, expectedHash);
+                }
+                deploymentHash = deploymentRepository.addDeploymentContent(deploymentName, deploymentRuntimeName, new ContentInputStream(inputStream), offset, expectedHash);
+            } else {
+                // a client older than the streamed content protocol version
+                expectHeader(contentHeader, StandaloneClientProtocol.PARAM_DEPLOYMENT_CONTENT);
+                deploymentHash = deploymentRepository.addDeploymentContent(deploymentName, deploymentRuntimeName, inputStream);
+            }
         }
 
         @Override
@@ -357,6 +375,40 @@ class ServerControllerOperationHandler extends AbstractMessageHandler implements
         }
     }
 
+    private class GetPartialDeploymentContentOperation extends ManagementResponse {
+        private PartialDeploymentContent partialContent;
+
+        @Override
+        protected final byte getResponseCode() {
+            return StandaloneClientProtocol.GET_PARTIAL_DEPLOYMENT_CONTENT_RESPONSE;
+        }
+
+        @Override
+        protected final void readRequest(final InputStream inputStream) throws IOException {
+            expectHeader(inputStream, StandaloneClientProtocol.PARAM_DEPLOYMENT_NAME);
+            final String deploymentName = StreamUtils.readUTFZBytes(inputStream);
+            partialContent = deploymentRepository.getPartialDeploymentContent(deploymentName);
+        }
+
+        @Override
+        protected void sendResponse(final OutputStream outputStream) throws IOException {
+            ByteDataOutput output = null;
+            try {
+                output = new SimpleByteDataOutput(outputStream);
+                output.writeByte(StandaloneClientProtocol.PARAM_PARTIAL_DEPLOYMENT_CONTENT);
+                output.writeBoolean(partialContent != null);
+                if (partialContent != null) {
+                    output.writeLong(partialContent.getLength());
+                    output.writeInt(partialContent.getHash().length);
+                    output.write(partialContent.getHash());
+                }
+                output.close();
+            } finally {
+                safeClose(output);
+            }
+        }
+    }
+
     private class ExecuteDeploymentPlanOperation extends ManagementResponse {
         private DeploymentPlan deploymentPlan;
 
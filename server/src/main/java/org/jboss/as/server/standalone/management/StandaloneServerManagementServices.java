@@ -22,12 +22,15 @@
 
 package org.jboss.as.server.standalone.management;
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 import org.jboss.as.deployment.ServerDeploymentRepository;
 import org.jboss.as.model.ManagementElement;
 import org.jboss.as.model.ServerModel;
 import org.jboss.as.server.ServerController;
+import org.jboss.as.server.ServerExecutorService;
 import org.jboss.as.server.mgmt.ServerConfigurationPersister;
 import org.jboss.as.server.mgmt.ShutdownHandler;
 import org.jboss.as.services.net.NetworkInterfaceBinding;
@@ -51,7 +54,7 @@ public class StandaloneServerManagementServices {
             batchBuilder.addService(ManagementCommunicationService.SERVICE_NAME, managementCommunicationService)
                     .addDependency(NetworkInterfaceService.JBOSS_NETWORK_INTERFACE.append(managementElement.getInterfaceName()), NetworkInterfaceBinding.class, managementCommunicationService.getInterfaceInjector())
                     .addInjection(managementCommunicationService.getPortInjector(), managementElement.getPort())
-                    .addInjection(managementCommunicationService.getExecutorServiceInjector(), Executors.newCachedThreadPool())
+                    .addDependency(ServerExecutorService.IO, ExecutorService.class, managementCommunicationService.getExecutorServiceInjector())
                     .addInjection(managementCommunicationService.getThreadFactoryInjector(), Executors.defaultThreadFactory())
                     .setInitialMode(ServiceController.Mode.ACTIVE);
             // Handlers
@@ -63,8 +66,7 @@ public class StandaloneServerManagementServices {
                     .addDependency(ServerDeploymentRepository.SERVICE_NAME, ServerDeploymentRepository.class, clientOperationHandler.getDeploymentRepositoryInjector())
                     .addDependency(ServerDeploymentManager.SERVICE_NAME_LOCAL, ServerDeploymentManager.class, clientOperationHandler.getDeploymentManagerInjector())
                     .addDependency(ShutdownHandler.SERVICE_NAME, ShutdownHandler.class, clientOperationHandler.getShutdownHandlerValue())
-                    // FIXME inject executor
-                    .addInjection(clientOperationHandler.getExecutorValue(), Executors.newCachedThreadPool())
+                    .addDependency(ServerExecutorService.MANAGEMENT, Executor.class, clientOperationHandler.getExecutorValue())
                     .setInitialMode(ServiceController.Mode.ACTIVE);
         }
     }
@@ -34,23 +34,32 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.InetAddress;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 
+import org.jboss.as.deployment.PartialDeploymentContent;
 import org.jboss.as.model.AbstractServerModelUpdate;
 import org.jboss.as.model.ServerModel;
 import org.jboss.as.model.UpdateFailedException;
 import org.jboss.as.protocol.ByteDataInput;
 import org.jboss.as.protocol.ByteDataOutput;
+import org.jboss.as.protocol.ContentOutputStream;
 import org.jboss.as.protocol.ProtocolUtils;
+import org.jboss.as.protocol.ResumableContent;
 import org.jboss.as.protocol.SimpleByteDataInput;
 import org.jboss.as.protocol.SimpleByteDataOutput;
 import org.jboss.as.protocol.StreamUtils;
+import org.jboss.as.protocol.mgmt.ManagementConnectionPool;
 import org.jboss.as.protocol.mgmt.ManagementException;
+import org.jboss.as.protocol.mgmt.ManagementProtocol;
 import org.jboss.as.protocol.mgmt.ManagementRequest;
 import org.jboss.as.protocol.mgmt.ManagementRequestConnectionStrategy;
 import org.jboss.as.standalone.client.api.StandaloneClient;
@@ -74,10 +83,22 @@ public class StandaloneClientImpl implements StandaloneClient {
         CONFIG.setClassResolver(new SimpleClassResolver(StandaloneClientImpl.class.getClassLoader()));
     }
     private static final long CONNECTION_TIMEOUT = TimeUnit.SECONDS.toMillis(5L);
+    private static final int MAX_POOLED_CONNECTIONS = 4;
+    private static final long POOLED_CONNECTION_IDLE_TIMEOUT = TimeUnit.SECONDS.toMillis(60L);
     private final InetAddress address;
     private final int port;
     private final ThreadFactory threadFactory = Executors.defaultThreadFactory();
     private final ExecutorService executorService = Executors.newCachedThreadPool(threadFactory);
+    // closes idle pooled connections; a daemon, so a client which is never closed does not keep the VM alive
+    private final ScheduledExecutorService reaperExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        public Thread newThread(final Runnable r) {
+            final Thread thread = threadFactory.newThread(r);
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+    private final ManagementConnectionPool connectionPool = new ManagementConnectionPool(MAX_POOLED_CONNECTIONS, ManagementConnectionPool.DEFAULT_MAX_CHANNELS_PER_CONNECTION, POOLED_CONNECTION_IDLE_TIMEOUT, CONNECTION_TIMEOUT, executorService, threadFactory, reaperExecutor);
+    private final Set<String> interruptedUploads = Collections.synchronizedSet(new HashSet<String>());
 
     public StandaloneClientImpl(final InetAddress address, final int port) {
         this.address = address;
@@ -104,11 +125,36 @@ public class StandaloneClientImpl implements StandaloneClient {
 
     /** {@inheritDoc} */
     public byte[] addDeploymentContent(String name, String runtimeName, InputStream stream) {
+        return addDeploymentContent(name, runtimeName, stream, null);
+    }
+
+    /** {@inheritDoc} */
+    public byte[] addDeploymentContent(String name, String runtimeName, InputStream stream, byte[] hash) {
+        final AddDeploymentContentOperation operation;
         try {
-            return new AddDeploymentContentOperation(name, runtimeName, stream).executeForResult(getConnectionStrategy());
+            InputStream content = stream;
+            long offset = 0L;
+            if (interruptedUploads.remove(name)) {
+                // the server may still hold the start of the content from the last attempt
+                final PartialDeploymentContent partialContent = new GetPartialDeploymentContentOperation(name).executeForResult(getConnectionStrategy());
+                if (partialContent != null) {
+                    final ResumableContent resumable = ResumableContent.resume(stream, partialContent.getLength(), partialContent.getHash());
+                    content = resumable.getStream();
+                    offset = resumable.getOffset();
+                }
+            }
+            operation = new AddDeploymentContentOperation(name, runtimeName, content, offset, hash);
         } catch (Exception e) {
             throw new ManagementException("Failed to add deployment content.", e);
         }
+        try {
+            return operation.executeForResult(getConnectionStrategy());
+        } catch (Exception e) {
+            if (operation.streamed) {
+                interruptedUploads.add(name);
+            }
+            throw new ManagementException("Failed to add deployment content.", e);
+        }
     }
 
     /** {@inheritDoc} */
@@ -134,6 +180,8 @@ public class StandaloneClientImpl implements StandaloneClient {
     }
 
     public void close() throws IOException {
+        connectionPool.close();
+        reaperExecutor.shutdown();
         executorService.shutdown();
     }
 
@@ -243,11 +291,16 @@ public class StandaloneClientImpl implements StandaloneClient {
         private final String name;
         private final String runtimeName;
         private final InputStream inputStream;
+        private final long offset;
+        private final byte[] hash;
+        private volatile boolean streamed;
 
-        private AddDeploymentContentOperation(final String name, final String runtimeName, final InputStream inputStream) {
+        private AddDeploymentContentOperation(final String name, final String runtimeName, final InputStream inputStream, final long offset, final byte[] hash) {
             this.name = name;
             this.runtimeName = runtimeName;
             this.inputStream = inputStream;
+            this.offset = offset;
+            this.hash = hash;
         }
 
         /** {@inheritDoc} */
@@ -269,6 +322,29 @@ public class StandaloneClientImpl implements StandaloneClient {
             StreamUtils.writeUTFZBytes(outputStream, name);
             outputStream.write(StandaloneClientProtocol.PARAM_DEPLOYMENT_RUNTIME_NAME);
             StreamUtils.writeUTFZBytes(outputStream, runtimeName);
+            if (protocolVersion >= ManagementProtocol.STREAMED_CONTENT_VERSION) {
+                streamed = true;
+                outputStream.write(StandaloneClientProtocol.PARAM_DEPLOYMENT_CONTENT_STREAM);
+                StreamUtils.writeLong(outputStream, offset);
+                if (hash == null) {
+                    StreamUtils.writeInt(outputStream, 0);
+                } else {
+                    StreamUtils.writeInt(outputStream, hash.length);
+                    outputStream.write(hash);
+                }
+                try {
+                    final ContentOutputStream contentOutput = new ContentOutputStream(outputStream);
+                    contentOutput.transferFrom(inputStream);
+                    contentOutput.close();
+                    inputStream.close();
+                } finally {
+                    safeClose(inputStream);
+                }
+                return;
+            }
+            if (offset != 0L) {
+                throw new IOException("Server does not support resuming uploads");
+            }
             outputStream.write(StandaloneClientProtocol.PARAM_DEPLOYMENT_CONTENT);
             try {
                 byte[] buffer = new byte[8192];
@@ -301,6 +377,54 @@ public class StandaloneClientImpl implements StandaloneClient {
         }
     }
 
+    private class GetPartialDeploymentContentOperation extends StandaloneClientRequest<PartialDeploymentContent> {
+        private final String name;
+
+        private GetPartialDeploymentContentOperation(final String name) {
+            this.name = name;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public final byte getRequestCode() {
+            return StandaloneClientProtocol.GET_PARTIAL_DEPLOYMENT_CONTENT_REQUEST;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        protected final byte getResponseCode() {
+            return StandaloneClientProtocol.GET_PARTIAL_DEPLOYMENT_CONTENT_RESPONSE;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        protected void sendRequest(int protocolVersion, OutputStream outputStream) throws IOException {
+            outputStream.write(StandaloneClientProtocol.PARAM_DEPLOYMENT_NAME);
+            StreamUtils.writeUTFZBytes(outputStream, name);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        protected final PartialDeploymentContent receiveResponse(final InputStream inputStream) throws IOException {
+            ByteDataInput input = null;
+            try {
+                input = new SimpleByteDataInput(inputStream);
+                expectHeader(input, StandaloneClientProtocol.PARAM_PARTIAL_DEPLOYMENT_CONTENT);
+                PartialDeploymentContent partialContent = null;
+                if (input.readBoolean()) {
+                    final long length = input.readLong();
+                    final byte[] hash = new byte[input.readInt()];
+                    input.readFully(hash);
+                    partialContent = new PartialDeploymentContent(length, hash);
+                }
+                input.close();
+                return partialContent;
+            } finally {
+                 safeClose(input);
+            }
+        }
+    }
+
     private class ExecuteDeploymentPlanOperation extends StandaloneClientRequest<ServerDeploymentPlanResult> {
         private final DeploymentPlan deploymentPlan;
 
@@ -408,6 +532,6 @@ public class StandaloneClientImpl implements StandaloneClient {
     }
 
     private ManagementRequestConnectionStrategy getConnectionStrategy() {
-        return new ManagementRequestConnectionStrategy.EstablishConnectingStrategy(address, port, CONNECTION_TIMEOUT, executorService, threadFactory);
+        return connectionPool.getConnectionStrategy(address, port);
     }
 }
@@ -47,6 +47,10 @@ public interface StandaloneClientProtocol {
     int PARAM_DEPLOYMENT_NAME_UNIQUE = 0x63;
     int CHECK_UNIQUE_DEPLOYMENT_NAME_RESPONSE = 0x64;
     int PARAM_SERVER_MODEL_UPDATE = 0x69;
+    int PARAM_DEPLOYMENT_CONTENT_STREAM = 0x6A;
+    int GET_PARTIAL_DEPLOYMENT_CONTENT_REQUEST = 0x6B;
+    int PARAM_PARTIAL_DEPLOYMENT_CONTENT = 0x6C;
+    int GET_PARTIAL_DEPLOYMENT_CONTENT_RESPONSE = 0x6D;
 
     // Standalone server
     int SERVER_CONTROLLER_REQUEST = 0x75;
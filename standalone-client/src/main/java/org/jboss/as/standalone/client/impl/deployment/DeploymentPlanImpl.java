@@ -23,7 +23,10 @@
 package org.jboss.as.standalone.client.impl.deployment;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import org.jboss.as.standalone.client.api.deployment.DeploymentAction;
@@ -92,4 +95,75 @@ public class DeploymentPlanImpl implements DeploymentPlan {
     public List<DeploymentActionImpl> getDeploymentActionImpls() {
         return new ArrayList<DeploymentActionImpl>(deploymentActions);
     }
+
+    /**
+     * Split this plan into plans which can be executed in parallel.  Actions affecting the same deployment, or a
+     * deployment and the one it replaces, stay in the same plan and in their original order.  A plan which shuts
+     * the server down is never split.
+     *
+     * @param maxPlans the maximum number of plans to return
+     * @return the plans. Will not be <code>null</code> or empty
+     */
+    public List<DeploymentPlanImpl> partition(int maxPlans) {
+        List<DeploymentPlanImpl> plans = new ArrayList<DeploymentPlanImpl>();
+        if (maxPlans < 2 || shutdown || deploymentActions.size() < 2) {
+            plans.add(this);
+            return plans;
+        }
+
+        // group the actions by the deployments they touch, tracking each action by its index in the plan
+        int size = deploymentActions.size();
+        int[] parents = new int[size];
+        Map<String, Integer> lastActionByName = new HashMap<String, Integer>();
+        for (int i = 0; i < size; i++) {
+            parents[i] = i;
+            DeploymentActionImpl action = deploymentActions.get(i);
+            join(parents, lastActionByName, action.getDeploymentUnitUniqueName(), i);
+            String replaced = action.getReplacedDeploymentUnitUniqueName();
+            if (replaced != null) {
+                // the two deployments are no longer independent
+                join(parents, lastActionByName, replaced, i);
+            }
+        }
+
+        // number the groups in the order their first action appears
+        int[] groupOfRoot = new int[size];
+        Arrays.fill(groupOfRoot, -1);
+        int groupCount = 0;
+        for (int i = 0; i < size; i++) {
+            int root = find(parents, i);
+            if (groupOfRoot[root] == -1) {
+                groupOfRoot[root] = groupCount++;
+            }
+        }
+
+        // walking the actions in their original order keeps that order within every plan
+        int planCount = Math.min(maxPlans, groupCount);
+        List<List<DeploymentActionImpl>> planActions = new ArrayList<List<DeploymentActionImpl>>(planCount);
+        for (int i = 0; i < planCount; i++) {
+            planActions.add(new ArrayList<DeploymentActionImpl>());
+        }
+        for (int i = 0; i < size; i++) {
+            planActions.get(groupOfRoot[find(parents, i)] % planCount).add(deploymentActions.get(i));
+        }
+        for (List<DeploymentActionImpl> actions : planActions) {
+            plans.add(new DeploymentPlanImpl(actions, globalRollback, false, -1));
+        }
+        return plans;
+    }
+
+    private static void join(int[] parents, Map<String, Integer> lastActionByName, String name, int index) {
+        Integer last = lastActionByName.put(name, Integer.valueOf(index));
+        if (last != null) {
+            parents[find(parents, index)] = find(parents, last.intValue());
+        }
+    }
+
+    private static int find(int[] parents, int index) {
+        while (parents[index] != index) {
+            parents[index] = parents[parents[index]];
+            index = parents[index];
+        }
+        return index;
+    }
 }
@@ -0,0 +1,59 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.metadata.parser.util;
+
+import java.io.InputStream;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * The StAX input factory shared by the web descriptor parsers.  Looking up and configuring a factory is far more
+ * expensive than creating a reader, and a factory is safe to use from several threads once it is configured, so it
+ * is done once rather than for each descriptor.
+ */
+public final class MetaDataInputFactory {
+
+    private static final XMLInputFactory INPUT_FACTORY;
+
+    static {
+        final XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+        inputFactory.setXMLResolver(NoopXmlResolver.create());
+        INPUT_FACTORY = inputFactory;
+    }
+
+    private MetaDataInputFactory() {
+    }
+
+    /**
+     * Create a reader for a descriptor.  External entities are not resolved.
+     *
+     * @param is the descriptor content
+     * @return the reader
+     * @throws XMLStreamException if the reader cannot be created
+     */
+    public static XMLStreamReader createXMLStreamReader(final InputStream is) throws XMLStreamException {
+        return INPUT_FACTORY.createXMLStreamReader(is);
+    }
+}
@@ -31,7 +31,9 @@ import java.util.Map;
 enum Attribute {
     UNKNOWN(null),
 
-    CHECK_INTERVAL("check-interval"),
+    ACCEPTOR_THREAD_COUNT("acceptor-thread-count"),
+
+    CHECK_INTERVAL("check-interval"), COMPRESSION("compression"),
 
     DEFAULT_HOST("default-host"), DEVELOPMENT("development"), DIRECTORY("directory"), DISABLED("disabled"), DISPLAY_SOOURCE_FRAGMENT("display-source-fragment"), DUMP_SMAP("dump-smap"),
 
@@ -43,21 +45,21 @@ enum Attribute {
 
     JAVA_ENCODING("java-encoding"),
 
-    KEEP_GENERATED("keep-generated"),
+    KEEP_ALIVE_TIMEOUT("keep-alive-timeout"), KEEP_GENERATED("keep-generated"),
 
     LISTINGS("listings"),
 
-    MAPPED_FILE("mapped-file"), MAX_DEPTH("max-depth"), MAX_POST_SIZE("max-post-size"), MODIFIFICATION_TEST_INTERVAL("modification-test-interval"), MAX_SAVE_POST_SIZE("max-save-post-size"),
+    MAPPED_FILE("mapped-file"), MAX_DEPTH("max-depth"), MAX_KEEP_ALIVE_REQUESTS("max-keep-alive-requests"), MAX_POST_SIZE("max-post-size"), MODIFIFICATION_TEST_INTERVAL("modification-test-interval"), MAX_SAVE_POST_SIZE("max-save-post-size"),
 
     NAME("name"),
 
-    PATH("path"), PATTERN("pattern"), PREFIX("prefix"), PROTOCOL("protocol"), PROXY_NAME("proxy-name"), PROXY_PORT("proxy-port"),
+    PATH("path"), PATTERN("pattern"), POLLER_THREAD_COUNT("poller-thread-count"), PREFIX("prefix"), PROTOCOL("protocol"), PROXY_NAME("proxy-name"), PROXY_PORT("proxy-port"),
 
     READ_ONLY("read-only"), REDIRECT_PORT("redirect-por"),  RECOMPILE_ON_FAIL("recompile-on-fail"), RELATIVE_TO("relative-to"), RESOLVE_HOSTS("resolve-hosts"), ROTATE("rotate"),
 
-    SCHEME("scheme"), SCRATCH_DIR("scratch-dir"), SECRET("secret"), SECURE("secure"), SENDFILE("sendfile"), SMAP("smap"), SOCKET_BINDING("socket-binding"), SOURCE_VM("source-vm"),
+    SCHEME("scheme"), SCRATCH_DIR("scratch-dir"), SECRET("secret"), SECURE("secure"), SENDFILE("sendfile"), SMAP("smap"), SOCKET_BINDING("socket-binding"), SOCKET_BUFFER("socket-buffer"), SOURCE_VM("source-vm"),
 
-    TARGET_VM("target-vm"), TRIM_SPACES("trim-spaces"), TAG_POOLING("tag-pooling"),
+    TARGET_VM("target-vm"), TCP_NO_DELAY("tcp-no-delay"), TRIM_SPACES("trim-spaces"), TAG_POOLING("tag-pooling"),
 
     WEBDAV("webdav"),
 
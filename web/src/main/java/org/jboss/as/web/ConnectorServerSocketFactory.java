@@ -0,0 +1,68 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.web;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+import org.apache.tomcat.util.net.ServerSocketFactory;
+
+/**
+ * Adapts the {@link org.jboss.as.services.net.SocketBindingManager}'s managed server socket factory to the factory
+ * type a JBoss Web endpoint opens its listen socket with, so the connector's port shows up as an active binding.
+ */
+class ConnectorServerSocketFactory extends ServerSocketFactory {
+
+    private final javax.net.ServerSocketFactory factory;
+
+    ConnectorServerSocketFactory(final javax.net.ServerSocketFactory factory) {
+        this.factory = factory;
+    }
+
+    /** {@inheritDoc} */
+    public ServerSocket createSocket(int port) throws IOException {
+        return factory.createServerSocket(port);
+    }
+
+    /** {@inheritDoc} */
+    public ServerSocket createSocket(int port, int backlog) throws IOException {
+        return factory.createServerSocket(port, backlog);
+    }
+
+    /** {@inheritDoc} */
+    public ServerSocket createSocket(int port, int backlog, InetAddress ifAddress) throws IOException {
+        return factory.createServerSocket(port, backlog, ifAddress);
+    }
+
+    /** {@inheritDoc} */
+    public Socket acceptSocket(ServerSocket socket) throws IOException {
+        return socket.accept();
+    }
+
+    /** {@inheritDoc} */
+    public void handshake(Socket sock) throws IOException {
+        // plain sockets need no handshake
+    }
+}
@@ -21,40 +21,323 @@
  */
 package org.jboss.as.web;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
 
+import org.jboss.as.metadata.parser.jsp.TldMetaDataParser;
+import org.jboss.as.metadata.parser.util.MetaDataInputFactory;
+import org.jboss.as.model.ParsedConfigurationCache;
+import org.jboss.as.web.deployment.SharedTldsMetaData;
+import org.jboss.logging.Logger;
 import org.jboss.metadata.web.spec.TldMetaData;
+import org.jboss.modules.Module;
+import org.jboss.modules.ModuleIdentifier;
+import org.jboss.modules.ModuleLoadException;
 
 /**
- * Internal helper creating a shared TLD metadata list based on the domain configuration.
+ * Internal helper creating the shared TLD metadata based on the domain configuration.
+ * <p>
+ * The TLDs are read from the {@code META-INF} directory of the container's tag library modules and parsed once, when
+ * the subsystem boots.  A serialized copy of the result is kept in the server data directory, keyed by a digest of
+ * the TLDs and of the archives holding the parser and the metadata classes, so that later boots only parse them
+ * again when a library, the parser or the metadata changed.
  *
  * @author Emanuel Muckenhuber
  */
 class SharedTldsMetaDataBuilder {
 
-    static final List<TldMetaData> tlds = new ArrayList<TldMetaData>();
+    private static final Logger log = Logger.getLogger("org.jboss.web");
+
+    /** The modules providing the container's tag libraries, modules which are not installed are skipped. */
+    static final String[] TLD_MODULES = { "javax.servlet.jstl.api", "com.sun.jsf-impl" };
+
+    private static final String SERVER_DATA_DIR = "jboss.server.data.dir";
+    private static final String CACHE_FILE = "shared-tlds.cache";
+    private static final String META_INF = "META-INF/";
+    private static final String MANIFEST = "META-INF/MANIFEST.MF";
+    private static final String TLD = ".tld";
+    private static final String IMPLICIT_TLD = "implicit.tld";
+
+    // Change whenever the layout of the cache file changes incompatibly
+    private static final int CACHE_VERSION = 1;
+
+    /** Classes from the archives which decide how TLDs are parsed and how the parsed metadata is serialized */
+    private static final Class<?>[] PARSER_CLASSES = { TldMetaDataParser.class, MetaDataInputFactory.class, TldMetaData.class, SharedTldsMetaData.class };
 
     /** The common container config. */
     private final WebContainerConfigElement containerConfig;
+    private final File cacheFile;
+    private SharedTldsMetaData sharedTlds;
 
     SharedTldsMetaDataBuilder(final WebContainerConfigElement containerConfig) {
+        this(containerConfig, getDefaultCacheFile());
+    }
+
+    SharedTldsMetaDataBuilder(final WebContainerConfigElement containerConfig, final File cacheFile) {
         if(containerConfig == null) {
             this.containerConfig = new WebContainerConfigElement();
         } else {
             this.containerConfig = containerConfig;
         }
+        this.cacheFile = cacheFile;
         init();
     }
 
     private void init() {
-        // FIXME: Parse shared TLDs
+        final Map<String, byte[]> sources = new TreeMap<String, byte[]>();
+        for (String moduleName : TLD_MODULES) {
+            final ClassLoader classLoader;
+            try {
+                classLoader = Module.getModuleFromDefaultLoader(ModuleIdentifier.create(moduleName)).getClassLoader();
+            } catch (ModuleLoadException e) {
+                log.debugf("Tag library module %s is not installed", moduleName);
+                continue;
+            } catch (RuntimeException e) {
+                // not running in a modular environment
+                log.debugf("Tag library module %s is not available", moduleName);
+                continue;
+            }
+            findTlds(classLoader, sources);
+        }
+        sharedTlds = build(sources);
+    }
+
+    SharedTldsMetaData build(final Map<String, byte[]> sources) {
+        return build(sources, parserFingerprint());
+    }
+
+    SharedTldsMetaData build(final Map<String, byte[]> sources, final byte[] parserFingerprint) {
+        if (sources.isEmpty()) {
+            return SharedTldsMetaData.EMPTY;
+        }
+        final long start = System.currentTimeMillis();
+        // without a fingerprint of the parser a cached copy could be stale, so it is neither used nor written
+        final boolean cached = cacheFile != null && parserFingerprint != null;
+        final byte[] digest = digest(sources, parserFingerprint);
+        if (cached) {
+            final SharedTldsMetaData loaded = load(digest);
+            if (loaded != null) {
+                log.debugf("Loaded %d shared TLDs from %s in %d ms", Integer.valueOf(loaded.getTlds().size()), cacheFile, Long.valueOf(System.currentTimeMillis() - start));
+                return loaded;
+            }
+        }
+        final List<TldMetaData> tlds = new ArrayList<TldMetaData>();
+        for (Map.Entry<String, byte[]> source : sources.entrySet()) {
+            try {
+                tlds.add(TldMetaDataParser.parse(MetaDataInputFactory.createXMLStreamReader(new ByteArrayInputStream(source.getValue()))));
+            } catch (Exception e) {
+                log.warnf(e, "Failed to parse shared TLD %s", source.getKey());
+            }
+        }
+        final SharedTldsMetaData sharedTlds = new SharedTldsMetaData(tlds);
+        log.debugf("Parsed %d shared TLDs in %d ms", Integer.valueOf(tlds.size()), Long.valueOf(System.currentTimeMillis() - start));
+        if (cached) {
+            store(digest, sharedTlds);
+        }
+        return sharedTlds;
+    }
+
+    /**
+     * Get the shared TLDs.  The metadata is shared by all deployments and must not be modified.
+     *
+     * @return the shared TLDs
+     */
+    SharedTldsMetaData create() {
+        return sharedTlds;
+    }
+
+    static void findTlds(final ClassLoader classLoader, final Map<String, byte[]> sources) {
+        // every resource root of a module has a manifest, which locates the JAR holding it
+        final Set<URL> jars = new LinkedHashSet<URL>();
+        try {
+            final Enumeration<URL> manifests = classLoader.getResources(MANIFEST);
+            while (manifests.hasMoreElements()) {
+                final URLConnection connection = manifests.nextElement().openConnection();
+                if (connection instanceof JarURLConnection) {
+                    jars.add(((JarURLConnection) connection).getJarFileURL());
+                }
+            }
+        } catch (IOException e) {
+            log.warnf(e, "Failed to find the shared TLDs of %s", classLoader);
+            return;
+        }
+        for (URL jar : jars) {
+            JarFile jarFile = null;
+            try {
+                jarFile = new JarFile(new File(jar.toURI()));
+                final Enumeration<JarEntry> entries = jarFile.entries();
+                while (entries.hasMoreElements()) {
+                    final JarEntry entry = entries.nextElement();
+                    final String name = entry.getName();
+                    if (name.startsWith(META_INF) && name.endsWith(TLD) && ! name.endsWith("/" + IMPLICIT_TLD)) {
+                        final InputStream is = jarFile.getInputStream(entry);
+                        try {
+                            sources.put(jar + "!/" + name, readFully(is));
+                        } finally {
+                            safeClose(is);
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                log.warnf(e, "Failed to read the shared TLDs of %s", jar);
+            } finally {
+                if (jarFile != null) {
+                    try {
+                        jarFile.close();
+                    } catch (IOException e) {
+                        // Ignore
+                    }
+                }
+            }
+        }
     }
 
-    List<TldMetaData> create() {
-        final List<TldMetaData> metadata = new ArrayList<TldMetaData>();
-        metadata.addAll(tlds);
-        return metadata;
+    private SharedTldsMetaData load(final byte[] digest) {
+        if (! cacheFile.isFile()) {
+            return null;
+        }
+        try {
+            final ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(cacheFile))) {
+                protected Class<?> resolveClass(final ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+                    try {
+                        return Class.forName(desc.getName(), false, SharedTldsMetaDataBuilder.class.getClassLoader());
+                    } catch (ClassNotFoundException e) {
+                        return super.resolveClass(desc);
+                    }
+                }
+            };
+            try {
+                if (in.readInt() != CACHE_VERSION) {
+                    return null;
+                }
+                final byte[] cachedDigest = new byte[in.readInt()];
+                in.readFully(cachedDigest);
+                if (! Arrays.equals(digest, cachedDigest)) {
+                    return null;
+                }
+                return (SharedTldsMetaData) in.readObject();
+            } finally {
+                safeClose(in);
+            }
+        } catch (Exception e) {
+            log.debugf(e, "Ignoring unreadable shared TLD cache %s", cacheFile);
+            return null;
+        }
+    }
+
+    private void store(final byte[] digest, final SharedTldsMetaData sharedTlds) {
+        final File tmp = new File(cacheFile.getParentFile(), cacheFile.getName() + ".tmp");
+        try {
+            cacheFile.getParentFile().mkdirs();
+            final ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+            try {
+                out.writeInt(CACHE_VERSION);
+                out.writeInt(digest.length);
+                out.write(digest);
+                out.writeObject(sharedTlds);
+            } finally {
+                safeClose(out);
+            }
+            if (! tmp.renameTo(cacheFile)) {
+                cacheFile.delete();
+                if (! tmp.renameTo(cacheFile)) {
+                    throw new IOException("Cannot rename " + tmp + " to " + cacheFile);
+                }
+            }
+        } catch (Exception e) {
+            log.debugf(e, "Failed writing shared TLD cache %s", cacheFile);
+            tmp.delete();
+            cacheFile.delete();
+        }
+    }
+
+    private static File getDefaultCacheFile() {
+        final String dataDir = System.getProperty(SERVER_DATA_DIR);
+        if (dataDir == null) {
+            return null;
+        }
+        return new File(new File(dataDir, "web"), CACHE_FILE);
+    }
+
+    private static byte[] parserFingerprint() {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            for (Class<?> parserClass : PARSER_CLASSES) {
+                final URL resource = parserClass.getResource(parserClass.getSimpleName() + ".class");
+                if (resource == null) {
+                    return null;
+                }
+                digest.update(ParsedConfigurationCache.archiveFingerprint(resource));
+            }
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } catch (IOException e) {
+            log.debugf(e, "Cannot fingerprint the TLD parser, not caching shared TLDs");
+            return null;
+        }
+    }
+
+    private static byte[] digest(final Map<String, byte[]> sources, final byte[] parserFingerprint) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            if (parserFingerprint != null) {
+                digest.update(parserFingerprint);
+            }
+            for (Map.Entry<String, byte[]> source : sources.entrySet()) {
+                digest.update(source.getKey().getBytes("UTF-8"));
+                digest.update(source.getValue());
+            }
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] readFully(final InputStream is) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+        final byte[] buffer = new byte[8192];
+        int res;
+        while ((res = is.read(buffer)) != -1) {
+            out.write(buffer, 0, res);
+        }
+        return out.toByteArray();
+    }
+
+    private static void safeClose(final Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            // Ignore
+        }
     }
 
 }
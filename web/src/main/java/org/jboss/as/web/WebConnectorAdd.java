@@ -22,11 +22,18 @@
 
 package org.jboss.as.web;
 
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import org.apache.catalina.connector.Connector;
 import org.jboss.as.model.AbstractSubsystemUpdate;
 import org.jboss.as.model.UpdateContext;
 import org.jboss.as.model.UpdateFailedException;
 import org.jboss.as.model.UpdateResultHandler;
 import org.jboss.as.services.net.SocketBinding;
+import org.jboss.as.threads.ThreadsServices;
+import org.jboss.msc.service.BatchServiceBuilder;
 import org.jboss.msc.service.ServiceController.Mode;
 
 /**
@@ -51,6 +58,7 @@ public class WebConnectorAdd extends AbstractWebSubsystemUpdate<Void> {
     private Boolean secure;
     private Integer maxPostSize;
     private Integer maxSavePostSize;
+    private final EnumMap<WebConnectorTuning, String> tuning = new EnumMap<WebConnectorTuning, String>(WebConnectorTuning.class);
 
     public WebConnectorAdd(final String name) {
         if(name == null) {
@@ -77,6 +85,9 @@ public class WebConnectorAdd extends AbstractWebSubsystemUpdate<Void> {
         if(redirectPort != null) connector.setRedirectPort(redirectPort);
         if(maxPostSize != null) connector.setMaxPostSize(maxPostSize);
         if(maxSavePostSize != null) connector.setMaxSavePostSize(maxSavePostSize);
+        for(Map.Entry<WebConnectorTuning, String> entry : tuning.entrySet()) {
+            connector.setTuning(entry.getKey(), entry.getValue());
+        }
     }
 
     /** {@inheritDoc} */
@@ -90,10 +101,14 @@ public class WebConnectorAdd extends AbstractWebSubsystemUpdate<Void> {
         if(redirectPort != null) service.setRedirectPort(redirectPort);
         if(maxPostSize != null) service.setMaxPostSize(maxPostSize);
         if(maxSavePostSize != null) service.setMaxSavePostSize(maxSavePostSize);
-        context.getBatchBuilder().addService(WebSubsystemElement.JBOSS_WEB_CONNECTOR.append(name), service)
+        service.setTuning(tuning);
+        final BatchServiceBuilder<Connector> serviceBuilder = context.getBatchBuilder().addService(WebSubsystemElement.JBOSS_WEB_CONNECTOR.append(name), service)
             .addDependency(WebSubsystemElement.JBOSS_WEB, WebServer.class, service.getServer())
-            .addDependency(SocketBinding.JBOSS_BINDING_NAME.append(bindingRef), SocketBinding.class, service.getBinding())
-            .addListener(new UpdateResultHandler.ServiceStartListener<P>(resultHandler, param))
+            .addDependency(SocketBinding.JBOSS_BINDING_NAME.append(bindingRef), SocketBinding.class, service.getBinding());
+        if(executorRef != null) {
+            serviceBuilder.addDependency(ThreadsServices.executorName(executorRef), Executor.class, service.getExecutor());
+        }
+        serviceBuilder.addListener(new UpdateResultHandler.ServiceStartListener<P>(resultHandler, param))
             .setInitialMode(enabled ? Mode.IMMEDIATE : Mode.NEVER);
     }
 
@@ -194,6 +209,19 @@ public class WebConnectorAdd extends AbstractWebSubsystemUpdate<Void> {
         this.maxPostSize = maxPostSize;
     }
 
+    public String getTuning(WebConnectorTuning attribute) {
+        return tuning.get(attribute);
+    }
+
+    public void setTuning(WebConnectorTuning attribute, String value) {
+        attribute.checkValue(value);
+        if(value == null) {
+            tuning.remove(attribute);
+        } else {
+            tuning.put(attribute, value);
+        }
+    }
+
     protected Integer getMaxSavePostSize() {
         return maxSavePostSize;
     }
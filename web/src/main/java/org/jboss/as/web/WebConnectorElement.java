@@ -21,6 +21,9 @@
  */
 package org.jboss.as.web;
 
+import java.util.EnumMap;
+import java.util.Map;
+
 import javax.xml.stream.XMLStreamException;
 
 import org.jboss.as.model.AbstractModelElement;
@@ -49,6 +52,7 @@ public class WebConnectorElement extends AbstractModelElement<WebConnectorElemen
     private Boolean secure;
     private Integer maxPostSize;
     private Integer maxSavePostSize;
+    private final EnumMap<WebConnectorTuning, String> tuning = new EnumMap<WebConnectorTuning, String>(WebConnectorTuning.class);
 
     protected WebConnectorElement(final String name) {
         if(name == null) {
@@ -161,6 +165,27 @@ public class WebConnectorElement extends AbstractModelElement<WebConnectorElemen
         return enabled;
     }
 
+    public String getTuning(WebConnectorTuning attribute) {
+        return tuning.get(attribute);
+    }
+
+    /**
+     * Get the configured performance attributes.
+     *
+     * @return a copy of the attribute values
+     */
+    public Map<WebConnectorTuning, String> getTuning() {
+        return new EnumMap<WebConnectorTuning, String>(tuning);
+    }
+
+    void setTuning(WebConnectorTuning attribute, String value) {
+        if(value == null) {
+            tuning.remove(attribute);
+        } else {
+            tuning.put(attribute, value);
+        }
+    }
+
     /** {@inheritDoc} */
     protected Class<WebConnectorElement> getElementClass() {
         return WebConnectorElement.class;
@@ -195,6 +220,9 @@ public class WebConnectorElement extends AbstractModelElement<WebConnectorElemen
         if(maxSavePostSize != null) {
             writeAttribute(Attribute.MAX_SAVE_POST_SIZE, maxSavePostSize.toString(), streamWriter);
         }
+        for(Map.Entry<WebConnectorTuning, String> entry : tuning.entrySet()) {
+            writeAttribute(entry.getKey().getAttribute(), entry.getValue(), streamWriter);
+        }
         streamWriter.writeEndElement();
     }
 
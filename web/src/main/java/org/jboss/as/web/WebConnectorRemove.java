@@ -22,6 +22,8 @@
 
 package org.jboss.as.web;
 
+import java.util.Map;
+
 import org.jboss.as.model.AbstractSubsystemUpdate;
 import org.jboss.as.model.UpdateContext;
 import org.jboss.as.model.UpdateFailedException;
@@ -81,6 +83,9 @@ public class WebConnectorRemove extends AbstractWebSubsystemUpdate<Void> {
         action.setMaxPostSize(connector.getMaxPostSize());
         action.setMaxSavePostSize(connector.getMaxSavePostSize());
         action.setSecure(connector.isSecure());
+        for(Map.Entry<WebConnectorTuning, String> entry : connector.getTuning().entrySet()) {
+            action.setTuning(entry.getKey(), entry.getValue());
+        }
         return action;
     }
 
@@ -21,11 +21,21 @@
  */
 package org.jboss.as.web;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.concurrent.Executor;
 
 import org.apache.catalina.connector.Connector;
+import org.apache.coyote.ProtocolHandler;
+import org.jboss.as.services.net.ManagedBinding;
 import org.jboss.as.services.net.SocketBinding;
+import org.jboss.logging.Logger;
 import org.jboss.msc.service.Service;
 import org.jboss.msc.service.StartContext;
 import org.jboss.msc.service.StartException;
@@ -39,6 +49,8 @@ import org.jboss.msc.value.InjectedValue;
  */
 class WebConnectorService implements Service<Connector> {
 
+    private static final Logger log = Logger.getLogger("org.jboss.web");
+
     private String protocol = "HTTP/1.1";
     private String scheme = "http";
 
@@ -49,8 +61,10 @@ class WebConnectorService implements Service<Connector> {
     private Boolean secure = null;
     private Integer maxPostSize = null;
     private Integer maxSavePostSize = null;
+    private final Map<WebConnectorTuning, String> tuning = new EnumMap<WebConnectorTuning, String>(WebConnectorTuning.class);
 
     private Connector connector;
+    private Closeable registeredBinding;
 
     private final InjectedValue<Executor> executor = new InjectedValue<Executor>();
     private final InjectedValue<SocketBinding> binding = new InjectedValue<SocketBinding>();
@@ -71,10 +85,9 @@ class WebConnectorService implements Service<Connector> {
         final SocketBinding binding = this.binding.getValue();
         final InetSocketAddress address = binding.getSocketAddress();
         try {
-            // Create connector
-            final Connector connector = new Connector();
+            // Create connector, the protocol selects the protocol handler
+            final Connector connector = new Connector(protocol);
             connector.setPort(address.getPort());
-            connector.setProtocol(protocol);
             connector.setScheme(scheme);
             if(enableLookups != null) connector.setEnableLookups(enableLookups);
             if(maxPostSize != null) connector.setMaxPostSize(maxPostSize);
@@ -83,13 +96,31 @@ class WebConnectorService implements Service<Connector> {
             if(proxyPort != null) connector.setProxyPort(proxyPort);
             if(redirectPort != null) connector.setRedirectPort(redirectPort);
             if(secure != null) connector.setSecure(secure);
-            // TODO set Executor on ProtocolHandler
-            // TODO use server socket factory - or integrate with {@code ManagedBinding}
+            for(Map.Entry<WebConnectorTuning, String> entry : tuning.entrySet()) {
+                setTuning(connector, entry.getKey(), entry.getValue());
+            }
+
+            final ProtocolHandler handler = connector.getProtocolHandler();
+            // Run requests on the shared executor, rather than a private worker pool
+            final Executor executor = this.executor.getOptionalValue();
+            if(executor != null && !invokeSetter(handler, "setExecutor", Executor.class, executor)) {
+                log.warnf("Protocol handler %s does not accept an executor, connector %s uses its own threads", handler.getClass().getName(), address);
+            }
+            if(address.getAddress() != null) {
+                invokeSetter(handler, "setAddress", InetAddress.class, address.getAddress());
+            }
+            // Open the listen socket through the socket binding manager, or at least register the binding with it
+            final Object endpoint = invokeGetter(handler, "getEndpoint");
+            if(endpoint == null || !invokeSetter(endpoint, "setServerSocketFactory", org.apache.tomcat.util.net.ServerSocketFactory.class,
+                    new ConnectorServerSocketFactory(binding.getSocketBindings().getServerSocketFactory()))) {
+                registeredBinding = binding.getSocketBindings().registerBinding(new ConnectorBinding(address));
+            }
 
             // Register connector, starts the connector automatically?
             getWebServer().addConnector(connector);
             this.connector = connector;
         } catch (Exception e) {
+            unregisterBinding();
             throw new StartException(e);
         }
     }
@@ -99,6 +130,56 @@ class WebConnectorService implements Service<Connector> {
         final Connector connector = this.connector;
         getWebServer().removeConnector(connector);
         this.connector = null;
+        unregisterBinding();
+    }
+
+    /**
+     * Set a performance attribute on the connector's protocol handler.
+     *
+     * @param connector the connector
+     * @param attribute the attribute
+     * @param value the value
+     * @return {@code true} if the protocol handler has the attribute, {@code false} if it was ignored
+     */
+    static boolean setTuning(final Connector connector, final WebConnectorTuning attribute, final String value) {
+        if(!connector.setProperty(attribute.getPropertyName(), value)) {
+            log.warnf("Protocol handler %s does not support %s", connector.getProtocolHandler().getClass().getName(), attribute.getAttribute());
+            return false;
+        }
+        return true;
+    }
+
+    private void unregisterBinding() {
+        final Closeable registeredBinding = this.registeredBinding;
+        if(registeredBinding != null) {
+            this.registeredBinding = null;
+            try {
+                registeredBinding.close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+    }
+
+    private static boolean invokeSetter(final Object target, final String name, final Class<?> type, final Object value) throws IllegalAccessException, InvocationTargetException {
+        final Method method;
+        try {
+            method = target.getClass().getMethod(name, type);
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+        method.invoke(target, value);
+        return true;
+    }
+
+    private static Object invokeGetter(final Object target, final String name) throws IllegalAccessException, InvocationTargetException {
+        final Method method;
+        try {
+            method = target.getClass().getMethod(name);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+        return method.invoke(target);
     }
 
     /** {@inheritDoc} */
@@ -166,6 +247,11 @@ class WebConnectorService implements Service<Connector> {
         this.maxSavePostSize = maxSavePostSize;
     }
 
+    void setTuning(Map<WebConnectorTuning, String> tuning) {
+        this.tuning.clear();
+        this.tuning.putAll(tuning);
+    }
+
     InjectedValue<Executor> getExecutor() {
         return executor;
     }
@@ -182,4 +268,23 @@ class WebConnectorService implements Service<Connector> {
         return server.getValue();
     }
 
+    /**
+     * The connector's listen socket, for protocol handlers which open it themselves.
+     */
+    private class ConnectorBinding implements ManagedBinding {
+        private final InetSocketAddress address;
+
+        ConnectorBinding(final InetSocketAddress address) {
+            this.address = address;
+        }
+
+        public InetSocketAddress getBindAddress() {
+            return address;
+        }
+
+        public void close() throws IOException {
+            binding.getValue().getSocketBindings().unregisterBinding(this);
+        }
+    }
+
 }
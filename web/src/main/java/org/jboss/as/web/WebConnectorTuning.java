@@ -0,0 +1,113 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.web;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The performance attributes of a web connector, and the JBoss Web protocol handler properties they set.  Attributes
+ * marked as runtime can be changed on a running connector; the others take effect when the connector is next started.
+ */
+public enum WebConnectorTuning {
+
+    ACCEPTOR_THREAD_COUNT(Attribute.ACCEPTOR_THREAD_COUNT, "acceptorThreadCount", Integer.class, false),
+    POLLER_THREAD_COUNT(Attribute.POLLER_THREAD_COUNT, "pollerThreadCount", Integer.class, false),
+    KEEP_ALIVE_TIMEOUT(Attribute.KEEP_ALIVE_TIMEOUT, "keepAliveTimeout", Integer.class, true),
+    MAX_KEEP_ALIVE_REQUESTS(Attribute.MAX_KEEP_ALIVE_REQUESTS, "maxKeepAliveRequests", Integer.class, true),
+    SOCKET_BUFFER(Attribute.SOCKET_BUFFER, "socketBuffer", Integer.class, true),
+    TCP_NO_DELAY(Attribute.TCP_NO_DELAY, "tcpNoDelay", Boolean.class, true),
+    COMPRESSION(Attribute.COMPRESSION, "compression", String.class, true),
+    ;
+
+    private final Attribute attribute;
+    private final String propertyName;
+    private final Class<?> type;
+    private final boolean runtime;
+
+    WebConnectorTuning(final Attribute attribute, final String propertyName, final Class<?> type, final boolean runtime) {
+        this.attribute = attribute;
+        this.propertyName = propertyName;
+        this.type = type;
+        this.runtime = runtime;
+    }
+
+    Attribute getAttribute() {
+        return attribute;
+    }
+
+    /**
+     * Get the name of the protocol handler property this attribute sets.
+     *
+     * @return the property name
+     */
+    public String getPropertyName() {
+        return propertyName;
+    }
+
+    /**
+     * Determine whether a running connector picks up a change to this attribute.
+     *
+     * @return {@code true} if the attribute can be changed at runtime
+     */
+    public boolean isRuntime() {
+        return runtime;
+    }
+
+    /**
+     * Check that a value is valid for this attribute.
+     *
+     * @param value the value
+     * @throws IllegalArgumentException if the value is not valid
+     */
+    public void checkValue(final String value) {
+        if (value == null) {
+            return;
+        }
+        if (type == Integer.class) {
+            try {
+                Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid value '" + value + "' for " + attribute + ", an integer is required");
+            }
+        } else if (type == Boolean.class) {
+            if (!"true".equalsIgnoreCase(value) && !"false".equalsIgnoreCase(value)) {
+                throw new IllegalArgumentException("Invalid value '" + value + "' for " + attribute + ", true or false is required");
+            }
+        }
+    }
+
+    private static final Map<Attribute, WebConnectorTuning> MAP;
+
+    static {
+        final Map<Attribute, WebConnectorTuning> map = new HashMap<Attribute, WebConnectorTuning>();
+        for (WebConnectorTuning tuning : values()) {
+            map.put(tuning.attribute, tuning);
+        }
+        MAP = map;
+    }
+
+    static WebConnectorTuning forAttribute(final Attribute attribute) {
+        return MAP.get(attribute);
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.web;
+
+import org.apache.catalina.connector.Connector;
+import org.jboss.as.model.UpdateContext;
+import org.jboss.as.model.UpdateFailedException;
+import org.jboss.as.model.UpdateResultHandler;
+import org.jboss.msc.service.ServiceController;
+
+/**
+ * Update changing a performance attribute of a web connector.  Runtime attributes are applied to the running
+ * connector; the others, and removing any attribute, require a restart.
+ */
+public class WebConnectorTuningUpdate extends AbstractWebSubsystemUpdate<Void> {
+
+    private static final long serialVersionUID = -3415981547013325036L;
+
+    private final String name;
+    private final WebConnectorTuning attribute;
+    private final String value;
+
+    /**
+     * Create the update.
+     *
+     * @param name the connector name
+     * @param attribute the attribute
+     * @param value the new value, or {@code null} to restore the protocol handler's default
+     */
+    public WebConnectorTuningUpdate(final String name, final WebConnectorTuning attribute, final String value) {
+        // a removed value cannot be unset on a running connector, it reverts on the next start
+        super(!attribute.isRuntime() || value == null);
+        if(name == null) {
+            throw new IllegalArgumentException("null connector name");
+        }
+        attribute.checkValue(value);
+        this.name = name;
+        this.attribute = attribute;
+        this.value = value;
+    }
+
+    /** {@inheritDoc} */
+    protected void applyUpdate(WebSubsystemElement element) throws UpdateFailedException {
+        final WebConnectorElement connector = element.getConnector(name);
+        if(connector == null) {
+            throw new UpdateFailedException("no such connector " + name);
+        }
+        connector.setTuning(attribute, value);
+    }
+
+    /** {@inheritDoc} */
+    protected <P> void applyUpdate(UpdateContext context, UpdateResultHandler<? super Void, P> resultHandler, P param) {
+        final ServiceController<?> service = context.getServiceContainer().getService(WebSubsystemElement.JBOSS_WEB_CONNECTOR.append(name));
+        if(service == null || requiresRestart() || service.getState() != ServiceController.State.UP) {
+            resultHandler.handleSuccess(null, param);
+            return;
+        }
+        try {
+            final Connector connector = Connector.class.cast(service.getValue());
+            if(!WebConnectorService.setTuning(connector, attribute, value)) {
+                resultHandler.handleFailure(new UpdateFailedException("Protocol handler " + connector.getProtocolHandler().getClass().getName()
+                        + " of connector " + name + " does not support " + attribute.getAttribute()), param);
+                return;
+            }
+            resultHandler.handleSuccess(null, param);
+        } catch (Throwable t) {
+            resultHandler.handleFailure(t, param);
+        }
+    }
+
+    /** {@inheritDoc} */
+    public WebConnectorTuningUpdate getCompensatingUpdate(WebSubsystemElement original) {
+        final WebConnectorElement connector = original.getConnector(name);
+        if(connector == null) {
+            return null;
+        }
+        return new WebConnectorTuningUpdate(name, attribute, connector.getTuning(attribute));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public WebConnectorTuning getAttribute() {
+        return attribute;
+    }
+
+    public String getValue() {
+        return value;
+    }
+}
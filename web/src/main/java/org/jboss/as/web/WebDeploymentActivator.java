@@ -57,6 +57,7 @@ class WebDeploymentActivator {
         updateContext.addDeploymentProcessor(new WarAnnotationDeploymentProcessor(), Phase.WAR_ANNOTATION_DEPLOYMENT_PROCESSOR);
         updateContext.addDeploymentProcessor(new ServletContainerInitializerDeploymentProcessor(), Phase.SERVLET_CONTAINER_INITIALIZER_DEPLOYMENT_PROCESSOR);
         updateContext.addDeploymentProcessor(new WarMetaDataProcessor(), Phase.WAR_META_DATA_PROCESSOR);
+        updateContext.addDeploymentProcessor(new WarInjectionProcessor(), Phase.WAR_INJECTION_PROCESSOR);
         updateContext.addDeploymentProcessor(new WarDeploymentProcessor(defaultHost), Phase.WAR_DEPLOYMENT_PROCESSOR);
     }
 }
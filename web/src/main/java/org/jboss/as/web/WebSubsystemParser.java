@@ -24,6 +24,7 @@ package org.jboss.as.web;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -270,6 +271,7 @@ public class WebSubsystemParser implements XMLStreamConstants, XMLElementReader<
         String maxSavePostSize = null;
         String secure = null;
         String redirectPort = null;
+        final Map<WebConnectorTuning, String> tuning = new EnumMap<WebConnectorTuning, String>(WebConnectorTuning.class);
         final int count = reader.getAttributeCount();
         for (int i = 0; i < count; i++) {
             final String value = reader.getAttributeValue(i);
@@ -318,7 +320,16 @@ public class WebSubsystemParser implements XMLStreamConstants, XMLElementReader<
                     redirectPort = value;
                     break;
                 default:
-                    ParseUtils.unexpectedAttribute(reader, i);
+                    final WebConnectorTuning tuningAttribute = WebConnectorTuning.forAttribute(attribute);
+                    if(tuningAttribute == null) {
+                        throw ParseUtils.unexpectedAttribute(reader, i);
+                    }
+                    try {
+                        tuningAttribute.checkValue(value);
+                    } catch (IllegalArgumentException e) {
+                        throw new XMLStreamException(e.getMessage(), reader.getLocation());
+                    }
+                    tuning.put(tuningAttribute, value);
                 }
             }
         }
@@ -343,6 +354,9 @@ public class WebSubsystemParser implements XMLStreamConstants, XMLElementReader<
         if(secure != null) action.setSecure(Boolean.valueOf(secure));
         if(maxPostSize != null) action.setMaxPostSize(Integer.valueOf(maxPostSize));
         if(maxSavePostSize != null) action.setMaxSavePostSize(Integer.valueOf(maxSavePostSize));
+        for(Map.Entry<WebConnectorTuning, String> entry : tuning.entrySet()) {
+            action.setTuning(entry.getKey(), entry.getValue());
+        }
         list.add(action);
     }
 
@@ -495,14 +495,24 @@ public class JBossContextConfig extends ContextConfig {
             return;
         }
         Map<String, TldMetaData> localTlds = tldsMetaData.getTlds();
-        List<TldMetaData> sharedTlds = tldsMetaData.getSharedTlds();
+        SharedTldsMetaData sharedTlds = tldsMetaData.getSharedTlds();
         ArrayList<TagLibraryInfo> tagLibraries = new ArrayList<TagLibraryInfo>();
 
+        Set<String> localUris = new HashSet<String>();
         for (String location : localTlds.keySet()) {
-            processTld(tagLibraries, location, localTlds.get(location));
+            TldMetaData localTld = localTlds.get(location);
+            processTld(tagLibraries, location, localTld);
+            if (localTld.getUri() != null) {
+                localUris.add(localTld.getUri());
+            }
         }
-        for (TldMetaData sharedTld : sharedTlds) {
-            processTld(tagLibraries, null, sharedTld);
+        if (sharedTlds != null) {
+            // A TLD packaged in the webapp takes precedence over a shared one with the same URI
+            for (TldMetaData sharedTld : sharedTlds.getTlds()) {
+                if (sharedTld.getUri() == null || !localUris.contains(sharedTld.getUri())) {
+                    processTld(tagLibraries, null, sharedTld);
+                }
+            }
         }
 
         // Add additional TLDs URIs from explicit web config
@@ -532,7 +542,7 @@ public class JBossContextConfig extends ContextConfig {
 
         String relativeLocation = location;
         String jarPath = null;
-        if (relativeLocation.startsWith("/WEB-INF/lib/")) {
+        if (relativeLocation != null && relativeLocation.startsWith("/WEB-INF/lib/")) {
             int pos = relativeLocation.indexOf('/', "/WEB-INF/lib/".length());
             if (pos > 0) {
                 jarPath = relativeLocation.substring(pos);
@@ -0,0 +1,72 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.web.deployment;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jboss.metadata.web.spec.TldMetaData;
+
+/**
+ * The tag libraries provided by the container, parsed once and shared by all web deployments.  Instances are
+ * immutable; a TLD without a URI is kept in the list but cannot be looked up by URI.
+ */
+public final class SharedTldsMetaData implements Serializable {
+
+    private static final long serialVersionUID = -2981548432105227447L;
+
+    public static final SharedTldsMetaData EMPTY = new SharedTldsMetaData(Collections.<TldMetaData>emptyList());
+
+    private final List<TldMetaData> tlds;
+    private final Map<String, TldMetaData> tldsByUri;
+
+    public SharedTldsMetaData(final Collection<TldMetaData> tlds) {
+        final Map<String, TldMetaData> tldsByUri = new HashMap<String, TldMetaData>();
+        for (TldMetaData tld : tlds) {
+            // the first library declaring a URI wins, as it would on a class path
+            if (tld.getUri() != null && ! tldsByUri.containsKey(tld.getUri())) {
+                tldsByUri.put(tld.getUri(), tld);
+            }
+        }
+        this.tlds = Collections.unmodifiableList(new ArrayList<TldMetaData>(tlds));
+        this.tldsByUri = Collections.unmodifiableMap(tldsByUri);
+    }
+
+    public List<TldMetaData> getTlds() {
+        return tlds;
+    }
+
+    public TldMetaData getTld(final String uri) {
+        return tldsByUri.get(uri);
+    }
+
+    public Map<String, TldMetaData> getTldsByUri() {
+        return tldsByUri;
+    }
+
+}
@@ -21,21 +21,18 @@
  */
 package org.jboss.as.web.deployment;
 
-import java.io.IOException;
 import java.io.InputStream;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import javax.xml.stream.XMLInputFactory;
-import javax.xml.stream.XMLStreamReader;
-
 import org.jboss.as.deployment.attachment.VirtualFileAttachment;
+import org.jboss.as.deployment.descriptor.DescriptorCache;
+import org.jboss.as.deployment.unit.ConcurrentDeploymentUnitProcessor;
 import org.jboss.as.deployment.unit.DeploymentUnitContext;
 import org.jboss.as.deployment.unit.DeploymentUnitProcessingException;
-import org.jboss.as.deployment.unit.DeploymentUnitProcessor;
 import org.jboss.as.metadata.parser.jsp.TldMetaDataParser;
-import org.jboss.as.metadata.parser.util.NoopXmlResolver;
+import org.jboss.as.metadata.parser.util.MetaDataInputFactory;
 import static org.jboss.as.web.deployment.WarDeploymentMarker.isWarDeployment;
 import org.jboss.as.web.deployment.helpers.DeploymentStructure;
 import org.jboss.metadata.web.spec.TldMetaData;
@@ -44,7 +41,7 @@ import org.jboss.vfs.VirtualFile;
 /**
  * @author Remy Maucherat
  */
-public class TldParsingDeploymentProcessor implements DeploymentUnitProcessor {
+public class TldParsingDeploymentProcessor implements ConcurrentDeploymentUnitProcessor {
 
     private static final String TLD = ".tld";
     private static final String META_INF = "META-INF";
@@ -53,6 +50,10 @@ public class TldParsingDeploymentProcessor implements DeploymentUnitProcessor {
     private static final String LIB = "lib";
     private static final String IMPLICIT_TLD = "implicit.tld";
 
+    // Parsed TLDs are only read afterwards, so they are shared by all deployments packaging the same TLD
+    private static final DescriptorCache<TldMetaData> TLD_CACHE = new DescriptorCache<TldMetaData>(512, false);
+    private static final DescriptorCache.Parser<TldMetaData> TLD_PARSER = new TldParser();
+
     public void processDeployment(DeploymentUnitContext context) throws DeploymentUnitProcessingException {
         if(!isWarDeployment(context)) {
             return; // Skip non web deployments
@@ -107,23 +108,12 @@ public class TldParsingDeploymentProcessor implements DeploymentUnitProcessor {
             // Implicit TLDs are different from regular TLDs
             return new TldMetaData();
         }
-        InputStream is = null;
-        try {
-            is = tld.openStream();
-            final XMLInputFactory inputFactory = XMLInputFactory.newInstance();
-            inputFactory.setXMLResolver(NoopXmlResolver.create());
-            XMLStreamReader xmlReader = inputFactory.createXMLStreamReader(is);
-            return TldMetaDataParser.parse(xmlReader);
-        } catch (Exception e) {
-            throw new DeploymentUnitProcessingException("Failed to parse " + tld, e);
-        } finally {
-            try {
-                if (is != null) {
-                    is.close();
-                }
-            } catch (IOException e) {
-                // Ignore
-            }
+        return TLD_CACHE.get(tld, TLD_PARSER);
+    }
+
+    private static final class TldParser implements DescriptorCache.Parser<TldMetaData> {
+        public TldMetaData parse(InputStream is) throws Exception {
+            return TldMetaDataParser.parse(MetaDataInputFactory.createXMLStreamReader(is));
         }
     }
 
@@ -21,7 +21,6 @@
  */
 package org.jboss.as.web.deployment;
 
-import java.util.List;
 import java.util.Map;
 
 import org.jboss.as.deployment.AttachmentKey;
@@ -37,18 +36,18 @@ public class TldsMetaData {
     /**
      * Shared TLDs.
      */
-    private List<TldMetaData> sharedTlds;
+    private SharedTldsMetaData sharedTlds;
 
     /**
      * Webapp TLDs.
      */
     private Map<String, TldMetaData> tlds;
 
-    public List<TldMetaData> getSharedTlds() {
+    public SharedTldsMetaData getSharedTlds() {
         return sharedTlds;
     }
 
-    public void setSharedTlds(List<TldMetaData> sharedTlds) {
+    public void setSharedTlds(SharedTldsMetaData sharedTlds) {
         this.sharedTlds = sharedTlds;
     }
 
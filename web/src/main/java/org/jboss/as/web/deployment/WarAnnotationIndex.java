@@ -22,23 +22,22 @@
 
 package org.jboss.as.web.deployment;
 
-import java.io.InputStream;
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
+import org.jboss.as.deployment.processor.AnnotationIndexSupport;
 import org.jboss.as.deployment.unit.DeploymentUnitProcessingException;
 import org.jboss.jandex.AnnotationTarget;
 import org.jboss.jandex.ClassInfo;
 import org.jboss.jandex.DotName;
 import org.jboss.jandex.Index;
-import org.jboss.jandex.Indexer;
-import org.jboss.vfs.VFSUtils;
 import org.jboss.vfs.VirtualFile;
-import org.jboss.vfs.VisitorAttributes;
-import org.jboss.vfs.util.SuffixMatchFilter;
 
 /**
  * Per lib/jar web annotation index.
@@ -49,6 +48,9 @@ import org.jboss.vfs.util.SuffixMatchFilter;
  */
 public class WarAnnotationIndex {
 
+    private static final String CLASSES_CACHE_NAME = "war-classes";
+    private static final String LIB_CACHE_PREFIX = "war-lib-";
+
     private final Index rootIndex;
 
     /** lib/path -> index map. */
@@ -62,12 +64,14 @@ public class WarAnnotationIndex {
      * Create a web annotation index for a .war.
      *
      * @param deploymentRoot the .war deployment root
+     * @param cacheDirectory the directory the indexes are cached in, or {@code null}
+     * @param executor the executor indexing the classes, or {@code null}
      * @return the web annotation index
      * @throws DeploymentUnitProcessingException
      */
-    static WarAnnotationIndex create(final VirtualFile deploymentRoot) throws DeploymentUnitProcessingException {
-        final WarAnnotationIndex annotationIndex = new WarAnnotationIndex(createRoot(deploymentRoot));
-        processLibs(deploymentRoot, annotationIndex.indexes);
+    static WarAnnotationIndex create(final VirtualFile deploymentRoot, final File cacheDirectory, final Executor executor) throws DeploymentUnitProcessingException {
+        final WarAnnotationIndex annotationIndex = new WarAnnotationIndex(createRoot(deploymentRoot, cacheDirectory, executor));
+        processLibs(deploymentRoot, cacheDirectory, executor, annotationIndex.indexes);
         return annotationIndex;
     }
 
@@ -173,33 +177,26 @@ public class WarAnnotationIndex {
     }
 
     /**
-     * Create an index for each jar in the WEB-INF/lib directory.
+     * Create an index for each jar in the WEB-INF/lib directory.  The jars are indexed concurrently.
      *
      * @param deploymentRoot the deployment root
+     * @param cacheDirectory the directory the indexes are cached in, or {@code null}
+     * @param executor the executor indexing the jars, or {@code null}
      * @param indexes the indexes map
      * @throws DeploymentUnitProcessingException
      */
-    static void processLibs(final VirtualFile deploymentRoot, Map<String, Index> indexes) throws DeploymentUnitProcessingException {
+    static void processLibs(final VirtualFile deploymentRoot, final File cacheDirectory, final Executor executor, Map<String, Index> indexes) throws DeploymentUnitProcessingException {
         final VirtualFile webInfLib = deploymentRoot.getChild(WarStructureDeploymentProcessor.WEB_INF_LIB);
         if(webInfLib.exists()) {
             try {
                 final List<VirtualFile> archives = webInfLib.getChildren(WarStructureDeploymentProcessor.DEFAULT_WEB_INF_LIB_FILTER);
+                final Map<String, VirtualFile> roots = new LinkedHashMap<String, VirtualFile>();
                 for(final VirtualFile archive : archives) {
-                    final Indexer indexer = new Indexer();
-                    final List<VirtualFile> classChildren = archive.getChildren(new SuffixMatchFilter(".class", VisitorAttributes.RECURSE_LEAVES_ONLY));
-                    for(VirtualFile classFile : classChildren) {
-                        InputStream inputStream = null;
-                        try {
-                            inputStream = classFile.openStream();
-                            indexer.index(inputStream);
-                        } finally {
-                            VFSUtils.safeClose(inputStream);
-                        }
-                    }
-                    indexes.put(archive.getName(), indexer.complete());
+                    roots.put(archive.getName(), archive);
                 }
+                indexes.putAll(AnnotationIndexSupport.indexRoots(roots, cacheDirectory, LIB_CACHE_PREFIX, executor));
             } catch (Exception e) {
-                throw new DeploymentUnitProcessingException("Failed to index deployment root for annotations");
+                throw new DeploymentUnitProcessingException("Failed to index deployment root for annotations", e);
             }
         }
     }
@@ -208,25 +205,16 @@ public class WarAnnotationIndex {
      * Create an annotation index for WEB-INF/classes.
      *
      * @param deploymentRoot the deployment root
+     * @param cacheDirectory the directory the index is cached in, or {@code null}
+     * @param executor the executor reading the classes, or {@code null}
      * @return the root index
      * @throws DeploymentUnitProcessingException
      */
-    static Index createRoot(final VirtualFile deploymentRoot) throws DeploymentUnitProcessingException {
+    static Index createRoot(final VirtualFile deploymentRoot, final File cacheDirectory, final Executor executor) throws DeploymentUnitProcessingException {
         final VirtualFile classes = deploymentRoot.getChild(WarStructureDeploymentProcessor.WEB_INF_CLASSES);
         if(classes.exists()) {
-            final Indexer indexer = new Indexer();
             try {
-                final List<VirtualFile> classChildren = classes.getChildren(new SuffixMatchFilter(".class", VisitorAttributes.RECURSE_LEAVES_ONLY));
-                for(VirtualFile classFile : classChildren) {
-                    InputStream inputStream = null;
-                    try {
-                        inputStream = classFile.openStream();
-                        indexer.index(inputStream);
-                    } finally {
-                        VFSUtils.safeClose(inputStream);
-                    }
-                }
-                return indexer.complete();
+                return AnnotationIndexSupport.indexRoot(classes, cacheDirectory, CLASSES_CACHE_NAME, executor);
             } catch(Throwable t) {
                 throw new DeploymentUnitProcessingException("Failed to index deployment root for annotations", t);
             }
@@ -23,10 +23,12 @@
 package org.jboss.as.web.deployment;
 
 import org.jboss.as.deployment.AttachmentKey;
+import org.jboss.as.deployment.attachment.ContentCacheAttachment;
+import org.jboss.as.deployment.attachment.DeploymentExecutorAttachment;
 import org.jboss.as.deployment.attachment.VirtualFileAttachment;
+import org.jboss.as.deployment.unit.ConcurrentDeploymentUnitProcessor;
 import org.jboss.as.deployment.unit.DeploymentUnitContext;
 import org.jboss.as.deployment.unit.DeploymentUnitProcessingException;
-import org.jboss.as.deployment.unit.DeploymentUnitProcessor;
 import static org.jboss.as.web.deployment.WarDeploymentMarker.isWarDeployment;
 import org.jboss.vfs.VirtualFile;
 
@@ -38,7 +40,7 @@ import org.jboss.vfs.VirtualFile;
  *
  * @author Emanuel Muckenhuber
  */
-public class WarAnnotationIndexProcessor implements DeploymentUnitProcessor {
+public class WarAnnotationIndexProcessor implements ConcurrentDeploymentUnitProcessor {
 
     public static final AttachmentKey<WarAnnotationIndex> ATTACHMENT_KEY = new AttachmentKey<WarAnnotationIndex>(WarAnnotationIndex.class);
 
@@ -52,7 +54,8 @@ public class WarAnnotationIndexProcessor implements DeploymentUnitProcessor {
         }
         final VirtualFile deploymentRoot = VirtualFileAttachment.getVirtualFileAttachment(context);
         // Create the web annotation index
-        final WarAnnotationIndex index = WarAnnotationIndex.create(deploymentRoot);
+        final WarAnnotationIndex index = WarAnnotationIndex.create(deploymentRoot, ContentCacheAttachment.getContentCacheDirectory(context),
+                DeploymentExecutorAttachment.getDeploymentExecutor(context));
         context.putAttachment(ATTACHMENT_KEY, index);
     }
 
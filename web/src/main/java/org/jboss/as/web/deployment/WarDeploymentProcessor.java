@@ -42,6 +42,7 @@ import org.jboss.as.web.deployment.mock.MemoryRealm;
 import org.jboss.metadata.web.jboss.JBossWebMetaData;
 import org.jboss.modules.Module;
 import org.jboss.msc.service.BatchBuilder;
+import org.jboss.msc.service.BatchServiceBuilder;
 import org.jboss.msc.service.ServiceController.Mode;
 import org.jboss.vfs.VirtualFile;
 
@@ -122,7 +123,13 @@ public class WarDeploymentProcessor implements DeploymentUnitProcessor {
 
         //
         final Loader loader = new WebCtxLoader(classLoader);
-        final InstanceManager manager = new WebInjectionContainer(classLoader);
+        final WebInjectionConfiguration injectionConfiguration = context.getAttachment(WebInjectionConfiguration.ATTACHMENT_KEY);
+        final InstanceManager manager;
+        if (injectionConfiguration == null) {
+            manager = new WebInjectionContainer(classLoader);
+        } else {
+            manager = new WebInjectionContainer(classLoader, injectionConfiguration.getDeclaredInjections());
+        }
         webContext.setInstanceManager(manager);
         webContext.setLoader(loader);
 
@@ -143,9 +150,12 @@ public class WarDeploymentProcessor implements DeploymentUnitProcessor {
 
         // Add the context service
         final BatchBuilder builder = context.getBatchBuilder();
-        builder.addService(WebSubsystemElement.JBOSS_WEB.append(deploymentName), new WebDeploymentService(webContext))
-            .addDependency(WebSubsystemElement.JBOSS_WEB_HOST.append(hostName), Host.class, new WebContextInjector(webContext))
-            .setInitialMode(Mode.ACTIVE);
+        final BatchServiceBuilder<?> serviceBuilder = builder.addService(WebSubsystemElement.JBOSS_WEB.append(deploymentName), new WebDeploymentService(webContext));
+        serviceBuilder.addDependency(WebSubsystemElement.JBOSS_WEB_HOST.append(hostName), Host.class, new WebContextInjector(webContext));
+        serviceBuilder.setInitialMode(Mode.ACTIVE);
+        if (injectionConfiguration != null) {
+            injectionConfiguration.addDependencies(serviceBuilder);
+        }
     }
 
 }
@@ -0,0 +1,225 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.web.deployment;
+
+import static org.jboss.as.web.deployment.WarDeploymentMarker.isWarDeployment;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.naming.Context;
+
+import org.jboss.as.deployment.managedbean.container.FieldResourceInjection;
+import org.jboss.as.deployment.managedbean.container.MethodResourceInjection;
+import org.jboss.as.deployment.managedbean.container.ResourceInjection;
+import org.jboss.as.deployment.managedbean.processors.ResourceInjectionSupport;
+import org.jboss.as.deployment.module.ModuleDeploymentProcessor;
+import org.jboss.as.deployment.naming.ContextService;
+import org.jboss.as.deployment.naming.JndiName;
+import org.jboss.as.deployment.naming.ModuleContextConfig;
+import org.jboss.as.deployment.naming.NamingLookupValue;
+import org.jboss.as.deployment.unit.DeploymentUnitContext;
+import org.jboss.as.deployment.unit.DeploymentUnitProcessingException;
+import org.jboss.as.deployment.unit.DeploymentUnitProcessor;
+import org.jboss.jandex.AnnotationTarget;
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.FieldInfo;
+import org.jboss.jandex.MethodInfo;
+import org.jboss.logging.Logger;
+import org.jboss.modules.Module;
+import org.jboss.msc.service.BatchBuilder;
+import org.jboss.msc.service.ServiceName;
+import org.jboss.msc.value.Values;
+
+/**
+ * Finds the classes of a web deployment with {@code @Resource}, {@code @PostConstruct} or {@code @PreDestroy}
+ * members in the annotation index, and resolves their injections with the same machinery as managed beans: each
+ * resource is bound as a link in the web naming context and looked up from there when a component is created.
+ */
+public class WarInjectionProcessor implements DeploymentUnitProcessor {
+
+    private static final Logger log = Logger.getLogger("org.jboss.web");
+
+    private static final DotName RESOURCE_ANNOTATION_NAME = DotName.createSimple(Resource.class.getName());
+    private static final DotName POST_CONSTRUCT_ANNOTATION_NAME = DotName.createSimple(PostConstruct.class.getName());
+    private static final DotName PRE_DESTROY_ANNOTATION_NAME = DotName.createSimple(PreDestroy.class.getName());
+
+    /** {@inheritDoc} */
+    public void processDeployment(final DeploymentUnitContext context) throws DeploymentUnitProcessingException {
+        if(!isWarDeployment(context)) {
+            return; // Skip non web deployments
+        }
+        final WarAnnotationIndex index = context.getAttachment(WarAnnotationIndexProcessor.ATTACHMENT_KEY);
+        if (index == null) {
+            return; // Skip if there is no annotation index
+        }
+        final Set<DotName> classNames = new LinkedHashSet<DotName>();
+        addDeclaringClasses(index.getAnnotationTargets(RESOURCE_ANNOTATION_NAME), classNames);
+        addDeclaringClasses(index.getAnnotationTargets(POST_CONSTRUCT_ANNOTATION_NAME), classNames);
+        addDeclaringClasses(index.getAnnotationTargets(PRE_DESTROY_ANNOTATION_NAME), classNames);
+        if (classNames.isEmpty()) {
+            return; // Skip if nothing is injected
+        }
+        final Module module = context.getAttachment(ModuleDeploymentProcessor.MODULE_ATTACHMENT_KEY);
+        if (module == null) {
+            throw new DeploymentUnitProcessingException("Web injection processing requires a module.");
+        }
+        final ModuleContextConfig moduleContext = context.getAttachment(ModuleContextConfig.ATTACHMENT_KEY);
+        if (moduleContext == null) {
+            throw new DeploymentUnitProcessingException("Unable to process web injections without a module naming context");
+        }
+        final ClassLoader classLoader = module.getClassLoader();
+        final BatchBuilder batchBuilder = context.getBatchBuilder();
+
+        final ServiceName webContextServiceName = moduleContext.getContextServiceName().append("web", "context");
+        final JndiName webContextJndiName = moduleContext.getContextName().append("web-context");
+        final WebInjectionConfiguration configuration = new WebInjectionConfiguration(webContextServiceName);
+
+        for (DotName className : classNames) {
+            final Class<?> clazz;
+            try {
+                clazz = classLoader.loadClass(className.toString());
+            } catch (ClassNotFoundException e) {
+                log.debugf("Skipping injections of %s, the class cannot be loaded", className);
+                continue;
+            } catch (LinkageError e) {
+                // library classes may refer to optional dependencies which are not present
+                log.debugf(e, "Skipping injections of %s, the class cannot be loaded", className);
+                continue;
+            }
+            final WebInjectionPlan.ClassInjections classInjections = getClassInjections(context, moduleContext, configuration, batchBuilder, webContextServiceName, webContextJndiName, clazz);
+            if (classInjections != null) {
+                configuration.addClassInjections(clazz, classInjections);
+            }
+        }
+
+        if (configuration.hasLookups()) {
+            final ContextService webContext = new ContextService(webContextJndiName);
+            batchBuilder.addService(webContextServiceName, webContext)
+                .addDependency(moduleContext.getContextServiceName(), Context.class, webContext.getParentContextInjector());
+        }
+        context.putAttachment(WebInjectionConfiguration.ATTACHMENT_KEY, configuration);
+    }
+
+    /**
+     * Resolve the injections and lifecycle callbacks declared by one class, binding its resources in the web naming
+     * context.
+     *
+     * @return the injections of the class, or {@code null} if it declares none
+     */
+    WebInjectionPlan.ClassInjections getClassInjections(final DeploymentUnitContext context, final ModuleContextConfig moduleContext, final WebInjectionConfiguration configuration, final BatchBuilder batchBuilder,
+            final ServiceName webContextServiceName, final JndiName webContextJndiName, final Class<?> clazz) throws DeploymentUnitProcessingException {
+        final List<ResourceInjection<?>> resourceInjections = new ArrayList<ResourceInjection<?>>();
+        for (Field field : clazz.getDeclaredFields()) {
+            final Resource resource = field.getAnnotation(Resource.class);
+            if (resource == null || Modifier.isStatic(field.getModifiers())) {
+                continue;
+            }
+            final Class<?> injectionType = resource.type().equals(Object.class) ? field.getType() : resource.type();
+            final String localName = resource.name().isEmpty() ? clazz.getName() + "." + field.getName() : resource.name();
+            final NamingLookupValue<Object> lookupValue = processResource(context, moduleContext, configuration, batchBuilder, webContextServiceName, webContextJndiName, resource, field.getName(), localName, injectionType);
+            if (lookupValue != null) {
+                field.setAccessible(true);
+                resourceInjections.add(new FieldResourceInjection<Object>(Values.immediateValue(field), lookupValue, field.getType().isPrimitive()));
+            }
+        }
+        for (Method method : clazz.getDeclaredMethods()) {
+            final Resource resource = method.getAnnotation(Resource.class);
+            if (resource == null || Modifier.isStatic(method.getModifiers())) {
+                continue;
+            }
+            final String methodName = method.getName();
+            if (!methodName.startsWith("set") || methodName.length() < 4 || method.getParameterTypes().length != 1) {
+                throw new DeploymentUnitProcessingException("@Resource injection target is invalid.  Only setter methods are allowed: " + method);
+            }
+            final Class<?> argClass = method.getParameterTypes()[0];
+            final String propertyName = methodName.substring(3, 4).toLowerCase() + methodName.substring(4);
+            final Class<?> injectionType = resource.type().equals(Object.class) ? argClass : resource.type();
+            final String localName = resource.name().isEmpty() ? clazz.getName() + "." + propertyName : resource.name();
+            final NamingLookupValue<Object> lookupValue = processResource(context, moduleContext, configuration, batchBuilder, webContextServiceName, webContextJndiName, resource, propertyName, localName, injectionType);
+            if (lookupValue != null) {
+                method.setAccessible(true);
+                resourceInjections.add(new MethodResourceInjection<Object>(Values.immediateValue(method), lookupValue, argClass.isPrimitive()));
+            }
+        }
+        final Method postConstructMethod = getLifecycleMethod(clazz, PostConstruct.class);
+        final Method preDestroyMethod = getLifecycleMethod(clazz, PreDestroy.class);
+        if (resourceInjections.isEmpty() && postConstructMethod == null && preDestroyMethod == null) {
+            return null;
+        }
+        return new WebInjectionPlan.ClassInjections(resourceInjections, postConstructMethod, preDestroyMethod);
+    }
+
+    private static void addDeclaringClasses(final List<AnnotationTarget> targets, final Set<DotName> classNames) {
+        for (AnnotationTarget target : targets) {
+            if (target instanceof FieldInfo) {
+                classNames.add(FieldInfo.class.cast(target).declaringClass().name());
+            } else if (target instanceof MethodInfo) {
+                classNames.add(MethodInfo.class.cast(target).declaringClass().name());
+            }
+        }
+    }
+
+    private NamingLookupValue<Object> processResource(final DeploymentUnitContext deploymentContext, final ModuleContextConfig moduleContext, final WebInjectionConfiguration configuration, final BatchBuilder batchBuilder,
+            final ServiceName webContextServiceName, final JndiName webContextJndiName, final Resource resource, final String propertyName, final String localName, final Class<?> injectionType) throws DeploymentUnitProcessingException {
+        final String targetContextName = ResourceInjectionSupport.getTargetContextName(resource, resource.name().isEmpty() ? propertyName : resource.name(), injectionType);
+        if (targetContextName == null) {
+            log.warnf("Unable to determine the mapped name of @Resource %s of type %s, it will not be injected", localName, injectionType.getName());
+            return null;
+        }
+        final JndiName localContextName = webContextJndiName.append(localName);
+        final NamingLookupValue<Object> lookupValue = new NamingLookupValue<Object>(localContextName);
+        final ServiceName binderName = ResourceInjectionSupport.bindResource(deploymentContext, moduleContext, batchBuilder, webContextServiceName, localContextName, targetContextName);
+        configuration.addLookup(lookupValue, binderName);
+        return lookupValue;
+    }
+
+    private static Method getLifecycleMethod(final Class<?> clazz, final Class<? extends Annotation> annotationType) throws DeploymentUnitProcessingException {
+        Method lifecycleMethod = null;
+        for (Method method : clazz.getDeclaredMethods()) {
+            if (!method.isAnnotationPresent(annotationType)) {
+                continue;
+            }
+            if (lifecycleMethod != null) {
+                throw new DeploymentUnitProcessingException("Only one method may be annotated with " + annotationType + " per class: " + clazz.getName());
+            }
+            if (method.getParameterTypes().length != 0 || Modifier.isStatic(method.getModifiers())) {
+                throw new DeploymentUnitProcessingException("Method " + method.getName() + " annotated with " + annotationType + " on class " + clazz.getName() + " must be a non static method without parameters");
+            }
+            lifecycleMethod = method;
+        }
+        if (lifecycleMethod != null) {
+            lifecycleMethod.setAccessible(true);
+        }
+        return lifecycleMethod;
+    }
+}
@@ -37,7 +37,6 @@ import org.jboss.as.deployment.unit.DeploymentUnitProcessor;
 import static org.jboss.as.web.deployment.WarDeploymentMarker.isWarDeployment;
 import org.jboss.as.web.deployment.helpers.DeploymentStructure;
 import org.jboss.as.web.deployment.helpers.DeploymentStructure.ClassPathEntry;
-import org.jboss.metadata.web.spec.TldMetaData;
 import org.jboss.metadata.web.spec.WebMetaData;
 import org.jboss.msc.service.BatchBuilder;
 import org.jboss.msc.service.Service;
@@ -64,9 +63,9 @@ public class WarStructureDeploymentProcessor implements DeploymentUnitProcessor
     public static final VirtualFileFilter DEFAULT_WEB_INF_LIB_FILTER = new SuffixMatchFilter(".jar", VisitorAttributes.DEFAULT);
 
     private final WebMetaData sharedWebMetaData;
-    private final List<TldMetaData> sharedTldsMetaData;
+    private final SharedTldsMetaData sharedTldsMetaData;
 
-    public WarStructureDeploymentProcessor(final WebMetaData sharedWebMetaData, final List<TldMetaData> sharedTldsMetaData) {
+    public WarStructureDeploymentProcessor(final WebMetaData sharedWebMetaData, final SharedTldsMetaData sharedTldsMetaData) {
         this.sharedWebMetaData = sharedWebMetaData;
         this.sharedTldsMetaData = sharedTldsMetaData;
     }
@@ -21,19 +21,16 @@
  */
 package org.jboss.as.web.deployment;
 
-import java.io.IOException;
 import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Map;
 
-import javax.xml.stream.XMLInputFactory;
-import javax.xml.stream.XMLStreamReader;
-
+import org.jboss.as.deployment.descriptor.DescriptorCache;
+import org.jboss.as.deployment.unit.ConcurrentDeploymentUnitProcessor;
 import org.jboss.as.deployment.unit.DeploymentUnitContext;
 import org.jboss.as.deployment.unit.DeploymentUnitProcessingException;
-import org.jboss.as.deployment.unit.DeploymentUnitProcessor;
 import org.jboss.as.metadata.parser.servlet.WebFragmentMetaDataParser;
-import org.jboss.as.metadata.parser.util.NoopXmlResolver;
+import org.jboss.as.metadata.parser.util.MetaDataInputFactory;
 import static org.jboss.as.web.deployment.WarDeploymentMarker.isWarDeployment;
 import org.jboss.as.web.deployment.helpers.DeploymentStructure;
 import org.jboss.metadata.web.spec.WebFragmentMetaData;
@@ -42,10 +39,14 @@ import org.jboss.vfs.VirtualFile;
 /**
  * @author Remy Maucherat
  */
-public class WebFragmentParsingDeploymentProcessor implements DeploymentUnitProcessor {
+public class WebFragmentParsingDeploymentProcessor implements ConcurrentDeploymentUnitProcessor {
 
     private static final String WEB_FRAGMENT_XML = "META-INF/web-fragment.xml";
 
+    // Fragments are augmented with the annotations of their JAR later on, so each deployment gets its own copy
+    private static final DescriptorCache<WebFragmentMetaData> WEB_FRAGMENT_CACHE = new DescriptorCache<WebFragmentMetaData>(512, true);
+    private static final DescriptorCache.Parser<WebFragmentMetaData> WEB_FRAGMENT_PARSER = new WebFragmentParser();
+
     public void processDeployment(DeploymentUnitContext context) throws DeploymentUnitProcessingException {
         if(!isWarDeployment(context)) {
             return; // Skip non web deployments
@@ -64,27 +65,16 @@ public class WebFragmentParsingDeploymentProcessor implements DeploymentUnitProc
             if (resourceRoot.getRoot().getLowerCaseName().endsWith(".jar")) {
                 VirtualFile webFragment = resourceRoot.getRoot().getChild(WEB_FRAGMENT_XML);
                 if (webFragment.exists() && webFragment.isFile()) {
-                    InputStream is = null;
-                    try {
-                        is = webFragment.openStream();
-                        final XMLInputFactory inputFactory = XMLInputFactory.newInstance();
-                        inputFactory.setXMLResolver(NoopXmlResolver.create());
-                        XMLStreamReader xmlReader = inputFactory.createXMLStreamReader(is);
-                        webFragments.put(resourceRoot.getName(), WebFragmentMetaDataParser.parse(xmlReader));
-                    } catch (Exception e) {
-                        throw new DeploymentUnitProcessingException("Failed to parse " + webFragment, e);
-                    } finally {
-                        try {
-                            if (is != null) {
-                                is.close();
-                            }
-                        } catch (IOException e) {
-                            // Ignore
-                        }
-                    }
+                    webFragments.put(resourceRoot.getName(), WEB_FRAGMENT_CACHE.get(webFragment, WEB_FRAGMENT_PARSER));
                 }
             }
         }
     }
 
+    private static final class WebFragmentParser implements DescriptorCache.Parser<WebFragmentMetaData> {
+        public WebFragmentMetaData parse(InputStream is) throws Exception {
+            return WebFragmentMetaDataParser.parse(MetaDataInputFactory.createXMLStreamReader(is));
+        }
+    }
+
 }
@@ -0,0 +1,86 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.web.deployment;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.naming.Context;
+
+import org.jboss.as.deployment.AttachmentKey;
+import org.jboss.as.deployment.naming.NamingLookupValue;
+import org.jboss.msc.service.BatchServiceBuilder;
+import org.jboss.msc.service.ServiceName;
+
+/**
+ * The injections of a web deployment, as found by the {@link WarInjectionProcessor}.
+ */
+public class WebInjectionConfiguration {
+
+    public static final AttachmentKey<WebInjectionConfiguration> ATTACHMENT_KEY = new AttachmentKey<WebInjectionConfiguration>(WebInjectionConfiguration.class);
+
+    private final ServiceName webContextServiceName;
+    private final Map<Class<?>, WebInjectionPlan.ClassInjections> declaredInjections = new HashMap<Class<?>, WebInjectionPlan.ClassInjections>();
+    private final List<NamingLookupValue<?>> lookupValues = new ArrayList<NamingLookupValue<?>>();
+    private final Set<ServiceName> binderNames = new LinkedHashSet<ServiceName>();
+
+    WebInjectionConfiguration(final ServiceName webContextServiceName) {
+        this.webContextServiceName = webContextServiceName;
+    }
+
+    void addClassInjections(final Class<?> clazz, final WebInjectionPlan.ClassInjections classInjections) {
+        declaredInjections.put(clazz, classInjections);
+    }
+
+    void addLookup(final NamingLookupValue<?> lookupValue, final ServiceName binderName) {
+        lookupValues.add(lookupValue);
+        binderNames.add(binderName);
+    }
+
+    boolean hasLookups() {
+        return ! lookupValues.isEmpty();
+    }
+
+    Map<Class<?>, WebInjectionPlan.ClassInjections> getDeclaredInjections() {
+        return Collections.unmodifiableMap(declaredInjections);
+    }
+
+    /**
+     * Make the web deployment depend on the bindings its components are injected with.
+     *
+     * @param serviceBuilder the builder of the web deployment service
+     */
+    void addDependencies(final BatchServiceBuilder<?> serviceBuilder) {
+        for (NamingLookupValue<?> lookupValue : lookupValues) {
+            serviceBuilder.addDependency(webContextServiceName, Context.class, lookupValue.getContextInjector());
+        }
+        for (ServiceName binderName : binderNames) {
+            serviceBuilder.addDependency(binderName);
+        }
+    }
+}
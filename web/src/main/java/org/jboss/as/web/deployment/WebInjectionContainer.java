@@ -22,26 +22,39 @@
 package org.jboss.as.web.deployment;
 
 import java.lang.reflect.InvocationTargetException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.naming.NamingException;
 
 import org.apache.tomcat.InstanceManager;
 
 /**
- * The web injection container.
+ * The web injection container.  Servlets, filters, listeners, tag handlers and JSPs are created through it; the
+ * resource injections and lifecycle callbacks of each class are resolved into a {@link WebInjectionPlan} the first
+ * time the class is used.
  *
  * @author Emanuel Muckenhuber
  */
 class WebInjectionContainer implements InstanceManager {
 
     private final ClassLoader classloader;
+    private final Map<Class<?>, WebInjectionPlan.ClassInjections> declaredInjections;
+    private final ConcurrentMap<Class<?>, WebInjectionPlan> plans = new ConcurrentHashMap<Class<?>, WebInjectionPlan>();
 
     public WebInjectionContainer(ClassLoader classloader) {
-        this.classloader = classloader;
+        this(classloader, Collections.<Class<?>, WebInjectionPlan.ClassInjections>emptyMap());
     }
 
-    public void destroyInstance(Object arg0) throws IllegalAccessException, InvocationTargetException {
+    public WebInjectionContainer(ClassLoader classloader, Map<Class<?>, WebInjectionPlan.ClassInjections> declaredInjections) {
+        this.classloader = classloader;
+        this.declaredInjections = declaredInjections;
+    }
 
+    public void destroyInstance(Object instance) throws IllegalAccessException, InvocationTargetException {
+        getPlan(instance.getClass()).destroy(instance);
     }
 
     public Object newInstance(String className) throws IllegalAccessException, InvocationTargetException, NamingException, InstantiationException, ClassNotFoundException {
@@ -49,23 +62,31 @@ class WebInjectionContainer implements InstanceManager {
     }
 
     public Object newInstance(Class<?> clazz) throws IllegalAccessException, InvocationTargetException, NamingException, InstantiationException {
-        // Instantiate
-        final Object object = clazz.newInstance();
-        // Inject
-        newInstance(object);
-        // Return
-        return object;
+        return getPlan(clazz).newInstance();
     }
 
-    public void newInstance(Object arg0) throws IllegalAccessException, InvocationTargetException, NamingException {
-        // FIXME delegate injections to the common injection framework..
+    public void newInstance(Object instance) throws IllegalAccessException, InvocationTargetException, NamingException {
+        getPlan(instance.getClass()).inject(instance);
     }
 
     public Object newInstance(String className, ClassLoader cl) throws IllegalAccessException, InvocationTargetException, NamingException, InstantiationException, ClassNotFoundException {
         // Use by JspServletWrapper for example.
-        Class<?> clazz = cl.loadClass(className);
-        // Annnotations ? return newInstance(clazz.newInstance(), clazz);
-        return clazz.newInstance();
+        return newInstance(cl.loadClass(className));
+    }
+
+    WebInjectionPlan getPlan(final Class<?> clazz) {
+        WebInjectionPlan plan = plans.get(clazz);
+        if (plan != null) {
+            return plan;
+        }
+        plan = WebInjectionPlan.create(clazz, declaredInjections);
+        final ClassLoader loader = clazz.getClassLoader();
+        if (loader != null && loader != classloader && loader.getParent() == classloader) {
+            // Jasper loads each compiled JSP through its own child loader, which is replaced on recompilation
+            return plan;
+        }
+        final WebInjectionPlan existing = plans.putIfAbsent(clazz, plan);
+        return existing != null ? existing : plan;
     }
 
 }
@@ -0,0 +1,186 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.web.deployment;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.jboss.as.deployment.managedbean.container.ResourceInjection;
+
+/**
+ * Everything needed to create, inject and destroy instances of one web component class: the no-arg constructor,
+ * the resource injections and the lifecycle callbacks of the class and all its superclasses.  A plan is computed once
+ * per class, so creating an instance does not need any reflective lookups.
+ */
+final class WebInjectionPlan {
+
+    private static final Object[] NO_ARGS = new Object[0];
+    private static final ResourceInjection<?>[] NO_INJECTIONS = new ResourceInjection<?>[0];
+    private static final Method[] NO_METHODS = new Method[0];
+
+    private final Class<?> componentClass;
+    private final Constructor<?> constructor;
+    private final ResourceInjection<?>[] injections;
+    private final Method[] postConstructMethods;
+    private final Method[] preDestroyMethods;
+
+    private WebInjectionPlan(final Class<?> componentClass, final Constructor<?> constructor, final ResourceInjection<?>[] injections, final Method[] postConstructMethods, final Method[] preDestroyMethods) {
+        this.componentClass = componentClass;
+        this.constructor = constructor;
+        this.injections = injections;
+        this.postConstructMethods = postConstructMethods;
+        this.preDestroyMethods = preDestroyMethods;
+    }
+
+    /**
+     * Create the plan for a class.
+     *
+     * @param componentClass the class
+     * @param declaredInjections the injections declared by each class of the deployment, by declaring class
+     * @return the plan
+     */
+    static WebInjectionPlan create(final Class<?> componentClass, final Map<Class<?>, ClassInjections> declaredInjections) {
+        Constructor<?> constructor = null;
+        if (! componentClass.isInterface() && ! Modifier.isAbstract(componentClass.getModifiers())) {
+            try {
+                constructor = componentClass.getDeclaredConstructor();
+                if (Modifier.isPublic(constructor.getModifiers()) && Modifier.isPublic(componentClass.getModifiers())) {
+                    // accessible anyway, this only skips the access check on each call
+                    constructor.setAccessible(true);
+                } else {
+                    constructor = null;
+                }
+            } catch (NoSuchMethodException e) {
+                // reported when an instance is requested
+            } catch (SecurityException e) {
+                constructor = null;
+            }
+        }
+        if (declaredInjections.isEmpty()) {
+            return new WebInjectionPlan(componentClass, constructor, NO_INJECTIONS, NO_METHODS, NO_METHODS);
+        }
+        final List<ClassInjections> hierarchy = new ArrayList<ClassInjections>();
+        for (Class<?> current = componentClass; current != null && current != Object.class; current = current.getSuperclass()) {
+            final ClassInjections classInjections = declaredInjections.get(current);
+            if (classInjections != null) {
+                hierarchy.add(classInjections);
+            }
+        }
+        if (hierarchy.isEmpty()) {
+            return new WebInjectionPlan(componentClass, constructor, NO_INJECTIONS, NO_METHODS, NO_METHODS);
+        }
+        // superclass members first
+        Collections.reverse(hierarchy);
+        final List<ResourceInjection<?>> injections = new ArrayList<ResourceInjection<?>>();
+        final List<Method> postConstructMethods = new ArrayList<Method>();
+        final List<Method> preDestroyMethods = new ArrayList<Method>();
+        for (ClassInjections classInjections : hierarchy) {
+            injections.addAll(classInjections.getResourceInjections());
+            if (classInjections.getPostConstructMethod() != null) {
+                postConstructMethods.add(classInjections.getPostConstructMethod());
+            }
+            if (classInjections.getPreDestroyMethod() != null) {
+                preDestroyMethods.add(classInjections.getPreDestroyMethod());
+            }
+        }
+        return new WebInjectionPlan(componentClass, constructor,
+                injections.toArray(new ResourceInjection<?>[injections.size()]),
+                postConstructMethods.toArray(new Method[postConstructMethods.size()]),
+                preDestroyMethods.toArray(new Method[preDestroyMethods.size()]));
+    }
+
+    /**
+     * Create, inject and initialize a new instance.
+     *
+     * @return the instance
+     */
+    Object newInstance() throws InstantiationException, IllegalAccessException, InvocationTargetException {
+        final Object instance;
+        if (constructor == null) {
+            // let the class report why it cannot be instantiated
+            instance = componentClass.newInstance();
+        } else {
+            instance = constructor.newInstance(NO_ARGS);
+        }
+        inject(instance);
+        return instance;
+    }
+
+    /**
+     * Inject and initialize an instance created elsewhere.
+     *
+     * @param instance the instance
+     */
+    void inject(final Object instance) throws IllegalAccessException, InvocationTargetException {
+        for (ResourceInjection<?> injection : injections) {
+            injection.inject(instance);
+        }
+        for (Method method : postConstructMethods) {
+            method.invoke(instance, NO_ARGS);
+        }
+    }
+
+    /**
+     * Run the pre-destroy callbacks of an instance.
+     *
+     * @param instance the instance
+     */
+    void destroy(final Object instance) throws IllegalAccessException, InvocationTargetException {
+        for (Method method : preDestroyMethods) {
+            method.invoke(instance, NO_ARGS);
+        }
+    }
+
+    /**
+     * The injections and lifecycle callbacks declared by a single class.
+     */
+    static final class ClassInjections {
+        private final List<ResourceInjection<?>> resourceInjections;
+        private final Method postConstructMethod;
+        private final Method preDestroyMethod;
+
+        ClassInjections(final List<ResourceInjection<?>> resourceInjections, final Method postConstructMethod, final Method preDestroyMethod) {
+            this.resourceInjections = resourceInjections;
+            this.postConstructMethod = postConstructMethod;
+            this.preDestroyMethod = preDestroyMethod;
+        }
+
+        List<ResourceInjection<?>> getResourceInjections() {
+            return resourceInjections;
+        }
+
+        Method getPostConstructMethod() {
+            return postConstructMethod;
+        }
+
+        Method getPreDestroyMethod() {
+            return preDestroyMethod;
+        }
+    }
+}
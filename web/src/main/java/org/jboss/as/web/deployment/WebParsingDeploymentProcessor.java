@@ -24,7 +24,6 @@ package org.jboss.as.web.deployment;
 import java.io.IOException;
 import java.io.InputStream;
 
-import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamReader;
 
 import org.jboss.as.deployment.attachment.VirtualFileAttachment;
@@ -32,7 +31,7 @@ import org.jboss.as.deployment.unit.DeploymentUnitContext;
 import org.jboss.as.deployment.unit.DeploymentUnitProcessingException;
 import org.jboss.as.deployment.unit.DeploymentUnitProcessor;
 import org.jboss.as.metadata.parser.servlet.WebMetaDataParser;
-import org.jboss.as.metadata.parser.util.NoopXmlResolver;
+import org.jboss.as.metadata.parser.util.MetaDataInputFactory;
 import static org.jboss.as.web.deployment.WarDeploymentMarker.isWarDeployment;
 import org.jboss.vfs.VirtualFile;
 
@@ -55,9 +54,7 @@ public class WebParsingDeploymentProcessor implements DeploymentUnitProcessor {
             InputStream is = null;
             try {
                 is = webXml.openStream();
-                final XMLInputFactory inputFactory = XMLInputFactory.newInstance();
-                inputFactory.setXMLResolver(NoopXmlResolver.create());
-                XMLStreamReader xmlReader = inputFactory.createXMLStreamReader(is);
+                XMLStreamReader xmlReader = MetaDataInputFactory.createXMLStreamReader(is);
                 warMetaData.setWebMetaData(WebMetaDataParser.parse(xmlReader));
             } catch (Exception e) {
                 throw new DeploymentUnitProcessingException("Failed to parse " + webXml, e);
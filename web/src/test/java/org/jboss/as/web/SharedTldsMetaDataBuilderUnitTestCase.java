@@ -0,0 +1,158 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.web;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import junit.framework.TestCase;
+
+import org.jboss.as.web.deployment.SharedTldsMetaData;
+
+public class SharedTldsMetaDataBuilderUnitTestCase extends TestCase {
+
+    private File dir;
+
+    protected void setUp() throws Exception {
+        dir = File.createTempFile("shared", "tlds");
+        dir.delete();
+        dir.mkdirs();
+    }
+
+    protected void tearDown() throws Exception {
+        for (File file : dir.listFiles()) {
+            file.delete();
+        }
+        dir.delete();
+    }
+
+    public void testFindTlds() throws Exception {
+        final File jar = new File(dir, "taglib.jar");
+        final JarOutputStream out = new JarOutputStream(new FileOutputStream(jar), new Manifest());
+        try {
+            addEntry(out, "META-INF/simple.tld", "Tld20_testEverything.xml");
+            addEntry(out, "META-INF/implicit.tld", "Tld20_testEverything.xml");
+            addEntry(out, "WEB-INF/ignored.tld", "Tld20_testEverything.xml");
+        } finally {
+            out.close();
+        }
+        final Map<String, byte[]> sources = new TreeMap<String, byte[]>();
+        SharedTldsMetaDataBuilder.findTlds(new URLClassLoader(new URL[] { jar.toURI().toURL() }, null), sources);
+        assertEquals(1, sources.size());
+        assertTrue(sources.keySet().iterator().next().endsWith("!/META-INF/simple.tld"));
+    }
+
+    public void testCachedTlds() throws Exception {
+        final File cacheFile = new File(dir, "shared-tlds.cache");
+        final SharedTldsMetaDataBuilder builder = new SharedTldsMetaDataBuilder(null, cacheFile);
+        final Map<String, byte[]> sources = new TreeMap<String, byte[]>();
+        sources.put("simple.tld", read("Tld20_testEverything.xml"));
+        sources.put("example.tld", read("Tld12_testEverything.xml"));
+
+        final SharedTldsMetaData parsed = builder.build(sources);
+        assertEquals(2, parsed.getTlds().size());
+        assertNotNull(parsed.getTld("/SimpleTagLibrary"));
+        assertNotNull(parsed.getTld("http://jakarta.apache.org/tomcat/example-taglib"));
+        assertTrue(cacheFile.isFile());
+
+        final SharedTldsMetaData cached = builder.build(sources);
+        assertNotSame(parsed, cached);
+        assertEquals(parsed.getTldsByUri().keySet(), cached.getTldsByUri().keySet());
+
+        // a changed library is parsed again
+        sources.remove("example.tld");
+        assertEquals(1, builder.build(sources).getTlds().size());
+    }
+
+    public void testChangedParserInvalidatesCache() throws Exception {
+        final File cacheFile = new File(dir, "shared-tlds.cache");
+        final SharedTldsMetaDataBuilder builder = new SharedTldsMetaDataBuilder(null, cacheFile);
+        final Map<String, byte[]> sources = new TreeMap<String, byte[]>();
+        sources.put("simple.tld", read("Tld20_testEverything.xml"));
+
+        builder.build(sources, new byte[] { 1 });
+        final byte[] first = readFile(cacheFile);
+        builder.build(sources, new byte[] { 1 });
+        assertTrue(Arrays.equals(first, readFile(cacheFile)));
+
+        // a replaced parser or metadata archive parses the same TLDs again and rewrites the cache
+        assertEquals(1, builder.build(sources, new byte[] { 2 }).getTlds().size());
+        assertFalse(Arrays.equals(first, readFile(cacheFile)));
+
+        // without a fingerprint the cache is left alone
+        final byte[] second = readFile(cacheFile);
+        assertEquals(1, builder.build(sources, null).getTlds().size());
+        assertTrue(Arrays.equals(second, readFile(cacheFile)));
+    }
+
+    public void testSharedTldsAreImmutable() throws Exception {
+        final SharedTldsMetaData sharedTlds = new SharedTldsMetaDataBuilder(null, null).build(new TreeMap<String, byte[]>());
+        assertTrue(sharedTlds.getTlds().isEmpty());
+        try {
+            sharedTlds.getTlds().add(null);
+            fail("Expected exception");
+        } catch (UnsupportedOperationException expected) {
+        }
+    }
+
+    private static void addEntry(final JarOutputStream out, final String name, final String resource) throws Exception {
+        out.putNextEntry(new JarEntry(name));
+        out.write(read(resource));
+        out.closeEntry();
+    }
+
+    private static byte[] read(final String resource) throws Exception {
+        final InputStream is = Thread.currentThread().getContextClassLoader().getResourceAsStream(resource);
+        assertNotNull(is);
+        return readFully(is);
+    }
+
+    private static byte[] readFile(final File file) throws Exception {
+        return readFully(new FileInputStream(file));
+    }
+
+    private static byte[] readFully(final InputStream is) throws Exception {
+        try {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[8192];
+            int res;
+            while ((res = is.read(buffer)) != -1) {
+                out.write(buffer, 0, res);
+            }
+            return out.toByteArray();
+        } finally {
+            is.close();
+        }
+    }
+}
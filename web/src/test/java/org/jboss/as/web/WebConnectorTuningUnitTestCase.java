@@ -0,0 +1,191 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.web;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.util.EnumMap;
+import java.util.Map;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import junit.framework.TestCase;
+
+import org.apache.catalina.connector.Connector;
+import org.jboss.as.ExtensionContext.SubsystemConfiguration;
+import org.jboss.as.model.AbstractSubsystemUpdate;
+import org.jboss.as.model.ParseResult;
+import org.jboss.staxmapper.XMLContentWriter;
+import org.jboss.staxmapper.XMLExtendedStreamWriter;
+import org.jboss.staxmapper.XMLMapper;
+
+/**
+ * Tests of the connector performance attributes: parsing and writing them, changing them with
+ * {@link WebConnectorTuningUpdate}, and applying them to a JBoss Web connector.
+ */
+public class WebConnectorTuningUnitTestCase extends TestCase {
+
+    private static final String SUBSYSTEM = "<subsystem xmlns=\"" + Namespace.CURRENT.getUriString() + "\">"
+            + "<connector name=\"http\" protocol=\"HTTP/1.1\" socket-binding=\"http\" %s/>"
+            + "</subsystem>";
+
+    private static final String ALL_ATTRIBUTES = "acceptor-thread-count=\"2\" poller-thread-count=\"4\" keep-alive-timeout=\"15000\" "
+            + "max-keep-alive-requests=\"50\" socket-buffer=\"16384\" tcp-no-delay=\"false\" compression=\"on\"";
+
+    public void testParseAndWrite() throws Exception {
+        final WebSubsystemElement element = parse(String.format(SUBSYSTEM, ALL_ATTRIBUTES));
+        final Map<WebConnectorTuning, String> expected = new EnumMap<WebConnectorTuning, String>(WebConnectorTuning.class);
+        expected.put(WebConnectorTuning.ACCEPTOR_THREAD_COUNT, "2");
+        expected.put(WebConnectorTuning.POLLER_THREAD_COUNT, "4");
+        expected.put(WebConnectorTuning.KEEP_ALIVE_TIMEOUT, "15000");
+        expected.put(WebConnectorTuning.MAX_KEEP_ALIVE_REQUESTS, "50");
+        expected.put(WebConnectorTuning.SOCKET_BUFFER, "16384");
+        expected.put(WebConnectorTuning.TCP_NO_DELAY, "false");
+        expected.put(WebConnectorTuning.COMPRESSION, "on");
+        assertEquals(expected, element.getConnector("http").getTuning());
+
+        final WebSubsystemElement reparsed = parse(write(element));
+        assertEquals(expected, reparsed.getConnector("http").getTuning());
+    }
+
+    public void testUnsetAttributesAreNotWritten() throws Exception {
+        final WebSubsystemElement element = parse(String.format(SUBSYSTEM, ""));
+        assertTrue(element.getConnector("http").getTuning().isEmpty());
+        final String written = write(element);
+        for (WebConnectorTuning tuning : WebConnectorTuning.values()) {
+            assertFalse(written, written.contains(tuning.getAttribute().getLocalName()));
+        }
+    }
+
+    public void testInvalidValue() throws Exception {
+        try {
+            parse(String.format(SUBSYSTEM, "keep-alive-timeout=\"forever\""));
+            fail("XMLStreamException expected");
+        } catch (XMLStreamException expected) {
+        }
+        try {
+            parse(String.format(SUBSYSTEM, "tcp-no-delay=\"yes\""));
+            fail("XMLStreamException expected");
+        } catch (XMLStreamException expected) {
+        }
+    }
+
+    public void testUnknownAttribute() throws Exception {
+        try {
+            parse(String.format(SUBSYSTEM, "keep-alive=\"15000\""));
+            fail("XMLStreamException expected");
+        } catch (XMLStreamException expected) {
+        }
+    }
+
+    public void testUpdateAndCompensation() throws Exception {
+        final WebSubsystemElement element = parse(String.format(SUBSYSTEM, "keep-alive-timeout=\"15000\""));
+
+        final WebConnectorTuningUpdate change = new WebConnectorTuningUpdate("http", WebConnectorTuning.KEEP_ALIVE_TIMEOUT, "30000");
+        final WebConnectorTuningUpdate restore = change.getCompensatingUpdate(element);
+        change.applyUpdate(element);
+        assertEquals("30000", element.getConnector("http").getTuning(WebConnectorTuning.KEEP_ALIVE_TIMEOUT));
+        restore.applyUpdate(element);
+        assertEquals("15000", element.getConnector("http").getTuning(WebConnectorTuning.KEEP_ALIVE_TIMEOUT));
+
+        // compensating an attribute which was not set removes it again
+        final WebConnectorTuningUpdate add = new WebConnectorTuningUpdate("http", WebConnectorTuning.COMPRESSION, "force");
+        final WebConnectorTuningUpdate remove = add.getCompensatingUpdate(element);
+        assertNull(remove.getValue());
+        add.applyUpdate(element);
+        assertEquals("force", element.getConnector("http").getTuning(WebConnectorTuning.COMPRESSION));
+        remove.applyUpdate(element);
+        assertNull(element.getConnector("http").getTuning(WebConnectorTuning.COMPRESSION));
+
+        assertNull(new WebConnectorTuningUpdate("https", WebConnectorTuning.COMPRESSION, "on").getCompensatingUpdate(element));
+    }
+
+    public void testRestartRequired() throws Exception {
+        for (WebConnectorTuning tuning : WebConnectorTuning.values()) {
+            final String value = tuning == WebConnectorTuning.TCP_NO_DELAY ? "true" : "1";
+            assertEquals(tuning.name(), !tuning.isRuntime(), new WebConnectorTuningUpdate("http", tuning, value).requiresRestart());
+            // a running connector keeps a removed value until it is restarted
+            assertTrue(tuning.name(), new WebConnectorTuningUpdate("http", tuning, null).requiresRestart());
+        }
+    }
+
+    public void testProtocolHandlerProperties() throws Exception {
+        // the properties the protocol handler hands to connections it accepts from now on
+        final Connector connector = new Connector("HTTP/1.1");
+        WebConnectorService.setTuning(connector, WebConnectorTuning.KEEP_ALIVE_TIMEOUT, "30000");
+        WebConnectorService.setTuning(connector, WebConnectorTuning.MAX_KEEP_ALIVE_REQUESTS, "25");
+        WebConnectorService.setTuning(connector, WebConnectorTuning.SOCKET_BUFFER, "16384");
+        WebConnectorService.setTuning(connector, WebConnectorTuning.TCP_NO_DELAY, "false");
+        WebConnectorService.setTuning(connector, WebConnectorTuning.COMPRESSION, "on");
+        assertEquals("30000", String.valueOf(connector.getProperty("keepAliveTimeout")));
+        assertEquals("25", String.valueOf(connector.getProperty("maxKeepAliveRequests")));
+        assertEquals("16384", String.valueOf(connector.getProperty("socketBuffer")));
+        assertEquals("false", String.valueOf(connector.getProperty("tcpNoDelay")));
+        assertEquals("on", String.valueOf(connector.getProperty("compression")));
+    }
+
+    public void testUnsupportedProperty() throws Exception {
+        // a protocol handler without the property ignores it
+        final Connector connector = new Connector("HTTP/1.1") {
+            public boolean setProperty(final String name, final String value) {
+                return false;
+            }
+        };
+        assertFalse(WebConnectorService.setTuning(connector, WebConnectorTuning.COMPRESSION, "on"));
+        assertTrue(WebConnectorService.setTuning(new Connector("HTTP/1.1"), WebConnectorTuning.COMPRESSION, "on"));
+    }
+
+    private static WebSubsystemElement parse(final String content) throws Exception {
+        final XMLMapper mapper = XMLMapper.Factory.create();
+        mapper.registerRootElement(new QName(Namespace.CURRENT.getUriString(), Element.SUBSYSTEM.getLocalName()), WebSubsystemParser.getInstance());
+        final ParseResult<SubsystemConfiguration<WebSubsystemElement>> result = new ParseResult<SubsystemConfiguration<WebSubsystemElement>>();
+        mapper.parseDocument(result, XMLInputFactory.newInstance().createXMLStreamReader(new StringReader(content)));
+        final WebSubsystemElement element = WebSubsystemAdd.class.cast(result.getResult().getSubsystemAdd()).createSubsystemElement();
+        for (AbstractSubsystemUpdate<WebSubsystemElement, ?> update : result.getResult().getUpdates()) {
+            WebConnectorAdd.class.cast(update).applyUpdate(element);
+        }
+        return element;
+    }
+
+    private static String write(final WebSubsystemElement element) throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(out, "UTF-8");
+        XMLMapper.Factory.create().deparseDocument(new XMLContentWriter() {
+            public void writeContent(final XMLExtendedStreamWriter streamWriter) throws XMLStreamException {
+                final String namespace = Namespace.CURRENT.getUriString();
+                streamWriter.writeStartDocument();
+                streamWriter.setDefaultNamespace(namespace);
+                streamWriter.writeStartElement(namespace, Element.SUBSYSTEM.getLocalName());
+                streamWriter.writeDefaultNamespace(namespace);
+                element.writeContent(streamWriter);
+                streamWriter.writeEndDocument();
+            }
+        }, writer);
+        writer.close();
+        return out.toString("UTF-8");
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.web.deployment;
+
+import static org.jboss.as.deployment.naming.NamespaceBindings.getNamespaceBindings;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.naming.LinkRef;
+
+import junit.framework.TestCase;
+
+import org.jboss.as.deployment.naming.JndiName;
+import org.jboss.as.deployment.naming.ModuleContextConfig;
+import org.jboss.as.deployment.unit.DeploymentUnitContext;
+import org.jboss.as.deployment.unit.DeploymentUnitContextImpl;
+import org.jboss.as.deployment.unit.DeploymentUnitProcessingException;
+import org.jboss.msc.service.BatchBuilder;
+import org.jboss.msc.service.ServiceContainer;
+import org.jboss.msc.service.ServiceName;
+
+public class WarInjectionProcessorUnitTestCase extends TestCase {
+
+    private ServiceContainer serviceContainer;
+    private BatchBuilder batchBuilder;
+    private DeploymentUnitContext context;
+    private ModuleContextConfig moduleContext;
+    private ServiceName webContextServiceName;
+    private JndiName webContextJndiName;
+    private WebInjectionConfiguration configuration;
+
+    protected void setUp() throws Exception {
+        serviceContainer = ServiceContainer.Factory.create();
+        batchBuilder = serviceContainer.batchBuilder();
+        context = new DeploymentUnitContextImpl("test.war", batchBuilder, null);
+        moduleContext = new ModuleContextConfig(ServiceName.of("test", "module"), JndiName.of("java:module"));
+        webContextServiceName = moduleContext.getContextServiceName().append("web", "context");
+        webContextJndiName = moduleContext.getContextName().append("web-context");
+        configuration = new WebInjectionConfiguration(webContextServiceName);
+    }
+
+    protected void tearDown() throws Exception {
+        serviceContainer.shutdown();
+    }
+
+    public void testFieldAndSetterInjection() throws Exception {
+        final WebInjectionPlan.ClassInjections classInjections = getClassInjections(InjectedServlet.class);
+        // the untyped resource can neither be resolved as an environment entry nor as a managed bean
+        assertEquals(2, classInjections.getResourceInjections().size());
+        assertTrue(configuration.hasLookups());
+
+        final JndiName greetingName = webContextJndiName.append(InjectedServlet.class.getName() + ".greeting");
+        assertFalse(getNamespaceBindings(context).addBinding(greetingName, new LinkRef("java:global/greeting")));
+        final JndiName countName = webContextJndiName.append("count");
+        assertFalse(getNamespaceBindings(context).addBinding(countName, new LinkRef(moduleContext.getContextName().append("count").getAbsoluteName())));
+    }
+
+    public void testLifecycleMethods() throws Exception {
+        final WebInjectionPlan.ClassInjections classInjections = getClassInjections(InjectedServlet.class);
+        assertEquals("init", classInjections.getPostConstructMethod().getName());
+        assertEquals("destroy", classInjections.getPreDestroyMethod().getName());
+    }
+
+    public void testLifecycleMethodsOnly() throws Exception {
+        final WebInjectionPlan.ClassInjections classInjections = getClassInjections(LifecycleListener.class);
+        assertTrue(classInjections.getResourceInjections().isEmpty());
+        assertEquals("init", classInjections.getPostConstructMethod().getName());
+        assertNull(classInjections.getPreDestroyMethod());
+        assertFalse(configuration.hasLookups());
+    }
+
+    public void testNoInjections() throws Exception {
+        assertNull(getClassInjections(LifecycleListener.Plain.class));
+    }
+
+    public void testInvalidResourceMethod() throws Exception {
+        try {
+            getClassInjections(InvalidResourceMethod.class);
+            fail("Should have rejected a @Resource method which is not a setter");
+        } catch (DeploymentUnitProcessingException expected) {
+        }
+    }
+
+    public void testDuplicatePostConstruct() throws Exception {
+        try {
+            getClassInjections(DuplicatePostConstruct.class);
+            fail("Should have rejected two @PostConstruct methods");
+        } catch (DeploymentUnitProcessingException expected) {
+        }
+    }
+
+    private WebInjectionPlan.ClassInjections getClassInjections(final Class<?> clazz) throws DeploymentUnitProcessingException {
+        return new WarInjectionProcessor().getClassInjections(context, moduleContext, configuration, batchBuilder, webContextServiceName, webContextJndiName, clazz);
+    }
+
+    public static class InjectedServlet {
+        @Resource(mappedName = "java:global/greeting")
+        String greeting;
+        @Resource
+        Object unresolvable;
+        int count;
+
+        @Resource(name = "count")
+        public void setCount(final int count) {
+            this.count = count;
+        }
+
+        @PostConstruct
+        void init() {
+        }
+
+        @PreDestroy
+        void destroy() {
+        }
+    }
+
+    public static class LifecycleListener {
+        @PostConstruct
+        void init() {
+        }
+
+        public static class Plain {
+        }
+    }
+
+    public static class InvalidResourceMethod {
+        @Resource
+        public void greeting(final String greeting) {
+        }
+    }
+
+    public static class DuplicatePostConstruct {
+        @PostConstruct
+        void init() {
+        }
+
+        @PostConstruct
+        void start() {
+        }
+    }
+}
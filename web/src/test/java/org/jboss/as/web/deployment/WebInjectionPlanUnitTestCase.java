@@ -0,0 +1,195 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.web.deployment;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.jboss.as.deployment.managedbean.container.FieldResourceInjection;
+import org.jboss.as.deployment.managedbean.container.MethodResourceInjection;
+import org.jboss.as.deployment.managedbean.container.ResourceInjection;
+import org.jboss.msc.value.Values;
+
+public class WebInjectionPlanUnitTestCase extends TestCase {
+
+    private Map<Class<?>, WebInjectionPlan.ClassInjections> declaredInjections;
+
+    protected void setUp() throws Exception {
+        declaredInjections = new HashMap<Class<?>, WebInjectionPlan.ClassInjections>();
+        final Method setGreeting = BaseServlet.class.getDeclaredMethod("setGreeting", String.class);
+        final List<ResourceInjection<?>> baseInjections = Collections.<ResourceInjection<?>>singletonList(
+                new MethodResourceInjection<String>(Values.immediateValue(setGreeting), Values.immediateValue("hello"), false));
+        declaredInjections.put(BaseServlet.class, new WebInjectionPlan.ClassInjections(baseInjections,
+                accessible(BaseServlet.class.getDeclaredMethod("baseInit")), accessible(BaseServlet.class.getDeclaredMethod("baseDestroy"))));
+        final Field name = ChildServlet.class.getDeclaredField("name");
+        name.setAccessible(true);
+        final List<ResourceInjection<?>> childInjections = Collections.<ResourceInjection<?>>singletonList(
+                new FieldResourceInjection<String>(Values.immediateValue(name), Values.immediateValue("world"), false));
+        declaredInjections.put(ChildServlet.class, new WebInjectionPlan.ClassInjections(childInjections,
+                accessible(ChildServlet.class.getDeclaredMethod("childInit")), accessible(ChildServlet.class.getDeclaredMethod("childDestroy"))));
+    }
+
+    public void testFieldAndSetterInjection() throws Exception {
+        final ChildServlet servlet = (ChildServlet) WebInjectionPlan.create(ChildServlet.class, declaredInjections).newInstance();
+        assertEquals("hello", servlet.greeting);
+        assertEquals("world", servlet.name);
+    }
+
+    public void testSuperclassFirst() throws Exception {
+        final WebInjectionPlan plan = WebInjectionPlan.create(ChildServlet.class, declaredInjections);
+        final ChildServlet servlet = (ChildServlet) plan.newInstance();
+        assertEquals(Arrays.asList("base-inject", "base-post-construct hello", "child-post-construct world"), servlet.events);
+        servlet.events.clear();
+        plan.destroy(servlet);
+        assertEquals(Arrays.asList("base-pre-destroy", "child-pre-destroy"), servlet.events);
+    }
+
+    public void testInjectExistingInstance() throws Exception {
+        final ChildServlet servlet = new ChildServlet();
+        WebInjectionPlan.create(ChildServlet.class, declaredInjections).inject(servlet);
+        assertEquals(Arrays.asList("base-inject", "base-post-construct hello", "child-post-construct world"), servlet.events);
+    }
+
+    public void testClassWithoutInjections() throws Exception {
+        final WebInjectionPlan plan = WebInjectionPlan.create(PlainServlet.class, declaredInjections);
+        final PlainServlet servlet = (PlainServlet) plan.newInstance();
+        plan.destroy(servlet);
+        assertNull(servlet.name);
+    }
+
+    public void testPlansAreCached() throws Exception {
+        final WebInjectionContainer container = new WebInjectionContainer(getClass().getClassLoader(), declaredInjections);
+        assertSame(container.getPlan(ChildServlet.class), container.getPlan(ChildServlet.class));
+    }
+
+    public void testJspPlansAreNotCached() throws Exception {
+        final ClassLoader classLoader = getClass().getClassLoader();
+        final WebInjectionContainer container = new WebInjectionContainer(classLoader, declaredInjections);
+        final ClassLoader jspLoader = new JspClassLoader(classLoader);
+        final Class<?> jspClass = jspLoader.loadClass(JspPage.class.getName());
+        assertNotSame(JspPage.class, jspClass);
+        assertNotSame(container.getPlan(jspClass), container.getPlan(jspClass));
+        assertSame(jspClass, container.newInstance(JspPage.class.getName(), jspLoader).getClass());
+    }
+
+    private static Method accessible(final Method method) {
+        method.setAccessible(true);
+        return method;
+    }
+
+    public static class BaseServlet {
+        final List<String> events = new ArrayList<String>();
+        String greeting;
+
+        public void setGreeting(final String greeting) {
+            events.add("base-inject");
+            this.greeting = greeting;
+        }
+
+        void baseInit() {
+            events.add("base-post-construct " + greeting);
+        }
+
+        void baseDestroy() {
+            events.add("base-pre-destroy");
+        }
+    }
+
+    public static class ChildServlet extends BaseServlet {
+        String name;
+
+        void childInit() {
+            events.add("child-post-construct " + name);
+        }
+
+        void childDestroy() {
+            events.add("child-pre-destroy");
+        }
+    }
+
+    public static class PlainServlet {
+        String name;
+    }
+
+    public static class JspPage {
+    }
+
+    /**
+     * Loads {@link JspPage} itself, like the per-page loader of Jasper.
+     */
+    private static class JspClassLoader extends ClassLoader {
+
+        JspClassLoader(final ClassLoader parent) {
+            super(parent);
+        }
+
+        protected synchronized Class<?> loadClass(final String name, final boolean resolve) throws ClassNotFoundException {
+            if (!name.equals(JspPage.class.getName())) {
+                return super.loadClass(name, resolve);
+            }
+            Class<?> loaded = findLoadedClass(name);
+            if (loaded == null) {
+                final byte[] bytes;
+                try {
+                    bytes = readClass(name);
+                } catch (IOException e) {
+                    throw new ClassNotFoundException(name, e);
+                }
+                loaded = defineClass(name, bytes, 0, bytes.length);
+            }
+            if (resolve) {
+                resolveClass(loaded);
+            }
+            return loaded;
+        }
+
+        private byte[] readClass(final String name) throws IOException {
+            final InputStream in = getParent().getResourceAsStream(name.replace('.', '/') + ".class");
+            if (in == null) {
+                throw new IOException("No class file for " + name);
+            }
+            try {
+                final ByteArrayOutputStream out = new ByteArrayOutputStream();
+                final byte[] buffer = new byte[4096];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+                return out.toByteArray();
+            } finally {
+                in.close();
+            }
+        }
+    }
+}